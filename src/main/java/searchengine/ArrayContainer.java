@@ -0,0 +1,135 @@
+package searchengine;
+
+import java.util.Arrays;
+
+/**
+ * The {@code ArrayContainer} class stores the values of a sparse {@link Container} as a
+ * sorted array of at most {@value #MAX_SIZE} values. At that size it takes as much space
+ * as a {@link BitmapContainer}.
+ */
+final class ArrayContainer extends Container {
+    /**
+     * The largest number of values an array container holds.
+     */
+    static final int MAX_SIZE = 4096;
+
+    private final char[] values;
+    private final int cardinality;
+
+    /**
+     * Constructs a new {@code ArrayContainer} over sorted, distinct values.
+     *
+     * @param values      the values, in ascending order. The array is used as is.
+     * @param cardinality the number of values used, starting at index 0.
+     */
+    ArrayContainer(char[] values, int cardinality) {
+        this.values = values;
+        this.cardinality = cardinality;
+    }
+
+    @Override
+    int cardinality() {
+        return cardinality;
+    }
+
+    @Override
+    int runCount() {
+        int runs = 0;
+        for (int i = 0; i < cardinality; i++) {
+            if (i == 0 || values[i] != values[i - 1] + 1) {
+                runs++;
+            }
+        }
+        return runs;
+    }
+
+    @Override
+    boolean contains(char value) {
+        return Arrays.binarySearch(values, 0, cardinality, value) >= 0;
+    }
+
+    @Override
+    Container and(Container other) {
+        char[] result = new char[Math.min(cardinality, other.cardinality())];
+        int size = 0;
+        if (other instanceof ArrayContainer) {
+            ArrayContainer array = (ArrayContainer) other;
+            int i = 0;
+            int j = 0;
+            while (i < cardinality && j < array.cardinality) {
+                if (values[i] < array.values[j]) {
+                    i++;
+                } else if (values[i] > array.values[j]) {
+                    j++;
+                } else {
+                    result[size++] = values[i];
+                    i++;
+                    j++;
+                }
+            }
+        } else {
+            for (int i = 0; i < cardinality; i++) {
+                if (other.contains(values[i])) {
+                    result[size++] = values[i];
+                }
+            }
+        }
+        return new ArrayContainer(result, size);
+    }
+
+    @Override
+    Container or(Container other) {
+        if (!(other instanceof ArrayContainer)) {
+            return other.or(this);
+        }
+        ArrayContainer array = (ArrayContainer) other;
+        if (cardinality + array.cardinality > MAX_SIZE) {
+            return toBitmapContainer().or(array);
+        }
+        char[] result = new char[cardinality + array.cardinality];
+        int size = 0;
+        int i = 0;
+        int j = 0;
+        while (i < cardinality || j < array.cardinality) {
+            if (j == array.cardinality || (i < cardinality && values[i] < array.values[j])) {
+                result[size++] = values[i++];
+            } else if (i == cardinality || array.values[j] < values[i]) {
+                result[size++] = array.values[j++];
+            } else {
+                result[size++] = values[i];
+                i++;
+                j++;
+            }
+        }
+        return new ArrayContainer(result, size);
+    }
+
+    @Override
+    Container andNot(Container other) {
+        char[] result = new char[cardinality];
+        int size = 0;
+        for (int i = 0; i < cardinality; i++) {
+            if (!other.contains(values[i])) {
+                result[size++] = values[i];
+            }
+        }
+        return new ArrayContainer(result, size);
+    }
+
+    @Override
+    int fill(int[] out, int offset, int high) {
+        for (int i = 0; i < cardinality; i++) {
+            out[offset++] = high | values[i];
+        }
+        return offset;
+    }
+
+    @Override
+    BitmapContainer toBitmapContainer() {
+        long[] words = new long[BitmapContainer.WORDS];
+        for (int i = 0; i < cardinality; i++) {
+            words[values[i] >>> 6] |= 1L << values[i];
+        }
+        return new BitmapContainer(words, cardinality);
+    }
+}
@@ -0,0 +1,179 @@
+package searchengine;
+
+import java.util.Locale;
+
+/**
+ * Implementation of the {@link ScoringMethod} interface using BM25F, the field-weighted
+ * variant of {@link BM25Scoring}.
+ * <p>
+ * A page has two fields: its body words and its title words. The frequency of a word in
+ * each field is normalized by the field's length relative to the average length of that
+ * field, weighted, and summed into a single pseudo-frequency, which is then saturated
+ * like the frequency in BM25. A match in the title therefore counts as
+ * {@link #TITLE_WEIGHT} matches in an average body, but repeated matches still saturate
+ * across both fields together.
+ * </p>
+ * <p>
+ * Field lengths and average field lengths are read from tables built at index time, so
+ * scoring a word on a page takes constant time.
+ * </p>
+ */
+public class BM25FScoring implements ScoringMethod {
+    /**
+     * How much a word in the title counts compared to the same word in the body.
+     */
+    public static final double TITLE_WEIGHT = 3.0;
+
+    /**
+     * How strongly the body frequency is normalized by the body length, from 0 (not at all)
+     * to 1 (fully).
+     */
+    public static final double BODY_B = BM25Scoring.B;
+
+    /**
+     * How strongly the title frequency is normalized by the title length, from 0 (not at
+     * all) to 1 (fully). Titles vary less in length than bodies, so they are normalized
+     * less.
+     */
+    public static final double TITLE_B = 0.5;
+
+    /**
+     * Constructs a new {@code BM25FScoring} instance.
+     * <p>
+     * This constructor does not require any parameters, as the class does not
+     * have instance-specific fields to initialize.
+     * </p>
+     */
+    public BM25FScoring() {
+
+    }
+
+    /**
+     * Calculates the BM25F score for a given word in the context of a specific page
+     * and the database. The title is split into words like in the title index.
+     *
+     * @param word     The word for which the score is being calculated.
+     * @param page     The page (document) where the word is being evaluated.
+     * @param database The database containing all pages in the corpus.
+     * @return The BM25F score for the word on the specified page. If the word occurs
+     *         neither in the body nor in the title of the page, the score is 0.
+     */
+    @Override
+    public double calculateScore(String word, Page page, Database database) {
+        String title = page.getPage().size() > 1 ? page.getTitle() : null;
+        int titleFrequency = 0;
+        int titleLength = 0;
+        for (String titleWord : TitleIndex.tokenize(title)) {
+            if (titleWord.equals(word.toLowerCase(Locale.ROOT))) {
+                titleFrequency++;
+            }
+            titleLength++;
+        }
+        return score(page.getWordFrequency(word), page.getTotalWords(), titleFrequency, titleLength,
+                database.pagesWithWord(word), database);
+    }
+
+    /**
+     * Calculates the BM25F score for a word on a page from its body frequency only, as if
+     * the word did not occur in the title.
+     *
+     * @param termFrequency The frequency of the word in the body of the page.
+     * @param pagesWithWord The number of pages containing the word.
+     * @param pageId        The ID of the page in the database.
+     * @param database      The database containing all pages in the corpus.
+     * @return The BM25F score for the word on the specified page.
+     */
+    @Override
+    public double calculateScore(int termFrequency, int pagesWithWord, int pageId, Database database) {
+        return calculateScore(termFrequency, 0, pagesWithWord, pageId, database);
+    }
+
+    /**
+     * Calculates the BM25F score for a word on a page from statistics already looked up
+     * in the index, with the field lengths read from {@link Database#getDocumentLength(int)}
+     * and {@link Database#getTitleLength(int)}.
+     *
+     * @param termFrequency  The frequency of the word in the body of the page.
+     * @param titleFrequency The frequency of the word in the title of the page.
+     * @param pagesWithWord  The number of pages containing the word.
+     * @param pageId         The ID of the page in the database.
+     * @param database       The database containing all pages in the corpus.
+     * @return The BM25F score for the word on the specified page, or 0 if the word occurs
+     *         in neither field.
+     */
+    @Override
+    public double calculateScore(int termFrequency, int titleFrequency, int pagesWithWord, int pageId,
+            Database database) {
+        if (termFrequency == 0 && titleFrequency == 0 || pagesWithWord == 0) {
+            return 0;
+        }
+        return score(termFrequency, database.getDocumentLength(pageId), titleFrequency,
+                database.getTitleLength(pageId), pagesWithWord, database);
+    }
+
+    /**
+     * Calculates the BM25F score of a word on a page with the given statistics, which
+     * grows with both frequencies and shrinks with both field lengths.
+     *
+     * @param termFrequency  The frequency of the word in the body of the page.
+     * @param documentLength The number of words in the body of the page.
+     * @param titleFrequency The frequency of the word in the title of the page.
+     * @param titleLength    The number of words in the title of the page.
+     * @param pagesWithWord  The number of pages containing the word.
+     * @param database       The database containing all pages in the corpus.
+     * @return The BM25F score, or 0 if the word occurs in neither field.
+     */
+    @Override
+    public double calculateMaxScore(int termFrequency, int documentLength, int titleFrequency, int titleLength,
+            int pagesWithWord, Database database) {
+        return score(termFrequency, documentLength, titleFrequency, titleLength, pagesWithWord, database);
+    }
+
+    /**
+     * Calculates the BM25F score of a word on a page.
+     * <p>
+     * The score is calculated using the following formulas, where N is the number of
+     * pages in the database:
+     * </p>
+     * <ul>
+     * <li><strong>IDF:</strong> log(1 + (N - pagesWithWord + 0.5) / (pagesWithWord + 0.5)),
+     * as in BM25</li>
+     * <li><strong>Field norm:</strong> 1 - b + b * fieldLength / averageFieldLength, with
+     * {@link #BODY_B} or {@link #TITLE_B} as b</li>
+     * <li><strong>Pseudo-frequency:</strong> bodyTf / bodyNorm + TITLE_WEIGHT * titleTf /
+     * titleNorm</li>
+     * <li><strong>BM25F:</strong> IDF * tf * (K1 + 1) / (tf + K1), with the
+     * pseudo-frequency as tf and K1 from {@link BM25Scoring#K1}</li>
+     * </ul>
+     *
+     * @param termFrequency  The frequency of the word in the body.
+     * @param pageLength     The number of words in the body.
+     * @param titleFrequency The frequency of the word in the title.
+     * @param titleLength    The number of words in the title.
+     * @param pagesWithWord  The number of pages containing the word.
+     * @param database       The database containing all pages in the corpus.
+     * @return The BM25F score, or 0 if the word occurs in neither field.
+     */
+    private double score(int termFrequency, int pageLength, int titleFrequency, int titleLength,
+            int pagesWithWord, Database database) {
+        if (termFrequency == 0 && titleFrequency == 0 || pagesWithWord == 0) {
+            return 0;
+        }
+        double idf = Math.log(1 + (database.getTotalPages() - pagesWithWord + 0.5) / (pagesWithWord + 0.5));
+        double frequency = termFrequency / fieldNorm(BODY_B, pageLength, database.getAverageDocumentLength())
+                + TITLE_WEIGHT * titleFrequency / fieldNorm(TITLE_B, titleLength, database.getAverageTitleLength());
+        return idf * frequency * (BM25Scoring.K1 + 1) / (frequency + BM25Scoring.K1);
+    }
+
+    /**
+     * Calculates the length normalization of a field.
+     *
+     * @param b             how strongly the field is normalized.
+     * @param length        the length of the field on the page.
+     * @param averageLength the average length of the field.
+     * @return the factor to divide the field's frequency by.
+     */
+    private static double fieldNorm(double b, int length, double averageLength) {
+        return averageLength == 0 ? 1 : 1 - b + b * length / averageLength;
+    }
+}
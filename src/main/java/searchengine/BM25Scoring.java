@@ -0,0 +1,125 @@
+package searchengine;
+
+/**
+ * Implementation of the {@link ScoringMethod} interface using the Okapi BM25
+ * ranking function.
+ * <p>
+ * Like TF-IDF, BM25 rewards words that occur often on a page and rarely in the
+ * database, but it differs in two ways:
+ * </p>
+ * <ul>
+ * <li><strong>Saturation:</strong> each further occurrence of a word adds less to
+ * the score than the one before, controlled by {@link #K1}.</li>
+ * <li><strong>Length normalization:</strong> the frequency is compared to the
+ * average page length of the database rather than divided by the page length,
+ * controlled by {@link #B}.</li>
+ * </ul>
+ * <p>
+ * Page lengths and the average page length are read from tables built at index
+ * time, so scoring a word on a page takes constant time.
+ * </p>
+ */
+public class BM25Scoring implements ScoringMethod {
+    /**
+     * How quickly the contribution of repeated occurrences of a word saturates.
+     */
+    public static final double K1 = 1.2;
+
+    /**
+     * How strongly the term frequency is normalized by the page length, from 0 (not at
+     * all) to 1 (fully).
+     */
+    public static final double B = 0.75;
+
+    /**
+     * Constructs a new {@code BM25Scoring} instance.
+     * <p>
+     * This constructor does not require any parameters, as the class does not
+     * have instance-specific fields to initialize.
+     * </p>
+     */
+    public BM25Scoring() {
+
+    }
+
+    /**
+     * Calculates the BM25 score for a given word in the context of a specific page
+     * and the database.
+     *
+     * @param word     The word for which the score is being calculated.
+     * @param page     The page (document) where the word is being evaluated.
+     * @param database The database containing all pages in the corpus.
+     * @return The BM25 score for the word on the specified page. If the word does
+     *         not occur on the page, the score is 0.
+     */
+    @Override
+    public double calculateScore(String word, Page page, Database database) {
+        return score(page.getWordFrequency(word), database.pagesWithWord(word), page.getTotalWords(), database);
+    }
+
+    /**
+     * Calculates the BM25 score for a word on a page from statistics already looked up
+     * in the index, with the page length read from {@link Database#getDocumentLength(int)}.
+     *
+     * @param termFrequency The frequency of the word on the page.
+     * @param pagesWithWord The number of pages containing the word.
+     * @param pageId        The ID of the page in the database.
+     * @param database      The database containing all pages in the corpus.
+     * @return The BM25 score for the word on the specified page, or 0 if the word does
+     *         not occur on the page.
+     */
+    @Override
+    public double calculateScore(int termFrequency, int pagesWithWord, int pageId, Database database) {
+        if (termFrequency == 0 || pagesWithWord == 0) {
+            return 0;
+        }
+        return score(termFrequency, pagesWithWord, database.getDocumentLength(pageId), database);
+    }
+
+    /**
+     * Calculates the BM25 score of a word on a page with the given statistics, which
+     * grows with the frequency and shrinks with the page length. The title is not scored.
+     *
+     * @param termFrequency  The frequency of the word on the page.
+     * @param documentLength The number of words on the page.
+     * @param titleFrequency The frequency of the word in the title (unused).
+     * @param titleLength    The number of words in the title (unused).
+     * @param pagesWithWord  The number of pages containing the word.
+     * @param database       The database containing all pages in the corpus.
+     * @return The BM25 score, or 0 if the word does not occur on the page.
+     */
+    @Override
+    public double calculateMaxScore(int termFrequency, int documentLength, int titleFrequency, int titleLength,
+            int pagesWithWord, Database database) {
+        return score(termFrequency, pagesWithWord, documentLength, database);
+    }
+
+    /**
+     * Calculates the BM25 score of a word on a page.
+     * <p>
+     * The score is calculated using the following formulas, where N is the number of
+     * pages in the database:
+     * </p>
+     * <ul>
+     * <li><strong>IDF:</strong> log(1 + (N - pagesWithWord + 0.5) / (pagesWithWord + 0.5)),
+     * which is never negative, even for words on most pages</li>
+     * <li><strong>Length norm:</strong> 1 - B + B * pageLength / averagePageLength</li>
+     * <li><strong>BM25:</strong> IDF * tf * (K1 + 1) / (tf + K1 * lengthNorm)</li>
+     * </ul>
+     *
+     * @param termFrequency The frequency of the word on the page.
+     * @param pagesWithWord The number of pages containing the word.
+     * @param pageLength    The number of words on the page.
+     * @param database      The database containing all pages in the corpus.
+     * @return The BM25 score, or 0 if the word does not occur on the page.
+     */
+    private double score(int termFrequency, int pagesWithWord, int pageLength, Database database) {
+        if (termFrequency == 0 || pagesWithWord == 0) {
+            return 0;
+        }
+        double idf = Math.log(1 + (database.getTotalPages() - pagesWithWord + 0.5) / (pagesWithWord + 0.5));
+        double averageLength = database.getAverageDocumentLength();
+        double lengthNorm = averageLength == 0 ? 1 : 1 - B + B * pageLength / averageLength;
+        return idf * termFrequency * (K1 + 1) / (termFrequency + K1 * lengthNorm);
+    }
+}
@@ -0,0 +1,182 @@
+package searchengine;
+
+/**
+ * The {@code BitmapContainer} class stores the values of a dense {@link Container} as a
+ * bitmap of 65536 bits. Set operations with other bitmaps combine 64 values per
+ * instruction.
+ */
+final class BitmapContainer extends Container {
+    /**
+     * The number of 64-bit words in a bitmap.
+     */
+    static final int WORDS = 1024;
+    /**
+     * The size of a bitmap in bytes.
+     */
+    static final int BYTES = WORDS * 8;
+
+    private final long[] words;
+    private final int cardinality;
+
+    /**
+     * Constructs a new {@code BitmapContainer} over a bitmap.
+     *
+     * @param words       the {@value #WORDS} words of the bitmap. The array is used as is.
+     * @param cardinality the number of bits set in the bitmap.
+     */
+    BitmapContainer(long[] words, int cardinality) {
+        this.words = words;
+        this.cardinality = cardinality;
+    }
+
+    @Override
+    int cardinality() {
+        return cardinality;
+    }
+
+    @Override
+    int runCount() {
+        int runs = 0;
+        long previous = 0;
+        for (long word : words) {
+            runs += Long.bitCount(word & ~((word << 1) | (previous >>> 63)));
+            previous = word;
+        }
+        return runs;
+    }
+
+    @Override
+    boolean contains(char value) {
+        return (words[value >>> 6] & (1L << value)) != 0;
+    }
+
+    @Override
+    Container and(Container other) {
+        if (other instanceof ArrayContainer) {
+            return other.and(this);
+        }
+        long[] otherWords = other.toBitmapContainer().words;
+        long[] result = new long[WORDS];
+        int count = 0;
+        for (int i = 0; i < WORDS; i++) {
+            result[i] = words[i] & otherWords[i];
+            count += Long.bitCount(result[i]);
+        }
+        return new BitmapContainer(result, count);
+    }
+
+    @Override
+    Container or(Container other) {
+        if (other instanceof ArrayContainer) {
+            return withBits((ArrayContainer) other, true);
+        }
+        long[] otherWords = other.toBitmapContainer().words;
+        long[] result = new long[WORDS];
+        int count = 0;
+        for (int i = 0; i < WORDS; i++) {
+            result[i] = words[i] | otherWords[i];
+            count += Long.bitCount(result[i]);
+        }
+        return new BitmapContainer(result, count);
+    }
+
+    @Override
+    Container andNot(Container other) {
+        if (other instanceof ArrayContainer) {
+            return withBits((ArrayContainer) other, false);
+        }
+        long[] otherWords = other.toBitmapContainer().words;
+        long[] result = new long[WORDS];
+        int count = 0;
+        for (int i = 0; i < WORDS; i++) {
+            result[i] = words[i] & ~otherWords[i];
+            count += Long.bitCount(result[i]);
+        }
+        return new BitmapContainer(result, count);
+    }
+
+    /**
+     * Copies the bitmap with the bits of an array container's values set or cleared,
+     * without expanding the array into a bitmap.
+     *
+     * @param array the values to set or clear.
+     * @param set   {@code true} to set the bits; {@code false} to clear them.
+     * @return a new bitmap container.
+     */
+    private BitmapContainer withBits(ArrayContainer array, boolean set) {
+        long[] result = words.clone();
+        int count = cardinality;
+        int[] values = new int[array.cardinality()];
+        array.fill(values, 0, 0);
+        for (int value : values) {
+            long bit = 1L << value;
+            boolean present = (result[value >>> 6] & bit) != 0;
+            if (set && !present) {
+                result[value >>> 6] |= bit;
+                count++;
+            } else if (!set && present) {
+                result[value >>> 6] &= ~bit;
+                count--;
+            }
+        }
+        return new BitmapContainer(result, count);
+    }
+
+    @Override
+    int fill(int[] out, int offset, int high) {
+        for (int i = 0; i < WORDS; i++) {
+            long word = words[i];
+            while (word != 0) {
+                out[offset++] = high | (i << 6) | Long.numberOfTrailingZeros(word);
+                word &= word - 1;
+            }
+        }
+        return offset;
+    }
+
+    @Override
+    BitmapContainer toBitmapContainer() {
+        return this;
+    }
+
+    /**
+     * Converts the bitmap into a sorted array. Should only be used when the bitmap holds
+     * at most {@link ArrayContainer#MAX_SIZE} values.
+     *
+     * @return an array container with the same values.
+     */
+    ArrayContainer toArrayContainer() {
+        char[] values = new char[cardinality];
+        int size = 0;
+        for (int i = 0; i < WORDS; i++) {
+            long word = words[i];
+            while (word != 0) {
+                values[size++] = (char) ((i << 6) | Long.numberOfTrailingZeros(word));
+                word &= word - 1;
+            }
+        }
+        return new ArrayContainer(values, size);
+    }
+
+    /**
+     * Converts the bitmap into a list of runs.
+     *
+     * @return a run container with the same values.
+     */
+    RunContainer toRunContainer() {
+        char[] runs = new char[2 * runCount()];
+        int size = 0;
+        int start = -1;
+        for (int value = 0; value <= WORDS * 64; value++) {
+            boolean set = value < WORDS * 64 && (words[value >>> 6] & (1L << value)) != 0;
+            if (set && start < 0) {
+                start = value;
+            } else if (!set && start >= 0) {
+                runs[size++] = (char) start;
+                runs[size++] = (char) (value - 1 - start);
+                start = -1;
+            }
+        }
+        return new RunContainer(runs, size / 2);
+    }
+}
@@ -0,0 +1,249 @@
+package searchengine;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The {@code BlockPostingsIterator} class iterates over a posting list encoded by
+ * {@link PostingsWriter}. Blocks are decoded one at a time when the iterator enters them,
+ * and the term frequencies of a block are only decoded once {@link #freq()} is called.
+ * {@link #advance(int)} skips whole blocks by their headers without decoding them, and
+ * gallops to the target inside the block it lands in.
+ * <p>
+ * For ranked retrieval, {@link #advanceShallow(int)} moves to the block containing a page
+ * by the headers alone, and {@link #getBlockImpacts(int[], int[])} reads the impacts that
+ * bound the scores of the pages of the block, so a block whose pages cannot reach the
+ * best results is never decoded.
+ * </p>
+ * <p>
+ * The iterator only reads the buffer with absolute reads, so many iterators can share one
+ * buffer, also from different threads.
+ * </p>
+ */
+public class BlockPostingsIterator implements PostingsIterator {
+    private final PostingsCodec codec;
+    private final ByteBuffer buffer;
+    private final int pageCount;
+    private final int[] pageIds = new int[PostingsWriter.BLOCK_SIZE];
+    private final int[] frequencies = new int[PostingsWriter.BLOCK_SIZE];
+    private int position;
+    private int remaining;
+    private int blockBase = -1;
+    private int blockLast = -1;
+    private int blockSize;
+    private int payload;
+    private int impacts;
+    private int frequencyOffset;
+    private boolean pageIdsDecoded;
+    private boolean frequenciesDecoded;
+    private int index = -1;
+    private int pageId = -1;
+
+    /**
+     * Constructs a new {@code BlockPostingsIterator} over an encoded posting list.
+     *
+     * @param codec     the codec the blocks were encoded with.
+     * @param buffer    the buffer holding the encoded list.
+     * @param offset    the offset of the list in the buffer.
+     * @param pageCount the number of pages in the list.
+     */
+    public BlockPostingsIterator(PostingsCodec codec, ByteBuffer buffer, int offset, int pageCount) {
+        this.codec = codec;
+        this.buffer = buffer;
+        this.pageCount = pageCount;
+        position = offset;
+        remaining = pageCount;
+    }
+
+    @Override
+    public int docId() {
+        return pageId;
+    }
+
+    @Override
+    public int next() {
+        if (pageId == NO_MORE_DOCS) {
+            return pageId;
+        }
+        if (index + 1 >= blockSize && !nextBlock()) {
+            return pageId = NO_MORE_DOCS;
+        }
+        index++;
+        decodePageIds();
+        return pageId = pageIds[index];
+    }
+
+    @Override
+    public int advance(int target) {
+        if (pageId >= target) {
+            return pageId;
+        }
+        while (blockLast < target) {
+            if (!nextBlock()) {
+                return pageId = NO_MORE_DOCS;
+            }
+        }
+        decodePageIds();
+        index = gallop(pageIds, index + 1, blockSize, target);
+        return pageId = pageIds[index];
+    }
+
+    /**
+     * Moves to the block that may contain a target page by reading block headers only,
+     * without decoding any block. If the iterator moves, it is placed before the first
+     * page of the block, so {@link #docId()} keeps returning the page it was on until
+     * {@link #next()} or {@link #advance(int)} is called.
+     *
+     * @param target the page to move towards.
+     * @return the last page ID of the block that contains the first page from
+     *         {@code target} on, or {@link #NO_MORE_DOCS} if no page of the list is at
+     *         least {@code target}.
+     */
+    public int advanceShallow(int target) {
+        while (blockLast < target) {
+            if (!nextBlock()) {
+                return NO_MORE_DOCS;
+            }
+        }
+        return blockLast;
+    }
+
+    /**
+     * Decodes the impacts of the current block: the competitive pairs of term frequency
+     * and document length of its pages. Only valid once the iterator has entered a block.
+     *
+     * @param frequencies the array to store the frequency of each pair in, of at least
+     *                    {@link PostingsWriter#BLOCK_SIZE} entries.
+     * @param lengths     the array to store the length of each pair in, of at least
+     *                    {@link PostingsWriter#BLOCK_SIZE} entries.
+     * @return the number of pairs, by ascending length and frequency.
+     */
+    public int getBlockImpacts(int[] frequencies, int[] lengths) {
+        int blockPosition = position;
+        position = impacts;
+        int count = readVInt();
+        int frequency = 0;
+        int length = 0;
+        for (int i = 0; i < count; i++) {
+            frequency += readVInt();
+            length += readVInt();
+            frequencies[i] = frequency;
+            lengths[i] = length;
+        }
+        position = blockPosition;
+        return count;
+    }
+
+    /**
+     * Finds the first value of a sorted range that is at least a target, by galloping:
+     * the step doubles until it passes the target, and the last step is then searched
+     * binarily. The cost grows with the logarithm of the distance moved rather than the
+     * size of the range, so a close target is found in a few comparisons.
+     *
+     * @param values the values, in ascending order within the range.
+     * @param from   the index to start at.
+     * @param to     the index just past the range.
+     * @param target the value to find.
+     * @return the index of the first value from {@code from} on that is at least
+     *         {@code target}, or {@code to} if there is none.
+     */
+    static int gallop(int[] values, int from, int to, int target) {
+        int low = from;
+        int step = 1;
+        while (low < to && values[low] < target) {
+            from = low + 1;
+            low += step;
+            step <<= 1;
+        }
+        int high = Math.min(low, to);
+        while (from < high) {
+            int middle = (from + high) >>> 1;
+            if (values[middle] < target) {
+                from = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return from;
+    }
+
+    @Override
+    public int freq() {
+        if (!frequenciesDecoded) {
+            codec.decode(buffer, frequencyOffset, frequencies, blockSize);
+            frequenciesDecoded = true;
+        }
+        return frequencies[index];
+    }
+
+    @Override
+    public long cost() {
+        return pageCount;
+    }
+
+    /**
+     * Retrieves the position of the current page in the posting list, counting from 0.
+     * It locates data stored for the page alongside the list, such as the positions read
+     * by {@link PositionsReader}. Only valid while the iterator is on a page.
+     *
+     * @return the index of the current page in the posting list.
+     */
+    public int ordinal() {
+        return pageCount - remaining - blockSize + index;
+    }
+
+    /**
+     * Reads the header of the next block and positions the iterator before its first page,
+     * without decoding the block.
+     *
+     * @return {@code true} if there was another block; {@code false} otherwise.
+     */
+    private boolean nextBlock() {
+        if (remaining == 0) {
+            return false;
+        }
+        blockBase = blockLast;
+        blockLast = blockBase + readVInt();
+        int length = readVInt();
+        int impactLength = readVInt();
+        impacts = position;
+        payload = position + impactLength;
+        position = payload + length;
+        blockSize = Math.min(PostingsWriter.BLOCK_SIZE, remaining);
+        remaining -= blockSize;
+        index = -1;
+        pageIdsDecoded = false;
+        frequenciesDecoded = false;
+        return true;
+    }
+
+    /**
+     * Decodes the page IDs of the current block, unless they already are.
+     */
+    private void decodePageIds() {
+        if (pageIdsDecoded) {
+            return;
+        }
+        frequencyOffset = codec.decode(buffer, payload, pageIds, blockSize);
+        int previous = blockBase;
+        for (int i = 0; i < blockSize; i++) {
+            previous += pageIds[i];
+            pageIds[i] = previous;
+        }
+        pageIdsDecoded = true;
+    }
+
+    /**
+     * Reads a variable-byte integer at the current position and moves past it.
+     *
+     * @return the value read.
+     */
+    private int readVInt() {
+        int b = buffer.get(position++);
+        int value = b & 0x7F;
+        for (int shift = 7; b < 0; shift += 7) {
+            b = buffer.get(position++);
+            value |= (b & 0x7F) << shift;
+        }
+        return value;
+    }
+}
@@ -0,0 +1,105 @@
+package searchengine;
+
+import java.util.Arrays;
+
+/**
+ * The {@code ByteList} class is a growable list of bytes used to build encoded posting
+ * lists. Besides single bytes it can append integers in variable-byte form, where each
+ * byte holds seven bits of the value and the high bit marks that more bytes follow.
+ */
+public class ByteList {
+    private byte[] bytes;
+    private int size;
+
+    /**
+     * Constructs a new, empty {@code ByteList}.
+     */
+    public ByteList() {
+        bytes = new byte[64];
+    }
+
+    /**
+     * Appends a single byte to the end of the list.
+     *
+     * @param value the byte to append. Only the lowest eight bits are used.
+     */
+    public void add(int value) {
+        if (size == bytes.length) {
+            grow(size + 1);
+        }
+        bytes[size++] = (byte) value;
+    }
+
+    /**
+     * Appends a non-negative integer in variable-byte form.
+     *
+     * @param value the value to append. Must not be negative.
+     */
+    public void addVInt(int value) {
+        if (size + 5 > bytes.length) {
+            grow(size + 5);
+        }
+        while ((value & ~0x7F) != 0) {
+            bytes[size++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        bytes[size++] = (byte) value;
+    }
+
+    /**
+     * Appends all bytes of another list to the end of this list.
+     *
+     * @param other the list whose bytes to append.
+     */
+    public void addAll(ByteList other) {
+        if (size + other.size > bytes.length) {
+            grow(size + other.size);
+        }
+        System.arraycopy(other.bytes, 0, bytes, size, other.size);
+        size += other.size;
+    }
+
+    /**
+     * Retrieves the number of bytes in the list.
+     *
+     * @return the size of the list.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Removes all bytes from the list, keeping its capacity.
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Copies the bytes of the list into an array.
+     *
+     * @param target the array to copy into.
+     * @param offset the index in {@code target} to copy the first byte to.
+     */
+    public void copyTo(byte[] target, int offset) {
+        System.arraycopy(bytes, 0, target, offset, size);
+    }
+
+    /**
+     * Copies the bytes of the list into a new array of exactly the list's size.
+     *
+     * @return the bytes of the list.
+     */
+    public byte[] toArray() {
+        return Arrays.copyOf(bytes, size);
+    }
+
+    /**
+     * Grows the backing array to hold at least the given number of bytes.
+     *
+     * @param capacity the number of bytes needed.
+     */
+    private void grow(int capacity) {
+        bytes = Arrays.copyOf(bytes, Math.max(capacity, bytes.length * 2));
+    }
+}
@@ -0,0 +1,99 @@
+package searchengine;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * The {@code ConjunctionIterator} class iterates over the pages that are in all of several
+ * posting lists, without decoding the lists in full.
+ * <p>
+ * The lists are ordered by their cost, and the shortest list leads: each of its pages is
+ * a candidate, which the other lists {@link PostingsIterator#advance(int) advance} to in
+ * order of increasing length. As soon as a list moves past the candidate, the lead
+ * advances to the page that list is on, skipping every page in between. Advancing skips
+ * whole blocks of a {@link BlockPostingsIterator} by their headers, so a rare word
+ * intersected with a common one costs about the length of the rare word's list, not the
+ * sum of both.
+ * </p>
+ */
+final class ConjunctionIterator implements PostingsIterator {
+    private final PostingsIterator lead;
+    private final PostingsIterator[] others;
+    private int pageId = -1;
+
+    /**
+     * Constructs a new {@code ConjunctionIterator}.
+     *
+     * @param iterators unpositioned iterators over the lists to intersect.
+     * @throws IllegalArgumentException if {@code iterators} is empty.
+     */
+    ConjunctionIterator(List<PostingsIterator> iterators) {
+        if (iterators.isEmpty()) {
+            throw new IllegalArgumentException("No posting lists to intersect");
+        }
+        List<PostingsIterator> sorted = new ArrayList<>(iterators);
+        sorted.sort(Comparator.comparingLong(PostingsIterator::cost));
+        lead = sorted.get(0);
+        others = sorted.subList(1, sorted.size()).toArray(new PostingsIterator[0]);
+    }
+
+    @Override
+    public int docId() {
+        return pageId;
+    }
+
+    @Override
+    public int next() {
+        return pageId = align(lead.next());
+    }
+
+    @Override
+    public int advance(int target) {
+        if (pageId >= target) {
+            return pageId;
+        }
+        return pageId = align(lead.advance(target));
+    }
+
+    /**
+     * Retrieves the frequency on the current page in the shortest list.
+     *
+     * @return the frequency reported by the leading iterator.
+     */
+    @Override
+    public int freq() {
+        return lead.freq();
+    }
+
+    /**
+     * Estimates the cost of the intersection, which is at most the length of the
+     * shortest list.
+     *
+     * @return the cost of the leading iterator.
+     */
+    @Override
+    public long cost() {
+        return lead.cost();
+    }
+
+    /**
+     * Moves all lists to the first page from a candidate on that is in every list.
+     *
+     * @param candidate the page the leading iterator is on.
+     * @return the first common page, or {@link #NO_MORE_DOCS} if there is none.
+     */
+    private int align(int candidate) {
+        int i = 0;
+        while (candidate != NO_MORE_DOCS && i < others.length) {
+            int pageId = others[i].advance(candidate);
+            if (pageId == candidate) {
+                i++;
+            } else {
+                candidate = lead.advance(pageId);
+                i = 0;
+            }
+        }
+        return candidate;
+    }
+}
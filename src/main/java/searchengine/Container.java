@@ -0,0 +1,104 @@
+package searchengine;
+
+/**
+ * The {@code Container} class is the base of the containers a {@link PageIdSet} stores its
+ * page IDs in. A container holds the lowest 16 bits of the IDs that share the same highest
+ * 16 bits, as {@code char} values, in one of three forms:
+ * <ul>
+ * <li>{@link ArrayContainer}: a sorted array, for sparse containers;</li>
+ * <li>{@link BitmapContainer}: a bitmap of 65536 bits, for dense containers;</li>
+ * <li>{@link RunContainer}: a list of runs of consecutive values, for clustered
+ * containers.</li>
+ * </ul>
+ * Containers are immutable. Set operations return new containers, which are brought into
+ * their smallest form by {@link #optimize(Container)}.
+ */
+abstract class Container {
+
+    /**
+     * Counts the values in the container.
+     *
+     * @return the number of values.
+     */
+    abstract int cardinality();
+
+    /**
+     * Counts the runs of consecutive values in the container.
+     *
+     * @return the number of runs.
+     */
+    abstract int runCount();
+
+    /**
+     * Checks whether the container holds a value.
+     *
+     * @param value the value to look for.
+     * @return {@code true} if the container holds the value; {@code false} otherwise.
+     */
+    abstract boolean contains(char value);
+
+    /**
+     * Intersects this container with another.
+     *
+     * @param other the other container.
+     * @return a container holding the values in both containers.
+     */
+    abstract Container and(Container other);
+
+    /**
+     * Unites this container with another.
+     *
+     * @param other the other container.
+     * @return a container holding the values in either container.
+     */
+    abstract Container or(Container other);
+
+    /**
+     * Removes the values of another container from this one.
+     *
+     * @param other the container whose values to remove.
+     * @return a container holding the values of this container that are not in the other.
+     */
+    abstract Container andNot(Container other);
+
+    /**
+     * Writes the page IDs of the container to an array, in ascending order.
+     *
+     * @param out    the array to write to.
+     * @param offset the index of the first ID to write.
+     * @param high   the highest 16 bits shared by the IDs of the container, already shifted.
+     * @return the index just past the last ID written.
+     */
+    abstract int fill(int[] out, int offset, int high);
+
+    /**
+     * Converts the container into bitmap form.
+     *
+     * @return a bitmap container with the same values.
+     */
+    abstract BitmapContainer toBitmapContainer();
+
+    /**
+     * Brings a container into its smallest form: a run container if its runs take less
+     * space than both other forms, an array container if it holds at most
+     * {@link ArrayContainer#MAX_SIZE} values, and a bitmap container otherwise.
+     *
+     * @param container the container to optimize.
+     * @return the container in its smallest form, or {@code null} if it is empty.
+     */
+    static Container optimize(Container container) {
+        int cardinality = container.cardinality();
+        if (cardinality == 0) {
+            return null;
+        }
+        int arrayBytes = cardinality <= ArrayContainer.MAX_SIZE ? 2 * cardinality : Integer.MAX_VALUE;
+        int runBytes = 4 * container.runCount();
+        if (runBytes < Math.min(arrayBytes, BitmapContainer.BYTES)) {
+            return container instanceof RunContainer ? container : container.toBitmapContainer().toRunContainer();
+        }
+        if (arrayBytes != Integer.MAX_VALUE) {
+            return container instanceof ArrayContainer ? container : container.toBitmapContainer().toArrayContainer();
+        }
+        return container instanceof BitmapContainer ? container : container.toBitmapContainer();
+    }
+}
@@ -0,0 +1,249 @@
+package searchengine;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * The {@code CorpusReader} class streams a corpus file one page record at a time.
+ * A record starts at a line beginning with {@code *PAGE} and runs until the next such
+ * line or the end of the range being read. Lines before the first record are skipped.
+ * <p>
+ * Only the record currently being read is held in memory, so the caller can index it
+ * and let the raw lines go before the next record is requested. A reader can be limited
+ * to a byte range of the file; ranges produced by {@link #split(Path, int)} always start
+ * at a {@code *PAGE} line, so several readers can process one file side by side.
+ * </p>
+ * <p>
+ * Lines are read into a reusable byte buffer and resolved through a {@link TermTable},
+ * so only the first occurrence of a distinct line is decoded. {@link MappedCorpusScanner}
+ * also avoids copying the bytes by scanning a memory mapping of the file.
+ * </p>
+ */
+public class CorpusReader implements PageReader {
+    private static final byte[] PAGE_MARKER = "*PAGE".getBytes(StandardCharsets.UTF_8);
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+    private final long end;
+    private long position;
+    private final TermTable terms;
+    private final IntList record;
+    private byte[] line;
+    private ByteBuffer lineBuffer;
+    private int lineLength;
+    private long lineStart;
+    private boolean pending;
+    private long pendingStart;
+
+    /**
+     * Opens a new {@code CorpusReader} on the whole of the specified corpus file.
+     *
+     * @param path the path to the corpus file.
+     * @throws IOException if the file cannot be opened.
+     */
+    public CorpusReader(Path path) throws IOException {
+        this(path, 0, Files.size(path));
+    }
+
+    /**
+     * Opens a new {@code CorpusReader} on a byte range of the specified corpus file.
+     *
+     * @param path  the path to the corpus file.
+     * @param start the offset of the first byte to read. Should be the start of a line.
+     * @param end   the offset just past the last byte to read.
+     * @throws IOException if the file cannot be opened.
+     */
+    public CorpusReader(Path path, long start, long end) throws IOException {
+        this(path, start, end, false);
+    }
+
+    private CorpusReader(Path path, long start, long end, boolean skipPartialLine) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+        buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        buffer.limit(0);
+        terms = new TermTable();
+        record = new IntList();
+        line = new byte[256];
+        lineBuffer = ByteBuffer.wrap(line);
+        position = start;
+        this.end = end;
+        if (skipPartialLine) {
+            readLineBytes();
+        }
+        advanceToPageStart();
+    }
+
+    /**
+     * Reads the next page record from the corpus.
+     *
+     * @return the term IDs of the lines of the next record, starting with its
+     *         {@code *PAGE} line, or {@code null} if the end of the range has been reached.
+     * @throws IOException if an error occurs while reading the file.
+     */
+    @Override
+    public int[] nextRecord() throws IOException {
+        if (!pending) {
+            return null;
+        }
+        record.clear();
+        record.add(terms.add(lineBuffer, 0, lineLength));
+        while (readLineBytes()) {
+            if (isPageStart()) {
+                pendingStart = lineStart;
+                return record.toArray();
+            }
+            record.add(terms.add(lineBuffer, 0, lineLength));
+        }
+        pending = false;
+        return record.toArray();
+    }
+
+    @Override
+    public String getTerm(int id) {
+        return terms.get(id);
+    }
+
+    @Override
+    public int getTermCount() {
+        return terms.size();
+    }
+
+    /**
+     * Checks whether a line starts a new page record.
+     *
+     * @param line the line to check.
+     * @return {@code true} if the line starts with {@code *PAGE}; {@code false} otherwise.
+     */
+    public static boolean isPageStart(String line) {
+        return line.startsWith("*PAGE");
+    }
+
+    /**
+     * Splits a corpus file into at most the given number of consecutive byte ranges.
+     * Every range except possibly the first starts at a {@code *PAGE} line, so no record
+     * is cut in two. Ranges may be empty if the file has fewer records than parts.
+     *
+     * @param path  the path to the corpus file.
+     * @param parts the number of ranges to produce.
+     * @return {@code parts + 1} ascending offsets; range {@code i} spans from
+     *         {@code boundaries[i]} to {@code boundaries[i + 1]}.
+     * @throws IOException if an error occurs while reading the file.
+     */
+    public static long[] split(Path path, int parts) throws IOException {
+        long size = Files.size(path);
+        long[] boundaries = new long[parts + 1];
+        boundaries[parts] = size;
+        for (int i = 1; i < parts; i++) {
+            long target = Math.max(size * i / parts, boundaries[i - 1]);
+            if (target == 0 || target >= size) {
+                boundaries[i] = target;
+                continue;
+            }
+            try (CorpusReader reader = new CorpusReader(path, target - 1, size, true)) {
+                boundaries[i] = reader.pending ? reader.pendingStart : size;
+            }
+        }
+        return boundaries;
+    }
+
+    /**
+     * Counts the page records in a byte range of the corpus without decoding any lines.
+     *
+     * @param path  the path to the corpus file.
+     * @param start the offset of the first byte of the range.
+     * @param end   the offset just past the last byte of the range.
+     * @return the number of records that a reader on the same range would return.
+     * @throws IOException if an error occurs while reading the file.
+     */
+    public static int countPages(Path path, long start, long end) throws IOException {
+        try (CorpusReader reader = new CorpusReader(path, start, end)) {
+            int pages = reader.pending ? 1 : 0;
+            while (reader.readLineBytes()) {
+                if (reader.isPageStart()) {
+                    pages++;
+                }
+            }
+            return pages;
+        }
+    }
+
+    /**
+     * Closes the underlying file.
+     *
+     * @throws IOException if an error occurs while closing the file.
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private void advanceToPageStart() throws IOException {
+        while (readLineBytes()) {
+            if (isPageStart()) {
+                pending = true;
+                pendingStart = lineStart;
+                return;
+            }
+        }
+        pending = false;
+    }
+
+    private boolean isPageStart() {
+        if (lineLength < PAGE_MARKER.length) {
+            return false;
+        }
+        for (int i = 0; i < PAGE_MARKER.length; i++) {
+            if (line[i] != PAGE_MARKER[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Reads the bytes of the next line into the line buffer, dropping the line terminator.
+     *
+     * @return {@code true} if a line was read; {@code false} at the end of the range.
+     */
+    private boolean readLineBytes() throws IOException {
+        if (position >= end) {
+            return false;
+        }
+        lineStart = position;
+        lineLength = 0;
+        while (position < end) {
+            if (!buffer.hasRemaining() && !fill()) {
+                break;
+            }
+            byte b = buffer.get();
+            position++;
+            if (b == '\n') {
+                break;
+            }
+            if (lineLength == line.length) {
+                line = Arrays.copyOf(line, line.length * 2);
+                lineBuffer = ByteBuffer.wrap(line);
+            }
+            line[lineLength++] = b;
+        }
+        if (lineLength > 0 && line[lineLength - 1] == '\r') {
+            lineLength--;
+        }
+        return true;
+    }
+
+    private boolean fill() throws IOException {
+        buffer.clear();
+        buffer.limit((int) Math.min(BUFFER_SIZE, end - position));
+        int read = channel.read(buffer, position);
+        buffer.flip();
+        return read > 0;
+    }
+}
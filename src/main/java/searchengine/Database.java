@@ -2,47 +2,420 @@ package searchengine;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
-import java.util.HashSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
- * The {@code Database} class represents a data structure for storing and managing an inverted index 
+ * The {@code Database} class represents a data structure for storing and managing an inverted index
  * of web pages. It processes web page data from a file, builds an efficient inverted index,
  * and provides methods to query and retrieve information for search engine functionality.
- * 
- * <p>Errors during initialization are logged but not rethrown, ensuring the application can handle 
+ * <p>
+ * The index is made of immutable {@link Segment}s. Every corpus file added with
+ * {@link #addCorpus(String)} becomes a new segment, which is searchable as soon as the
+ * method returns, so the cost of adding pages is proportional to the new data. Pages are
+ * numbered across segments in the order they were added: the first page of a segment
+ * follows the last page of the segment before it. In the background, a
+ * {@link TieredMergePolicy} merges adjacent segments of similar size, which keeps the
+ * number of segments small without changing any page IDs.
+ * </p>
+ * <p>
+ * The list of segments is replaced as a whole whenever a segment is added or merged, so
+ * a reader that takes {@link #getSegments()} once sees a consistent index.
+ * {@link Page} objects are not kept in the index; they are created on request by
+ * {@link #getPage(int)}.
+ * </p>
+ * <p>
+ * Pages are deleted with {@link #deletePage(String)}, which only marks them in the
+ * {@link LiveDocs} of their segments, and replaced with
+ * {@link #replacePage(String, List)}, which also appends the new version as a segment of
+ * its own. Deleted pages keep their page IDs but are left out of every search from then
+ * on; merges remove them from the posting lists, but their page IDs, and the document
+ * lengths and stored lines of those IDs, stay taken. Deletions are kept in memory only.
+ * </p>
+ *
+ * <p>Errors during initialization are logged but not rethrown, ensuring the application can handle
  * issues gracefully.</p>
  */
 public class Database {
-    private Map<String, Set<Page>> database;
-    private int totalPages; 
+    private final IndexConfig config;
+    private final PostingsCodec codec;
+    private final TieredMergePolicy mergePolicy;
+    private final ExpansionMetrics fuzzyMetrics = new ExpansionMetrics();
+    private final ExpansionMetrics wildcardMetrics = new ExpansionMetrics();
+    private final Object segmentLock = new Object();
+    private volatile SegmentList segments = new SegmentList(List.of());
+    private ExecutorService merger;
+    private Future<?> lastMerge;
+    private Throwable mergeFailure;
 
     /**
      * Constructs a new {@code Database} instance and initializes the inverted index
-     * and page count from the specified file.
+     * and page count from the specified file, using the default {@link IndexConfig}.
      *
      * @param filename the path to the file containing web page data. This file is used
      *                 to build the database and the inverted index.
      * @throws IOException if an error occurs while reading the file.
      */
     public Database(String filename) throws IOException {
-        database = new HashMap<>();
-        initializePages(filename);
+        this(filename, new IndexConfig());
     }
 
     /**
-     * Retrieves the inverted index of the database.
+     * Constructs a new {@code Database} instance and initializes the inverted index
+     * and page count from the specified file. If a snapshot path is configured, the
+     * first segment is loaded from it when it matches the file. See {@link IndexSnapshot}.
+     *
+     * @param filename the path to the file containing web page data. This file is used
+     *                 to build the database and the inverted index.
+     * @param config   the options controlling how the index is built.
+     * @throws IOException if an error occurs while reading the file.
+     */
+    public Database(String filename, IndexConfig config) throws IOException {
+        this.config = config;
+        codec = config.createCodec();
+        mergePolicy = new TieredMergePolicy(config.getMergeFactor(), config.getMinSegmentPages());
+        addSegment(filename, config.getSnapshot());
+    }
+
+    /**
+     * Indexes a corpus file into a new segment and adds it to the database. The pages of
+     * the file are searchable as soon as this method returns and get the page IDs following
+     * the existing pages. Merging the new segment with others happens in the background.
+     * <p>
+     * If snapshots are enabled, the segment is loaded from a snapshot next to the file
+     * when it matches the file, and saved to it after the build otherwise.
+     * </p>
+     *
+     * @param filename the path to the file containing the web page data.
+     * @throws IOException if an error occurs while reading the file.
+     *                     Note: {@code FileNotFoundException} is caught and logged but not rethrown.
+     */
+    public void addCorpus(String filename) throws IOException {
+        addSegment(filename, config.getSnapshot() == null ? null : filename + ".snapshot");
+        scheduleMerges();
+    }
+
+    /**
+     * Indexes a corpus file into a new segment, or loads the segment from a snapshot, and
+     * appends it to the list of segments. See {@link SegmentBuilder#build(Path)}.
+     *
+     * @param filename the path to the file containing the web page data.
+     * @param snapshot the path of the segment's snapshot, or {@code null} for no snapshot.
+     * @throws IOException if an error occurs while reading the file.
+     */
+    private void addSegment(String filename, String snapshot) throws IOException {
+        try {
+            Path path = Paths.get(filename);
+            Path snapshotPath = snapshot == null ? null : Paths.get(snapshot);
+            Segment segment = snapshotPath == null ? null : loadSnapshot(snapshotPath, path);
+            if (segment == null) {
+                segment = new SegmentBuilder(config).build(path);
+                if (snapshotPath != null) {
+                    saveSnapshot(segment, snapshotPath, path);
+                }
+            }
+            if (config.isImpacts()) {
+                segment.getImpactIndex();
+            }
+            synchronized (segmentLock) {
+                List<Segment> updated = new ArrayList<>(segments.segments);
+                updated.add(segment);
+                segments = new SegmentList(updated);
+            }
+        } catch (FileNotFoundException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Loads a segment from a snapshot, if it matches the corpus. A snapshot that cannot be
+     * read is reported and ignored, so the segment is rebuilt from the corpus instead.
+     *
+     * @param snapshot the path of the snapshot file.
+     * @param corpus   the path of the corpus file.
+     * @return the loaded segment, or {@code null} if it must be built.
+     */
+    private Segment loadSnapshot(Path snapshot, Path corpus) {
+        try {
+            return IndexSnapshot.load(snapshot, corpus, codec);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Saves a segment to a snapshot. A failure is reported but does not affect the segment,
+     * which has already been built.
      *
-     * @return a {@link Map} where keys are words and values are sets of
-     *         {@link Page} objects containing those words.
+     * @param segment  the segment to save.
+     * @param snapshot the path of the snapshot file.
+     * @param corpus   the path of the corpus file.
+     */
+    private void saveSnapshot(Segment segment, Path snapshot, Path corpus) {
+        try {
+            IndexSnapshot.write(segment, snapshot, corpus);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Starts a background merge pass, which merges segments until the merge policy finds
+     * nothing more to merge. Merges run one at a time on a single daemon thread; the pass
+     * is kept so {@link #waitForMerges()} can wait for it.
+     */
+    private void scheduleMerges() {
+        synchronized (segmentLock) {
+            if (merger == null) {
+                merger = Executors.newSingleThreadExecutor(runnable -> {
+                    Thread thread = new Thread(runnable, "segment-merger");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            }
+            lastMerge = merger.submit(this::mergeSegments);
+        }
+    }
+
+    /**
+     * Merges segments as chosen by the merge policy until no merge is needed. Only this
+     * method removes segments, and it runs on a single thread, so the merged segments are
+     * still at the same positions when the merged segment is swapped in; segments added in
+     * the meantime are appended after them.
+     * <p>
+     * A failed merge leaves the segments as they were and ends the pass. The failure is
+     * logged and kept until {@link #waitForMerges()} reports it; the next pass tries the
+     * merge again.
+     * </p>
+     */
+    private void mergeSegments() {
+        try {
+            mergeUntilDone();
+        } catch (RuntimeException | Error e) {
+            e.printStackTrace();
+            synchronized (segmentLock) {
+                if (mergeFailure == null) {
+                    mergeFailure = e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Runs the merges of a merge pass, as described by {@link #mergeSegments()}.
      */
-    public Map<String, Set<Page>> getDatabase() {
-        return database;
+    private void mergeUntilDone() {
+        while (true) {
+            List<Segment> current = segments.segments;
+            int[] range = mergePolicy.findMerge(current);
+            if (range == null) {
+                return;
+            }
+            Segment merged = new SegmentBuilder(config).merge(current.subList(range[0], range[1]));
+            if (config.isImpacts()) {
+                merged.getImpactIndex();
+            }
+            synchronized (segmentLock) {
+                // Carry over the pages deleted while the merge ran; deletions wait for this lock.
+                int firstPage = 0;
+                for (Segment segment : current.subList(range[0], range[1])) {
+                    for (int pageId : segment.getDeletedPages()) {
+                        merged.delete(firstPage + pageId);
+                    }
+                    firstPage += segment.getTotalPages();
+                }
+                List<Segment> updated = new ArrayList<>(segments.segments);
+                updated.subList(range[0], range[1]).clear();
+                updated.add(range[0], merged);
+                segments = new SegmentList(updated);
+            }
+        }
+    }
+
+    /**
+     * Deletes all pages with a URL. The pages are left out of every search started after
+     * this method returns; they are removed from the posting lists by a later merge. Each
+     * segment finds the pages of a URL in a map, which it builds on the first deletion.
+     *
+     * @param url the URL of the pages to delete, as on their {@code *PAGE} lines.
+     * @return the number of pages deleted; 0 if no live page has the URL.
+     */
+    public int deletePage(String url) {
+        int deleted;
+        synchronized (segmentLock) {
+            deleted = deletePages(url);
+        }
+        if (deleted > 0) {
+            scheduleMerges();
+        }
+        return deleted;
+    }
+
+    /**
+     * Replaces all pages with a URL by a new page. The new page is indexed into a segment
+     * of its own, which is added in the same step as the old pages are deleted, so every
+     * search sees either the old pages or the new one. It gets the next free page ID.
+     *
+     * @param url   the URL of the page, as on its {@code *PAGE} line.
+     * @param lines the lines of the new page following its {@code *PAGE} line: the title,
+     *              then one word per line.
+     * @return the number of old pages deleted; 0 if the page is new.
+     * @throws IllegalArgumentException if the URL or a line contains a line break, or a line
+     *                                  starts a new page.
+     * @throws IOException              if the page cannot be written to a temporary file.
+     */
+    public int replacePage(String url, List<String> lines) throws IOException {
+        if (url.contains("\n") || url.contains("\r")) {
+            throw new IllegalArgumentException("URL must not contain line breaks");
+        }
+        List<String> page = new ArrayList<>(lines.size() + 1);
+        page.add("*PAGE:" + url);
+        for (String line : lines) {
+            if (line.contains("\n") || line.contains("\r") || line.startsWith("*PAGE")) {
+                throw new IllegalArgumentException("Invalid page line: " + line);
+            }
+            page.add(line);
+        }
+        Path file = Files.createTempFile("page", ".txt");
+        try {
+            Files.write(file, page, StandardCharsets.UTF_8);
+            Segment segment = new SegmentBuilder(config).build(file);
+            if (config.isImpacts()) {
+                segment.getImpactIndex();
+            }
+            int deleted;
+            synchronized (segmentLock) {
+                deleted = deletePages(url);
+                List<Segment> updated = new ArrayList<>(segments.segments);
+                updated.add(segment);
+                segments = new SegmentList(updated);
+            }
+            scheduleMerges();
+            return deleted;
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * Deletes all pages with a URL from the current segments. Must be called while holding
+     * the segment lock, so no merge swaps in a segment that misses the deletions.
+     *
+     * @param url the URL of the pages to delete.
+     * @return the number of pages that were live and are now deleted.
+     */
+    private int deletePages(String url) {
+        int deleted = 0;
+        for (Segment segment : segments.segments) {
+            for (int pageId : segment.getPageIds(url)) {
+                if (segment.delete(pageId)) {
+                    deleted++;
+                }
+            }
+        }
+        return deleted;
+    }
+
+    /**
+     * Checks whether a page has been deleted.
+     *
+     * @param pageId the ID of the page.
+     * @return {@code true} if the page is deleted; {@code false} if it is live.
+     */
+    public boolean isDeleted(int pageId) {
+        SegmentList current = segments;
+        int index = current.indexOf(pageId);
+        return current.segments.get(index).isDeleted(pageId - current.firstPages[index]);
+    }
+
+    /**
+     * Counts the deleted pages of all segments.
+     *
+     * @return the number of deleted pages.
+     */
+    public int getDeletedCount() {
+        int deleted = 0;
+        for (Segment segment : segments.segments) {
+            deleted += segment.getDeletedCount();
+        }
+        return deleted;
+    }
+
+    /**
+     * Waits until all merges scheduled so far have finished, and reports the first merge
+     * that failed since the last call.
+     *
+     * @throws IOException if the waiting thread is interrupted or a merge failed.
+     */
+    public void waitForMerges() throws IOException {
+        Future<?> pending;
+        synchronized (segmentLock) {
+            pending = lastMerge;
+        }
+        if (pending != null) {
+            try {
+                // Passes run in order on one thread, so the last one finishes after all others.
+                pending.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while waiting for merges", e);
+            } catch (ExecutionException e) {
+                throw new IOException("Segment merge failed", e.getCause());
+            }
+        }
+        Throwable failure;
+        synchronized (segmentLock) {
+            failure = mergeFailure;
+            mergeFailure = null;
+        }
+        if (failure != null) {
+            throw new IOException("Segment merge failed", failure);
+        }
+    }
+
+    /**
+     * Retrieves the segments of the index, in page order. The first page of each segment
+     * follows the last page of the segment before it.
+     *
+     * @return an unmodifiable list of the current segments.
+     */
+    public List<Segment> getSegments() {
+        return segments.segments;
+    }
+
+    /**
+     * Checks whether every segment keeps impact-ordered posting lists, as selected by the
+     * {@code impacts} option of the {@link IndexConfig}.
+     *
+     * @return {@code true} if ranked retrieval can read the {@link ImpactIndex} of every
+     *         segment without building it first.
+     */
+    public boolean hasImpactIndex() {
+        return config.isImpacts();
+    }
+
+    /**
+     * Checks whether ranked retrieval may skip pages that cannot reach the best results,
+     * as selected by the {@code pruning} option of the {@link IndexConfig}.
+     *
+     * @return {@code true} if dynamic pruning is enabled.
+     */
+    public boolean isPruning() {
+        return config.isPruning();
     }
 
     /**
@@ -53,55 +426,478 @@ public class Database {
      * @return the number of pages that contain the specified word.
      */
     public int pagesWithWord(String word) {
-        if (database.containsKey(word)) {
-            return database.get(word).size();
-        } else {
-            return 0;
+        int pages = 0;
+        for (Segment segment : segments.segments) {
+            int termId = segment.getTermId(word);
+            if (termId >= 0) {
+                pages += segment.getDocumentFrequency(termId);
+            }
         }
+        return pages;
+    }
+
+    /**
+     * Expands a misspelled word to the words of the index within a number of edits of it.
+     * <p>
+     * A {@link LevenshteinAutomaton} is intersected with the dictionary of every segment,
+     * so only the parts of the dictionaries the automaton can still accept are read. The
+     * closest words are kept first, and among words at the same distance the most common
+     * ones, up to the {@code maxExpansions} option of the {@link IndexConfig}, so the cost
+     * of searching for the expansions stays predictable however many words are close. The
+     * cost of the expansion is recorded in {@link #getFuzzyMetrics()}.
+     * </p>
+     *
+     * @param word     the word to expand.
+     * @param maxEdits the maximum number of inserted, deleted or replaced characters, from
+     *                 0 to {@link LevenshteinAutomaton#MAX_EDITS}.
+     * @return the expansions, closest and most common first; the word itself if it is in
+     *         the index.
+     * @throws IllegalArgumentException if {@code maxEdits} is out of range.
+     */
+    public List<String> expandFuzzy(String word, int maxEdits) {
+        long start = System.nanoTime();
+        LevenshteinAutomaton automaton = new LevenshteinAutomaton(word, maxEdits);
+        // Each term maps to its edit distance and its document frequency in all segments.
+        Map<String, int[]> matches = new HashMap<>();
+        long scanned = 0;
+        for (Segment segment : segments.segments) {
+            LevenshteinAutomaton.Matches segmentMatches = automaton.intersect(segment.getDictionary());
+            int[] termIds = segmentMatches.getTermIds();
+            for (int i = 0; i < termIds.length; i++) {
+                int[] match = matches.computeIfAbsent(segment.getDictionary().getTerm(termIds[i]),
+                        term -> new int[2]);
+                match[0] = segmentMatches.getDistances()[i];
+                match[1] += segment.getDocumentFrequency(termIds[i]);
+            }
+            scanned += segmentMatches.getScanned();
+        }
+        return selectExpansions(matches, scanned, start, fuzzyMetrics);
+    }
+
+    /**
+     * Expands a wildcard word to the words of the index matching it.
+     * <p>
+     * When the pattern starts with literal characters, only the range of each segment's
+     * dictionary starting with them is read. Otherwise the candidates are the terms
+     * containing all k-grams of the literal parts of the pattern, looked up in the
+     * segment's {@link KGramIndex}; only a pattern without any k-gram, such as
+     * {@code *a*}, reads the whole dictionary. The most common words are kept, up to the
+     * {@code maxExpansions} option of the {@link IndexConfig}. The cost of the expansion
+     * is recorded in {@link #getWildcardMetrics()}.
+     * </p>
+     *
+     * @param pattern the word with {@code *} for any sequence of characters.
+     * @return the matching words, most common first.
+     */
+    public List<String> expandWildcard(String pattern) {
+        long start = System.nanoTime();
+        WildcardPattern wildcard = new WildcardPattern(pattern);
+        List<String> grams = wildcard.getGrams(KGramIndex.K);
+        // Each term maps to a distance of 0 and its document frequency in all segments.
+        Map<String, int[]> matches = new HashMap<>();
+        long scanned = 0;
+        for (Segment segment : segments.segments) {
+            TermDictionary dictionary = segment.getDictionary();
+            if (!wildcard.getPrefix().isEmpty() || grams.isEmpty()) {
+                TermDictionary.TermIterator iterator = dictionary.prefixIterator(wildcard.getPrefix());
+                while (iterator.next()) {
+                    scanned++;
+                    addMatch(wildcard, iterator.term(), segment.getDocumentFrequency(iterator.termId()), matches);
+                }
+            } else {
+                for (int termId : segment.getKGramIndex().getCandidates(grams)) {
+                    scanned++;
+                    addMatch(wildcard, dictionary.getTerm(termId), segment.getDocumentFrequency(termId), matches);
+                }
+            }
+        }
+        return selectExpansions(matches, scanned, start, wildcardMetrics);
+    }
+
+    /**
+     * Retrieves the cost of all fuzzy expansions so far.
+     *
+     * @return the metrics of {@link #expandFuzzy(String, int)}.
+     */
+    public ExpansionMetrics getFuzzyMetrics() {
+        return fuzzyMetrics;
+    }
+
+    /**
+     * Retrieves the cost of all wildcard expansions so far.
+     *
+     * @return the metrics of {@link #expandWildcard(String)}.
+     */
+    public ExpansionMetrics getWildcardMetrics() {
+        return wildcardMetrics;
+    }
+
+    /**
+     * Adds a term to the matches of a wildcard expansion if it matches the pattern.
+     *
+     * @param wildcard          the pattern.
+     * @param term              the candidate term.
+     * @param documentFrequency the number of pages of the segment containing the term.
+     * @param matches           the distance and summed document frequency of each match.
+     */
+    private static void addMatch(WildcardPattern wildcard, String term, int documentFrequency,
+            Map<String, int[]> matches) {
+        if (wildcard.matches(term)) {
+            matches.computeIfAbsent(term, t -> new int[2])[1] += documentFrequency;
+        }
+    }
+
+    /**
+     * Orders the matches of an expansion by distance, then by descending document
+     * frequency, keeps at most {@code maxExpansions} of them, and records the cost.
+     *
+     * @param matches the distance and document frequency of each matching term.
+     * @param scanned the number of dictionary terms checked.
+     * @param start   the {@link System#nanoTime()} at which the expansion started.
+     * @param metrics the metrics to record the expansion in.
+     * @return the terms kept.
+     */
+    private List<String> selectExpansions(Map<String, int[]> matches, long scanned, long start,
+            ExpansionMetrics metrics) {
+        List<String> expansions = new ArrayList<>(matches.keySet());
+        expansions.sort(Comparator.comparingInt((String term) -> matches.get(term)[0])
+                .thenComparingInt((String term) -> -matches.get(term)[1])
+                .thenComparing(TermDictionary::compare));
+        if (expansions.size() > config.getMaxExpansions()) {
+            expansions = new ArrayList<>(expansions.subList(0, config.getMaxExpansions()));
+        }
+        metrics.record(scanned, matches.size(), expansions.size(), System.nanoTime() - start);
+        return expansions;
+    }
+
+    /**
+     * Looks up how often a word occurs on a page.
+     *
+     * @param word   the word to look up.
+     * @param pageId the ID of the page.
+     * @return the frequency of the word on the page, or 0 if the page does not contain it.
+     */
+    public int getTermFrequency(String word, int pageId) {
+        SegmentList current = segments;
+        int index = current.indexOf(pageId);
+        Segment segment = current.segments.get(index);
+        int termId = segment.getTermId(word);
+        return termId < 0 ? 0 : segment.getTermFrequency(termId, pageId - current.firstPages[index]);
+    }
+
+    /**
+     * Looks up how often a word occurs on each of a list of pages. The frequencies are
+     * read from the word's posting lists in a single forward pass, so each lookup takes
+     * constant time on average instead of a search of the posting list.
+     *
+     * @param word    the word to look up.
+     * @param pageIds the IDs of the pages, in ascending order.
+     * @return the frequency of the word on each page, in the order of {@code pageIds}.
+     */
+    public int[] getTermFrequencies(String word, int[] pageIds) {
+        SegmentList current = segments;
+        int[] frequencies = new int[pageIds.length];
+        int i = 0;
+        for (int index = 0; index < current.segments.size() && i < pageIds.length; index++) {
+            Segment segment = current.segments.get(index);
+            int firstPage = current.firstPages[index];
+            int endPage = firstPage + segment.getTotalPages();
+            int termId = segment.getTermId(word);
+            PostingsIterator iterator = termId < 0 ? null : segment.getPostingsIterator(termId);
+            for (; i < pageIds.length && pageIds[i] < endPage; i++) {
+                int pageId = pageIds[i] - firstPage;
+                if (iterator != null && iterator.advance(pageId) == pageId) {
+                    frequencies[i] = iterator.freq();
+                }
+            }
+        }
+        return frequencies;
+    }
+
+    /**
+     * Counts the number of pages in the database whose title contains the specified word.
+     * Only the title index of each segment is read.
+     *
+     * @param word the word to search for in the titles, in lower case.
+     * @return the number of pages whose title contains the word.
+     */
+    public int pagesWithTitleWord(String word) {
+        int pages = 0;
+        for (Segment segment : segments.segments) {
+            TitleIndex titles = segment.getTitleIndex();
+            int termId = titles.getTermId(word);
+            if (termId >= 0) {
+                pages += titles.getDocumentFrequency(termId);
+            }
+        }
+        return pages;
+    }
+
+    /**
+     * Looks up how often a word occurs in the title of a page.
+     *
+     * @param word   the word to look up, in lower case.
+     * @param pageId the ID of the page.
+     * @return the frequency of the word in the title, or 0 if the title does not contain it.
+     */
+    public int getTitleTermFrequency(String word, int pageId) {
+        SegmentList current = segments;
+        int index = current.indexOf(pageId);
+        TitleIndex titles = current.segments.get(index).getTitleIndex();
+        int termId = titles.getTermId(word);
+        return termId < 0 ? 0 : titles.getTermFrequency(termId, pageId - current.firstPages[index]);
+    }
+
+    /**
+     * Looks up how often a word occurs in the titles of a list of pages, in a single
+     * forward pass over the word's title posting lists.
+     *
+     * @param word    the word to look up, in lower case.
+     * @param pageIds the IDs of the pages, in ascending order.
+     * @return the frequency of the word in each title, in the order of {@code pageIds}.
+     */
+    public int[] getTitleTermFrequencies(String word, int[] pageIds) {
+        SegmentList current = segments;
+        int[] frequencies = new int[pageIds.length];
+        int i = 0;
+        for (int index = 0; index < current.segments.size() && i < pageIds.length; index++) {
+            TitleIndex titles = current.segments.get(index).getTitleIndex();
+            int firstPage = current.firstPages[index];
+            int endPage = firstPage + current.segments.get(index).getTotalPages();
+            int termId = titles.getTermId(word);
+            int[] postings = termId < 0 ? new int[0] : titles.getPostings(termId);
+            int position = 0;
+            for (; i < pageIds.length && pageIds[i] < endPage; i++) {
+                int pageId = pageIds[i] - firstPage;
+                while (position < postings.length && postings[position] < pageId) {
+                    position++;
+                }
+                if (position < postings.length && postings[position] == pageId) {
+                    frequencies[i] = titles.getFrequencies(termId)[position];
+                }
+            }
+        }
+        return frequencies;
+    }
+
+    /**
+     * Checks whether a page contains a word, including lines that do not count towards
+     * term frequencies, such as its {@code *PAGE} and title lines.
+     *
+     * @param word   the word to look for.
+     * @param pageId the ID of the page.
+     * @return {@code true} if the page contains the word; {@code false} otherwise.
+     */
+    public boolean containsWord(String word, int pageId) {
+        SegmentList current = segments;
+        int index = current.indexOf(pageId);
+        Segment segment = current.segments.get(index);
+        int termId = segment.getTermId(word);
+        return termId >= 0 && segment.containsTerm(termId, pageId - current.firstPages[index]);
+    }
+
+    /**
+     * Retrieves the codec the posting lists are compressed with.
+     *
+     * @return the postings codec.
+     */
+    public PostingsCodec getCodec() {
+        return codec;
+    }
+
+    /**
+     * Retrieves the size of all compressed posting lists together, to compare codecs.
+     *
+     * @return the size of the posting data of all segments in bytes.
+     */
+    public long getPostingsSize() {
+        long size = 0;
+        for (Segment segment : segments.segments) {
+            size += segment.getPostingsSize();
+        }
+        return size;
+    }
+
+    /**
+     * Retrieves the number of words on a page, as counted by {@link Page#getTotalWords()}.
+     *
+     * @param pageId the ID of the page.
+     * @return the number of words on the page.
+     */
+    public int getDocumentLength(int pageId) {
+        SegmentList current = segments;
+        int index = current.indexOf(pageId);
+        return current.segments.get(index).getDocumentLength(pageId - current.firstPages[index]);
+    }
+
+    /**
+     * Retrieves the average number of words per page, for length normalization in
+     * scoring methods such as {@link BM25Scoring}.
+     *
+     * @return the average page length, or 0 if the database has no pages.
+     */
+    public double getAverageDocumentLength() {
+        SegmentList current = segments;
+        return current.totalPages == 0 ? 0 : (double) current.totalDocumentLength / current.totalPages;
+    }
+
+    /**
+     * Retrieves the number of words in the title of a page, as split by the title index.
+     *
+     * @param pageId the ID of the page.
+     * @return the number of title words.
+     */
+    public int getTitleLength(int pageId) {
+        SegmentList current = segments;
+        int index = current.indexOf(pageId);
+        return current.segments.get(index).getTitleIndex().getLength(pageId - current.firstPages[index]);
+    }
+
+    /**
+     * Retrieves the average number of words per title, for length normalization of the
+     * title field in {@link BM25FScoring}.
+     *
+     * @return the average title length, or 0 if the database has no pages.
+     */
+    public double getAverageTitleLength() {
+        SegmentList current = segments;
+        return current.totalPages == 0 ? 0 : (double) current.totalTitleLength / current.totalPages;
+    }
+
+    /**
+     * Retrieves the number of lines in a page record, including its {@code *PAGE} and
+     * title lines.
+     *
+     * @param pageId the ID of the page.
+     * @return the number of lines of the page.
+     */
+    public int getLineCount(int pageId) {
+        SegmentList current = segments;
+        int index = current.indexOf(pageId);
+        return current.segments.get(index).getLineCount(pageId - current.firstPages[index]);
+    }
+
+    /**
+     * Retrieves the URL of a page.
+     *
+     * @param pageId the ID of the page.
+     * @return the URL of the page.
+     */
+    public String getUrl(int pageId) {
+        return getHeaderLine(pageId).substring(6);
+    }
+
+    /**
+     * Retrieves the title of a page, which is the line following its {@code *PAGE} line.
+     *
+     * @param pageId the ID of the page.
+     * @return the title of the page, or {@code null} if the page has no second line.
+     */
+    public String getTitle(int pageId) {
+        SegmentList current = segments;
+        int index = current.indexOf(pageId);
+        return current.segments.get(index).getTitle(pageId - current.firstPages[index]);
+    }
+
+    /**
+     * Retrieves the {@code *PAGE} line of a page.
+     *
+     * @param pageId the ID of the page.
+     * @return the first line of the page.
+     */
+    String getHeaderLine(int pageId) {
+        SegmentList current = segments;
+        int index = current.indexOf(pageId);
+        return current.segments.get(index).getHeaderLine(pageId - current.firstPages[index]);
+    }
+
+    /**
+     * Creates a {@link Page} object for a page in the index.
+     *
+     * @param pageId the ID of the page.
+     * @return a page whose metadata and statistics are read from this database.
+     */
+    public Page getPage(int pageId) {
+        return new IndexedPage(this, pageId);
+    }
+
+    /**
+     * Creates {@link Page} objects for a list of page IDs.
+     *
+     * @param pageIds the IDs of the pages.
+     * @return the pages, in the order of the given IDs.
+     */
+    public List<Page> getPages(int[] pageIds) {
+        List<Page> pages = new ArrayList<>(pageIds.length);
+        for (int pageId : pageIds) {
+            pages.add(getPage(pageId));
+        }
+        return pages;
     }
 
     /**
      * Retrieves the total number of pages in the database.
      * This serves as a helper method for TF-IDF ranking.
-     * 
+     *
      * @return the total amount of pages in the database.
      */
     public int getTotalPages() {
-        return totalPages;
+        return segments.totalPages;
     }
 
     /**
-     * Initializes the database of pages and simultaneously builds the inverted index.
-     * This method reads a file containing web page data, processes each page to extract
-     * its content, and populates a data structure for efficient inverted index-based searching.
-     * Each word in the page content is mapped to the set of {@link Page} objects where it appears.
-     * 
-     * @param filename the path to the file containing the web page data.
-     * @throws IOException if an error occurs while reading the file.
-     *                     Note: {@code FileNotFoundException} is caught and logged but not rethrown.
+     * An immutable list of segments together with the page ID of the first page of each
+     * and the statistics of all segments together.
      */
-    public void initializePages(String filename) throws IOException {
-        try {
-            List<String> lines = Files.readAllLines(Paths.get(filename));
-            int lastIndex = lines.size();
-            for (int i = lines.size() - 1; i >= 0; --i) {
-                if (lines.get(i).startsWith("*PAGE")) {
-                    Page page = new Page(lines.subList(i, lastIndex));
-                    totalPages++; 
-
-                    for (String word : page.getPage()) {
+    private static final class SegmentList {
+        private final List<Segment> segments;
+        private final int[] firstPages;
+        private final int totalPages;
+        private final long totalDocumentLength;
+        private final long totalTitleLength;
 
-                        database.putIfAbsent(word, new HashSet<>());
+        /**
+         * Constructs a new {@code SegmentList}.
+         *
+         * @param segments the segments, in page order.
+         */
+        private SegmentList(List<Segment> segments) {
+            this.segments = Collections.unmodifiableList(new ArrayList<>(segments));
+            firstPages = new int[segments.size()];
+            int pages = 0;
+            long length = 0;
+            long titleLength = 0;
+            for (int i = 0; i < segments.size(); i++) {
+                firstPages[i] = pages;
+                pages += segments.get(i).getTotalPages();
+                length += segments.get(i).getTotalDocumentLength();
+                titleLength += segments.get(i).getTitleIndex().getTotalLength();
+            }
+            totalPages = pages;
+            totalDocumentLength = length;
+            totalTitleLength = titleLength;
+        }
 
-                        if (!database.get(word).contains(page)) { 
-                            database.get(word).add(page);
-                        }
-                    }
-                    lastIndex = i;
-                }
+        /**
+         * Finds the segment holding a page.
+         *
+         * @param pageId the page ID of the page.
+         * @return the index of the segment holding the page.
+         * @throws IndexOutOfBoundsException if no segment holds the page.
+         */
+        private int indexOf(int pageId) {
+            if (pageId < 0 || pageId >= totalPages) {
+                throw new IndexOutOfBoundsException("Page ID out of range: " + pageId);
             }
-        } catch (FileNotFoundException e) {
-            e.printStackTrace();
+            int index = Arrays.binarySearch(firstPages, pageId);
+            if (index < 0) {
+                return -index - 2;
+            }
+            // Empty segments share their first page ID with the segment after them.
+            while (index + 1 < firstPages.length && firstPages[index + 1] == pageId) {
+                index++;
+            }
+            return index;
         }
     }
 }
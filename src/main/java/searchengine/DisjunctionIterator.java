@@ -0,0 +1,133 @@
+package searchengine;
+
+import java.util.List;
+
+/**
+ * The {@code DisjunctionIterator} class iterates over the pages that are in any of several
+ * posting lists, without decoding the lists in full.
+ * <p>
+ * The lists are kept in a binary min-heap ordered by the page they are on, so the root is
+ * always on the current page. Moving on only moves the lists that are on the current
+ * page, and each of them then sinks to its place in the heap, so a page costs about the
+ * logarithm of the number of lists for each list containing it. Lists are dropped from
+ * the heap once they are exhausted.
+ * </p>
+ */
+final class DisjunctionIterator implements PostingsIterator {
+    private final PostingsIterator[] heap;
+    private final long cost;
+    private int size;
+    private int pageId = -1;
+
+    /**
+     * Constructs a new {@code DisjunctionIterator}.
+     *
+     * @param iterators unpositioned iterators over the lists to unite.
+     * @throws IllegalArgumentException if {@code iterators} is empty.
+     */
+    DisjunctionIterator(List<PostingsIterator> iterators) {
+        if (iterators.isEmpty()) {
+            throw new IllegalArgumentException("No posting lists to unite");
+        }
+        heap = iterators.toArray(new PostingsIterator[0]);
+        size = heap.length;
+        long total = 0;
+        for (PostingsIterator iterator : heap) {
+            total += iterator.cost();
+        }
+        cost = total;
+    }
+
+    @Override
+    public int docId() {
+        return pageId;
+    }
+
+    @Override
+    public int next() {
+        if (pageId == NO_MORE_DOCS) {
+            return pageId;
+        }
+        while (size > 0 && heap[0].docId() <= pageId) {
+            heap[0].next();
+            update();
+        }
+        return pageId = size == 0 ? NO_MORE_DOCS : heap[0].docId();
+    }
+
+    @Override
+    public int advance(int target) {
+        if (pageId >= target) {
+            return pageId;
+        }
+        while (size > 0 && heap[0].docId() < target) {
+            heap[0].advance(target);
+            update();
+        }
+        return pageId = size == 0 ? NO_MORE_DOCS : heap[0].docId();
+    }
+
+    /**
+     * Retrieves the summed frequency on the current page of all lists containing it.
+     *
+     * @return the sum of the frequencies of the lists on the current page.
+     */
+    @Override
+    public int freq() {
+        return sumFrequencies(0);
+    }
+
+    /**
+     * Estimates the cost of the union, which is at most the summed length of the lists.
+     *
+     * @return the sum of the costs of the lists.
+     */
+    @Override
+    public long cost() {
+        return cost;
+    }
+
+    /**
+     * Restores the heap after the root has moved, dropping it if it is exhausted.
+     */
+    private void update() {
+        if (heap[0].docId() == NO_MORE_DOCS) {
+            heap[0] = heap[--size];
+            heap[size] = null;
+        }
+        PostingsIterator root = heap[0];
+        int index = 0;
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && heap[child + 1].docId() < heap[child].docId()) {
+                child++;
+            }
+            if (heap[child].docId() >= root.docId()) {
+                break;
+            }
+            heap[index] = heap[child];
+            index = child;
+        }
+        if (size > 0) {
+            heap[index] = root;
+        }
+    }
+
+    /**
+     * Sums the frequencies of the lists on the current page in a subtree of the heap.
+     * Every list below a list past the current page is past it too, so such subtrees
+     * are skipped.
+     *
+     * @param index the index of the root of the subtree.
+     * @return the summed frequency of the lists of the subtree on the current page.
+     */
+    private int sumFrequencies(int index) {
+        if (index >= size || heap[index].docId() != pageId) {
+            return 0;
+        }
+        return heap[index].freq() + sumFrequencies(2 * index + 1) + sumFrequencies(2 * index + 2);
+    }
+}
@@ -0,0 +1,183 @@
+package searchengine;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * The {@code DocumentStore} class keeps the lines of each page that are shown in search
+ * results, its {@code *PAGE} line and title line, as UTF-8 bytes in a single buffer.
+ * <p>
+ * The record of a page is its {@code *PAGE} line, followed by a newline and its title line
+ * if it has one, exactly as the two lines appear in the corpus. Records are stored back to
+ * back, and an offset table gives the start of each record. Lines are only decoded into
+ * strings when they are requested, so only the pages actually returned by a search pay
+ * for a {@code String}. The buffer may be memory-mapped from an {@link IndexSnapshot}.
+ * </p>
+ */
+final class DocumentStore {
+    private static final byte NEWLINE = '\n';
+
+    private final ByteBuffer data;
+    private final int[] offsets;
+
+    /**
+     * Constructs a new {@code DocumentStore}.
+     *
+     * @param data    the records of all pages, back to back, from position 0.
+     * @param offsets the start of the record of each page in {@code data}, followed by the
+     *                end of the last record.
+     */
+    DocumentStore(ByteBuffer data, int[] offsets) {
+        this.data = data;
+        this.offsets = offsets;
+    }
+
+    /**
+     * Appends the record of a page to a buffer of records.
+     *
+     * @param headerLine the {@code *PAGE} line of the page.
+     * @param titleLine  the title line of the page, or {@code null} if it has none.
+     * @param out        the buffer to append the record to.
+     */
+    static void addDocument(String headerLine, String titleLine, ByteList out) {
+        addBytes(headerLine.getBytes(StandardCharsets.UTF_8), out);
+        if (titleLine != null) {
+            out.add(NEWLINE);
+            addBytes(titleLine.getBytes(StandardCharsets.UTF_8), out);
+        }
+    }
+
+    /**
+     * Concatenates document stores, so that the pages of each store follow the pages of
+     * the stores before it.
+     *
+     * @param stores the stores to concatenate, in page order.
+     * @return a store holding the records of all given stores.
+     */
+    static DocumentStore concat(List<DocumentStore> stores) {
+        int pages = 0;
+        int bytes = 0;
+        for (DocumentStore store : stores) {
+            pages += store.size();
+            bytes += store.getDataSize();
+        }
+        byte[] data = new byte[bytes];
+        int[] offsets = new int[pages + 1];
+        int page = 0;
+        int position = 0;
+        for (DocumentStore store : stores) {
+            ByteBuffer source = store.data.duplicate();
+            source.clear();
+            source.get(data, position, store.getDataSize());
+            for (int i = 0; i < store.size(); i++) {
+                offsets[page++] = position + store.offsets[i];
+            }
+            position += store.getDataSize();
+        }
+        offsets[pages] = position;
+        return new DocumentStore(ByteBuffer.wrap(data), offsets);
+    }
+
+    /**
+     * Retrieves the number of pages in the store.
+     *
+     * @return the number of records.
+     */
+    int size() {
+        return offsets.length - 1;
+    }
+
+    /**
+     * Retrieves the total size of all records.
+     *
+     * @return the size of the record data in bytes.
+     */
+    int getDataSize() {
+        return offsets[offsets.length - 1];
+    }
+
+    /**
+     * Retrieves the buffer holding the records, to save it to a snapshot.
+     *
+     * @return the record data.
+     */
+    ByteBuffer getData() {
+        return data;
+    }
+
+    /**
+     * Retrieves the start of each record, to save it to a snapshot.
+     *
+     * @return the record offsets, followed by the end of the last record.
+     */
+    int[] getOffsets() {
+        return offsets;
+    }
+
+    /**
+     * Decodes the {@code *PAGE} line of a page.
+     *
+     * @param pageId the ID of the page in the store.
+     * @return the first line of the page.
+     */
+    String getHeaderLine(int pageId) {
+        int start = offsets[pageId];
+        return decode(start, findNewline(start, offsets[pageId + 1]));
+    }
+
+    /**
+     * Decodes the title line of a page.
+     *
+     * @param pageId the ID of the page in the store.
+     * @return the title line of the page, or {@code null} if the page has no second line.
+     */
+    String getTitle(int pageId) {
+        int end = offsets[pageId + 1];
+        int newline = findNewline(offsets[pageId], end);
+        return newline == end ? null : decode(newline + 1, end);
+    }
+
+    /**
+     * Finds the newline separating the two lines of a record.
+     *
+     * @param start the start of the record.
+     * @param end   the end of the record.
+     * @return the position of the newline, or {@code end} if the record has one line.
+     */
+    private int findNewline(int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (data.get(i) == NEWLINE) {
+                return i;
+            }
+        }
+        return end;
+    }
+
+    /**
+     * Decodes a range of the record data as UTF-8.
+     *
+     * @param start the first byte of the range.
+     * @param end   the byte just past the range.
+     * @return the decoded string.
+     */
+    private String decode(int start, int end) {
+        byte[] bytes = new byte[end - start];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = data.get(start + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Appends bytes to a byte buffer.
+     *
+     * @param bytes the bytes to append.
+     * @param out   the buffer to append to.
+     */
+    private static void addBytes(byte[] bytes, ByteList out) {
+        for (byte value : bytes) {
+            out.add(value);
+        }
+    }
+}
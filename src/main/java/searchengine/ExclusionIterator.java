@@ -0,0 +1,82 @@
+package searchengine;
+
+/**
+ * The {@code ExclusionIterator} class iterates over the pages of one posting list that are
+ * not in another, without decoding the other list in full.
+ * <p>
+ * Every page of the included list is a candidate, which the excluded list
+ * {@link PostingsIterator#advance(int) advances} to. Since both lists only move forwards,
+ * the excluded list is read at most once, and skips whole blocks of a
+ * {@link BlockPostingsIterator} between the candidates, so excluding a common word from a
+ * rare one costs about the length of the rare word's list.
+ * </p>
+ */
+final class ExclusionIterator implements PostingsIterator {
+    private final PostingsIterator include;
+    private final PostingsIterator exclude;
+    private int pageId = -1;
+
+    /**
+     * Constructs a new {@code ExclusionIterator}.
+     *
+     * @param include an unpositioned iterator over the pages to keep.
+     * @param exclude an unpositioned iterator over the pages to remove.
+     */
+    ExclusionIterator(PostingsIterator include, PostingsIterator exclude) {
+        this.include = include;
+        this.exclude = exclude;
+    }
+
+    @Override
+    public int docId() {
+        return pageId;
+    }
+
+    @Override
+    public int next() {
+        return pageId = skipExcluded(include.next());
+    }
+
+    @Override
+    public int advance(int target) {
+        if (pageId >= target) {
+            return pageId;
+        }
+        return pageId = skipExcluded(include.advance(target));
+    }
+
+    /**
+     * Retrieves the frequency on the current page in the included list.
+     *
+     * @return the frequency reported by the included iterator.
+     */
+    @Override
+    public int freq() {
+        return include.freq();
+    }
+
+    /**
+     * Estimates the cost of the difference, which is at most the length of the included
+     * list.
+     *
+     * @return the cost of the included iterator.
+     */
+    @Override
+    public long cost() {
+        return include.cost();
+    }
+
+    /**
+     * Moves the included list past the pages that are in the excluded list.
+     *
+     * @param candidate the page the included iterator is on.
+     * @return the first page from {@code candidate} on that is not excluded, or
+     *         {@link #NO_MORE_DOCS} if there is none.
+     */
+    private int skipExcluded(int candidate) {
+        while (candidate != NO_MORE_DOCS && exclude.advance(candidate) == candidate) {
+            candidate = include.next();
+        }
+        return candidate;
+    }
+}
@@ -0,0 +1,109 @@
+package searchengine;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The {@code ExpansionMetrics} class counts what the expansion of query words into index
+ * terms costs, such as the expansion of fuzzy or wildcard words by {@link Database}. For
+ * every expansion it records how many dictionary terms were checked, how many matched,
+ * how many were kept after the cap on expansions, and how long it took.
+ * <p>
+ * The counters can be updated from several threads at once. They only ever grow, so a
+ * reader computing averages from two getters may see counts from slightly different
+ * moments.
+ * </p>
+ */
+public class ExpansionMetrics {
+    private final LongAdder expansions = new LongAdder();
+    private final LongAdder capped = new LongAdder();
+    private final LongAdder termsScanned = new LongAdder();
+    private final LongAdder termsMatched = new LongAdder();
+    private final LongAdder termsKept = new LongAdder();
+    private final LongAdder nanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Records one expansion.
+     *
+     * @param scanned the number of dictionary terms checked against the query word.
+     * @param matched the number of distinct terms matching the query word.
+     * @param kept    the number of terms kept after the cap on expansions.
+     * @param elapsed the time the expansion took, in nanoseconds.
+     */
+    void record(long scanned, int matched, int kept, long elapsed) {
+        expansions.increment();
+        if (kept < matched) {
+            capped.increment();
+        }
+        termsScanned.add(scanned);
+        termsMatched.add(matched);
+        termsKept.add(kept);
+        nanos.add(elapsed);
+        maxNanos.accumulate(elapsed);
+    }
+
+    /**
+     * Retrieves the number of expansions recorded.
+     *
+     * @return the expansion count.
+     */
+    public long getExpansions() {
+        return expansions.sum();
+    }
+
+    /**
+     * Retrieves the number of expansions that matched more terms than the cap allowed.
+     *
+     * @return the number of capped expansions.
+     */
+    public long getCapped() {
+        return capped.sum();
+    }
+
+    /**
+     * Retrieves the number of dictionary terms checked by all expansions.
+     *
+     * @return the total number of terms scanned.
+     */
+    public long getTermsScanned() {
+        return termsScanned.sum();
+    }
+
+    /**
+     * Retrieves the number of terms matched by all expansions, before the cap.
+     *
+     * @return the total number of matching terms.
+     */
+    public long getTermsMatched() {
+        return termsMatched.sum();
+    }
+
+    /**
+     * Retrieves the number of terms kept by all expansions, after the cap.
+     *
+     * @return the total number of terms searched for.
+     */
+    public long getTermsKept() {
+        return termsKept.sum();
+    }
+
+    /**
+     * Retrieves the average time of an expansion.
+     *
+     * @return the average time in milliseconds, or 0 if nothing was recorded.
+     */
+    public double getAverageMillis() {
+        long count = expansions.sum();
+        return count == 0 ? 0.0 : nanos.sum() / 1e6 / count;
+    }
+
+    /**
+     * Retrieves the time of the slowest expansion.
+     *
+     * @return the longest time in milliseconds, or 0 if nothing was recorded.
+     */
+    public double getMaxMillis() {
+        return maxNanos.get() / 1e6;
+    }
+}
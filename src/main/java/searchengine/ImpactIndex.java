@@ -0,0 +1,253 @@
+package searchengine;
+
+import java.util.Arrays;
+
+/**
+ * The {@code ImpactIndex} class holds the posting lists of a {@link Segment} in impact
+ * order, for reading the best pages of a term first.
+ * <p>
+ * The impact of a posting is the part of its {@link TFIDFScoring} score that depends on
+ * the page: the term frequency divided by the page length. The inverse document
+ * frequency is the same for all postings of a term and depends on every segment of the
+ * database, so it is applied at query time. Impacts are quantized to {@value #LEVELS}
+ * levels: level 0 holds the postings whose term does not count as a word on the page,
+ * and the other levels divide the range from one word in the longest page to 1 into
+ * intervals of equal ratio, so the relative error of a level is the same for rare and
+ * common words.
+ * </p>
+ * <p>
+ * The postings of a term are grouped into blocks of equal level, from the highest level
+ * to the lowest, and the page IDs of a block are in ascending order. The level of a
+ * posting is implied by its block, so only the page IDs are stored.
+ * </p>
+ */
+final class ImpactIndex {
+    /**
+     * The number of impact levels.
+     */
+    static final int LEVELS = 256;
+
+    private final double[] bounds;
+    private final int[] termBlocks;
+    private final byte[] blockLevels;
+    private final int[] blockStarts;
+    private final int[] pageIds;
+
+    /**
+     * Constructs a new {@code ImpactIndex}.
+     *
+     * @param bounds      the lowest impact of each level, and the highest impact after
+     *                    the last level.
+     * @param termBlocks  the index of the first block of each term, and the number of
+     *                    blocks after the last term.
+     * @param blockLevels the impact level of each block.
+     * @param blockStarts the index of the first page ID of each block, and the number of
+     *                    page IDs after the last block.
+     * @param pageIds     the page IDs of all blocks.
+     */
+    private ImpactIndex(double[] bounds, int[] termBlocks, byte[] blockLevels, int[] blockStarts, int[] pageIds) {
+        this.bounds = bounds;
+        this.termBlocks = termBlocks;
+        this.blockLevels = blockLevels;
+        this.blockStarts = blockStarts;
+        this.pageIds = pageIds;
+    }
+
+    /**
+     * Builds the impact-ordered posting lists of a segment. Each posting list is decoded
+     * once and its postings are distributed over the levels by counting. Pages deleted
+     * before the build are left out; pages deleted later must be skipped by the reader.
+     *
+     * @param segment the segment to build the index for.
+     * @return the impact index of the segment.
+     */
+    static ImpactIndex build(Segment segment) {
+        int maxLength = 1;
+        for (int pageId = 0; pageId < segment.getTotalPages(); pageId++) {
+            maxLength = Math.max(maxLength, segment.getDocumentLength(pageId));
+        }
+        double[] bounds = new double[LEVELS + 1];
+        double step = Math.log(maxLength) / (LEVELS - 1);
+        for (int level = 1; level < LEVELS; level++) {
+            bounds[level] = Math.exp((level - LEVELS) * step);
+        }
+        bounds[1] = 1.0 / maxLength;
+        bounds[LEVELS] = 1.0;
+
+        int terms = segment.getDictionary().size();
+        long postings = 0;
+        for (int termId = 0; termId < terms; termId++) {
+            postings += segment.getDocumentFrequency(termId);
+        }
+        int[] termBlocks = new int[terms + 1];
+        IntList levels = new IntList();
+        IntList blockStarts = new IntList();
+        int[] pageIds = new int[(int) postings];
+        int[] counts = new int[LEVELS];
+        IntList termPages = new IntList();
+        IntList termLevels = new IntList();
+        int position = 0;
+        for (int termId = 0; termId < terms; termId++) {
+            termBlocks[termId] = levels.size();
+            termPages.clear();
+            termLevels.clear();
+            Arrays.fill(counts, 0);
+            PostingsIterator iterator = segment.getPostingsIterator(termId);
+            for (int pageId = iterator.next(); pageId != PostingsIterator.NO_MORE_DOCS; pageId = iterator.next()) {
+                int level = getLevel(bounds, step, iterator.freq(), segment.getDocumentLength(pageId));
+                termPages.add(pageId);
+                termLevels.add(level);
+                counts[level]++;
+            }
+            // Turn the counts into the start of each level's block, from the highest level.
+            int start = position;
+            for (int level = LEVELS - 1; level >= 0; level--) {
+                if (counts[level] > 0) {
+                    levels.add(level);
+                    blockStarts.add(start);
+                    int count = counts[level];
+                    counts[level] = start;
+                    start += count;
+                }
+            }
+            for (int i = 0; i < termPages.size(); i++) {
+                pageIds[counts[termLevels.get(i)]++] = termPages.get(i);
+            }
+            position = start;
+        }
+        termBlocks[terms] = levels.size();
+        blockStarts.add(position);
+        byte[] blockLevels = new byte[levels.size()];
+        for (int i = 0; i < blockLevels.length; i++) {
+            blockLevels[i] = (byte) levels.get(i);
+        }
+        return new ImpactIndex(bounds, termBlocks, blockLevels, blockStarts.toArray(),
+                Arrays.copyOf(pageIds, position));
+    }
+
+    /**
+     * Finds the level of the impact of a posting. The level is computed from the
+     * logarithm of the impact and then corrected against the bounds, so that the
+     * impact, computed the same way as by {@link TFIDFScoring}, always lies within the
+     * bounds of its level.
+     *
+     * @param bounds        the bounds of the levels.
+     * @param step          the logarithm of the ratio between the bounds of a level.
+     * @param termFrequency the frequency of the term on the page.
+     * @param length        the number of words on the page.
+     * @return the level of the posting.
+     */
+    private static int getLevel(double[] bounds, double step, int termFrequency, int length) {
+        if (termFrequency == 0) {
+            return 0;
+        }
+        double impact = (double) termFrequency / length;
+        int level = step == 0 ? LEVELS - 1
+                : (int) Math.max(1, Math.min(LEVELS - 1, 1 + Math.floor(Math.log(impact / bounds[1]) / step)));
+        while (level > 1 && impact < bounds[level]) {
+            level--;
+        }
+        while (level < LEVELS - 1 && impact >= bounds[level + 1]) {
+            level++;
+        }
+        return level;
+    }
+
+    /**
+     * Retrieves the lowest impact of a level.
+     *
+     * @param level the impact level.
+     * @return the smallest impact of a posting at this level.
+     */
+    double getLowerBound(int level) {
+        return bounds[level];
+    }
+
+    /**
+     * Retrieves the highest impact of a level.
+     *
+     * @param level the impact level.
+     * @return the largest impact of a posting at this level.
+     */
+    double getUpperBound(int level) {
+        return level == 0 ? 0 : bounds[level + 1];
+    }
+
+    /**
+     * Retrieves the first block of a term.
+     *
+     * @param termId the ID of the term.
+     * @return the index of the block of the term with the highest impact.
+     */
+    int getFirstBlock(int termId) {
+        return termBlocks[termId];
+    }
+
+    /**
+     * Retrieves the end of the blocks of a term.
+     *
+     * @param termId the ID of the term.
+     * @return the index just past the last block of the term.
+     */
+    int getEndBlock(int termId) {
+        return termBlocks[termId + 1];
+    }
+
+    /**
+     * Retrieves the impact level shared by the postings of a block.
+     *
+     * @param block the index of the block.
+     * @return the impact level of the block.
+     */
+    int getLevel(int block) {
+        return blockLevels[block] & 0xFF;
+    }
+
+    /**
+     * Retrieves the position of the first page ID of a block.
+     *
+     * @param block the index of the block.
+     * @return the position of the block's first page ID in {@link #getPageId(int)}.
+     */
+    int getBlockStart(int block) {
+        return blockStarts[block];
+    }
+
+    /**
+     * Retrieves the end of the page IDs of a block.
+     *
+     * @param block the index of the block.
+     * @return the position just past the block's last page ID.
+     */
+    int getBlockEnd(int block) {
+        return blockStarts[block + 1];
+    }
+
+    /**
+     * Retrieves a page ID of a block.
+     *
+     * @param position the position of the page ID, between the start and end of a block.
+     * @return the segment-local page ID.
+     */
+    int getPageId(int position) {
+        return pageIds[position];
+    }
+
+    /**
+     * Retrieves the number of postings in the index.
+     *
+     * @return the number of page IDs stored.
+     */
+    int getPostingsCount() {
+        return pageIds.length;
+    }
+
+    /**
+     * Retrieves the number of blocks in the index.
+     *
+     * @return the number of blocks of all terms.
+     */
+    int getBlockCount() {
+        return blockLevels.length;
+    }
+}
@@ -0,0 +1,217 @@
+package searchengine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * The {@code ImpactSearcher} class finds the pages with the highest {@link TFIDFScoring}
+ * score for a query of single words combined with OR, whose score is the best score of
+ * any of its words, by reading the {@link ImpactIndex} of every segment from the front.
+ * <p>
+ * The blocks of all words in all segments are read score-at-a-time: always the block
+ * whose pages may score highest, which is the upper bound of its impact level times the
+ * inverse document frequency of its word. Every page is a candidate once read, with the
+ * lower bound of its block as a guaranteed score. Reading stops as soon as the best
+ * remaining block scores below the {@code k}-th best guaranteed score, because no page
+ * left unread can then be among the best {@code k}. The candidates are finally scored
+ * exactly from their term frequencies, so the result is the same as scoring and sorting
+ * all matching pages, including the order of pages with equal scores. Deleted pages are
+ * skipped as they are read, before they count towards the {@code k} best.
+ * </p>
+ */
+final class ImpactSearcher {
+    private final Database database;
+    private final List<Segment> segments;
+    private final TFIDFScoring scoring = new TFIDFScoring();
+    private long blocksRead;
+    private long postingsRead;
+
+    /**
+     * Constructs a new {@code ImpactSearcher}.
+     *
+     * @param database the database to search.
+     * @param segments the segments of the database, as returned by
+     *                 {@link Database#getSegments()}.
+     */
+    ImpactSearcher(Database database, List<Segment> segments) {
+        this.database = database;
+        this.segments = segments;
+    }
+
+    /**
+     * Finds the best pages for any of a list of words.
+     *
+     * @param words the words, of which a page must contain at least one.
+     * @param k     the maximum number of pages to find.
+     * @return the IDs of at most {@code k} pages, from the highest to the lowest score,
+     *         and by ascending ID among equal scores.
+     * @throws IllegalArgumentException if {@code k} is negative.
+     */
+    int[] search(List<String> words, int k) {
+        if (k < 0) {
+            throw new IllegalArgumentException("Result count must not be negative: " + k);
+        }
+        List<String> distinct = new ArrayList<>(new LinkedHashSet<>(words));
+        int[] documentFrequencies = new int[distinct.size()];
+        PriorityQueue<Cursor> cursors = new PriorityQueue<>(
+                Comparator.comparingDouble((Cursor cursor) -> cursor.upperBound()).reversed());
+        int[] firstPages = new int[segments.size()];
+        int firstPage = 0;
+        for (int index = 0; index < segments.size(); index++) {
+            firstPages[index] = firstPage;
+            firstPage += segments.get(index).getTotalPages();
+        }
+        for (int w = 0; w < distinct.size(); w++) {
+            documentFrequencies[w] = database.pagesWithWord(distinct.get(w));
+            if (documentFrequencies[w] == 0 || k == 0) {
+                continue;
+            }
+            double idf = Math.log((double) database.getTotalPages() / documentFrequencies[w]);
+            for (int index = 0; index < segments.size(); index++) {
+                int termId = segments.get(index).getTermId(distinct.get(w));
+                if (termId >= 0) {
+                    ImpactIndex impacts = segments.get(index).getImpactIndex();
+                    cursors.add(new Cursor(index, impacts, idf, impacts.getFirstBlock(termId),
+                            impacts.getEndBlock(termId)));
+                }
+            }
+        }
+
+        BitSet[] seen = new BitSet[segments.size()];
+        for (int index = 0; index < seen.length; index++) {
+            seen[index] = new BitSet();
+        }
+        IntList candidates = new IntList();
+        PriorityQueue<Double> best = new PriorityQueue<>();
+        while (!cursors.isEmpty()) {
+            Cursor cursor = cursors.poll();
+            if (best.size() == k && cursor.upperBound() < best.peek()) {
+                break;
+            }
+            double lowerBound = cursor.lowerBound();
+            ImpactIndex impacts = cursor.impacts;
+            blocksRead++;
+            for (int i = impacts.getBlockStart(cursor.block); i < impacts.getBlockEnd(cursor.block); i++) {
+                int pageId = impacts.getPageId(i);
+                postingsRead++;
+                if (!seen[cursor.segment].get(pageId) && !segments.get(cursor.segment).isDeleted(pageId)) {
+                    seen[cursor.segment].set(pageId);
+                    candidates.add(firstPages[cursor.segment] + pageId);
+                    if (best.size() < k) {
+                        best.add(lowerBound);
+                    } else if (lowerBound > best.peek()) {
+                        best.poll();
+                        best.add(lowerBound);
+                    }
+                }
+            }
+            if (++cursor.block < cursor.endBlock) {
+                cursors.add(cursor);
+            }
+        }
+        return rank(candidates.toArray(), distinct, documentFrequencies, k);
+    }
+
+    /**
+     * Scores candidate pages exactly and keeps the best of them.
+     *
+     * @param pageIds             the IDs of the candidate pages.
+     * @param words               the distinct query words.
+     * @param documentFrequencies the number of pages containing each word.
+     * @param k                   the maximum number of pages to keep.
+     * @return the IDs of the best pages, from the highest to the lowest score.
+     */
+    private int[] rank(int[] pageIds, List<String> words, int[] documentFrequencies, int k) {
+        Arrays.sort(pageIds);
+        double[] scores = new double[pageIds.length];
+        for (int w = 0; w < words.size(); w++) {
+            if (documentFrequencies[w] == 0) {
+                continue;
+            }
+            int[] termFrequencies = database.getTermFrequencies(words.get(w), pageIds);
+            for (int i = 0; i < pageIds.length; i++) {
+                scores[i] = Math.max(scores[i], scoring.calculateScore(termFrequencies[i], documentFrequencies[w],
+                        pageIds[i], database));
+            }
+        }
+        Integer[] order = new Integer[pageIds.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingDouble((Integer i) -> scores[i]).reversed());
+        int[] result = new int[Math.min(k, order.length)];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = pageIds[order[i]];
+        }
+        return result;
+    }
+
+    /**
+     * Retrieves the number of blocks read by the searches so far.
+     *
+     * @return the number of blocks read.
+     */
+    long getBlocksRead() {
+        return blocksRead;
+    }
+
+    /**
+     * Retrieves the number of postings read by the searches so far.
+     *
+     * @return the number of page IDs read from the impact index.
+     */
+    long getPostingsRead() {
+        return postingsRead;
+    }
+
+    /**
+     * The position of the search in the blocks of one word in one segment.
+     */
+    private static final class Cursor {
+        private final int segment;
+        private final ImpactIndex impacts;
+        private final double idf;
+        private final int endBlock;
+        private int block;
+
+        /**
+         * Constructs a new {@code Cursor} at the first block of a word.
+         *
+         * @param segment  the index of the segment.
+         * @param impacts  the impact index of the segment.
+         * @param idf      the inverse document frequency of the word in the database.
+         * @param block    the first block of the word.
+         * @param endBlock the index just past the last block of the word.
+         */
+        private Cursor(int segment, ImpactIndex impacts, double idf, int block, int endBlock) {
+            this.segment = segment;
+            this.impacts = impacts;
+            this.idf = idf;
+            this.block = block;
+            this.endBlock = endBlock;
+        }
+
+        /**
+         * Retrieves the highest score of a page of the current block.
+         *
+         * @return the upper bound of the block's impact times the inverse document frequency.
+         */
+        private double upperBound() {
+            return idf * impacts.getUpperBound(impacts.getLevel(block));
+        }
+
+        /**
+         * Retrieves the lowest score of a page of the current block.
+         *
+         * @return the lower bound of the block's impact times the inverse document frequency.
+         */
+        private double lowerBound() {
+            return idf * impacts.getLowerBound(impacts.getLevel(block));
+        }
+    }
+}
@@ -0,0 +1,380 @@
+package searchengine;
+
+import java.util.List;
+
+/**
+ * The {@code IndexConfig} class holds the options that control how a {@link Database}
+ * builds its index. Options are read from {@code key=value} lines, as found after the
+ * corpus path in {@code config.txt}. Blank lines and lines starting with {@code #} are
+ * ignored.
+ * <p>
+ * Supported options:
+ * </p>
+ * <ul>
+ * <li><strong>threads:</strong> the number of worker threads used to build the index.
+ * Defaults to the number of available processors. A value of 1 builds the index on the
+ * calling thread.</li>
+ * <li><strong>reader:</strong> how the corpus file is read. {@code mmap} (the default)
+ * scans a memory mapping of the file with {@link MappedCorpusScanner}; {@code stream}
+ * decodes it line by line with {@link CorpusReader}. Both produce identical indexes.</li>
+ * <li><strong>codec:</strong> how posting lists are compressed. {@code pfor} (the default)
+ * uses {@link PForCodec}; {@code vbyte} uses {@link VByteCodec}.</li>
+ * <li><strong>snapshot:</strong> the path of the binary index snapshot. When set, the index
+ * is loaded from the snapshot if it matches the corpus, and saved to it after a build
+ * otherwise; see {@link IndexSnapshot}. {@code none} disables snapshots. Not set by
+ * default; {@link Main} defaults it to the corpus path followed by {@code .snapshot}.
+ * Corpus files added later get a snapshot next to them whenever snapshots are enabled.</li>
+ * <li><strong>mergeFactor:</strong> how many adjacent segments of similar size are merged
+ * together in the background; see {@link TieredMergePolicy}. Defaults to 4.</li>
+ * <li><strong>minSegmentPages:</strong> the number of pages below which segments are in
+ * the smallest merge tier; see {@link TieredMergePolicy}. Defaults to 1000.</li>
+ * <li><strong>maxExpansions:</strong> the largest number of index terms a fuzzy or wildcard
+ * query word is expanded to; see {@link Database#expandFuzzy(String, int)} and
+ * {@link Database#expandWildcard(String)}. Defaults to 50.</li>
+ * <li><strong>impacts:</strong> {@code true} keeps impact-ordered posting lists next to
+ * every segment, so {@link SearchEngine#searchByImpact(List, boolean, int)} reads the
+ * best TF-IDF pages of single-word queries from the front of the lists; see
+ * {@link ImpactIndex}. Defaults to {@code false}.</li>
+ * <li><strong>pruning:</strong> {@code true} lets ranked retrieval skip pages and whole
+ * blocks of posting lists whose score is bounded below the best pages found so far, by
+ * the competitive impacts of each word and block; see {@link TermImpacts} and
+ * {@link PostingsWriter}. The results are the same either way. Defaults to
+ * {@code true}.</li>
+ * </ul>
+ */
+public class IndexConfig {
+    /**
+     * Reader option value selecting the memory-mapped {@link MappedCorpusScanner}.
+     */
+    public static final String READER_MMAP = "mmap";
+    /**
+     * Reader option value selecting the streaming {@link CorpusReader}.
+     */
+    public static final String READER_STREAM = "stream";
+    /**
+     * Codec option value selecting the {@link VByteCodec}.
+     */
+    public static final String CODEC_VBYTE = "vbyte";
+    /**
+     * Codec option value selecting the {@link PForCodec}.
+     */
+    public static final String CODEC_PFOR = "pfor";
+
+    private int threads;
+    private String reader;
+    private String codec;
+    private String snapshot;
+    private boolean snapshotSet;
+    private int mergeFactor;
+    private int minSegmentPages;
+    private int maxExpansions;
+    private boolean impacts;
+    private boolean pruning;
+
+    /**
+     * Constructs a new {@code IndexConfig} with default values for all options.
+     */
+    public IndexConfig() {
+        threads = Runtime.getRuntime().availableProcessors();
+        reader = READER_MMAP;
+        codec = CODEC_PFOR;
+        mergeFactor = 4;
+        minSegmentPages = 1000;
+        maxExpansions = 50;
+        pruning = true;
+    }
+
+    /**
+     * Parses a list of {@code key=value} option lines into a new {@code IndexConfig}.
+     * Options that are not present keep their default values.
+     *
+     * @param lines the option lines to parse.
+     * @return a new {@code IndexConfig} reflecting the given options.
+     * @throws IllegalArgumentException if a line is malformed, an option is unknown, or
+     *                                  a value is invalid.
+     */
+    public static IndexConfig parse(List<String> lines) {
+        IndexConfig config = new IndexConfig();
+        for (String rawLine : lines) {
+            String line = rawLine.strip();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String[] keyValue = line.split("=", 2);
+            if (keyValue.length != 2) {
+                throw new IllegalArgumentException("Malformed option: " + line);
+            }
+            config.set(keyValue[0].strip(), keyValue[1].strip());
+        }
+        return config;
+    }
+
+    /**
+     * Sets a single option by name.
+     *
+     * @param key   the option name.
+     * @param value the option value.
+     * @throws IllegalArgumentException if the option is unknown or the value is invalid.
+     */
+    public void set(String key, String value) {
+        switch (key) {
+            case "threads":
+                setThreads(Integer.parseInt(value));
+                break;
+            case "reader":
+                setReader(value);
+                break;
+            case "codec":
+                setCodec(value);
+                break;
+            case "mergeFactor":
+                setMergeFactor(Integer.parseInt(value));
+                break;
+            case "minSegmentPages":
+                setMinSegmentPages(Integer.parseInt(value));
+                break;
+            case "maxExpansions":
+                setMaxExpansions(Integer.parseInt(value));
+                break;
+            case "impacts":
+                setImpacts(parseBoolean(key, value));
+                break;
+            case "pruning":
+                setPruning(parseBoolean(key, value));
+                break;
+            case "snapshot":
+                setSnapshot(value.equals("none") ? null : value);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown option: " + key);
+        }
+    }
+
+    /**
+     * Retrieves the number of worker threads used to build the index.
+     *
+     * @return the number of build threads.
+     */
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * Sets the number of worker threads used to build the index.
+     *
+     * @param threads the number of build threads. Must be at least 1.
+     * @throws IllegalArgumentException if {@code threads} is less than 1.
+     */
+    public void setThreads(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Thread count must be at least 1: " + threads);
+        }
+        this.threads = threads;
+    }
+
+    /**
+     * Retrieves the name of the reader used to read the corpus file.
+     *
+     * @return {@link #READER_MMAP} or {@link #READER_STREAM}.
+     */
+    public String getReader() {
+        return reader;
+    }
+
+    /**
+     * Selects the reader used to read the corpus file.
+     *
+     * @param reader {@link #READER_MMAP} or {@link #READER_STREAM}.
+     * @throws IllegalArgumentException if the reader is unknown.
+     */
+    public void setReader(String reader) {
+        if (!READER_MMAP.equals(reader) && !READER_STREAM.equals(reader)) {
+            throw new IllegalArgumentException("Unknown reader: " + reader);
+        }
+        this.reader = reader;
+    }
+
+    /**
+     * Retrieves the name of the codec used to compress posting lists.
+     *
+     * @return {@link #CODEC_PFOR} or {@link #CODEC_VBYTE}.
+     */
+    public String getCodec() {
+        return codec;
+    }
+
+    /**
+     * Selects the codec used to compress posting lists.
+     *
+     * @param codec {@link #CODEC_PFOR} or {@link #CODEC_VBYTE}.
+     * @throws IllegalArgumentException if the codec is unknown.
+     */
+    public void setCodec(String codec) {
+        if (!CODEC_PFOR.equals(codec) && !CODEC_VBYTE.equals(codec)) {
+            throw new IllegalArgumentException("Unknown codec: " + codec);
+        }
+        this.codec = codec;
+    }
+
+    /**
+     * Retrieves the path of the index snapshot.
+     *
+     * @return the snapshot path, or {@code null} if snapshots are disabled.
+     */
+    public String getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Sets the path of the index snapshot.
+     *
+     * @param snapshot the snapshot path, or {@code null} to disable snapshots.
+     * @throws IllegalArgumentException if the path is empty.
+     */
+    public void setSnapshot(String snapshot) {
+        if (snapshot != null && snapshot.isEmpty()) {
+            throw new IllegalArgumentException("Snapshot path must not be empty");
+        }
+        this.snapshot = snapshot;
+        snapshotSet = true;
+    }
+
+    /**
+     * Checks whether the snapshot option was set explicitly, including to {@code none}.
+     *
+     * @return {@code true} if the snapshot option was set; {@code false} otherwise.
+     */
+    public boolean isSnapshotSet() {
+        return snapshotSet;
+    }
+
+    /**
+     * Retrieves the number of adjacent segments merged together.
+     *
+     * @return the merge factor.
+     */
+    public int getMergeFactor() {
+        return mergeFactor;
+    }
+
+    /**
+     * Sets the number of adjacent segments merged together.
+     *
+     * @param mergeFactor the merge factor. Must be at least 2.
+     * @throws IllegalArgumentException if {@code mergeFactor} is less than 2.
+     */
+    public void setMergeFactor(int mergeFactor) {
+        if (mergeFactor < 2) {
+            throw new IllegalArgumentException("Merge factor must be at least 2: " + mergeFactor);
+        }
+        this.mergeFactor = mergeFactor;
+    }
+
+    /**
+     * Retrieves the number of pages below which segments are in the smallest merge tier.
+     *
+     * @return the size of the smallest tier.
+     */
+    public int getMinSegmentPages() {
+        return minSegmentPages;
+    }
+
+    /**
+     * Sets the number of pages below which segments are in the smallest merge tier.
+     *
+     * @param minSegmentPages the size of the smallest tier. Must be at least 1.
+     * @throws IllegalArgumentException if {@code minSegmentPages} is less than 1.
+     */
+    public void setMinSegmentPages(int minSegmentPages) {
+        if (minSegmentPages < 1) {
+            throw new IllegalArgumentException("Minimum segment size must be at least 1: " + minSegmentPages);
+        }
+        this.minSegmentPages = minSegmentPages;
+    }
+
+    /**
+     * Retrieves the largest number of terms a query word is expanded to.
+     *
+     * @return the expansion cap.
+     */
+    public int getMaxExpansions() {
+        return maxExpansions;
+    }
+
+    /**
+     * Sets the largest number of terms a query word is expanded to. Lower values keep
+     * the latency of expanded queries predictable; higher values match more pages.
+     *
+     * @param maxExpansions the expansion cap. Must be at least 1.
+     * @throws IllegalArgumentException if {@code maxExpansions} is less than 1.
+     */
+    public void setMaxExpansions(int maxExpansions) {
+        if (maxExpansions < 1) {
+            throw new IllegalArgumentException("Expansion cap must be at least 1: " + maxExpansions);
+        }
+        this.maxExpansions = maxExpansions;
+    }
+
+    /**
+     * Checks whether impact-ordered posting lists are kept for every segment.
+     *
+     * @return {@code true} if the {@code impacts} option is enabled.
+     */
+    public boolean isImpacts() {
+        return impacts;
+    }
+
+    /**
+     * Enables or disables impact-ordered posting lists. They take about four bytes per
+     * posting, in exchange for reading the best pages of a word first.
+     *
+     * @param impacts {@code true} to keep impact-ordered posting lists.
+     */
+    public void setImpacts(boolean impacts) {
+        this.impacts = impacts;
+    }
+
+    /**
+     * Checks whether ranked retrieval may skip pages that cannot reach the best results.
+     *
+     * @return {@code true} if the {@code pruning} option is enabled.
+     */
+    public boolean isPruning() {
+        return pruning;
+    }
+
+    /**
+     * Enables or disables dynamic pruning of ranked retrieval. Disabling it scores every
+     * matching page, which only helps to measure what pruning saves.
+     *
+     * @param pruning {@code true} to skip pages that cannot reach the best results.
+     */
+    public void setPruning(boolean pruning) {
+        this.pruning = pruning;
+    }
+
+    /**
+     * Parses the value of a boolean option.
+     *
+     * @param key   the option name, for the error message.
+     * @param value {@code true} or {@code false}.
+     * @return the parsed value.
+     * @throws IllegalArgumentException if the value is neither {@code true} nor
+     *                                  {@code false}.
+     */
+    private static boolean parseBoolean(String key, String value) {
+        if (!value.equals("true") && !value.equals("false")) {
+            throw new IllegalArgumentException("Option " + key + " must be true or false: " + value);
+        }
+        return value.equals("true");
+    }
+
+    /**
+     * Creates the codec selected by the {@code codec} option.
+     *
+     * @return a new instance of the selected {@link PostingsCodec}.
+     */
+    public PostingsCodec createCodec() {
+        return CODEC_VBYTE.equals(codec) ? new VByteCodec() : new PForCodec();
+    }
+}
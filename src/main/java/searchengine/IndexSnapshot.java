@@ -0,0 +1,434 @@
+package searchengine;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * The {@code IndexSnapshot} class saves a {@link Segment} built from a corpus file to a binary
+ * file and loads it back, so that a restart does not have to parse the corpus again.
+ * <p>
+ * A snapshot records the size, modification time and CRC32 checksum of the corpus it was
+ * built from, and the codec of its posting lists. It is only used if the corpus still
+ * has the same size and either the same modification time or, if the file was touched,
+ * the same checksum, and if the codec matches the one requested. The compressed
+ * posting lists, the word positions and the {@link DocumentStore} records are
+ * memory-mapped straight from the file instead of being read, and so is the
+ * {@link TermDictionary}. The small {@link TitleIndex} is read into memory, except for
+ * its dictionary.
+ * </p>
+ * <p>
+ * File layout, with all numbers big-endian:
+ * </p>
+ * <ul>
+ * <li>header: magic number, format version, corpus size, corpus modification time,
+ * corpus checksum, codec name, page count, term count, the offset of the document
+ * records, the offset of the word positions, and the offset and length of the posting
+ * data;</li>
+ * <li>the {@link TermDictionary}: the offset of each of its blocks, the size of its
+ * front-coded data, and the data;</li>
+ * <li>the document frequency, posting offset and position offset of every term;</li>
+ * <li>the {@link TermImpacts}: the index of the first pair of every term and the number of
+ * pairs, then the term frequency and the page length of every pair;</li>
+ * <li>the word count and line count of every page;</li>
+ * <li>the offset of every document record, followed by the end of the last one;</li>
+ * <li>the title index: its word count, its dictionary, the document frequency of every word,
+ * the page IDs and frequencies of all words one after another, and the title length of
+ * every page;</li>
+ * <li>the document records;</li>
+ * <li>the word positions;</li>
+ * <li>the compressed posting data, with the impacts of each block in its header.</li>
+ * </ul>
+ */
+public final class IndexSnapshot {
+    private static final int MAGIC = 0x53455358;
+    private static final int VERSION = 7;
+
+    /**
+     * Prevents instantiation; this class only has static methods.
+     */
+    private IndexSnapshot() {
+
+    }
+
+    /**
+     * Writes a segment to a snapshot file. The snapshot is first written to
+     * a temporary file next to the target, and then moved into place, so a crash never
+     * leaves a partial snapshot behind.
+     *
+     * @param segment  the segment to save.
+     * @param snapshot the path of the snapshot file.
+     * @param corpus   the path of the corpus the segment was built from.
+     * @throws IOException if the snapshot cannot be written or the corpus cannot be read.
+     */
+    public static void write(Segment segment, Path snapshot, Path corpus) throws IOException {
+        Path directory = snapshot.toAbsolutePath().getParent();
+        Path temporary = Files.createTempFile(directory, snapshot.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(temporary), 1 << 16))) {
+                writeSegment(segment, out, corpus);
+            }
+            Files.move(temporary, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Loads a segment from a snapshot, if the snapshot exists and matches the corpus and
+     * the codec.
+     *
+     * @param snapshot the path of the snapshot file.
+     * @param corpus   the path of the corpus the segment should be built from.
+     * @param codec    the codec the posting lists must be compressed with.
+     * @return the loaded segment, or {@code null} if the snapshot is missing, out of date,
+     *         or was written with another codec or format version.
+     * @throws IOException if the snapshot or corpus cannot be read, or the snapshot is
+     *                     corrupt.
+     */
+    public static Segment load(Path snapshot, Path corpus, PostingsCodec codec) throws IOException {
+        if (!Files.isRegularFile(snapshot)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.READ)) {
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(channel.size(), 1 << 12));
+            if (header.getInt() != MAGIC) {
+                throw new IOException("Not an index snapshot: " + snapshot);
+            }
+            if (header.getInt() != VERSION) {
+                return null;
+            }
+            long corpusSize = header.getLong();
+            long corpusModified = header.getLong();
+            long corpusChecksum = header.getLong();
+            String codecName = readString(header);
+            if (!codecName.equals(codec.getName()) || corpusSize != Files.size(corpus)) {
+                return null;
+            }
+            if (corpusModified != Files.getLastModifiedTime(corpus).toMillis() && corpusChecksum != checksum(corpus)) {
+                return null;
+            }
+            int totalPages = header.getInt();
+            int termCount = header.getInt();
+            long documentStart = header.getLong();
+            long positionStart = header.getLong();
+            long postingStart = header.getLong();
+            long postingSize = header.getLong();
+            if (documentStart > positionStart || positionStart > postingStart
+                    || postingStart + postingSize != channel.size()) {
+                throw new IOException("Truncated index snapshot: " + snapshot);
+            }
+
+            ByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, documentStart);
+            in.position(header.position());
+            TermDictionary dictionary = readDictionary(in, termCount);
+            int[] documentFrequencies = readInts(in, termCount);
+            int[] postingOffsets = readInts(in, termCount);
+            int[] positionOffsets = readInts(in, termCount);
+            TermImpacts impacts = readImpacts(in, termCount);
+            int[] documentLengths = readInts(in, totalPages);
+            int[] lineCounts = readInts(in, totalPages);
+            int[] documentOffsets = readInts(in, totalPages + 1);
+            if (documentOffsets[totalPages] != positionStart - documentStart) {
+                throw new IOException("Corrupt index snapshot: " + snapshot);
+            }
+            TitleIndex titleIndex = readTitleIndex(in, totalPages);
+            ByteBuffer documentData = channel.map(FileChannel.MapMode.READ_ONLY, documentStart,
+                    positionStart - documentStart);
+            ByteBuffer positionData = channel.map(FileChannel.MapMode.READ_ONLY, positionStart,
+                    postingStart - positionStart);
+            ByteBuffer postingData = channel.map(FileChannel.MapMode.READ_ONLY, postingStart, postingSize);
+            return new Segment(codec, dictionary, postingData, postingOffsets, documentFrequencies,
+                    positionData, positionOffsets, documentLengths, lineCounts,
+                    new DocumentStore(documentData, documentOffsets), titleIndex, impacts);
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            throw new IOException("Corrupt index snapshot: " + snapshot, e);
+        }
+    }
+
+    /**
+     * Writes the header and all sections of a snapshot.
+     *
+     * @param segment the segment to save.
+     * @param out     the stream to write to.
+     * @param corpus  the path of the corpus the segment was built from.
+     * @throws IOException if an error occurs while writing or reading the corpus.
+     */
+    private static void writeSegment(Segment segment, DataOutputStream out, Path corpus) throws IOException {
+        int totalPages = segment.getTotalPages();
+        TermDictionary dictionary = segment.getDictionary();
+        int termCount = dictionary.size();
+        DocumentStore documents = segment.getDocuments();
+        ByteBuffer documentData = documents.getData().duplicate();
+        documentData.clear().limit(documents.getDataSize());
+        ByteBuffer positionData = segment.getPositionData().duplicate();
+        positionData.clear();
+        ByteBuffer postingData = segment.getPostingData().duplicate();
+        postingData.clear();
+
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeLong(Files.size(corpus));
+        out.writeLong(Files.getLastModifiedTime(corpus).toMillis());
+        out.writeLong(checksum(corpus));
+        writeString(out, segment.getCodec().getName());
+        out.writeInt(totalPages);
+        out.writeInt(termCount);
+        long sectionStart = out.size() + 4L * Long.BYTES;
+
+        ByteArrayOutputStream metadata = new ByteArrayOutputStream();
+        DataOutputStream sections = new DataOutputStream(metadata);
+        writeDictionary(sections, dictionary);
+        for (int termId = 0; termId < termCount; termId++) {
+            sections.writeInt(segment.getDocumentFrequency(termId));
+        }
+        for (int termId = 0; termId < termCount; termId++) {
+            sections.writeInt(segment.getPostingOffset(termId));
+        }
+        for (int termId = 0; termId < termCount; termId++) {
+            sections.writeInt(segment.getPositionOffset(termId));
+        }
+        writeImpacts(sections, segment.getTermImpacts());
+        for (int pageId = 0; pageId < totalPages; pageId++) {
+            sections.writeInt(segment.getDocumentLength(pageId));
+        }
+        for (int pageId = 0; pageId < totalPages; pageId++) {
+            sections.writeInt(segment.getLineCount(pageId));
+        }
+        for (int offset : documents.getOffsets()) {
+            sections.writeInt(offset);
+        }
+        writeTitleIndex(sections, segment.getTitleIndex());
+        sections.flush();
+
+        long documentStart = sectionStart + metadata.size();
+        long positionStart = documentStart + documentData.remaining();
+        out.writeLong(documentStart);
+        out.writeLong(positionStart);
+        out.writeLong(positionStart + positionData.remaining());
+        out.writeLong(postingData.remaining());
+        metadata.writeTo(out);
+        byte[] block = new byte[1 << 16];
+        writeBuffer(out, documentData, block);
+        writeBuffer(out, positionData, block);
+        writeBuffer(out, postingData, block);
+    }
+
+    /**
+     * Writes the competitive impacts section of a snapshot.
+     *
+     * @param out     the stream to write to.
+     * @param impacts the impacts to save.
+     * @throws IOException if an error occurs while writing.
+     */
+    private static void writeImpacts(DataOutputStream out, TermImpacts impacts) throws IOException {
+        for (int termId = 0; termId < impacts.size(); termId++) {
+            out.writeInt(impacts.getStart(termId));
+        }
+        out.writeInt(impacts.getPairCount());
+        for (int i = 0; i < impacts.getPairCount(); i++) {
+            out.writeInt(impacts.getFrequency(i));
+        }
+        for (int i = 0; i < impacts.getPairCount(); i++) {
+            out.writeInt(impacts.getLength(i));
+        }
+    }
+
+    /**
+     * Reads the competitive impacts section written by
+     * {@link #writeImpacts(DataOutputStream, TermImpacts)}.
+     *
+     * @param in        the buffer to read from.
+     * @param termCount the number of terms of the segment.
+     * @return the impacts.
+     */
+    private static TermImpacts readImpacts(ByteBuffer in, int termCount) {
+        int[] offsets = readInts(in, termCount + 1);
+        int pairs = offsets[termCount];
+        return new TermImpacts(offsets, readInts(in, pairs), readInts(in, pairs));
+    }
+
+    /**
+     * Writes the title index section of a snapshot.
+     *
+     * @param out    the stream to write to.
+     * @param titles the title index to save.
+     * @throws IOException if an error occurs while writing.
+     */
+    private static void writeTitleIndex(DataOutputStream out, TitleIndex titles) throws IOException {
+        int termCount = titles.size();
+        out.writeInt(termCount);
+        writeDictionary(out, titles.getDictionary());
+        for (int termId = 0; termId < termCount; termId++) {
+            out.writeInt(titles.getDocumentFrequency(termId));
+        }
+        for (int termId = 0; termId < termCount; termId++) {
+            for (int pageId : titles.getPostings(termId)) {
+                out.writeInt(pageId);
+            }
+        }
+        for (int termId = 0; termId < termCount; termId++) {
+            for (int frequency : titles.getFrequencies(termId)) {
+                out.writeInt(frequency);
+            }
+        }
+        for (int pageId = 0; pageId < titles.getTotalPages(); pageId++) {
+            out.writeInt(titles.getLength(pageId));
+        }
+    }
+
+    /**
+     * Reads the title index section written by
+     * {@link #writeTitleIndex(DataOutputStream, TitleIndex)}.
+     *
+     * @param in         the buffer to read from.
+     * @param totalPages the number of pages of the segment.
+     * @return the title index.
+     */
+    private static TitleIndex readTitleIndex(ByteBuffer in, int totalPages) {
+        int termCount = in.getInt();
+        TermDictionary dictionary = readDictionary(in, termCount);
+        int[] documentFrequencies = readInts(in, termCount);
+        int[][] postings = new int[termCount][];
+        for (int termId = 0; termId < termCount; termId++) {
+            postings[termId] = readInts(in, documentFrequencies[termId]);
+        }
+        int[][] frequencies = new int[termCount][];
+        for (int termId = 0; termId < termCount; termId++) {
+            frequencies[termId] = readInts(in, documentFrequencies[termId]);
+        }
+        return new TitleIndex(dictionary, postings, frequencies, readInts(in, totalPages));
+    }
+
+    /**
+     * Writes a term dictionary as its block offsets, the size of its front-coded data, and
+     * the data itself.
+     *
+     * @param out        the stream to write to.
+     * @param dictionary the dictionary to save.
+     * @throws IOException if an error occurs while writing.
+     */
+    private static void writeDictionary(DataOutputStream out, TermDictionary dictionary) throws IOException {
+        for (int offset : dictionary.getBlockOffsets()) {
+            out.writeInt(offset);
+        }
+        ByteBuffer data = dictionary.getData().duplicate();
+        data.clear();
+        out.writeInt(data.remaining());
+        writeBuffer(out, data, new byte[1 << 12]);
+    }
+
+    /**
+     * Reads a term dictionary written by
+     * {@link #writeDictionary(DataOutputStream, TermDictionary)}. The front-coded data is not
+     * copied: the dictionary reads it from a slice of the given buffer.
+     *
+     * @param in        the buffer to read from.
+     * @param termCount the number of terms in the dictionary.
+     * @return the dictionary.
+     */
+    private static TermDictionary readDictionary(ByteBuffer in, int termCount) {
+        int[] blockOffsets = readInts(in, (termCount + TermDictionary.BLOCK_SIZE - 1) / TermDictionary.BLOCK_SIZE);
+        int size = in.getInt();
+        ByteBuffer data = in.slice();
+        data.limit(size);
+        in.position(in.position() + size);
+        return new TermDictionary(data, blockOffsets, termCount);
+    }
+
+    /**
+     * Copies the remaining bytes of a buffer to a stream.
+     *
+     * @param out    the stream to write to.
+     * @param buffer the buffer to copy.
+     * @param block  a scratch array to copy through.
+     * @throws IOException if an error occurs while writing.
+     */
+    private static void writeBuffer(DataOutputStream out, ByteBuffer buffer, byte[] block) throws IOException {
+        while (buffer.hasRemaining()) {
+            int length = Math.min(block.length, buffer.remaining());
+            buffer.get(block, 0, length);
+            out.write(block, 0, length);
+        }
+    }
+
+    /**
+     * Computes the CRC32 checksum of a whole file.
+     *
+     * @param path the file to checksum.
+     * @return the checksum.
+     * @throws IOException if the file cannot be read.
+     */
+    static long checksum(Path path) throws IOException {
+        CRC32 crc = new CRC32();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            while (channel.read(buffer) >= 0) {
+                buffer.flip();
+                crc.update(buffer);
+                buffer.clear();
+            }
+        }
+        return crc.getValue();
+    }
+
+    /**
+     * Writes a string as its UTF-8 length followed by its UTF-8 bytes, or a length of
+     * {@code -1} for {@code null}.
+     *
+     * @param out   the stream to write to.
+     * @param value the string to write, or {@code null}.
+     * @throws IOException if an error occurs while writing.
+     */
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Reads a string written by {@link #writeString(DataOutputStream, String)}.
+     *
+     * @param in the buffer to read from.
+     * @return the string, or {@code null}.
+     */
+    private static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads an array of big-endian ints.
+     *
+     * @param in    the buffer to read from.
+     * @param count the number of ints to read.
+     * @return the ints read.
+     */
+    private static int[] readInts(ByteBuffer in, int count) {
+        int[] values = new int[count];
+        in.asIntBuffer().get(values);
+        in.position(in.position() + count * Integer.BYTES);
+        return values;
+    }
+}
@@ -0,0 +1,103 @@
+package searchengine;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The {@code IndexedPage} class is a {@link Page} that does not hold the content of the page
+ * itself. Its metadata and word statistics are read from the {@link Database} that indexed
+ * it, so creating one only costs an object header and a page ID.
+ * <p>
+ * Word frequencies are looked up by exact term in the index, with the same case rule as
+ * a plain {@link Page}: words only match when their case is the same.
+ * </p>
+ */
+class IndexedPage extends Page {
+    private final Database database;
+
+    /**
+     * Constructs a new {@code IndexedPage} for a page of the given database.
+     *
+     * @param database the database containing the page.
+     * @param id       the ID of the page in the database.
+     */
+    IndexedPage(Database database, int id) {
+        super(null, id);
+        this.database = database;
+    }
+
+    /**
+     * Retrieves the lines of the page that are kept in the index: its {@code *PAGE} line
+     * and, if present, its title line.
+     *
+     * @return the header lines of the page.
+     */
+    @Override
+    public List<String> getPage() {
+        List<String> lines = new ArrayList<>(2);
+        lines.add(database.getHeaderLine(getId()));
+        String title = database.getTitle(getId());
+        if (title != null) {
+            lines.add(title);
+        }
+        return lines;
+    }
+
+    /**
+     * Retrieves the URL of the page from the index.
+     *
+     * @return the URL of the page.
+     */
+    @Override
+    public String getUrl() {
+        return database.getUrl(getId());
+    }
+
+    /**
+     * Retrieves the title of the page from the index.
+     *
+     * @return the title of the page, or {@code null} if the page has no title line.
+     */
+    @Override
+    public String getTitle() {
+        return database.getTitle(getId());
+    }
+
+    /**
+     * Looks up the frequency of the specified word on the page in the index. Words are
+     * matched exactly, including case, like {@link Page#getWordFrequency(String)} does.
+     *
+     * @param word the word to look up.
+     * @return the frequency of the word. Returns 0 if the word is null or empty.
+     */
+    @Override
+    public int getWordFrequency(String word) {
+        if (word == null || word.isEmpty()) {
+            return 0;
+        }
+        return database.getTermFrequency(word, getId());
+    }
+
+    /**
+     * Looks up the total number of words on the page in the index.
+     *
+     * @return the total number of words on the page.
+     */
+    @Override
+    public int getTotalWords() {
+        return database.getDocumentLength(getId());
+    }
+
+    /**
+     * Checks if the page contains the specified search term, using the posting list of the
+     * term.
+     *
+     * @param searchterm the search term to look for.
+     * @return {@code true} if the page contains the search term and has content beyond the
+     *         metadata; {@code false} otherwise.
+     */
+    @Override
+    public boolean containsSearchterm(String searchterm) {
+        return database.getLineCount(getId()) > 2 && database.containsWord(searchterm, getId());
+    }
+}
@@ -0,0 +1,86 @@
+package searchengine;
+
+import java.util.Arrays;
+
+/**
+ * The {@code IntList} class is a growable list of primitive {@code int} values.
+ * It is used while building the index, where boxing every document ID or count into
+ * an {@link Integer} would dominate the cost.
+ */
+public class IntList {
+    private int[] values;
+    private int size;
+
+    /**
+     * Constructs a new, empty {@code IntList}.
+     */
+    public IntList() {
+        this(16);
+    }
+
+    /**
+     * Constructs a new, empty {@code IntList} with room for the given number of values.
+     *
+     * @param capacity the initial capacity.
+     */
+    public IntList(int capacity) {
+        values = new int[Math.max(capacity, 1)];
+    }
+
+    /**
+     * Appends a value to the end of the list.
+     *
+     * @param value the value to append.
+     */
+    public void add(int value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        values[size++] = value;
+    }
+
+    /**
+     * Retrieves the value at the given index.
+     *
+     * @param index the index of the value.
+     * @return the value at the index.
+     */
+    public int get(int index) {
+        return values[index];
+    }
+
+    /**
+     * Replaces the value at the given index.
+     *
+     * @param index the index of the value.
+     * @param value the new value.
+     */
+    public void set(int index, int value) {
+        values[index] = value;
+    }
+
+    /**
+     * Retrieves the number of values in the list.
+     *
+     * @return the size of the list.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Removes all values from the list, keeping its capacity.
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Copies the values of the list into a new array of exactly the list's size.
+     *
+     * @return the values of the list.
+     */
+    public int[] toArray() {
+        return Arrays.copyOf(values, size);
+    }
+}
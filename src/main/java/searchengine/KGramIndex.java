@@ -0,0 +1,138 @@
+package searchengine;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The {@code KGramIndex} class maps every sequence of {@value #K} characters to the terms
+ * of a {@link TermDictionary} containing it. Each term is padded with
+ * {@link #BOUNDARY} on both sides first, so the k-grams at the start and end of a term
+ * are distinct from the same characters elsewhere.
+ * <p>
+ * A wildcard pattern starting with {@code *} has no prefix to bound a range of the
+ * sorted dictionary. Its candidates are instead the terms containing all k-grams of its
+ * literal parts, found by intersecting their term ID lists; the candidates are then
+ * checked against the pattern, since the k-grams may occur in the wrong order.
+ * </p>
+ * <p>
+ * The index is built from the dictionary of a {@link Segment} on the first query that
+ * needs it, and is not saved in snapshots.
+ * </p>
+ */
+final class KGramIndex {
+    /**
+     * The length of the k-grams.
+     */
+    static final int K = 3;
+    /**
+     * The character marking the start and end of a term.
+     */
+    static final char BOUNDARY = '$';
+
+    private static final int[] NO_TERMS = new int[0];
+
+    private final Map<String, int[]> termIds;
+    private final long postings;
+
+    /**
+     * Constructs a new {@code KGramIndex}.
+     *
+     * @param termIds  the sorted term IDs of the terms containing each k-gram.
+     * @param postings the total number of term IDs in all lists.
+     */
+    private KGramIndex(Map<String, int[]> termIds, long postings) {
+        this.termIds = termIds;
+        this.postings = postings;
+    }
+
+    /**
+     * Builds the k-gram index of a dictionary. Terms are visited in order, so every list
+     * of term IDs is sorted as it is built.
+     *
+     * @param dictionary the dictionary to index.
+     * @return the k-gram index.
+     */
+    static KGramIndex build(TermDictionary dictionary) {
+        Map<String, IntList> lists = new HashMap<>();
+        TermDictionary.TermIterator iterator = dictionary.iterator(0, dictionary.size());
+        while (iterator.next()) {
+            String padded = BOUNDARY + iterator.term() + BOUNDARY;
+            for (int start = 0; start + K <= padded.length(); start++) {
+                IntList list = lists.computeIfAbsent(padded.substring(start, start + K), gram -> new IntList(4));
+                // A k-gram occurring twice in a term is listed once.
+                if (list.size() == 0 || list.get(list.size() - 1) != iterator.termId()) {
+                    list.add(iterator.termId());
+                }
+            }
+        }
+        Map<String, int[]> termIds = new HashMap<>(lists.size() * 2);
+        long postings = 0;
+        for (Map.Entry<String, IntList> entry : lists.entrySet()) {
+            termIds.put(entry.getKey(), entry.getValue().toArray());
+            postings += entry.getValue().size();
+        }
+        return new KGramIndex(termIds, postings);
+    }
+
+    /**
+     * Retrieves the terms containing a k-gram.
+     *
+     * @param gram the k-gram.
+     * @return the term IDs in ascending order; empty if no term contains the k-gram. The
+     *         array must not be modified.
+     */
+    int[] getTermIds(String gram) {
+        return termIds.getOrDefault(gram, NO_TERMS);
+    }
+
+    /**
+     * Finds the terms containing all of a list of k-grams. The lists are intersected from
+     * the shortest, whose term IDs are looked up in the others by binary search.
+     *
+     * @param grams the k-grams, as returned by {@link WildcardPattern#getGrams(int)}.
+     * @return the IDs of the terms containing every k-gram, in ascending order.
+     * @throws IllegalArgumentException if {@code grams} is empty.
+     */
+    int[] getCandidates(List<String> grams) {
+        if (grams.isEmpty()) {
+            throw new IllegalArgumentException("At least one k-gram is needed");
+        }
+        int[][] lists = new int[grams.size()][];
+        for (int i = 0; i < lists.length; i++) {
+            lists[i] = getTermIds(grams.get(i));
+        }
+        Arrays.sort(lists, Comparator.comparingInt((int[] list) -> list.length));
+        IntList candidates = new IntList();
+        for (int termId : lists[0]) {
+            boolean inAll = true;
+            for (int i = 1; i < lists.length && inAll; i++) {
+                inAll = Arrays.binarySearch(lists[i], termId) >= 0;
+            }
+            if (inAll) {
+                candidates.add(termId);
+            }
+        }
+        return candidates.toArray();
+    }
+
+    /**
+     * Retrieves the number of distinct k-grams.
+     *
+     * @return the number of term ID lists.
+     */
+    int size() {
+        return termIds.size();
+    }
+
+    /**
+     * Retrieves the total length of all term ID lists, a measure of the memory used.
+     *
+     * @return the number of term IDs stored.
+     */
+    long getPostingsCount() {
+        return postings;
+    }
+}
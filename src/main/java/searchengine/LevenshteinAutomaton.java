@@ -0,0 +1,301 @@
+package searchengine;
+
+import java.util.Arrays;
+
+/**
+ * The {@code LevenshteinAutomaton} class accepts the strings within a maximum number of
+ * edits of a word, where an edit inserts, deletes or replaces one character.
+ * <p>
+ * A state of the automaton is a row of the edit distance table: for every prefix of the
+ * word, the edit distance between that prefix and the characters read so far, capped at
+ * one more than the maximum. Reading a character computes the next row from the current
+ * one in time linear in the length of the word. A state is dead when every entry exceeds
+ * the maximum, because no continuation can be accepted any more.
+ * </p>
+ * <p>
+ * {@link #intersect(TermDictionary)} runs the automaton over a sorted dictionary. Terms
+ * sharing a prefix with the term before them reuse its states. As soon as a prefix leads
+ * to a dead state, the iterator seeks to the smallest string the automaton may still
+ * accept with {@link TermDictionary.TermIterator#seekCeiling(String)}, so only the parts
+ * of the dictionary around the accepted terms are read.
+ * </p>
+ */
+final class LevenshteinAutomaton {
+    /**
+     * The largest supported number of edits. Beyond two edits, most short words match a
+     * large part of the vocabulary.
+     */
+    static final int MAX_EDITS = 2;
+
+    private final String word;
+    private final int maxEdits;
+
+    /**
+     * Constructs a new {@code LevenshteinAutomaton}.
+     *
+     * @param word     the word to match.
+     * @param maxEdits the maximum number of edits, from 0 to {@link #MAX_EDITS}.
+     * @throws IllegalArgumentException if {@code maxEdits} is out of range.
+     */
+    LevenshteinAutomaton(String word, int maxEdits) {
+        if (maxEdits < 0 || maxEdits > MAX_EDITS) {
+            throw new IllegalArgumentException("Edits must be between 0 and " + MAX_EDITS + ": " + maxEdits);
+        }
+        this.word = word;
+        this.maxEdits = maxEdits;
+    }
+
+    /**
+     * Retrieves the start state, before any character is read.
+     *
+     * @return the start state.
+     */
+    int[] start() {
+        int[] state = new int[word.length() + 1];
+        for (int i = 0; i < state.length; i++) {
+            state[i] = Math.min(i, maxEdits + 1);
+        }
+        return state;
+    }
+
+    /**
+     * Computes the state after reading one more character.
+     *
+     * @param state the current state.
+     * @param c     the character read.
+     * @param next  the array receiving the next state, of the same length as {@code state}.
+     */
+    void step(int[] state, char c, int[] next) {
+        next[0] = Math.min(state[0] + 1, maxEdits + 1);
+        for (int i = 1; i < next.length; i++) {
+            int replace = state[i - 1] + (word.charAt(i - 1) == c ? 0 : 1);
+            int distance = Math.min(replace, Math.min(state[i] + 1, next[i - 1] + 1));
+            next[i] = Math.min(distance, maxEdits + 1);
+        }
+    }
+
+    /**
+     * Computes the state after reading a character that does not occur in the word. All
+     * such characters lead to the same state.
+     *
+     * @param state the current state.
+     * @param next  the array receiving the next state, of the same length as {@code state}.
+     */
+    private void stepOther(int[] state, int[] next) {
+        next[0] = Math.min(state[0] + 1, maxEdits + 1);
+        for (int i = 1; i < next.length; i++) {
+            int distance = Math.min(state[i - 1], state[i]) + 1;
+            next[i] = Math.min(Math.min(distance, next[i - 1] + 1), maxEdits + 1);
+        }
+    }
+
+    /**
+     * Checks whether a state accepts the characters read to reach it.
+     *
+     * @param state the state to check.
+     * @return {@code true} if the characters read are within the maximum edits of the word.
+     */
+    boolean isMatch(int[] state) {
+        return state[state.length - 1] <= maxEdits;
+    }
+
+    /**
+     * Checks whether some continuation of the characters read can still be accepted.
+     *
+     * @param state the state to check.
+     * @return {@code false} if the state is dead; {@code true} otherwise.
+     */
+    boolean canMatch(int[] state) {
+        for (int distance : state) {
+            if (distance <= maxEdits) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Retrieves the edit distance of the characters read to the whole word.
+     *
+     * @param state the state reached.
+     * @return the edit distance, or {@code maxEdits + 1} if it exceeds the maximum.
+     */
+    int distance(int[] state) {
+        return state[state.length - 1];
+    }
+
+    /**
+     * Finds all terms of a dictionary that the automaton accepts.
+     *
+     * @param dictionary the dictionary to search.
+     * @return the IDs of the accepted terms in ascending order, and their edit distances.
+     */
+    Matches intersect(TermDictionary dictionary) {
+        IntList termIds = new IntList();
+        IntList distances = new IntList();
+        int[][] states = { start() };
+        String previous = "";
+        int valid = 0;
+        int scanned = 0;
+        TermDictionary.TermIterator iterator = dictionary.iterator(0, dictionary.size());
+        boolean found = iterator.next();
+        while (found) {
+            String term = iterator.term();
+            scanned++;
+            if (states.length <= term.length()) {
+                states = grow(states, term.length() + 1);
+            }
+            // states[i] is the state after the first i characters of the previous term.
+            int depth = Math.min(commonPrefix(previous, term), valid);
+            boolean dead = !canMatch(states[depth]);
+            while (!dead && depth < term.length()) {
+                step(states[depth], term.charAt(depth), states[depth + 1]);
+                depth++;
+                dead = !canMatch(states[depth]);
+            }
+            previous = term;
+            valid = depth;
+            if (!dead) {
+                if (isMatch(states[depth])) {
+                    termIds.add(iterator.termId());
+                    distances.add(distance(states[depth]));
+                }
+                found = iterator.next();
+                continue;
+            }
+            String target = seek(term, depth, states);
+            if (target == null) {
+                break;
+            }
+            found = target.isEmpty() ? iterator.next() : iterator.seekCeiling(target);
+        }
+        return new Matches(termIds.toArray(), distances.toArray(), scanned);
+    }
+
+    /**
+     * Finds the smallest string after a term that the automaton may still accept, once
+     * the first characters of the term have led to a dead state. Going back from the dead
+     * state, the next character at each position is the smallest character after the one
+     * of the term that keeps the automaton alive: any character if one outside the word
+     * does, and otherwise the next character of the word that does.
+     *
+     * @param term   the term that led to a dead state.
+     * @param depth  the number of characters of the term read to reach the dead state.
+     * @param states the states after the first characters of the term, of which all
+     *               before {@code depth} are alive.
+     * @return the string to continue the search at; an empty string if the next term has
+     *         to be read instead, because the order of the dictionary does not follow the
+     *         order of {@code char}s beyond this point; or {@code null} if no term after
+     *         this one can be accepted.
+     */
+    private String seek(String term, int depth, int[][] states) {
+        int[] next = new int[word.length() + 1];
+        for (int position = depth - 1; position >= 0; position--) {
+            char current = term.charAt(position);
+            if (Character.isSurrogate(current) || current == Character.MAX_VALUE
+                    || Character.isSurrogate((char) (current + 1))) {
+                return "";
+            }
+            String prefix = term.substring(0, position);
+            stepOther(states[position], next);
+            if (canMatch(next)) {
+                return prefix + (char) (current + 1);
+            }
+            char best = current;
+            for (int i = 0; i < word.length(); i++) {
+                char c = word.charAt(i);
+                if (c > current && (best == current || c < best)) {
+                    step(states[position], c, next);
+                    if (canMatch(next)) {
+                        best = c;
+                    }
+                }
+            }
+            if (best != current) {
+                return Character.isSurrogate(best) ? "" : prefix + best;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Computes the length of the common prefix of two strings.
+     *
+     * @param a the first string.
+     * @param b the second string.
+     * @return the number of leading characters the strings share.
+     */
+    private static int commonPrefix(String a, String b) {
+        int length = Math.min(a.length(), b.length());
+        int i = 0;
+        while (i < length && a.charAt(i) == b.charAt(i)) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Grows the state stack, keeping the states already computed.
+     *
+     * @param states the current state stack.
+     * @param length the minimum number of states needed.
+     * @return the larger state stack.
+     */
+    private int[][] grow(int[][] states, int length) {
+        int[][] grown = Arrays.copyOf(states, Math.max(length, states.length * 2));
+        for (int i = states.length; i < grown.length; i++) {
+            grown[i] = new int[word.length() + 1];
+        }
+        return grown;
+    }
+
+    /**
+     * The terms of a dictionary accepted by the automaton.
+     */
+    static final class Matches {
+        private final int[] termIds;
+        private final int[] distances;
+        private final int scanned;
+
+        /**
+         * Constructs a new {@code Matches}.
+         *
+         * @param termIds   the IDs of the accepted terms, in ascending order.
+         * @param distances the edit distance of each accepted term.
+         * @param scanned   the number of terms read from the dictionary.
+         */
+        private Matches(int[] termIds, int[] distances, int scanned) {
+            this.termIds = termIds;
+            this.distances = distances;
+            this.scanned = scanned;
+        }
+
+        /**
+         * Retrieves the number of terms the intersection read from the dictionary, which
+         * measures its cost.
+         *
+         * @return the number of terms read.
+         */
+        int getScanned() {
+            return scanned;
+        }
+
+        /**
+         * Retrieves the IDs of the accepted terms.
+         *
+         * @return the term IDs in ascending order.
+         */
+        int[] getTermIds() {
+            return termIds;
+        }
+
+        /**
+         * Retrieves the edit distances of the accepted terms to the word.
+         *
+         * @return the distance of each term of {@link #getTermIds()}.
+         */
+        int[] getDistances() {
+            return distances;
+        }
+    }
+}
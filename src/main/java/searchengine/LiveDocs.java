@@ -0,0 +1,204 @@
+package searchengine;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The {@code LiveDocs} class marks the deleted pages of a {@link Segment}. A deletion sets
+ * one bit and is visible to every query started afterwards; the posting lists of the
+ * segment are not changed, but every {@link PostingsIterator} the segment opens skips the
+ * deleted pages.
+ * <p>
+ * The pages are removed from the posting lists when the segment is merged. The merged
+ * segment keeps their page IDs, so other page IDs do not change, and marks them as
+ * purged: still deleted, but no longer in any posting list.
+ * </p>
+ * <p>
+ * Pages can be deleted from several threads at once, and while queries read the bits.
+ * </p>
+ */
+final class LiveDocs {
+    private final AtomicLongArray deleted;
+    private final AtomicInteger count = new AtomicInteger();
+    private final int purged;
+    private volatile DeletedSet deletedSet;
+
+    /**
+     * Constructs a new {@code LiveDocs} in which only purged pages are deleted.
+     *
+     * @param pages        the number of pages of the segment.
+     * @param purgedPages  the IDs of the pages no longer in any posting list.
+     */
+    LiveDocs(int pages, int[] purgedPages) {
+        deleted = new AtomicLongArray((pages + 63) >>> 6);
+        for (int pageId : purgedPages) {
+            delete(pageId);
+        }
+        purged = count.get();
+    }
+
+    /**
+     * Marks a page as deleted.
+     *
+     * @param pageId the ID of the page in the segment.
+     * @return {@code true} if the page was live; {@code false} if it was already deleted.
+     */
+    boolean delete(int pageId) {
+        int word = pageId >>> 6;
+        long bit = 1L << pageId;
+        long bits;
+        do {
+            bits = deleted.get(word);
+            if ((bits & bit) != 0) {
+                return false;
+            }
+        } while (!deleted.compareAndSet(word, bits, bits | bit));
+        count.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Checks whether a page is deleted.
+     *
+     * @param pageId the ID of the page in the segment.
+     * @return {@code true} if the page is deleted.
+     */
+    boolean isDeleted(int pageId) {
+        return (deleted.get(pageId >>> 6) & 1L << pageId) != 0;
+    }
+
+    /**
+     * Counts the deleted pages, including purged ones.
+     *
+     * @return the number of deleted pages.
+     */
+    int getDeletedCount() {
+        return count.get();
+    }
+
+    /**
+     * Counts the deleted pages that are still in the posting lists.
+     *
+     * @return the number of deleted pages that a merge would purge.
+     */
+    int getPendingCount() {
+        return count.get() - purged;
+    }
+
+    /**
+     * Lists the deleted pages.
+     *
+     * @return the IDs of the deleted pages, in ascending order.
+     */
+    int[] toArray() {
+        return getDeletedSet().toArray();
+    }
+
+    /**
+     * Retrieves the deleted pages as a set, for removing them from other sets. The set is
+     * built on the first call after a deletion and shared until the next one.
+     *
+     * @return the set of deleted pages.
+     */
+    PageIdSet getDeletedSet() {
+        DeletedSet current = deletedSet;
+        int version = count.get();
+        if (current != null && current.version == version) {
+            return current.pages;
+        }
+        // Every deletion counted in version has set its bit already, so the scan sees it.
+        IntList pageIds = new IntList(version);
+        for (int word = 0; word < deleted.length(); word++) {
+            for (long bits = deleted.get(word); bits != 0; bits &= bits - 1) {
+                pageIds.add(word << 6 | Long.numberOfTrailingZeros(bits));
+            }
+        }
+        current = new DeletedSet(version, PageIdSet.of(pageIds.toArray()));
+        deletedSet = current;
+        return current.pages;
+    }
+
+    /**
+     * Wraps a posting iterator so that it skips the deleted pages.
+     *
+     * @param iterator the iterator over a posting list of the segment.
+     * @return an iterator over the live pages of the list.
+     */
+    PostingsIterator filter(PostingsIterator iterator) {
+        return new LiveIterator(iterator);
+    }
+
+    /**
+     * The deleted pages as a set, together with the deletion count it was built at.
+     */
+    private static final class DeletedSet {
+        private final int version;
+        private final PageIdSet pages;
+
+        /**
+         * Constructs a new {@code DeletedSet}.
+         *
+         * @param version the number of deletions when the set was built.
+         * @param pages   the deleted pages.
+         */
+        private DeletedSet(int version, PageIdSet pages) {
+            this.version = version;
+            this.pages = pages;
+        }
+    }
+
+    /**
+     * A {@link PostingsIterator} that skips the deleted pages of another one.
+     */
+    private final class LiveIterator implements PostingsIterator {
+        private final PostingsIterator iterator;
+
+        /**
+         * Constructs a new {@code LiveIterator}.
+         *
+         * @param iterator the iterator to filter.
+         */
+        private LiveIterator(PostingsIterator iterator) {
+            this.iterator = iterator;
+        }
+
+        @Override
+        public int docId() {
+            return iterator.docId();
+        }
+
+        @Override
+        public int next() {
+            return skipDeleted(iterator.next());
+        }
+
+        @Override
+        public int advance(int target) {
+            return skipDeleted(iterator.advance(target));
+        }
+
+        @Override
+        public int freq() {
+            return iterator.freq();
+        }
+
+        @Override
+        public long cost() {
+            return iterator.cost();
+        }
+
+        /**
+         * Moves past deleted pages.
+         *
+         * @param pageId the page the iterator is on.
+         * @return the first live page from {@code pageId} on, or
+         *         {@link PostingsIterator#NO_MORE_DOCS}.
+         */
+        private int skipDeleted(int pageId) {
+            while (pageId != NO_MORE_DOCS && isDeleted(pageId)) {
+                pageId = iterator.next();
+            }
+            return pageId;
+        }
+    }
+}
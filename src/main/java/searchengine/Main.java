@@ -3,6 +3,7 @@ package searchengine;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.List;
 
 /**
  * The main entry point for the search engine application. 
@@ -10,8 +11,11 @@ import java.nio.file.Paths;
  * specified in the configuration file and starts the {@link WebServer}.
  * <p>
  * The configuration file, named {@code config.txt}, must be located in the working directory 
- * and contain the path to the database file. The program will terminate if any error occurs 
- * during initialization or server startup.
+ * and contain the path to the database file on its first line. Any further lines are
+ * {@code key=value} index options as described in {@link IndexConfig}. Unless configured
+ * otherwise, the index is saved to and loaded from a snapshot next to the database file,
+ * so restarts skip parsing the corpus while it is unchanged. The program will
+ * terminate if any error occurs during initialization or server startup.
  * </p>
  */
 public class Main {
@@ -24,8 +28,13 @@ public class Main {
      *                     initializing the {@link SearchEngine}, or starting the {@link WebServer}.
      */
     public static void main(final String... args) throws IOException {
-        var filename = Files.readString(Paths.get("config.txt")).strip();
-        SearchEngine searchEngine = new SearchEngine(filename);
+        List<String> config = Files.readAllLines(Paths.get("config.txt"));
+        var filename = config.get(0).strip();
+        IndexConfig indexConfig = IndexConfig.parse(config.subList(1, config.size()));
+        if (!indexConfig.isSnapshotSet()) {
+            indexConfig.setSnapshot(filename + ".snapshot");
+        }
+        SearchEngine searchEngine = new SearchEngine(filename, indexConfig);
         WebServer webServer = new WebServer(WebServer.PORT, searchEngine);
         webServer.startServer();
     }
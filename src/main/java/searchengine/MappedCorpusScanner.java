@@ -0,0 +1,166 @@
+package searchengine;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The {@code MappedCorpusScanner} class reads a corpus file through a memory mapping
+ * instead of a stream. Lines are located and compared directly in the mapped bytes and
+ * resolved through a {@link TermTable}, so a line is only decoded into a {@link String}
+ * the first time its exact text is seen. Every later occurrence only costs a hash lookup
+ * on the mapped bytes.
+ * <p>
+ * The file is mapped in windows of at most {@value #WINDOW_SIZE} bytes, so corpora larger
+ * than a single mapping can hold are supported. Like {@link CorpusReader}, a scanner can be
+ * limited to a byte range that starts at a line boundary.
+ * </p>
+ */
+public class MappedCorpusScanner implements PageReader {
+    private static final int WINDOW_SIZE = 1 << 30;
+    private static final byte[] PAGE_MARKER = { '*', 'P', 'A', 'G', 'E' };
+
+    private final FileChannel channel;
+    private final long end;
+    private final TermTable terms;
+    private final IntList record;
+    private MappedByteBuffer window;
+    private long windowStart;
+    private long position;
+
+    /**
+     * Opens a new {@code MappedCorpusScanner} on the whole of the specified corpus file.
+     *
+     * @param path the path to the corpus file.
+     * @throws IOException if the file cannot be opened or mapped.
+     */
+    public MappedCorpusScanner(Path path) throws IOException {
+        this(path, 0, Files.size(path));
+    }
+
+    /**
+     * Opens a new {@code MappedCorpusScanner} on a byte range of the specified corpus file.
+     *
+     * @param path  the path to the corpus file.
+     * @param start the offset of the first byte to read. Should be the start of a line.
+     * @param end   the offset just past the last byte to read.
+     * @throws IOException if the file cannot be opened or mapped.
+     */
+    public MappedCorpusScanner(Path path, long start, long end) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+        terms = new TermTable();
+        record = new IntList();
+        this.end = end;
+        position = start;
+        while (position < end && !atPageStart()) {
+            position = lineEnd() + 1;
+        }
+    }
+
+    /**
+     * Reads the next page record from the mapped corpus.
+     *
+     * @return the term IDs of the lines of the next record, starting with its
+     *         {@code *PAGE} line, or {@code null} if the end of the range has been reached.
+     * @throws IOException if a window of the file cannot be mapped.
+     */
+    @Override
+    public int[] nextRecord() throws IOException {
+        if (position >= end) {
+            return null;
+        }
+        record.clear();
+        do {
+            record.add(readLine());
+        } while (position < end && !atPageStart());
+        return record.toArray();
+    }
+
+    @Override
+    public String getTerm(int id) {
+        return terms.get(id);
+    }
+
+    @Override
+    public int getTermCount() {
+        return terms.size();
+    }
+
+    /**
+     * Closes the underlying file. The mapping itself is released once it is no longer
+     * referenced.
+     *
+     * @throws IOException if an error occurs while closing the file.
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private int readLine() throws IOException {
+        long lineEnd = lineEnd();
+        int offset = (int) (position - windowStart);
+        int length = (int) (lineEnd - position);
+        if (length > 0 && window.get(offset + length - 1) == '\r') {
+            length--;
+        }
+        int id = terms.add(window, offset, length);
+        position = lineEnd + 1;
+        return id;
+    }
+
+    private boolean atPageStart() throws IOException {
+        if (end - position < PAGE_MARKER.length) {
+            return false;
+        }
+        ensureMapped(position, PAGE_MARKER.length);
+        int offset = (int) (position - windowStart);
+        for (int i = 0; i < PAGE_MARKER.length; i++) {
+            if (window.get(offset + i) != PAGE_MARKER[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Finds the end of the line starting at the current position, mapping a new window
+     * if the line crosses the end of the current one. On return, the whole line lies
+     * inside the current window.
+     *
+     * @return the offset of the line's terminating newline, or the end of the range.
+     */
+    private long lineEnd() throws IOException {
+        ensureMapped(position, 1);
+        while (true) {
+            int limit = window.limit();
+            for (int i = (int) (position - windowStart); i < limit; i++) {
+                if (window.get(i) == '\n') {
+                    return windowStart + i;
+                }
+            }
+            long windowEnd = windowStart + limit;
+            if (windowEnd >= end) {
+                return end;
+            }
+            if (windowStart == position) {
+                throw new IOException("Line at offset " + position + " is longer than " + WINDOW_SIZE + " bytes");
+            }
+            map(position);
+        }
+    }
+
+    private void ensureMapped(long offset, int length) throws IOException {
+        if (window == null || offset < windowStart || offset + length > windowStart + window.limit()) {
+            map(offset);
+        }
+    }
+
+    private void map(long offset) throws IOException {
+        windowStart = offset;
+        window = channel.map(FileChannel.MapMode.READ_ONLY, offset, Math.min(WINDOW_SIZE, end - offset));
+    }
+}
@@ -0,0 +1,163 @@
+package searchengine;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The {@code PForCodec} class stores a block in patched frame-of-reference form, as in
+ * PForDelta. All values are bit-packed with one common bit width, chosen so that the few
+ * values that do not fit cost less than widening every value. The high bits of those
+ * exceptions are stored after the packed values as patches.
+ * <p>
+ * Only full blocks of {@link PostingsWriter#BLOCK_SIZE} values are packed. Shorter blocks,
+ * such as the last block of a list and the whole list of a rare term, are stored by a
+ * {@link VByteCodec}, since the header of a packed block would outweigh its savings.
+ * </p>
+ * <p>
+ * Layout of a packed block:
+ * </p>
+ * <ul>
+ * <li>one byte holding the bit width {@code b};</li>
+ * <li>the number of exceptions, as a variable-byte integer;</li>
+ * <li>the lowest {@code b} bits of every value, packed lowest bits first;</li>
+ * <li>for every exception, its index and its value shifted right by {@code b}, both as
+ * variable-byte integers.</li>
+ * </ul>
+ */
+public class PForCodec implements PostingsCodec {
+    private static final int EXCEPTION_COST = 3;
+
+    private final VByteCodec tailCodec = new VByteCodec();
+
+    /**
+     * Constructs a new {@code PForCodec} instance.
+     * <p>
+     * This class does not require any specific initialization.
+     * </p>
+     */
+    public PForCodec() {
+
+    }
+
+    @Override
+    public String getName() {
+        return IndexConfig.CODEC_PFOR;
+    }
+
+    @Override
+    public void encode(int[] values, int count, ByteList out) {
+        if (count < PostingsWriter.BLOCK_SIZE) {
+            tailCodec.encode(values, count, out);
+            return;
+        }
+        int bits = chooseBitWidth(values, count);
+        int exceptions = 0;
+        for (int i = 0; i < count; i++) {
+            if (values[i] >>> bits != 0) {
+                exceptions++;
+            }
+        }
+        out.add(bits);
+        out.addVInt(exceptions);
+
+        long buffer = 0;
+        int buffered = 0;
+        long mask = (1L << bits) - 1;
+        for (int i = 0; i < count; i++) {
+            buffer |= (values[i] & mask) << buffered;
+            buffered += bits;
+            while (buffered >= 8) {
+                out.add((int) buffer);
+                buffer >>>= 8;
+                buffered -= 8;
+            }
+        }
+        if (buffered > 0) {
+            out.add((int) buffer);
+        }
+
+        for (int i = 0; i < count && exceptions > 0; i++) {
+            if (values[i] >>> bits != 0) {
+                out.addVInt(i);
+                out.addVInt(values[i] >>> bits);
+            }
+        }
+    }
+
+    @Override
+    public int decode(ByteBuffer in, int offset, int[] values, int count) {
+        if (count < PostingsWriter.BLOCK_SIZE) {
+            return tailCodec.decode(in, offset, values, count);
+        }
+        int bits = in.get(offset++);
+        int b = in.get(offset++);
+        int exceptions = b & 0x7F;
+        for (int shift = 7; b < 0; shift += 7) {
+            b = in.get(offset++);
+            exceptions |= (b & 0x7F) << shift;
+        }
+
+        int packedEnd = offset + (count * bits + 7) / 8;
+        long buffer = 0;
+        int buffered = 0;
+        long mask = (1L << bits) - 1;
+        for (int i = 0; i < count; i++) {
+            while (buffered < bits) {
+                buffer |= (long) (in.get(offset++) & 0xFF) << buffered;
+                buffered += 8;
+            }
+            values[i] = (int) (buffer & mask);
+            buffer >>>= bits;
+            buffered -= bits;
+        }
+
+        offset = packedEnd;
+        for (int e = 0; e < exceptions; e++) {
+            int index = 0;
+            int high = 0;
+            for (int field = 0; field < 2; field++) {
+                b = in.get(offset++);
+                int value = b & 0x7F;
+                for (int shift = 7; b < 0; shift += 7) {
+                    b = in.get(offset++);
+                    value |= (b & 0x7F) << shift;
+                }
+                if (field == 0) {
+                    index = value;
+                } else {
+                    high = value;
+                }
+            }
+            values[index] |= high << bits;
+        }
+        return offset;
+    }
+
+    /**
+     * Chooses the bit width that minimizes the estimated size of a block, counting every
+     * exception as a fixed number of bytes.
+     *
+     * @param values the values of the block.
+     * @param count  the number of values in the block.
+     * @return the bit width to pack the values with, between 0 and 31.
+     */
+    private static int chooseBitWidth(int[] values, int count) {
+        int[] valuesWithBits = new int[33];
+        for (int i = 0; i < count; i++) {
+            valuesWithBits[32 - Integer.numberOfLeadingZeros(values[i])]++;
+        }
+        int best = 31;
+        long bestCost = Long.MAX_VALUE;
+        int exceptions = 0;
+        for (int bits = 32; bits >= 0; bits--) {
+            if (bits < 32) {
+                long cost = (count * (long) bits + 7) / 8 + (long) exceptions * EXCEPTION_COST;
+                if (cost <= bestCost) {
+                    bestCost = cost;
+                    best = bits;
+                }
+            }
+            exceptions += valuesWithBits[bits];
+        }
+        return best;
+    }
+}
@@ -13,6 +13,12 @@ import java.util.Objects;
  * </p>
  */
 public class Page {
+    /**
+     * The index of the first line of a page that counts as a word. The lines before it
+     * are the {@code *PAGE} line and the title line.
+     */
+    static final int FIRST_WORD_LINE = 2;
+
     private static int nextPageId = 1;
     private List<String> page;
     private int id;
@@ -28,6 +34,19 @@ public class Page {
         id = nextPageId++;
     }
 
+    /**
+     * Constructs a new {@code Page} instance with the specified content and a page ID chosen
+     * by the caller. The {@link Database} uses this to number pages in corpus order, so that
+     * IDs do not depend on how the index was built.
+     *
+     * @param page the list of strings representing the content of the page.
+     * @param id   the ID of the page.
+     */
+    Page(List<String> page, int id) {
+        this.page = page;
+        this.id = id;
+    }
+
     /**
      * Retrieves the unique ID of the page.
      *
@@ -65,7 +84,9 @@ public class Page {
     }
 
     /**
-     * Calculates the frequency of the specified word in the page content.
+     * Calculates the frequency of the specified word in the page content. Words are
+     * matched exactly, including case, as they are in the index and by
+     * {@link #containsSearchterm(String)}.
      *
      * @param word the word to count in the page content.
      * @return the frequency of the specified word. Returns 0 if the word is null or empty.
@@ -76,9 +97,10 @@ public class Page {
         }
 
         int frequency = 0;
-        for (String line : page) {
-            if (line != null && !line.isEmpty() && !line.startsWith("*PAGE:") && !line.startsWith("title")) {
-                if (word.equalsIgnoreCase(line)) {
+        for (int i = 0; i < page.size(); i++) {
+            String line = page.get(i);
+            if (isWord(i, line, i > 0 ? page.get(i - 1) : null)) {
+                if (word.equals(line)) {
                     frequency++;
                 }
             }
@@ -93,14 +115,31 @@ public class Page {
      */
     public int getTotalWords() {
         int totalWords = 0;
-        for (String line : page) {
-            if (line != null && !line.isEmpty() && !line.startsWith("*PAGE:") && !line.startsWith("title")) {
+        for (int i = 0; i < page.size(); i++) {
+            if (isWord(i, page.get(i), i > 0 ? page.get(i - 1) : null)) {
                 totalWords++;
             }
         }
         return totalWords;
     }
 
+    /**
+     * Checks whether a line of a page counts as a word for {@link #getWordFrequency(String)}
+     * and {@link #getTotalWords()}. The title is told apart from words by its place in the
+     * page, not by its text, so words such as {@code titles} are counted: the lines before
+     * {@link #FIRST_WORD_LINE} and any line following a {@code *PAGE:} line are not words.
+     * Empty lines and {@code *PAGE:} lines are not counted either.
+     *
+     * @param index    the index of the line in the page.
+     * @param line     the line to check.
+     * @param previous the line before it, or {@code null} for the first line.
+     * @return {@code true} if the line counts as a word; {@code false} otherwise.
+     */
+    static boolean isWord(int index, String line, String previous) {
+        return index >= FIRST_WORD_LINE && line != null && !line.isEmpty() && !line.startsWith("*PAGE:")
+                && (previous == null || !previous.startsWith("*PAGE:"));
+    }
+
     /**
      * Checks if the page content contains the specified search term.
      *
@@ -0,0 +1,324 @@
+package searchengine;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The {@code PageIdSet} class is an immutable set of page IDs, organized like a Roaring
+ * bitmap. IDs are grouped by their highest 16 bits, and the lowest 16 bits of each group
+ * are stored in a {@link Container} whose form adapts to the group's density: a sorted
+ * array for sparse groups, a bitmap for dense groups, and runs for clustered groups.
+ * <p>
+ * Intersections, unions and differences work group by group, so groups present in only
+ * one operand are skipped or copied as a whole, and dense groups are combined 64 IDs at
+ * a time.
+ * </p>
+ */
+public class PageIdSet {
+    private static final PageIdSet EMPTY = new PageIdSet(new char[0], new Container[0], 0);
+
+    private final char[] keys;
+    private final Container[] containers;
+    private final int size;
+
+    /**
+     * Constructs a new {@code PageIdSet} from its groups.
+     *
+     * @param keys       the highest 16 bits of each group, in ascending order.
+     * @param containers the non-empty container of each group.
+     * @param size       the number of groups used, starting at index 0.
+     */
+    private PageIdSet(char[] keys, Container[] containers, int size) {
+        this.keys = keys;
+        this.containers = containers;
+        this.size = size;
+    }
+
+    /**
+     * Retrieves the empty set.
+     *
+     * @return a set without page IDs.
+     */
+    public static PageIdSet empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Creates a set from sorted page IDs.
+     *
+     * @param pageIds distinct, non-negative page IDs in ascending order.
+     * @return a set holding the given IDs.
+     */
+    public static PageIdSet of(int[] pageIds) {
+        char[] keys = new char[8];
+        Container[] containers = new Container[8];
+        int size = 0;
+        int start = 0;
+        while (start < pageIds.length) {
+            int key = pageIds[start] >>> 16;
+            int end = start;
+            while (end < pageIds.length && pageIds[end] >>> 16 == key) {
+                end++;
+            }
+            char[] values = new char[end - start];
+            for (int i = start; i < end; i++) {
+                values[i - start] = (char) pageIds[i];
+            }
+            Container container = new ArrayContainer(values, values.length);
+            if (values.length > ArrayContainer.MAX_SIZE) {
+                container = container.toBitmapContainer();
+            }
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+                containers = Arrays.copyOf(containers, size * 2);
+            }
+            keys[size] = (char) key;
+            containers[size++] = Container.optimize(container);
+            start = end;
+        }
+        return new PageIdSet(keys, containers, size);
+    }
+
+    /**
+     * Creates a set from the pages of a posting list.
+     *
+     * @param iterator an unpositioned iterator over the posting list.
+     * @return a set holding the IDs of all remaining pages of the iterator.
+     */
+    public static PageIdSet of(PostingsIterator iterator) {
+        IntList pageIds = new IntList((int) Math.min(iterator.cost(), Integer.MAX_VALUE - 8));
+        for (int pageId = iterator.next(); pageId != PostingsIterator.NO_MORE_DOCS; pageId = iterator.next()) {
+            pageIds.add(pageId);
+        }
+        return of(pageIds.toArray());
+    }
+
+    /**
+     * Creates the union of many posting lists at once. Every page ID sets a bit of a
+     * bitmap covering the whole segment, and the set bits are read back in order, so the
+     * cost is linear in the total length of the lists plus the size of the segment,
+     * however many lists there are; combining the lists pairwise would instead copy the
+     * growing union once per list.
+     *
+     * @param iterators unpositioned iterators over the posting lists.
+     * @param universe  one more than the largest page ID the lists may hold.
+     * @return a set holding the IDs of all pages of any list.
+     */
+    public static PageIdSet union(List<PostingsIterator> iterators, int universe) {
+        if (iterators.isEmpty()) {
+            return EMPTY;
+        }
+        if (iterators.size() == 1) {
+            return of(iterators.get(0));
+        }
+        long[] bits = new long[(universe + 63) >>> 6];
+        long cost = 0;
+        for (PostingsIterator iterator : iterators) {
+            for (int pageId = iterator.next(); pageId != PostingsIterator.NO_MORE_DOCS; pageId = iterator.next()) {
+                bits[pageId >>> 6] |= 1L << pageId;
+            }
+            cost += iterator.cost();
+        }
+        IntList pageIds = new IntList((int) Math.min(cost, universe));
+        for (int word = 0; word < bits.length; word++) {
+            for (long remaining = bits[word]; remaining != 0; remaining &= remaining - 1) {
+                pageIds.add(word << 6 | Long.numberOfTrailingZeros(remaining));
+            }
+        }
+        return of(pageIds.toArray());
+    }
+
+    /**
+     * Intersects this set with another.
+     *
+     * @param other the other set.
+     * @return a new set holding the IDs in both sets.
+     */
+    public PageIdSet and(PageIdSet other) {
+        char[] resultKeys = new char[Math.min(size, other.size)];
+        Container[] resultContainers = new Container[resultKeys.length];
+        int resultSize = 0;
+        int i = 0;
+        int j = 0;
+        while (i < size && j < other.size) {
+            if (keys[i] < other.keys[j]) {
+                i++;
+            } else if (keys[i] > other.keys[j]) {
+                j++;
+            } else {
+                Container container = Container.optimize(containers[i].and(other.containers[j]));
+                if (container != null) {
+                    resultKeys[resultSize] = keys[i];
+                    resultContainers[resultSize++] = container;
+                }
+                i++;
+                j++;
+            }
+        }
+        return new PageIdSet(resultKeys, resultContainers, resultSize);
+    }
+
+    /**
+     * Unites this set with another.
+     *
+     * @param other the other set.
+     * @return a new set holding the IDs in either set.
+     */
+    public PageIdSet or(PageIdSet other) {
+        char[] resultKeys = new char[size + other.size];
+        Container[] resultContainers = new Container[resultKeys.length];
+        int resultSize = 0;
+        int i = 0;
+        int j = 0;
+        while (i < size || j < other.size) {
+            if (j == other.size || (i < size && keys[i] < other.keys[j])) {
+                resultKeys[resultSize] = keys[i];
+                resultContainers[resultSize++] = containers[i++];
+            } else if (i == size || other.keys[j] < keys[i]) {
+                resultKeys[resultSize] = other.keys[j];
+                resultContainers[resultSize++] = other.containers[j++];
+            } else {
+                resultKeys[resultSize] = keys[i];
+                resultContainers[resultSize++] = Container.optimize(containers[i].or(other.containers[j]));
+                i++;
+                j++;
+            }
+        }
+        return new PageIdSet(resultKeys, resultContainers, resultSize);
+    }
+
+    /**
+     * Removes the IDs of another set from this one.
+     *
+     * @param other the set whose IDs to remove.
+     * @return a new set holding the IDs of this set that are not in the other set.
+     */
+    public PageIdSet andNot(PageIdSet other) {
+        char[] resultKeys = new char[size];
+        Container[] resultContainers = new Container[size];
+        int resultSize = 0;
+        int j = 0;
+        for (int i = 0; i < size; i++) {
+            while (j < other.size && other.keys[j] < keys[i]) {
+                j++;
+            }
+            Container container = containers[i];
+            if (j < other.size && other.keys[j] == keys[i]) {
+                container = Container.optimize(container.andNot(other.containers[j]));
+            }
+            if (container != null) {
+                resultKeys[resultSize] = keys[i];
+                resultContainers[resultSize++] = container;
+            }
+        }
+        return new PageIdSet(resultKeys, resultContainers, resultSize);
+    }
+
+    /**
+     * Checks whether the set holds a page ID.
+     *
+     * @param pageId the page ID to look for.
+     * @return {@code true} if the set holds the ID; {@code false} otherwise.
+     */
+    public boolean contains(int pageId) {
+        int index = Arrays.binarySearch(keys, 0, size, (char) (pageId >>> 16));
+        return index >= 0 && containers[index].contains((char) pageId);
+    }
+
+    /**
+     * Counts the page IDs in the set.
+     *
+     * @return the number of IDs.
+     */
+    public int cardinality() {
+        int cardinality = 0;
+        for (int i = 0; i < size; i++) {
+            cardinality += containers[i].cardinality();
+        }
+        return cardinality;
+    }
+
+    /**
+     * Checks whether the set is empty.
+     *
+     * @return {@code true} if the set holds no IDs; {@code false} otherwise.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Opens an iterator over the page IDs of the set, for intersecting the set with
+     * posting lists in a {@link ConjunctionIterator}. Every page has a frequency of 1.
+     *
+     * @return a new iterator positioned before the first page ID.
+     */
+    public PostingsIterator iterator() {
+        return new ArrayIterator(toArray());
+    }
+
+    /**
+     * Copies the page IDs of the set into a new array.
+     *
+     * @return the IDs in ascending order.
+     */
+    public int[] toArray() {
+        int[] pageIds = new int[cardinality()];
+        int offset = 0;
+        for (int i = 0; i < size; i++) {
+            offset = containers[i].fill(pageIds, offset, keys[i] << 16);
+        }
+        return pageIds;
+    }
+
+    /**
+     * A {@link PostingsIterator} over the page IDs of a set, copied into an array.
+     */
+    private static final class ArrayIterator implements PostingsIterator {
+        private final int[] pageIds;
+        private int index = -1;
+        private int pageId = -1;
+
+        /**
+         * Constructs a new {@code ArrayIterator}.
+         *
+         * @param pageIds the page IDs, in ascending order.
+         */
+        private ArrayIterator(int[] pageIds) {
+            this.pageIds = pageIds;
+        }
+
+        @Override
+        public int docId() {
+            return pageId;
+        }
+
+        @Override
+        public int next() {
+            if (pageId == NO_MORE_DOCS) {
+                return pageId;
+            }
+            index++;
+            return pageId = index < pageIds.length ? pageIds[index] : NO_MORE_DOCS;
+        }
+
+        @Override
+        public int advance(int target) {
+            if (pageId >= target) {
+                return pageId;
+            }
+            index = BlockPostingsIterator.gallop(pageIds, Math.max(index, 0), pageIds.length, target);
+            return pageId = index < pageIds.length ? pageIds[index] : NO_MORE_DOCS;
+        }
+
+        @Override
+        public int freq() {
+            return 1;
+        }
+
+        @Override
+        public long cost() {
+            return pageIds.length;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package searchengine;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Interface for readers that deliver a corpus one page record at a time.
+ * A record holds the lines from a {@code *PAGE} line up to, but not including, the
+ * next one. Each distinct line is given a term ID by the reader, so a word that occurs
+ * on many pages is decoded and stored only once.
+ */
+public interface PageReader extends Closeable {
+    /**
+     * Reads the next page record as term IDs.
+     *
+     * @return the term IDs of the lines of the next record, starting with its
+     *         {@code *PAGE} line, or {@code null} if there are no more records.
+     * @throws IOException if an error occurs while reading the corpus.
+     */
+    int[] nextRecord() throws IOException;
+
+    /**
+     * Retrieves the text of a term seen by this reader.
+     *
+     * @param id the term ID, as returned by {@link #nextRecord()}.
+     * @return the text of the line.
+     */
+    String getTerm(int id);
+
+    /**
+     * Retrieves the number of distinct terms seen by this reader so far.
+     *
+     * @return the number of terms.
+     */
+    int getTermCount();
+
+    /**
+     * Reads the next page record as lines of text.
+     *
+     * @return the lines of the next record, starting with its {@code *PAGE} line, or
+     *         {@code null} if there are no more records. Equal lines are the same instance.
+     * @throws IOException if an error occurs while reading the corpus.
+     */
+    default List<String> nextPage() throws IOException {
+        int[] record = nextRecord();
+        if (record == null) {
+            return null;
+        }
+        List<String> lines = new ArrayList<>(record.length);
+        for (int id : record) {
+            lines.add(getTerm(id));
+        }
+        return lines;
+    }
+}
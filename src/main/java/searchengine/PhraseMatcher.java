@@ -0,0 +1,84 @@
+package searchengine;
+
+/**
+ * The {@code PhraseMatcher} class checks whether the words of a phrase occur on a page
+ * next to each other and in order, using the word positions of a {@link Segment}.
+ * <p>
+ * The matcher is meant to filter the candidates of a conjunction, which already contain
+ * all words of the phrase. It keeps one posting iterator per word, so the candidates must
+ * be checked in ascending page order; each check then only reads the positions of the
+ * candidate page.
+ * </p>
+ */
+public class PhraseMatcher {
+    private final Segment segment;
+    private final int[] termIds;
+    private final BlockPostingsIterator[] iterators;
+    private final IntList[] positions;
+    private final PositionsReader[] readers;
+
+    /**
+     * Constructs a new {@code PhraseMatcher} for a phrase.
+     *
+     * @param segment the segment to read positions from.
+     * @param termIds the term IDs of the words of the phrase, in phrase order. All words
+     *                must occur in the segment.
+     * @throws IllegalArgumentException if the phrase has no words or a word does not occur
+     *                                  in the segment.
+     */
+    public PhraseMatcher(Segment segment, int[] termIds) {
+        if (termIds.length == 0) {
+            throw new IllegalArgumentException("A phrase needs at least one word");
+        }
+        this.segment = segment;
+        this.termIds = termIds;
+        iterators = new BlockPostingsIterator[termIds.length];
+        positions = new IntList[termIds.length];
+        readers = new PositionsReader[termIds.length];
+        for (int i = 0; i < termIds.length; i++) {
+            if (termIds[i] < 0) {
+                throw new IllegalArgumentException("Unknown term in phrase");
+            }
+            iterators[i] = segment.getBlockPostingsIterator(termIds[i]);
+            positions[i] = new IntList();
+            readers[i] = segment.newPositionsReader();
+        }
+    }
+
+    /**
+     * Checks whether a page contains the phrase.
+     *
+     * @param pageId the ID of the page in the segment. Must not be lower than the page
+     *               checked before.
+     * @return {@code true} if the words of the phrase occur on consecutive lines of the
+     *         page; {@code false} otherwise.
+     */
+    public boolean matches(int pageId) {
+        for (int i = 0; i < termIds.length; i++) {
+            if (iterators[i].advance(pageId) != pageId) {
+                return false;
+            }
+            segment.getPositions(termIds[i], iterators[i].ordinal(), positions[i], readers[i]);
+        }
+        int[] next = new int[termIds.length];
+        IntList first = positions[0];
+        for (int start = 0; start < first.size(); start++) {
+            int position = first.get(start);
+            boolean found = true;
+            for (int i = 1; i < termIds.length && found; i++) {
+                IntList list = positions[i];
+                while (next[i] < list.size() && list.get(next[i]) < position + i) {
+                    next[i]++;
+                }
+                if (next[i] == list.size()) {
+                    return false;
+                }
+                found = list.get(next[i]) == position + i;
+            }
+            if (found) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,82 @@
+package searchengine;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The {@code PositionsReader} class decodes the word positions written by
+ * {@link PositionsWriter}. To find the positions of a page, it jumps to the page's block
+ * through the offset table and skips the positions of the pages before it in the block,
+ * so its cost does not depend on the length of the posting list. When the pages of one
+ * list are read in ascending order, the reader continues from the end of the page read
+ * before instead of skipping from the start of the block again.
+ * <p>
+ * Like {@link BlockPostingsIterator}, the reader only reads the buffer with absolute
+ * reads. A reader keeps its read position between calls, so it must not be shared between
+ * threads.
+ * </p>
+ */
+public class PositionsReader {
+    private final ByteBuffer buffer;
+    private int position;
+    private int lastOffset = -1;
+    private int lastOrdinal = -1;
+
+    /**
+     * Constructs a new {@code PositionsReader}.
+     *
+     * @param buffer the buffer holding the encoded positions.
+     */
+    public PositionsReader(ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    /**
+     * Decodes the positions of one page of a posting list.
+     *
+     * @param offset    the offset of the term's positions in the buffer.
+     * @param pageCount the number of pages in the term's posting list.
+     * @param ordinal   the index of the page in the posting list, as given by
+     *                  {@link BlockPostingsIterator#ordinal()}.
+     * @param out       the list to store the positions in, in ascending order. It is cleared
+     *                  first.
+     */
+    public void read(int offset, int pageCount, int ordinal, IntList out) {
+        out.clear();
+        int blocks = (pageCount + PostingsWriter.BLOCK_SIZE - 1) / PostingsWriter.BLOCK_SIZE;
+        int block = ordinal / PostingsWriter.BLOCK_SIZE;
+        int page = block * PostingsWriter.BLOCK_SIZE;
+        if (offset == lastOffset && ordinal > lastOrdinal && lastOrdinal >= page) {
+            page = lastOrdinal + 1;
+        } else {
+            int dataStart = offset + (blocks - 1) * Integer.BYTES;
+            position = dataStart + (block == 0 ? 0 : buffer.getInt(offset + (block - 1) * Integer.BYTES));
+        }
+        for (; page < ordinal; page++) {
+            for (int count = readVInt(); count > 0; count--) {
+                readVInt();
+            }
+        }
+        int previous = -1;
+        for (int count = readVInt(); count > 0; count--) {
+            previous += readVInt() + 1;
+            out.add(previous);
+        }
+        lastOffset = offset;
+        lastOrdinal = ordinal;
+    }
+
+    /**
+     * Reads a variable-byte integer at the current position and moves past it.
+     *
+     * @return the value read.
+     */
+    private int readVInt() {
+        int b = buffer.get(position++);
+        int value = b & 0x7F;
+        for (int shift = 7; b < 0; shift += 7) {
+            b = buffer.get(position++);
+            value |= (b & 0x7F) << shift;
+        }
+        return value;
+    }
+}
@@ -0,0 +1,57 @@
+package searchengine;
+
+/**
+ * The {@code PositionsWriter} class encodes the word positions of a term, the line
+ * numbers at which it occurs within each page of its posting list, for
+ * {@link PositionsReader}.
+ * <p>
+ * The positions are grouped into blocks of {@value PostingsWriter#BLOCK_SIZE} pages, like
+ * the posting list they belong to. The encoded positions start with a table of the byte
+ * offsets of all blocks but the first, as fixed-width big-endian ints relative to the end
+ * of the table, so a reader can jump to the block of any page directly. Within a block,
+ * each page stores its number of positions followed by the gaps between its positions,
+ * all as variable-byte integers.
+ * </p>
+ */
+public final class PositionsWriter {
+
+    /**
+     * Prevents instantiation; this class only has static methods.
+     */
+    private PositionsWriter() {
+
+    }
+
+    /**
+     * Encodes the positions of a term and appends them to a buffer.
+     *
+     * @param counts    the number of positions on each page of the posting list.
+     * @param positions the positions on all pages, page by page, each page's in ascending order.
+     * @param out       the buffer to append the encoded positions to.
+     */
+    public static void write(int[] counts, int[] positions, ByteList out) {
+        int blocks = (counts.length + PostingsWriter.BLOCK_SIZE - 1) / PostingsWriter.BLOCK_SIZE;
+        int[] blockStarts = new int[Math.max(blocks, 1)];
+        ByteList data = new ByteList();
+        int next = 0;
+        for (int page = 0; page < counts.length; page++) {
+            if (page % PostingsWriter.BLOCK_SIZE == 0) {
+                blockStarts[page / PostingsWriter.BLOCK_SIZE] = data.size();
+            }
+            data.addVInt(counts[page]);
+            int previous = -1;
+            for (int i = 0; i < counts[page]; i++) {
+                data.addVInt(positions[next] - previous - 1);
+                previous = positions[next++];
+            }
+        }
+        for (int block = 1; block < blocks; block++) {
+            int start = blockStarts[block];
+            out.add(start >>> 24);
+            out.add(start >>> 16);
+            out.add(start >>> 8);
+            out.add(start);
+        }
+        out.addAll(data);
+    }
+}
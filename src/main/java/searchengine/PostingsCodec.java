@@ -0,0 +1,43 @@
+package searchengine;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Interface for codecs that compress a block of non-negative integers, such as the
+ * doc ID gaps or term frequencies of a posting list.
+ * <p>
+ * Posting lists are split into blocks of {@link PostingsWriter#BLOCK_SIZE} entries by
+ * {@link PostingsWriter}; a codec only decides how the values of one block are stored.
+ * Blocks are decoded from a {@link ByteBuffer} with absolute reads, so one buffer can be
+ * shared by any number of iterators.
+ * </p>
+ */
+public interface PostingsCodec {
+    /**
+     * Retrieves the name of the codec, as used by the {@code codec} option of
+     * {@link IndexConfig}.
+     *
+     * @return the name of the codec.
+     */
+    String getName();
+
+    /**
+     * Encodes a block of values and appends it to a byte list.
+     *
+     * @param values the values to encode. Must not be negative.
+     * @param count  the number of values to encode, starting at index 0.
+     * @param out    the byte list to append the encoded block to.
+     */
+    void encode(int[] values, int count, ByteList out);
+
+    /**
+     * Decodes a block of values written by {@link #encode(int[], int, ByteList)}.
+     *
+     * @param in     the buffer holding the encoded block.
+     * @param offset the offset of the block in the buffer.
+     * @param values the array to decode the values into, starting at index 0.
+     * @param count  the number of values in the block.
+     * @return the offset just past the end of the block.
+     */
+    int decode(ByteBuffer in, int offset, int[] values, int count);
+}
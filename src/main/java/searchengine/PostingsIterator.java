@@ -0,0 +1,55 @@
+package searchengine;
+
+/**
+ * Interface for iterators over the pages of a posting list, in ascending order of page ID.
+ * <p>
+ * An iterator starts before its first page; {@link #docId()} returns {@code -1} until
+ * {@link #next()} or {@link #advance(int)} is called. Once the iterator is exhausted,
+ * both return {@link #NO_MORE_DOCS}.
+ * </p>
+ */
+public interface PostingsIterator {
+    /**
+     * The page ID returned once an iterator has no more pages. It is larger than any
+     * valid page ID.
+     */
+    int NO_MORE_DOCS = Integer.MAX_VALUE;
+
+    /**
+     * Retrieves the page ID the iterator is positioned on.
+     *
+     * @return the current page ID, {@code -1} before the first call to {@link #next()} or
+     *         {@link #advance(int)}, or {@link #NO_MORE_DOCS} once the iterator is exhausted.
+     */
+    int docId();
+
+    /**
+     * Moves to the next page of the list.
+     *
+     * @return the ID of the next page, or {@link #NO_MORE_DOCS} if there is none.
+     */
+    int next();
+
+    /**
+     * Moves to the first page whose ID is at least {@code target}. If the iterator is
+     * already on such a page, it does not move.
+     *
+     * @param target the page ID to move to.
+     * @return the ID of the page moved to, or {@link #NO_MORE_DOCS} if there is none.
+     */
+    int advance(int target);
+
+    /**
+     * Retrieves the frequency of the term on the current page.
+     *
+     * @return the term frequency on the page the iterator is positioned on.
+     */
+    int freq();
+
+    /**
+     * Estimates the cost of iterating over the whole list, which is its number of pages.
+     *
+     * @return the number of pages in the list.
+     */
+    long cost();
+}
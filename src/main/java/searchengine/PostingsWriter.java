@@ -0,0 +1,124 @@
+package searchengine;
+
+/**
+ * The {@code PostingsWriter} class encodes posting lists into the block format read by
+ * {@link BlockPostingsIterator}.
+ * <p>
+ * A posting list is split into blocks of {@value #BLOCK_SIZE} pages. Each block starts
+ * with a header holding the distance from the last page ID of the previous block to the
+ * last page ID of this block, the length in bytes of the block's payload, and the length
+ * in bytes of the block's impacts, all as variable-byte integers. The header lets an
+ * iterator skip a block without decoding it. The impacts follow the header, and the
+ * payload follows the impacts. The payload holds the page ID gaps of the block followed
+ * by its term frequencies, each encoded with a {@link PostingsCodec}. The number of pages
+ * in the list is not stored; readers get it from the {@link Database}.
+ * </p>
+ * <p>
+ * The impacts of a block are the competitive pairs of term frequency and document length
+ * of its pages, as found by {@link TermImpacts#compute(int[], int[], int, int[])}: their
+ * number, then each pair by ascending length, as the increase in frequency and in length
+ * over the pair before. They bound the score of every page of the block, so ranked
+ * retrieval can skip a block whose pages cannot reach the best results without decoding
+ * it.
+ * </p>
+ */
+public final class PostingsWriter {
+    /**
+     * The number of pages in a full block.
+     */
+    public static final int BLOCK_SIZE = 128;
+
+    /**
+     * Prevents instantiation; this class only has static methods.
+     */
+    private PostingsWriter() {
+
+    }
+
+    /**
+     * Encodes a posting list without document lengths and appends it to a byte list. The
+     * impacts of each block then only hold its highest frequency, with a length of 0.
+     *
+     * @param pageIds     the page IDs of the list, in ascending order.
+     * @param frequencies the term frequency on each page.
+     * @param codec       the codec to encode the blocks with.
+     * @param out         the byte list to append the encoded list to.
+     */
+    public static void write(int[] pageIds, int[] frequencies, PostingsCodec codec, ByteList out) {
+        write(pageIds, frequencies, null, codec, out);
+    }
+
+    /**
+     * Encodes a posting list and appends it to a byte list.
+     *
+     * @param pageIds     the page IDs of the list, in ascending order.
+     * @param frequencies the term frequency on each page.
+     * @param lengths     the document length of every page, indexed by page ID, or
+     *                    {@code null} if they are unknown.
+     * @param codec       the codec to encode the blocks with.
+     * @param out         the byte list to append the encoded list to.
+     */
+    public static void write(int[] pageIds, int[] frequencies, int[] lengths, PostingsCodec codec, ByteList out) {
+        int[] gaps = new int[BLOCK_SIZE];
+        int[] blockPageIds = new int[BLOCK_SIZE];
+        int[] blockFrequencies = new int[BLOCK_SIZE];
+        ByteList payload = new ByteList();
+        ByteList impacts = new ByteList();
+        int lastPageId = -1;
+        for (int start = 0; start < pageIds.length; start += BLOCK_SIZE) {
+            int count = Math.min(BLOCK_SIZE, pageIds.length - start);
+            int previous = lastPageId;
+            for (int i = 0; i < count; i++) {
+                gaps[i] = pageIds[start + i] - previous;
+                previous = pageIds[start + i];
+            }
+            System.arraycopy(pageIds, start, blockPageIds, 0, count);
+            System.arraycopy(frequencies, start, blockFrequencies, 0, count);
+
+            payload.clear();
+            codec.encode(gaps, count, payload);
+            codec.encode(blockFrequencies, count, payload);
+            impacts.clear();
+            writeImpacts(blockPageIds, blockFrequencies, count, lengths, impacts);
+            out.addVInt(previous - lastPageId);
+            out.addVInt(payload.size());
+            out.addVInt(impacts.size());
+            out.addAll(impacts);
+            out.addAll(payload);
+            lastPageId = previous;
+        }
+    }
+
+    /**
+     * Encodes the competitive impacts of a block.
+     *
+     * @param pageIds     the page IDs of the block.
+     * @param frequencies the term frequency on each page of the block.
+     * @param count       the number of pages in the block.
+     * @param lengths     the document length of every page, indexed by page ID, or
+     *                    {@code null} if they are unknown.
+     * @param out         the byte list to append the impacts to.
+     */
+    private static void writeImpacts(int[] pageIds, int[] frequencies, int count, int[] lengths, ByteList out) {
+        if (lengths == null) {
+            int maxFrequency = 0;
+            for (int i = 0; i < count; i++) {
+                maxFrequency = Math.max(maxFrequency, frequencies[i]);
+            }
+            out.addVInt(1);
+            out.addVInt(maxFrequency);
+            out.addVInt(0);
+            return;
+        }
+        long[] pairs = TermImpacts.compute(pageIds, frequencies, count, lengths);
+        out.addVInt(pairs.length);
+        int frequency = 0;
+        int length = 0;
+        for (long pair : pairs) {
+            out.addVInt((int) (pair >>> 32) - frequency);
+            out.addVInt((int) pair - length);
+            frequency = (int) (pair >>> 32);
+            length = (int) pair;
+        }
+    }
+}
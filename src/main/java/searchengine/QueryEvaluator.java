@@ -0,0 +1,1011 @@
+package searchengine;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The {@code QueryEvaluator} class finds the best pages for a query document at a time,
+ * matching and scoring every page in a single pass over the posting lists.
+ * <p>
+ * Each segment is searched with a tree of {@link PostingsIterator}s: the words, title
+ * words and expansions of a group are intersected by a {@link ConjunctionIterator},
+ * filtered by a {@link PhraseMatcher} for each phrase, and the groups are intersected
+ * or united by a {@link DisjunctionIterator}. Every page the tree stops on is scored once,
+ * with the term frequencies read from one more iterator per scored word, which only
+ * moves forwards, and handed to a {@link TopScoreCollector}. No set of matching pages is
+ * built and no {@link Page} is created for a page that is not returned.
+ * </p>
+ * <p>
+ * The pages and scores are the same as those of {@link SearchEngine#search(List, boolean)}
+ * followed by {@link SortHandler#sortTopResults(List, List, Database, ScoringMethod, int)}:
+ * a page scores the highest sum of its word scores over all groups, and pages with equal
+ * scores are ordered by ID.
+ * </p>
+ * <p>
+ * A {@link QueryPlan} that groups cannot express, with excluded or nested clauses, is
+ * matched by a tree of iterators following its syntax tree instead, and an
+ * {@link ExclusionIterator} removes the pages of each excluded clause.
+ * </p>
+ * <p>
+ * Queries of plain words that match pages with any of their groups are evaluated with
+ * Block-Max WAND dynamic pruning when it is enabled. The {@link TermImpacts} of each word
+ * bound its score in a segment, and the impacts in the header of each block of its
+ * posting list bound its score on the pages of the block. Pages that only contain words
+ * whose bounds cannot sum to the score of the worst page kept are skipped, and so are
+ * whole blocks whose bounds cannot, without decoding them. Since a page scores the
+ * highest sum over groups, a word is bounded once for each time it occurs in a group.
+ * Pruning never changes the pages found, and is skipped in segments where the scoring
+ * method gives no bound.
+ * </p>
+ */
+final class QueryEvaluator {
+    /**
+     * The relative margin added to every bound, so that rounding in the order of the sums
+     * never prunes a page that would be kept.
+     */
+    private static final double BOUND_SLACK = 1e-9;
+
+    private final Database database;
+    private final List<Segment> segments;
+    private final ScoringMethod scoringMethod;
+    private final boolean pruning;
+    private long scoredPages;
+
+    /**
+     * Constructs a new {@code QueryEvaluator}.
+     *
+     * @param database      the database to search.
+     * @param segments      the segments of the database, as returned by
+     *                      {@link Database#getSegments()}.
+     * @param scoringMethod the scoring method to rank the pages by.
+     * @param pruning       {@code true} to skip pages that cannot reach the best pages,
+     *                      where the query and scoring method allow it.
+     */
+    QueryEvaluator(Database database, List<Segment> segments, ScoringMethod scoringMethod, boolean pruning) {
+        this.database = database;
+        this.segments = segments;
+        this.scoringMethod = scoringMethod;
+        this.pruning = pruning;
+    }
+
+    /**
+     * Counts the pages scored by all searches so far, to measure what pruning saves.
+     *
+     * @return the number of pages whose word scores were calculated.
+     */
+    long getScoredPages() {
+        return scoredPages;
+    }
+
+    /**
+     * Finds the best pages for a query.
+     *
+     * @param parsedQuery a list of term groups, as returned by
+     *                    {@link QueryParser#parseGroups(String)}.
+     * @param andIsTrue   {@code true} if a page must match all groups; {@code false} if
+     *                    it must match any group.
+     * @param k           the maximum number of pages to find.
+     * @return the IDs of at most {@code k} pages, from the highest to the lowest score,
+     *         and by ascending ID among equal scores.
+     * @throws IllegalArgumentException if {@code k} is negative.
+     */
+    int[] search(List<List<String>> parsedQuery, boolean andIsTrue, int k) {
+        TopScoreCollector collector = newCollector(k);
+        if (k == 0) {
+            return collector.getPageIds();
+        }
+        Map<String, List<String>> expansions = new HashMap<>();
+        for (List<String> group : parsedQuery) {
+            for (String term : group) {
+                if (!expansions.containsKey(term)) {
+                    List<String> expanded = QueryHandler.expand(term, database);
+                    if (expanded != null) {
+                        expansions.put(term, expanded);
+                    }
+                }
+            }
+        }
+        return search(parsedQuery, andIsTrue, expansions, collector);
+    }
+
+    /**
+     * Finds the best pages for a compiled query.
+     * <p>
+     * A query of groups is evaluated like {@link #search(List, boolean, int)}, with the
+     * expansions of the plan. Any other query is matched in each segment by a tree of
+     * iterators following its syntax tree: a {@link ConjunctionIterator} for an AND, in an
+     * {@link ExclusionIterator} for each of its excluded clauses, a
+     * {@link DisjunctionIterator} for an OR, and the iterators of a group for a term. A
+     * page scores the sum of the scores of the clauses of an AND, the highest score of the
+     * clauses of an OR, and the sum of its word scores for a term, so the scores of groups
+     * are kept; excluded clauses are not scored.
+     * </p>
+     *
+     * @param plan the query, compiled against the segments of the evaluator.
+     * @param k    the maximum number of pages to find.
+     * @return the IDs of at most {@code k} pages, from the highest to the lowest score,
+     *         and by ascending ID among equal scores.
+     * @throws IllegalArgumentException if {@code k} is negative.
+     */
+    int[] search(QueryPlan plan, int k) {
+        TopScoreCollector collector = newCollector(k);
+        if (k == 0 || plan.getCost() == 0) {
+            return collector.getPageIds();
+        }
+        Map<String, List<String>> expansions = plan.getExpansions();
+        if (plan.getGroups() != null) {
+            return search(plan.getGroups(), false, expansions, collector);
+        }
+        Map<String, List<ScoredWord>> scoredTerms = new HashMap<>();
+        int firstPage = 0;
+        for (Segment segment : segments) {
+            PostingsIterator matches = matchClause(segment, plan.getRoot(), expansions);
+            if (matches != null) {
+                ClauseScorer scorer = new ClauseScorer(segment, plan.getRoot(), expansions, scoredTerms);
+                for (int pageId = matches.next(); pageId != PostingsIterator.NO_MORE_DOCS; pageId = matches.next()) {
+                    scoredPages++;
+                    collector.collect(firstPage + pageId, scorer.score(pageId, firstPage + pageId));
+                }
+            }
+            firstPage += segment.getTotalPages();
+        }
+        return collector.getPageIds();
+    }
+
+    /**
+     * Finds the best pages for a query whose fuzzy and wildcard words are expanded.
+     *
+     * @param parsedQuery a list of term groups.
+     * @param andIsTrue   {@code true} if a page must match all groups; {@code false} if
+     *                    it must match any group.
+     * @param expansions  the expansions of the fuzzy and wildcard words of the query.
+     * @param collector   the collector of the best pages, which is empty.
+     * @return the IDs of the pages kept by the collector.
+     */
+    private int[] search(List<List<String>> parsedQuery, boolean andIsTrue, Map<String, List<String>> expansions,
+            TopScoreCollector collector) {
+        List<List<ScoredWord>> scoredWords = new ArrayList<>();
+        for (List<String> group : parsedQuery) {
+            scoredWords.add(getScoredWords(group, expansions));
+        }
+
+        PrunedQuery prunedQuery = pruning && isPrunable(parsedQuery, andIsTrue)
+                ? new PrunedQuery(parsedQuery, scoredWords)
+                : null;
+        int firstPage = 0;
+        for (Segment segment : segments) {
+            if (prunedQuery == null || !searchPruned(segment, firstPage, prunedQuery, collector)) {
+                searchSegment(segment, firstPage, parsedQuery, andIsTrue, expansions, scoredWords, collector);
+            }
+            firstPage += segment.getTotalPages();
+        }
+        return collector.getPageIds();
+    }
+
+    /**
+     * Creates the collector of the best pages of a search, with room for no more pages
+     * than the segments hold, however large {@code k} is.
+     *
+     * @param k the maximum number of pages to find.
+     * @return an empty collector.
+     * @throws IllegalArgumentException if {@code k} is negative.
+     */
+    private TopScoreCollector newCollector(int k) {
+        if (k < 0) {
+            throw new IllegalArgumentException("Result count must not be negative: " + k);
+        }
+        long totalPages = 0;
+        for (Segment segment : segments) {
+            totalPages += segment.getTotalPages();
+        }
+        return new TopScoreCollector((int) Math.min(k, totalPages));
+    }
+
+    /**
+     * Checks whether a query can be evaluated with pruning: a page must match any of its
+     * groups, which must consist of plain words only, so that every page scoring above 0
+     * contains a word with a positive bound.
+     *
+     * @param parsedQuery the groups of the query.
+     * @param andIsTrue   {@code true} if a page must match all groups.
+     * @return {@code true} if the query can be evaluated with pruning.
+     */
+    private static boolean isPrunable(List<List<String>> parsedQuery, boolean andIsTrue) {
+        if (andIsTrue && parsedQuery.size() > 1) {
+            return false;
+        }
+        for (List<String> group : parsedQuery) {
+            for (String term : group) {
+                if (!SearchEngine.isPlainWord(term)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Scores every page of a segment that matches a query.
+     *
+     * @param segment     the segment to search.
+     * @param firstPage   the database ID of the first page of the segment.
+     * @param parsedQuery the groups of the query.
+     * @param andIsTrue   {@code true} if a page must match all groups; {@code false} if
+     *                    it must match any group.
+     * @param expansions  the expansions of the fuzzy and wildcard words of the query.
+     * @param scoredWords the words to score of each group.
+     * @param collector   the collector of the best pages.
+     */
+    private void searchSegment(Segment segment, int firstPage, List<List<String>> parsedQuery, boolean andIsTrue,
+            Map<String, List<String>> expansions, List<List<ScoredWord>> scoredWords, TopScoreCollector collector) {
+        PostingsIterator matches = matchQuery(segment, parsedQuery, andIsTrue, expansions);
+        if (matches == null) {
+            return;
+        }
+        TermScorer[][] scorers = new TermScorer[scoredWords.size()][];
+        for (int i = 0; i < scorers.length; i++) {
+            scorers[i] = new TermScorer[scoredWords.get(i).size()];
+            for (int j = 0; j < scorers[i].length; j++) {
+                scorers[i][j] = new TermScorer(segment, scoredWords.get(i).get(j));
+            }
+        }
+        for (int pageId = matches.next(); pageId != PostingsIterator.NO_MORE_DOCS; pageId = matches.next()) {
+            scoredPages++;
+            collector.collect(firstPage + pageId, score(scorers, pageId, firstPage + pageId));
+        }
+    }
+
+    /**
+     * Scores the pages of a segment that match a query and can reach the best pages,
+     * skipping the rest with Block-Max WAND.
+     * <p>
+     * The words are kept ordered by the page they are on. Summing their bounds in that
+     * order gives the pivot: the first page whose words, with all words on pages before
+     * it, can beat the worst page kept, so the words before the pivot skip to it. The
+     * bounds of the blocks that the pivot falls in are then summed: if they cannot beat
+     * the worst page kept either, every word up to the pivot skips past the first of those
+     * blocks to end without decoding it. Only a pivot that all words before it are on is
+     * scored.
+     * </p>
+     *
+     * @param segment   the segment to search.
+     * @param firstPage the database ID of the first page of the segment.
+     * @param query     the words and groups of the query.
+     * @param collector the collector of the best pages.
+     * @return {@code false}, with nothing collected, if the scoring method gives no
+     *         bound for a word, so the segment must be searched in full.
+     */
+    private boolean searchPruned(Segment segment, int firstPage, PrunedQuery query, TopScoreCollector collector) {
+        int count = query.words.size();
+        TermScorer[] scorers = new TermScorer[count];
+        double[] bounds = new double[count];
+        int[] cursors = new int[count];
+        for (int i = 0; i < count; i++) {
+            scorers[i] = new TermScorer(segment, query.words.get(i));
+            bounds[i] = query.weights[i] * scorers[i].computeMaxScore(segment);
+            if (!(bounds[i] < Double.POSITIVE_INFINITY)) {
+                return false;
+            }
+            scorers[i].nextCandidate(0);
+            cursors[i] = i;
+        }
+
+        double[] wordScores = new double[count];
+        while (true) {
+            sortByCandidate(cursors, scorers);
+            int pivot = findPivot(cursors, scorers, bounds, collector);
+            if (pivot < 0) {
+                break;
+            }
+            int pageId = scorers[cursors[pivot]].candidate;
+            while (pivot + 1 < count && scorers[cursors[pivot + 1]].candidate == pageId) {
+                pivot++;
+            }
+
+            double blockBound = 0.0;
+            for (int i = 0; i <= pivot; i++) {
+                int word = cursors[i];
+                blockBound += query.weights[word] * scorers[word].getBlockMaxScore(pageId);
+            }
+            if (!isCompetitive(blockBound, collector)) {
+                // No page before the end of the first of the pivot's blocks, or before the
+                // next word's page, can beat the worst page kept.
+                int next = pivot + 1 < count ? scorers[cursors[pivot + 1]].candidate : PostingsIterator.NO_MORE_DOCS;
+                for (int i = 0; i <= pivot; i++) {
+                    int blockEnd = scorers[cursors[i]].blockEnd;
+                    next = Math.min(next, blockEnd == PostingsIterator.NO_MORE_DOCS ? blockEnd : blockEnd + 1);
+                }
+                for (int i = 0; i <= pivot; i++) {
+                    scorers[cursors[i]].nextCandidate(next);
+                }
+            } else if (scorers[cursors[0]].candidate != pageId) {
+                for (int i = 0; i < pivot && scorers[cursors[i]].candidate < pageId; i++) {
+                    scorers[cursors[i]].nextCandidate(pageId);
+                }
+            } else {
+                if (query.matches(scorers, pageId)) {
+                    scoredPages++;
+                    int globalPageId = firstPage + pageId;
+                    for (int word = 0; word < count; word++) {
+                        wordScores[word] = scorers[word].score(pageId, globalPageId);
+                    }
+                    collector.collect(globalPageId, query.score(wordScores));
+                }
+                for (int i = 0; i <= pivot; i++) {
+                    scorers[cursors[i]].nextCandidate(pageId + 1);
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Orders words by the page they are on, which is mostly done already, since only the
+     * first words move between calls.
+     *
+     * @param cursors the indices of the words, sorted in place.
+     * @param scorers the scorers of the words.
+     */
+    private static void sortByCandidate(int[] cursors, TermScorer[] scorers) {
+        for (int i = 1; i < cursors.length; i++) {
+            int word = cursors[i];
+            int candidate = scorers[word].candidate;
+            int j = i;
+            for (; j > 0 && scorers[cursors[j - 1]].candidate > candidate; j--) {
+                cursors[j] = cursors[j - 1];
+            }
+            cursors[j] = word;
+        }
+    }
+
+    /**
+     * Finds the first word, in the order of the pages they are on, at which the bounds of
+     * the words so far can beat the worst page kept.
+     *
+     * @param cursors   the indices of the words, by ascending page.
+     * @param scorers   the scorers of the words.
+     * @param bounds    the bound of each word in the segment.
+     * @param collector the collector of the best pages.
+     * @return the position of the word in {@code cursors}, or -1 if no page left can
+     *         beat the worst page kept.
+     */
+    private static int findPivot(int[] cursors, TermScorer[] scorers, double[] bounds, TopScoreCollector collector) {
+        double bound = 0.0;
+        for (int i = 0; i < cursors.length; i++) {
+            if (scorers[cursors[i]].candidate == PostingsIterator.NO_MORE_DOCS) {
+                return -1;
+            }
+            bound += bounds[cursors[i]];
+            if (isCompetitive(bound, collector)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Checks whether a page with a bounded score can still be kept, given that pages are
+     * offered in ascending ID order.
+     *
+     * @param bound     an upper bound of the score of the page.
+     * @param collector the collector of the best pages.
+     * @return {@code true} if the page may score above the worst page kept.
+     */
+    private static boolean isCompetitive(double bound, TopScoreCollector collector) {
+        return bound * (1 + BOUND_SLACK) > collector.getMinCompetitiveScore();
+    }
+
+    /**
+     * Calculates the score of a page, as the highest sum of word scores over all groups.
+     *
+     * @param scorers      the scorers of the words of each group, in the segment of the page.
+     * @param pageId       the ID of the page in the segment.
+     * @param globalPageId the ID of the page in the database.
+     * @return the score of the page.
+     */
+    private double score(TermScorer[][] scorers, int pageId, int globalPageId) {
+        double score = 0.0;
+        for (TermScorer[] group : scorers) {
+            double groupScore = 0.0;
+            for (TermScorer scorer : group) {
+                groupScore += scorer.score(pageId, globalPageId);
+            }
+            score = Math.max(score, groupScore);
+        }
+        return score;
+    }
+
+    /**
+     * Lists the words of a query group to score, with its phrases replaced by their words
+     * and its fuzzy and wildcard words replaced by their expansions. Words that occur on
+     * no page are left out, since they add nothing to any score.
+     *
+     * @param group      a group of words and phrases.
+     * @param expansions the expansions of the fuzzy and wildcard words of the query.
+     * @return the words to score, in order.
+     */
+    private List<ScoredWord> getScoredWords(List<String> group, Map<String, List<String>> expansions) {
+        List<String> words = new ArrayList<>();
+        for (String term : group) {
+            List<String> expanded = expansions.get(term);
+            words.addAll(expanded != null ? expanded : QueryHandler.getWords(List.of(term)));
+        }
+        List<ScoredWord> scoredWords = new ArrayList<>();
+        for (String word : words) {
+            boolean titleOnly = QueryHandler.isTitleTerm(word);
+            String titleWord = titleOnly ? QueryHandler.getTitleWord(word) : word;
+            int pagesWithWord = titleOnly ? database.pagesWithTitleWord(titleWord) : database.pagesWithWord(word);
+            if (pagesWithWord > 0) {
+                scoredWords.add(new ScoredWord(titleOnly ? null : word, titleWord, pagesWithWord));
+            }
+        }
+        return scoredWords;
+    }
+
+    /**
+     * Builds the iterator over the pages of a segment that match a query.
+     *
+     * @param segment     the segment to search.
+     * @param parsedQuery the groups of the query.
+     * @param andIsTrue   {@code true} if a page must match all groups; {@code false} if
+     *                    it must match any group.
+     * @param expansions  the expansions of the fuzzy and wildcard words of the query.
+     * @return an unpositioned iterator over the matching pages, or {@code null} if no page
+     *         of the segment can match.
+     */
+    private PostingsIterator matchQuery(Segment segment, List<List<String>> parsedQuery, boolean andIsTrue,
+            Map<String, List<String>> expansions) {
+        List<PostingsIterator> groups = new ArrayList<>(parsedQuery.size());
+        for (List<String> group : parsedQuery) {
+            PostingsIterator matches = matchGroup(segment, group, expansions);
+            if (matches != null) {
+                groups.add(matches);
+            } else if (andIsTrue) {
+                return null;
+            }
+        }
+        if (groups.isEmpty()) {
+            return null;
+        }
+        if (groups.size() == 1) {
+            return groups.get(0);
+        }
+        return andIsTrue ? new ConjunctionIterator(groups) : new DisjunctionIterator(groups);
+    }
+
+    /**
+     * Builds the iterator over the pages of a segment that match a clause of a compiled
+     * query. The clauses of an AND are opened in the order of the plan, so the rarest
+     * ones are tried first.
+     *
+     * @param segment    the segment to search.
+     * @param clause     a clause of the query.
+     * @param expansions the expansions of the fuzzy and wildcard words of the query.
+     * @return an unpositioned iterator over the matching pages, or {@code null} if no page
+     *         of the segment can match, which is always the case for an excluded clause on
+     *         its own.
+     */
+    private PostingsIterator matchClause(Segment segment, QueryNode clause, Map<String, List<String>> expansions) {
+        switch (clause.getKind()) {
+            case TERM:
+                return matchGroup(segment, List.of(clause.getTerm()), expansions);
+            case AND:
+                List<PostingsIterator> required = new ArrayList<>();
+                List<PostingsIterator> excluded = new ArrayList<>();
+                for (QueryNode child : clause.getChildren()) {
+                    boolean negated = child.getKind() == QueryNode.Kind.NOT;
+                    PostingsIterator matches = matchClause(segment, negated ? child.getChildren().get(0) : child,
+                            expansions);
+                    if (negated) {
+                        if (matches != null) {
+                            excluded.add(matches);
+                        }
+                    } else if (matches == null) {
+                        return null;
+                    } else {
+                        required.add(matches);
+                    }
+                }
+                if (required.isEmpty()) {
+                    return null;
+                }
+                PostingsIterator matches = required.size() == 1 ? required.get(0) : new ConjunctionIterator(required);
+                for (PostingsIterator exclude : excluded) {
+                    matches = new ExclusionIterator(matches, exclude);
+                }
+                return matches;
+            case OR:
+                List<PostingsIterator> alternatives = new ArrayList<>();
+                for (QueryNode child : clause.getChildren()) {
+                    PostingsIterator alternative = matchClause(segment, child, expansions);
+                    if (alternative != null) {
+                        alternatives.add(alternative);
+                    }
+                }
+                if (alternatives.isEmpty()) {
+                    return null;
+                }
+                return alternatives.size() == 1 ? alternatives.get(0) : new DisjunctionIterator(alternatives);
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Builds the iterator over the pages of a segment that match all words and phrases of
+     * a group. The kept page sets of common words and title words are iterated instead of
+     * their posting lists, and a fuzzy or wildcard word iterates over the union of its
+     * expansions.
+     *
+     * @param segment    the segment to search.
+     * @param group      a group of words and phrases.
+     * @param expansions the expansions of the fuzzy and wildcard words of the query.
+     * @return an unpositioned iterator over the matching pages, or {@code null} if no page
+     *         of the segment can match.
+     */
+    private PostingsIterator matchGroup(Segment segment, List<String> group, Map<String, List<String>> expansions) {
+        List<PostingsIterator> iterators = new ArrayList<>(group.size());
+        List<int[]> phrases = new ArrayList<>();
+        for (String term : group) {
+            if (QueryHandler.isPhrase(term)) {
+                List<String> words = QueryHandler.getPhraseWords(term);
+                int[] termIds = new int[words.size()];
+                for (int i = 0; i < termIds.length; i++) {
+                    termIds[i] = segment.getTermId(words.get(i));
+                    if (termIds[i] < 0) {
+                        return null;
+                    }
+                    iterators.add(matchWord(segment, termIds[i]));
+                }
+                phrases.add(termIds);
+            } else if (expansions.containsKey(term)) {
+                List<PostingsIterator> expanded = new ArrayList<>();
+                for (String expansion : expansions.get(term)) {
+                    int termId = segment.getTermId(expansion);
+                    if (termId >= 0) {
+                        expanded.add(segment.getPostingsIterator(termId));
+                    }
+                }
+                if (expanded.isEmpty()) {
+                    return null;
+                }
+                iterators.add(expanded.size() == 1 ? expanded.get(0) : new DisjunctionIterator(expanded));
+            } else if (QueryHandler.isTitleTerm(term)) {
+                TitleIndex titles = segment.getTitleIndex();
+                int termId = titles.getTermId(QueryHandler.getTitleWord(term));
+                if (termId < 0) {
+                    return null;
+                }
+                iterators.add(segment.removeDeleted(titles.getPageSet(termId)).iterator());
+            } else {
+                int termId = segment.getTermId(term);
+                if (termId < 0) {
+                    return null;
+                }
+                iterators.add(matchWord(segment, termId));
+            }
+        }
+        if (iterators.isEmpty()) {
+            return null;
+        }
+        PostingsIterator matches = iterators.size() == 1 ? iterators.get(0) : new ConjunctionIterator(iterators);
+        for (int[] termIds : phrases) {
+            matches = new PhraseIterator(matches, new PhraseMatcher(segment, termIds));
+        }
+        return matches;
+    }
+
+    /**
+     * Opens the iterator used to match a word: its kept page set if it is common, and its
+     * posting list otherwise.
+     *
+     * @param segment the segment to search.
+     * @param termId  the ID of the word in the segment.
+     * @return an unpositioned iterator over the live pages containing the word.
+     */
+    private static PostingsIterator matchWord(Segment segment, int termId) {
+        return segment.hasPageSet(termId) ? segment.getPageSet(termId).iterator() : segment.getPostingsIterator(termId);
+    }
+
+    /**
+     * A word to score, with its document frequency in the whole database.
+     */
+    private static final class ScoredWord {
+        private final String word;
+        private final String titleWord;
+        private final int pagesWithWord;
+
+        /**
+         * Constructs a new {@code ScoredWord}.
+         *
+         * @param word          the word to look up in the body, or {@code null} for a
+         *                      title-only word.
+         * @param titleWord     the word to look up in the titles.
+         * @param pagesWithWord the number of pages containing the word, in the body or,
+         *                      for a title-only word, in the title.
+         */
+        private ScoredWord(String word, String titleWord, int pagesWithWord) {
+            this.word = word;
+            this.titleWord = titleWord;
+            this.pagesWithWord = pagesWithWord;
+        }
+    }
+
+    /**
+     * The distinct words of a query evaluated with pruning, and the groups they form.
+     */
+    private static final class PrunedQuery {
+        private final List<ScoredWord> words = new ArrayList<>();
+        private final int[] weights;
+        private final int[][] scoredWords;
+        private final int[][] matchedWords;
+
+        /**
+         * Constructs a new {@code PrunedQuery}.
+         *
+         * @param parsedQuery the groups of the query, of plain words only.
+         * @param scoredWords the words to score of each group.
+         */
+        private PrunedQuery(List<List<String>> parsedQuery, List<List<ScoredWord>> scoredWords) {
+            Map<String, Integer> indices = new HashMap<>();
+            this.scoredWords = new int[scoredWords.size()][];
+            for (int i = 0; i < this.scoredWords.length; i++) {
+                List<ScoredWord> group = scoredWords.get(i);
+                this.scoredWords[i] = new int[group.size()];
+                for (int j = 0; j < group.size(); j++) {
+                    ScoredWord word = group.get(j);
+                    Integer index = indices.get(word.word);
+                    if (index == null) {
+                        index = words.size();
+                        indices.put(word.word, index);
+                        words.add(word);
+                    }
+                    this.scoredWords[i][j] = index;
+                }
+            }
+            weights = new int[words.size()];
+            for (int[] group : this.scoredWords) {
+                int[] counts = new int[words.size()];
+                for (int word : group) {
+                    weights[word] = Math.max(weights[word], ++counts[word]);
+                }
+            }
+            matchedWords = new int[parsedQuery.size()][];
+            for (int i = 0; i < matchedWords.length; i++) {
+                matchedWords[i] = parsedQuery.get(i).stream().mapToInt(term -> indices.getOrDefault(term, -1))
+                        .toArray();
+            }
+        }
+
+        /**
+         * Checks whether a page contains all words of any group.
+         *
+         * @param scorers the scorers of the words, in the segment of the page.
+         * @param pageId  the ID of the page in the segment, not lower than the page
+         *                checked before.
+         * @return {@code true} if the page matches the query.
+         */
+        private boolean matches(TermScorer[] scorers, int pageId) {
+            for (int[] group : matchedWords) {
+                boolean matches = group.length > 0;
+                for (int i = 0; i < group.length && matches; i++) {
+                    matches = group[i] >= 0 && scorers[group[i]].contains(pageId);
+                }
+                if (matches) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Calculates the score of a page from the scores of its words, as the highest sum
+         * over all groups.
+         *
+         * @param wordScores the score of each word on the page.
+         * @return the score of the page.
+         */
+        private double score(double[] wordScores) {
+            double score = 0.0;
+            for (int[] group : scoredWords) {
+                double groupScore = 0.0;
+                for (int word : group) {
+                    groupScore += wordScores[word];
+                }
+                score = Math.max(score, groupScore);
+            }
+            return score;
+        }
+    }
+
+    /**
+     * Scores a word on the pages of a segment, which must be visited in ascending order.
+     */
+    private final class TermScorer {
+        private final int pagesWithWord;
+        private final int termId;
+        private final int titleTermId;
+        private final PostingsIterator postings;
+        private final int[] titlePages;
+        private final int[] titleFrequencies;
+        private int titleIndex;
+        private boolean candidateTitles;
+        private int candidate = -1;
+        private TermImpacts titleImpacts;
+        private double titleMaxScore;
+        private BlockPostingsIterator blocks;
+        private int[] blockFrequencies;
+        private int[] blockLengths;
+        private int blockEnd = -1;
+        private double blockMaxScore;
+
+        /**
+         * Constructs a new {@code TermScorer}.
+         *
+         * @param segment the segment to score pages of.
+         * @param word    the word to score.
+         */
+        private TermScorer(Segment segment, ScoredWord word) {
+            pagesWithWord = word.pagesWithWord;
+            termId = word.word == null ? -1 : segment.getTermId(word.word);
+            postings = termId < 0 ? null : segment.getPostingsIterator(termId);
+            TitleIndex titles = segment.getTitleIndex();
+            titleTermId = titles.getTermId(word.titleWord);
+            titlePages = titleTermId < 0 ? null : titles.getPostings(titleTermId);
+            titleFrequencies = titleTermId < 0 ? null : titles.getFrequencies(titleTermId);
+        }
+
+        /**
+         * Bounds the score of the word on the pages of the segment, by scoring every
+         * competitive impact of the body with every one of the title, and opens the block
+         * headers of the body to bound its blocks. If a page can score above 0 from its
+         * title alone, the titles are walked for candidates as well as the body.
+         *
+         * @param segment the segment the scorer was constructed for.
+         * @return the highest score of the word on any page of the segment.
+         */
+        private double computeMaxScore(Segment segment) {
+            titleImpacts = segment.getTitleIndex().getImpacts();
+            titleMaxScore = computeMaxScore(0, Integer.MAX_VALUE);
+            candidateTitles = titleMaxScore > 0;
+            double maxScore = titleMaxScore;
+            if (termId >= 0) {
+                TermImpacts body = segment.getTermImpacts();
+                for (int i = body.getStart(termId); i < body.getEnd(termId); i++) {
+                    maxScore = Math.max(maxScore, computeMaxScore(body.getFrequency(i), body.getLength(i)));
+                }
+                blocks = segment.getBlockPostingsIterator(termId);
+                blockFrequencies = new int[PostingsWriter.BLOCK_SIZE];
+                blockLengths = new int[PostingsWriter.BLOCK_SIZE];
+            }
+            return maxScore;
+        }
+
+        /**
+         * Bounds the score of the word on a page with the given body statistics, over
+         * every competitive impact of the title. A title that lacks the word counts as a
+         * frequency of 0.
+         *
+         * @param frequency the frequency of the word in the body.
+         * @param length    the length of the body.
+         * @return the highest score of the word on such a page.
+         */
+        private double computeMaxScore(int frequency, int length) {
+            int start = titleTermId < 0 ? 0 : titleImpacts.getStart(titleTermId);
+            int end = titleTermId < 0 ? 0 : titleImpacts.getEnd(titleTermId);
+            double maxScore = scoringMethod.calculateMaxScore(frequency, length, 0, Integer.MAX_VALUE, pagesWithWord,
+                    database);
+            for (int i = start; i < end; i++) {
+                maxScore = Math.max(maxScore, scoringMethod.calculateMaxScore(frequency, length,
+                        titleImpacts.getFrequency(i), titleImpacts.getLength(i), pagesWithWord, database));
+            }
+            return maxScore;
+        }
+
+        /**
+         * Bounds the score of the word on the pages of the body block containing a page,
+         * by the impacts in the block's header, and sets {@code blockEnd} to the last page
+         * of the block. Past the last block, only the title can contain the word. Pages
+         * must be asked for in ascending order.
+         *
+         * @param pageId the ID of the page in the segment.
+         * @return the highest score of the word on any page from {@code pageId} up to
+         *         {@code blockEnd}.
+         */
+        private double getBlockMaxScore(int pageId) {
+            if (pageId > blockEnd) {
+                blockEnd = blocks == null ? PostingsIterator.NO_MORE_DOCS : blocks.advanceShallow(pageId);
+                blockMaxScore = titleMaxScore;
+                if (blockEnd != PostingsIterator.NO_MORE_DOCS) {
+                    int count = blocks.getBlockImpacts(blockFrequencies, blockLengths);
+                    for (int i = 0; i < count; i++) {
+                        blockMaxScore = Math.max(blockMaxScore, computeMaxScore(blockFrequencies[i], blockLengths[i]));
+                    }
+                }
+            }
+            return blockMaxScore;
+        }
+
+        /**
+         * Moves to the first page from a target on that may contain the word.
+         *
+         * @param target the lowest page to consider.
+         * @return the first page from {@code target} on whose body contains the word, or
+         *         whose title contains it if titles are walked for candidates; or
+         *         {@link PostingsIterator#NO_MORE_DOCS}.
+         */
+        private int nextCandidate(int target) {
+            if (candidate < target) {
+                int next = postings == null ? PostingsIterator.NO_MORE_DOCS : postings.advance(target);
+                if (candidateTitles) {
+                    titleIndex = BlockPostingsIterator.gallop(titlePages, titleIndex, titlePages.length, target);
+                    if (titleIndex < titlePages.length) {
+                        next = Math.min(next, titlePages[titleIndex]);
+                    }
+                }
+                candidate = next;
+            }
+            return candidate;
+        }
+
+        /**
+         * Checks whether the body of a page contains the word.
+         *
+         * @param pageId the ID of the page in the segment, not lower than the page
+         *               checked or scored before.
+         * @return {@code true} if the page is live and its body contains the word.
+         */
+        private boolean contains(int pageId) {
+            return postings != null && postings.advance(pageId) == pageId;
+        }
+
+        /**
+         * Scores the word on a page.
+         *
+         * @param pageId       the ID of the page in the segment, not lower than the page
+         *                     scored before.
+         * @param globalPageId the ID of the page in the database.
+         * @return the score of the word on the page.
+         */
+        private double score(int pageId, int globalPageId) {
+            int termFrequency = postings != null && postings.advance(pageId) == pageId ? postings.freq() : 0;
+            int titleFrequency = 0;
+            if (titlePages != null) {
+                titleIndex = BlockPostingsIterator.gallop(titlePages, titleIndex, titlePages.length, pageId);
+                if (titleIndex < titlePages.length && titlePages[titleIndex] == pageId) {
+                    titleFrequency = titleFrequencies[titleIndex];
+                }
+            }
+            return scoringMethod.calculateScore(termFrequency, titleFrequency, pagesWithWord, globalPageId,
+                    database);
+        }
+    }
+
+    /**
+     * Scores a clause of a compiled query on the pages of a segment, which must be
+     * visited in ascending order.
+     */
+    private final class ClauseScorer {
+        private final QueryNode.Kind kind;
+        private final TermScorer[] words;
+        private final ClauseScorer[] clauses;
+
+        /**
+         * Constructs a new {@code ClauseScorer}, with a scorer for every word of a term
+         * and for every clause that is not excluded.
+         *
+         * @param segment     the segment to score pages of.
+         * @param clause      the clause to score.
+         * @param expansions  the expansions of the fuzzy and wildcard words of the query.
+         * @param scoredTerms the words to score of the terms seen in earlier segments,
+         *                    which is added to.
+         */
+        private ClauseScorer(Segment segment, QueryNode clause, Map<String, List<String>> expansions,
+                Map<String, List<ScoredWord>> scoredTerms) {
+            kind = clause.getKind();
+            if (kind == QueryNode.Kind.TERM) {
+                List<ScoredWord> scoredWords = scoredTerms.computeIfAbsent(clause.getTerm(),
+                        term -> getScoredWords(List.of(term), expansions));
+                words = new TermScorer[scoredWords.size()];
+                for (int i = 0; i < words.length; i++) {
+                    words[i] = new TermScorer(segment, scoredWords.get(i));
+                }
+                clauses = new ClauseScorer[0];
+            } else {
+                words = new TermScorer[0];
+                List<ClauseScorer> children = new ArrayList<>();
+                for (QueryNode child : clause.getChildren()) {
+                    if (child.getKind() != QueryNode.Kind.NOT) {
+                        children.add(new ClauseScorer(segment, child, expansions, scoredTerms));
+                    }
+                }
+                clauses = children.toArray(new ClauseScorer[0]);
+            }
+        }
+
+        /**
+         * Scores the clause on a page.
+         *
+         * @param pageId       the ID of the page in the segment, not lower than the page
+         *                     scored before.
+         * @param globalPageId the ID of the page in the database.
+         * @return the sum of the word scores of a term or of the clause scores of an AND,
+         *         or the highest clause score of an OR.
+         */
+        private double score(int pageId, int globalPageId) {
+            double score = 0.0;
+            for (TermScorer word : words) {
+                score += word.score(pageId, globalPageId);
+            }
+            for (ClauseScorer clause : clauses) {
+                double clauseScore = clause.score(pageId, globalPageId);
+                score = kind == QueryNode.Kind.OR ? Math.max(score, clauseScore) : score + clauseScore;
+            }
+            return score;
+        }
+    }
+
+    /**
+     * A {@link PostingsIterator} that keeps the pages of another one that contain a
+     * phrase.
+     */
+    private static final class PhraseIterator implements PostingsIterator {
+        private final PostingsIterator iterator;
+        private final PhraseMatcher matcher;
+
+        /**
+         * Constructs a new {@code PhraseIterator}.
+         *
+         * @param iterator the iterator over pages containing all words of the phrase.
+         * @param matcher  the matcher of the phrase.
+         */
+        private PhraseIterator(PostingsIterator iterator, PhraseMatcher matcher) {
+            this.iterator = iterator;
+            this.matcher = matcher;
+        }
+
+        @Override
+        public int docId() {
+            return iterator.docId();
+        }
+
+        @Override
+        public int next() {
+            return skipMismatches(iterator.next());
+        }
+
+        @Override
+        public int advance(int target) {
+            if (iterator.docId() >= target) {
+                return iterator.docId();
+            }
+            return skipMismatches(iterator.advance(target));
+        }
+
+        @Override
+        public int freq() {
+            return iterator.freq();
+        }
+
+        @Override
+        public long cost() {
+            return iterator.cost();
+        }
+
+        /**
+         * Moves past pages that do not contain the phrase.
+         *
+         * @param pageId the page the iterator is on.
+         * @return the first page from {@code pageId} on that contains the phrase, or
+         *         {@link PostingsIterator#NO_MORE_DOCS}.
+         */
+        private int skipMismatches(int pageId) {
+            while (pageId != NO_MORE_DOCS && !matcher.matches(pageId)) {
+                pageId = iterator.next();
+            }
+            return pageId;
+        }
+    }
+}
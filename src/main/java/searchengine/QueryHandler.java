@@ -8,31 +8,52 @@ import java.util.Map;
 
 /**
  * Handles parsing and executing queries for the search engine.
- * This class provides methods to parse query strings, extract parameters,
- * and structure the queries for logical operator handling.
+ * This class provides methods to extract the parameters of a request, and to recognize
+ * the kinds of terms that {@link QueryParser} reads from a query.
+ * <p>
+ * Words enclosed in double quotes ({@code "} or {@code %22}) form a phrase, which
+ * only matches pages where the words occur next to each other and in order. A phrase
+ * is kept as a single term: its words separated by single spaces and enclosed in double
+ * quotes, as recognized by {@link #isPhrase(String)}.
+ * </p>
+ * <p>
+ * A word prefixed with {@value #TITLE_PREFIX} ({@code :} may be encoded as {@code %3A})
+ * only matches pages whose title contains the word, as recognized by
+ * {@link #isTitleTerm(String)}. The word is stored in lower case, like the words of
+ * the title index.
+ * </p>
+ * <p>
+ * A word followed by {@value #FUZZY_MARKER} ({@code %7E}) and a number of edits up to
+ * {@link LevenshteinAutomaton#MAX_EDITS} also matches the words within that many
+ * edits of it, as recognized by {@link #isFuzzyTerm(String)}. Without a number, two
+ * edits are allowed.
+ * </p>
+ * <p>
+ * A word containing {@value WildcardPattern#WILDCARD} ({@code %2A}) matches the words
+ * of the index in which every wildcard is replaced by any sequence of characters, such
+ * as {@code astro*} or {@code *logy}, as recognized by {@link #isWildcardTerm(String)}.
+ * </p>
  */
 public class QueryHandler {
-    private List<List<String>> parsedQuery;
-    private boolean andIsTrue;
-
     /**
-     * Initializes a new instance of the {@link QueryHandler} class.
-     * The parsed query list and logical operator flag are initialized.
+     * The prefix of a query word that only matches page titles, such as {@code title:war}.
      */
-    public QueryHandler() {
-        parsedQuery = new ArrayList<>();
-        andIsTrue = false;
-    }
-
+    public static final String TITLE_PREFIX = "title:";
     /**
-     * Retrieves the value of the logical operator flag.
-     * 
-     * @return {@code true} if the query contains the "AND" logical operator,
-     *         {@code false} otherwise.
+     * The marker of a fuzzy query word, followed by its maximum number of edits, such as
+     * {@code wrold~1}.
      */
-    public boolean getAndIsTrue() {
-        return andIsTrue;
-    }
+    public static final char FUZZY_MARKER = '~';
+    /**
+     * The number of results returned for a query without a {@code k} parameter.
+     */
+    public static final int DEFAULT_RESULT_COUNT = 100;
+    /**
+     * The largest number of results returned for a query. A larger {@code k} parameter is
+     * reduced to it, so a request cannot make the search allocate room for more results
+     * than any page of results can show.
+     */
+    public static final int MAX_RESULT_COUNT = 1000;
 
     /**
      * Parses a raw query string into a map of parameters.
@@ -93,35 +114,168 @@ public class QueryHandler {
     }
 
     /**
-     * Parses a raw query string into a structured list format.
-     * The query is split into groups based on the presence of logical operators
-     * ("AND" or "OR"). Each group is further split into individual words.
-     * Sets the {@code andIsTrue} flag if "AND" is found in the query.
+     * Extracts the number of results to return from the query parameter with the key
+     * "k" of a raw query string.
+     *
+     * @param rawQuery The raw query string.
+     * @return The value of the "k" parameter, at most {@link #MAX_RESULT_COUNT}, or
+     *         {@link #DEFAULT_RESULT_COUNT} if it is not present.
+     * @throws IllegalArgumentException if the value is not a positive number.
+     */
+    public int extractResultCount(String rawQuery) {
+        String value = parseQueryParams(rawQuery).get("k");
+        if (value == null) {
+            return DEFAULT_RESULT_COUNT;
+        }
+        try {
+            int resultCount = Integer.parseInt(value);
+            if (resultCount > 0) {
+                return Math.min(resultCount, MAX_RESULT_COUNT);
+            }
+        } catch (NumberFormatException e) {
+            // Reported below like any other invalid count.
+        }
+        throw new IllegalArgumentException("Result count must be a positive number: " + value);
+    }
+
+    /**
+     * Checks whether an entry of a parsed query group is a phrase.
+     *
+     * @param term an entry of a group returned by {@link QueryParser#parseGroups(String)}.
+     * @return {@code true} if the entry is a phrase of several words; {@code false} if it
+     *         is a single word.
+     */
+    public static boolean isPhrase(String term) {
+        return term.length() > 2 && term.startsWith("\"") && term.endsWith("\"") && term.indexOf(' ') > 0;
+    }
+
+    /**
+     * Splits a phrase into its words.
+     *
+     * @param phrase a phrase, as recognized by {@link #isPhrase(String)}.
+     * @return the words of the phrase, in order.
+     */
+    public static List<String> getPhraseWords(String phrase) {
+        return Arrays.asList(phrase.substring(1, phrase.length() - 1).split(" "));
+    }
+
+    /**
+     * Lists the words of a query group, with its phrases replaced by their words.
+     * Title-only words are kept with their {@value #TITLE_PREFIX} prefix.
+     *
+     * @param group a group returned by {@link QueryParser#parseGroups(String)}.
+     * @return all words of the group, in order.
+     */
+    public static List<String> getWords(List<String> group) {
+        List<String> words = new ArrayList<>();
+        for (String term : group) {
+            if (isPhrase(term)) {
+                words.addAll(getPhraseWords(term));
+            } else {
+                words.add(term);
+            }
+        }
+        return words;
+    }
+
+    /**
+     * Checks whether an entry of a parsed query group only matches page titles.
      *
-     * @param query The raw query string.
-     * @return A list of lists, where each inner list represents a group of words
-     *         from the query.
-     */
-    public List<List<String>> parseQuery(String query) {
-        String[] groups = new String[] { query };
-        if (query.contains("AND")) {
-            groups = query.split("(%20)*AND(%20)*");
-            andIsTrue = true;
-        } else {
-            groups = query.split("(%20)*OR(%20)*");
+     * @param term an entry of a group returned by {@link QueryParser#parseGroups(String)}.
+     * @return {@code true} if the entry is a word prefixed with {@value #TITLE_PREFIX};
+     *         {@code false} otherwise.
+     */
+    public static boolean isTitleTerm(String term) {
+        return term.startsWith(TITLE_PREFIX) && term.length() > TITLE_PREFIX.length();
+    }
+
+    /**
+     * Retrieves the word of a title-only entry.
+     *
+     * @param term an entry recognized by {@link #isTitleTerm(String)}.
+     * @return the word to look up in the title index.
+     */
+    public static String getTitleWord(String term) {
+        return term.substring(TITLE_PREFIX.length());
+    }
+
+    /**
+     * Checks whether an entry of a parsed query group is a fuzzy word, which also matches
+     * the words within a number of edits of it.
+     *
+     * @param term an entry of a group returned by {@link QueryParser#parseGroups(String)}.
+     * @return {@code true} if the entry is a word followed by {@value #FUZZY_MARKER} and
+     *         optionally a number of edits from 0 to {@link LevenshteinAutomaton#MAX_EDITS};
+     *         {@code false} otherwise, including for title-only words.
+     */
+    public static boolean isFuzzyTerm(String term) {
+        int marker = term.lastIndexOf(FUZZY_MARKER);
+        if (marker <= 0 || isTitleTerm(term) || isPhrase(term) || term.indexOf(WildcardPattern.WILDCARD) >= 0) {
+            return false;
         }
+        String edits = term.substring(marker + 1);
+        return edits.isEmpty() || edits.length() == 1 && edits.charAt(0) >= '0'
+                && edits.charAt(0) <= '0' + LevenshteinAutomaton.MAX_EDITS;
+    }
+
+    /**
+     * Retrieves the word of a fuzzy entry.
+     *
+     * @param term an entry recognized by {@link #isFuzzyTerm(String)}.
+     * @return the word to expand.
+     */
+    public static String getFuzzyWord(String term) {
+        return term.substring(0, term.lastIndexOf(FUZZY_MARKER));
+    }
 
-        for (String group : groups) {
-            String[] words = Arrays.stream(group.split("%20+"))
-                    .map(String::trim)
-                    .filter(s -> !s.isEmpty())
-                    .toArray(String[]::new);
-            List<String> wordList = new ArrayList<>();
-            for (String word : words) {
-                wordList.add(word);
+    /**
+     * Retrieves the maximum number of edits of a fuzzy entry.
+     *
+     * @param term an entry recognized by {@link #isFuzzyTerm(String)}.
+     * @return the number after {@value #FUZZY_MARKER}, or {@link LevenshteinAutomaton#MAX_EDITS}
+     *         if there is none.
+     */
+    public static int getMaxEdits(String term) {
+        int marker = term.lastIndexOf(FUZZY_MARKER);
+        return marker == term.length() - 1 ? LevenshteinAutomaton.MAX_EDITS : term.charAt(marker + 1) - '0';
+    }
+
+    /**
+     * Checks whether an entry of a parsed query group is a wildcard word, which matches
+     * all words of the index fitting its pattern.
+     *
+     * @param term an entry of a group returned by {@link QueryParser#parseGroups(String)}.
+     * @return {@code true} if the entry is a word containing {@value WildcardPattern#WILDCARD}
+     *         and at least one other character; {@code false} otherwise, including for
+     *         title-only words and phrases.
+     */
+    public static boolean isWildcardTerm(String term) {
+        int wildcard = term.indexOf(WildcardPattern.WILDCARD);
+        if (wildcard < 0 || isTitleTerm(term) || isPhrase(term)) {
+            return false;
+        }
+        for (int i = 0; i < term.length(); i++) {
+            if (term.charAt(i) != WildcardPattern.WILDCARD) {
+                return true;
             }
-            parsedQuery.add(wordList);
         }
-        return parsedQuery;
+        return false;
+    }
+
+    /**
+     * Expands a fuzzy or wildcard entry to the words of a database it matches.
+     *
+     * @param term     an entry of a group returned by {@link QueryParser#parseGroups(String)}.
+     * @param database the database to expand the entry in.
+     * @return the words the entry matches, most relevant first; {@code null} if the entry
+     *         is neither a fuzzy nor a wildcard word.
+     */
+    public static List<String> expand(String term, Database database) {
+        if (isFuzzyTerm(term)) {
+            return database.expandFuzzy(getFuzzyWord(term), getMaxEdits(term));
+        } else if (isWildcardTerm(term)) {
+            return database.expandWildcard(term);
+        }
+        return null;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,206 @@
+package searchengine;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The {@code QueryNode} class is a node of the syntax tree of a query, as built by
+ * {@link QueryParser}.
+ * <p>
+ * A leaf is a single term, written as an entry of a group returned by
+ * {@link QueryParser#parseGroups(String)}: a word, a phrase, a title-only word, or a
+ * fuzzy or wildcard word, so the predicates of {@link QueryHandler} recognize it. An inner
+ * node combines its children with AND, which matches the pages matching all of them, OR,
+ * which matches the pages matching any of them, or NOT, which has a single child and
+ * removes the pages matching it from the pages of the AND it belongs to. Nodes are
+ * immutable, and two nodes are equal if they have the same kind, term and children.
+ * </p>
+ */
+final class QueryNode {
+    /**
+     * The kinds of query nodes.
+     */
+    enum Kind {
+        /**
+         * A single term.
+         */
+        TERM,
+        /**
+         * All children must match.
+         */
+        AND,
+        /**
+         * Any child must match.
+         */
+        OR,
+        /**
+         * The single child must not match.
+         */
+        NOT
+    }
+
+    private final Kind kind;
+    private final String term;
+    private final List<QueryNode> children;
+
+    /**
+     * Constructs a new {@code QueryNode}.
+     *
+     * @param kind     the kind of the node.
+     * @param term     the term of a leaf, or {@code null}.
+     * @param children the children of an inner node, or an empty list.
+     */
+    private QueryNode(Kind kind, String term, List<QueryNode> children) {
+        this.kind = kind;
+        this.term = term;
+        this.children = children;
+    }
+
+    /**
+     * Creates a leaf.
+     *
+     * @param term the term, as an entry of a group returned by
+     *             {@link QueryParser#parseGroups(String)}.
+     * @return a node matching the pages that contain the term.
+     */
+    static QueryNode term(String term) {
+        return new QueryNode(Kind.TERM, term, List.of());
+    }
+
+    /**
+     * Creates a node matching the pages that match all of some nodes. Children that are
+     * AND nodes themselves are merged into it, and a single child is returned as is.
+     *
+     * @param children the nodes to intersect.
+     * @return the intersection of the nodes.
+     * @throws IllegalArgumentException if {@code children} is empty.
+     */
+    static QueryNode and(List<QueryNode> children) {
+        return combine(Kind.AND, children);
+    }
+
+    /**
+     * Creates a node matching the pages that match any of some nodes. Children that are OR
+     * nodes themselves are merged into it, and a single child is returned as is.
+     *
+     * @param children the nodes to unite.
+     * @return the union of the nodes.
+     * @throws IllegalArgumentException if {@code children} is empty.
+     */
+    static QueryNode or(List<QueryNode> children) {
+        return combine(Kind.OR, children);
+    }
+
+    /**
+     * Creates a node excluding the pages that match another one. A negated NOT node is
+     * not simplified, since a query must still have a positive clause to match pages.
+     *
+     * @param child the node to exclude.
+     * @return the negation of the node.
+     */
+    static QueryNode not(QueryNode child) {
+        return new QueryNode(Kind.NOT, null, List.of(child));
+    }
+
+    /**
+     * Creates an AND or OR node, merging children of the same kind into it.
+     *
+     * @param kind     {@link Kind#AND} or {@link Kind#OR}.
+     * @param children the children.
+     * @return the new node, or the only child.
+     * @throws IllegalArgumentException if {@code children} is empty.
+     */
+    private static QueryNode combine(Kind kind, List<QueryNode> children) {
+        if (children.isEmpty()) {
+            throw new IllegalArgumentException("No clauses to combine with " + kind);
+        }
+        if (children.size() == 1) {
+            return children.get(0);
+        }
+        List<QueryNode> merged = new ArrayList<>(children.size());
+        for (QueryNode child : children) {
+            if (child.kind == kind) {
+                merged.addAll(child.children);
+            } else {
+                merged.add(child);
+            }
+        }
+        return new QueryNode(kind, null, List.copyOf(merged));
+    }
+
+    /**
+     * Retrieves the kind of the node.
+     *
+     * @return the kind of the node.
+     */
+    Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * Retrieves the term of a leaf.
+     *
+     * @return the term, or {@code null} if the node is not a leaf.
+     */
+    String getTerm() {
+        return term;
+    }
+
+    /**
+     * Retrieves the children of an inner node.
+     *
+     * @return an unmodifiable list of the children, which is empty for a leaf.
+     */
+    List<QueryNode> getChildren() {
+        return children;
+    }
+
+    /**
+     * Checks whether another object is a node of the same kind, term and children.
+     *
+     * @param other the object to compare with.
+     * @return {@code true} if the object is an equal node.
+     */
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof QueryNode)) {
+            return false;
+        }
+        QueryNode node = (QueryNode) other;
+        return kind == node.kind && (term == null ? node.term == null : term.equals(node.term))
+                && children.equals(node.children);
+    }
+
+    /**
+     * Computes a hash code consistent with {@link #equals(Object)}.
+     *
+     * @return the hash code of the node.
+     */
+    @Override
+    public int hashCode() {
+        return (kind.hashCode() * 31 + (term == null ? 0 : term.hashCode())) * 31 + children.hashCode();
+    }
+
+    /**
+     * Writes the node in the query language, with every inner node in parentheses.
+     *
+     * @return the node as a query, such as {@code (war AND (peace OR treaty) AND NOT title:truce)}.
+     */
+    @Override
+    public String toString() {
+        if (kind == Kind.TERM) {
+            return term;
+        }
+        if (kind == Kind.NOT) {
+            return "NOT " + children.get(0);
+        }
+        StringBuilder builder = new StringBuilder("(");
+        for (QueryNode child : children) {
+            if (builder.length() > 1) {
+                builder.append(' ').append(kind).append(' ');
+            }
+            builder.append(child);
+        }
+        return builder.append(')').toString();
+    }
+}
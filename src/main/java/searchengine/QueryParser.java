@@ -0,0 +1,421 @@
+package searchengine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * The {@code QueryParser} class parses queries of the search engine into a tree of
+ * {@link QueryNode}s, by recursive descent over the characters of the query.
+ * <p>
+ * The grammar, from the loosest to the tightest operator, is:
+ * </p>
+ * <pre>
+ * query   := and ("OR" and)*
+ * and     := unary (["AND"] unary)*
+ * unary   := "NOT" unary | primary
+ * primary := "(" query ")" | phrase | ["title:"] word | "title:" ("(" query ")" | phrase)
+ * </pre>
+ * <p>
+ * Words next to each other must all match, as if joined by AND, and OR binds looser than
+ * AND, so {@code war peace OR treaty} matches the pages containing both {@code war} and
+ * {@code peace}, and the pages containing {@code treaty}. NOT removes the pages matching
+ * its clause from the pages of the clauses it is joined to by AND. The operators must be
+ * written in upper case, and words are separated by spaces, which may be encoded as
+ * {@code %20} like in the raw query of a request. The characters {@code " ( ) : ~ *} may
+ * be encoded too.
+ * </p>
+ * <p>
+ * Words enclosed in double quotes form a phrase, and a word followed by
+ * {@value QueryHandler#FUZZY_MARKER} or containing {@value WildcardPattern#WILDCARD} is
+ * expanded, as described by {@link QueryHandler}. The prefix
+ * {@value QueryHandler#TITLE_PREFIX} makes a word, or every word of a phrase or of a
+ * clause in parentheses, only match page titles, and the words are lower-cased.
+ * </p>
+ * <p>
+ * Mistakes are tolerated rather than reported: a quote that is not closed, parentheses
+ * that are not balanced, and operators without a clause on both sides are ignored. The
+ * query is decoded into a single array and scanned by index, so only the terms and nodes
+ * themselves are allocated. A parser holds no state between queries, so one instance can
+ * be shared by any number of threads.
+ * </p>
+ */
+final class QueryParser {
+    private static final String AND = "AND";
+    private static final String OR = "OR";
+    private static final String NOT = "NOT";
+
+    /**
+     * Parses a query.
+     *
+     * @param query the query, which may contain URL-encoded characters.
+     * @return the root of the syntax tree of the query.
+     * @throws IllegalArgumentException if the query is {@code null} or has no terms.
+     */
+    QueryNode parse(String query) {
+        if (query == null) {
+            throw new IllegalArgumentException("Query cannot be null or empty");
+        }
+        QueryNode root = new Scanner(decode(query)).parseQuery();
+        if (root == null) {
+            throw new IllegalArgumentException("Query cannot be null or empty");
+        }
+        return root;
+    }
+
+    /**
+     * Parses a query into groups of terms, for the searches that take groups: a page must
+     * match any group, and all terms of a group. The groups are derived from the syntax
+     * tree, as by {@link QueryPlan#getGroups()}, so words joined by AND, written or not,
+     * form one group, and OR separates the groups.
+     *
+     * @param query the query, which may contain URL-encoded characters.
+     * @return the groups of the query, in the order they were written.
+     * @throws IllegalArgumentException if the query is {@code null}, has no terms, or has
+     *                                  negated clauses or nested parentheses that groups
+     *                                  cannot express.
+     */
+    List<List<String>> parseGroups(String query) {
+        List<List<String>> groups = QueryPlan.toGroups(parse(query));
+        if (groups == null) {
+            throw new IllegalArgumentException("Query cannot be written as groups: " + query);
+        }
+        return groups;
+    }
+
+    /**
+     * Decodes the URL-encoded characters that have a meaning in a query: spaces, quotes,
+     * parentheses, colons, tildes and asterisks. Other escapes are kept as written, like
+     * the words of the index.
+     *
+     * @param query the raw query.
+     * @return the characters of the decoded query.
+     */
+    private static char[] decode(String query) {
+        char[] chars = new char[query.length()];
+        int length = 0;
+        for (int i = 0; i < query.length(); i++) {
+            char c = query.charAt(i);
+            if (c == '%' && i + 2 < query.length()) {
+                char decoded = decodeEscape(query.charAt(i + 1), query.charAt(i + 2));
+                if (decoded != 0) {
+                    c = decoded;
+                    i += 2;
+                }
+            }
+            chars[length++] = c;
+        }
+        return length == chars.length ? chars : Arrays.copyOf(chars, length);
+    }
+
+    /**
+     * Decodes an escape of the query language.
+     *
+     * @param high the first hexadecimal digit after {@code %}.
+     * @param low  the second hexadecimal digit after {@code %}.
+     * @return the decoded character, or 0 if the escape is not one to decode.
+     */
+    private static char decodeEscape(char high, char low) {
+        switch (high) {
+            case '2':
+                switch (low) {
+                    case '0':
+                        return ' ';
+                    case '2':
+                        return '"';
+                    case '8':
+                        return '(';
+                    case '9':
+                        return ')';
+                    case 'A':
+                    case 'a':
+                        return '*';
+                    default:
+                        return 0;
+                }
+            case '3':
+                return low == 'A' || low == 'a' ? ':' : 0;
+            case '7':
+                return low == 'E' || low == 'e' ? '~' : 0;
+            default:
+                return 0;
+        }
+    }
+
+    /**
+     * Checks whether a character separates words.
+     *
+     * @param c the character.
+     * @return {@code true} for white space, quotes and parentheses.
+     */
+    private static boolean isDelimiter(char c) {
+        return Character.isWhitespace(c) || c == '"' || c == '(' || c == ')';
+    }
+
+    /**
+     * The position of a parse in the characters of a decoded query.
+     */
+    private static final class Scanner {
+        private final char[] chars;
+        private int position;
+        private int depth;
+
+        /**
+         * Constructs a new {@code Scanner} at the start of a query.
+         *
+         * @param chars the characters of the decoded query.
+         */
+        private Scanner(char[] chars) {
+            this.chars = chars;
+        }
+
+        /**
+         * Parses the whole query. Closing parentheses without an opening one are skipped,
+         * so the clauses joined by OR run to the end of the query.
+         *
+         * @return the root of the query, or {@code null} if it has no terms.
+         */
+        private QueryNode parseQuery() {
+            return parseOr(false);
+        }
+
+        /**
+         * Parses clauses joined by OR, up to the end of the query or a closing
+         * parenthesis.
+         *
+         * @param title {@code true} if the words only match page titles.
+         * @return the union of the clauses, or {@code null} if there are none.
+         */
+        private QueryNode parseOr(boolean title) {
+            List<QueryNode> clauses = new ArrayList<>();
+            do {
+                QueryNode clause = parseAnd(title);
+                if (clause != null) {
+                    clauses.add(clause);
+                }
+            } while (skipKeyword(OR));
+            return clauses.isEmpty() ? null : QueryNode.or(clauses);
+        }
+
+        /**
+         * Parses clauses joined by AND or written next to each other, up to OR, the end
+         * of the query or a closing parenthesis.
+         *
+         * @param title {@code true} if the words only match page titles.
+         * @return the intersection of the clauses, or {@code null} if there are none.
+         */
+        private QueryNode parseAnd(boolean title) {
+            List<QueryNode> clauses = new ArrayList<>();
+            while (skipWhitespace() && chars[position] != ')' && !isKeyword(OR)) {
+                if (!skipKeyword(AND)) {
+                    QueryNode clause = parseUnary(title);
+                    if (clause != null) {
+                        clauses.add(clause);
+                    }
+                }
+            }
+            return clauses.isEmpty() ? null : QueryNode.and(clauses);
+        }
+
+        /**
+         * Parses a clause, which may be negated.
+         *
+         * @param title {@code true} if the words only match page titles.
+         * @return the clause, or {@code null} if it has no terms.
+         */
+        private QueryNode parseUnary(boolean title) {
+            if (skipKeyword(NOT)) {
+                if (!skipWhitespace() || chars[position] == ')' || isKeyword(OR) || isKeyword(AND)) {
+                    return null;
+                }
+                QueryNode clause = parseUnary(title);
+                return clause == null ? null : QueryNode.not(clause);
+            }
+            return parsePrimary(title);
+        }
+
+        /**
+         * Parses a clause in parentheses, a phrase or a word, with the scanner on its
+         * first character.
+         *
+         * @param title {@code true} if the words only match page titles.
+         * @return the clause, or {@code null} if it has no terms.
+         */
+        private QueryNode parsePrimary(boolean title) {
+            char c = chars[position];
+            if (c == '(') {
+                return parseGroup(title);
+            }
+            if (c == '"') {
+                return parsePhrase(title);
+            }
+            int start = position;
+            while (position < chars.length && !isDelimiter(chars[position])) {
+                position++;
+            }
+            if (startsWithTitlePrefix(start)) {
+                if (position > start + QueryHandler.TITLE_PREFIX.length()) {
+                    return titleTerm(start + QueryHandler.TITLE_PREFIX.length(), position);
+                }
+                if (position < chars.length && chars[position] == '(') {
+                    return parseGroup(true);
+                }
+                if (position < chars.length && chars[position] == '"') {
+                    return parsePhrase(true);
+                }
+                return null;
+            }
+            return title ? titleTerm(start, position) : QueryNode.term(new String(chars, start, position - start));
+        }
+
+        /**
+         * Parses a clause in parentheses. A missing closing parenthesis is assumed at the
+         * end of the query.
+         *
+         * @param title {@code true} if the words only match page titles.
+         * @return the clause, or {@code null} if it has no terms.
+         */
+        private QueryNode parseGroup(boolean title) {
+            position++;
+            depth++;
+            QueryNode clause = parseOr(title);
+            depth--;
+            if (position < chars.length) {
+                position++;
+            }
+            return clause;
+        }
+
+        /**
+         * Parses the words up to the next quote as a phrase. A quote that is not closed is
+         * skipped, so the words after it are parsed one by one.
+         *
+         * @param title {@code true} if the words only match page titles.
+         * @return the phrase, a single word, an intersection of title words, or
+         *         {@code null} if the quotes enclose no word.
+         */
+        private QueryNode parsePhrase(boolean title) {
+            int start = position + 1;
+            int end = start;
+            while (end < chars.length && chars[end] != '"') {
+                end++;
+            }
+            if (end == chars.length) {
+                position = start;
+                return null;
+            }
+            position = end + 1;
+            List<int[]> words = new ArrayList<>();
+            for (int i = start; i < end; i++) {
+                if (!Character.isWhitespace(chars[i])) {
+                    int wordStart = i;
+                    while (i < end && !Character.isWhitespace(chars[i])) {
+                        i++;
+                    }
+                    words.add(new int[] { wordStart, i });
+                }
+            }
+            if (words.isEmpty()) {
+                return null;
+            }
+            if (title) {
+                List<QueryNode> terms = new ArrayList<>(words.size());
+                for (int[] word : words) {
+                    terms.add(titleTerm(word[0], word[1]));
+                }
+                return QueryNode.and(terms);
+            }
+            if (words.size() == 1) {
+                int[] word = words.get(0);
+                return QueryNode.term(new String(chars, word[0], word[1] - word[0]));
+            }
+            StringBuilder phrase = new StringBuilder(end - start + 2).append('"');
+            for (int[] word : words) {
+                if (phrase.length() > 1) {
+                    phrase.append(' ');
+                }
+                phrase.append(chars, word[0], word[1] - word[0]);
+            }
+            return QueryNode.term(phrase.append('"').toString());
+        }
+
+        /**
+         * Creates a title-only term of a word.
+         *
+         * @param start the index of the first character of the word.
+         * @param end   the index after the last character of the word.
+         * @return the term, prefixed with {@value QueryHandler#TITLE_PREFIX} and in lower
+         *         case.
+         */
+        private QueryNode titleTerm(int start, int end) {
+            String word = new String(chars, start, end - start).toLowerCase(Locale.ROOT);
+            return QueryNode.term(QueryHandler.TITLE_PREFIX + word);
+        }
+
+        /**
+         * Checks whether the word at an index starts with {@value QueryHandler#TITLE_PREFIX}.
+         *
+         * @param start the index of the first character of the word.
+         * @return {@code true} if the word has the prefix.
+         */
+        private boolean startsWithTitlePrefix(int start) {
+            String prefix = QueryHandler.TITLE_PREFIX;
+            if (position - start < prefix.length()) {
+                return false;
+            }
+            for (int i = 0; i < prefix.length(); i++) {
+                if (chars[start + i] != prefix.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Moves past white space, and past closing parentheses that close nothing.
+         *
+         * @return {@code true} if a character is left.
+         */
+        private boolean skipWhitespace() {
+            while (position < chars.length
+                    && (Character.isWhitespace(chars[position]) || chars[position] == ')' && depth == 0)) {
+                position++;
+            }
+            return position < chars.length;
+        }
+
+        /**
+         * Checks whether the scanner is on an operator, written as a word of its own.
+         *
+         * @param keyword the operator.
+         * @return {@code true} if the next word is the operator.
+         */
+        private boolean isKeyword(String keyword) {
+            if (!skipWhitespace() || chars.length - position < keyword.length()) {
+                return false;
+            }
+            for (int i = 0; i < keyword.length(); i++) {
+                if (chars[position + i] != keyword.charAt(i)) {
+                    return false;
+                }
+            }
+            int end = position + keyword.length();
+            return end == chars.length || isDelimiter(chars[end]);
+        }
+
+        /**
+         * Moves past an operator if the scanner is on it.
+         *
+         * @param keyword the operator.
+         * @return {@code true} if the operator was skipped.
+         */
+        private boolean skipKeyword(String keyword) {
+            if (isKeyword(keyword)) {
+                position += keyword.length();
+                return true;
+            }
+            return false;
+        }
+    }
+}
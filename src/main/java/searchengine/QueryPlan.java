@@ -0,0 +1,311 @@
+package searchengine;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The {@code QueryPlan} class is a query compiled against the segments of a
+ * {@link Database}, ready to be evaluated by a {@link QueryEvaluator} as a tree of
+ * {@link PostingsIterator}s.
+ * <p>
+ * Compiling a query expands its fuzzy and wildcard words and estimates the cost of every
+ * clause as the number of pages it can match at most: the document frequency of a word,
+ * the lowest one of the words of a phrase, the sum over the expansions of a word, the
+ * lowest cost of the clauses of an AND and the sum of the clauses of an OR. The clauses
+ * of every AND are ordered by increasing cost, with the excluded clauses last, so the
+ * rarest clause of a segment is opened first and a segment lacking it is given up before
+ * the common ones are opened. Excluded clauses that match no page are dropped, and a
+ * query whose cost is 0 is not evaluated at all.
+ * </p>
+ * <p>
+ * A plan stays valid while the segments of the database stay the same, since deleting
+ * pages changes neither the dictionaries nor the document frequencies. It can then be
+ * reused for the same query, which saves parsing and expanding it again;
+ * {@link SearchEngine} keeps the plans of recent queries for that purpose.
+ * </p>
+ */
+public final class QueryPlan {
+    private final QueryNode query;
+    private final QueryNode root;
+    private final List<Segment> segments;
+    private final Map<String, List<String>> expansions;
+    private final List<List<String>> groups;
+    private final long cost;
+
+    /**
+     * Constructs a new {@code QueryPlan}.
+     *
+     * @param query      the syntax tree of the query, as parsed.
+     * @param root       the optimized syntax tree of the query.
+     * @param segments   the segments the query was compiled against.
+     * @param expansions the expansions of the fuzzy and wildcard words of the query.
+     * @param groups     the groups of the query, or {@code null}.
+     * @param cost       the estimated number of pages the query can match.
+     */
+    private QueryPlan(QueryNode query, QueryNode root, List<Segment> segments, Map<String, List<String>> expansions,
+            List<List<String>> groups, long cost) {
+        this.query = query;
+        this.root = root;
+        this.segments = segments;
+        this.expansions = expansions;
+        this.groups = groups;
+        this.cost = cost;
+    }
+
+    /**
+     * Compiles a query against the current segments of a database.
+     *
+     * @param query    the syntax tree of the query, as returned by {@link QueryParser}.
+     * @param database the database to search.
+     * @return the plan of the query.
+     */
+    static QueryPlan compile(QueryNode query, Database database) {
+        Compiler compiler = new Compiler(database);
+        QueryNode root = compiler.optimize(query);
+        // A query of excluded clauses alone has no pages to exclude them from.
+        long cost = root.getKind() == QueryNode.Kind.NOT ? 0 : compiler.estimate(root);
+        return new QueryPlan(query, root, compiler.segments, Collections.unmodifiableMap(compiler.expansions),
+                toGroups(query), cost);
+    }
+
+    /**
+     * Retrieves the syntax tree of the query as it was parsed, to compile it again
+     * against other segments.
+     *
+     * @return the root of the tree.
+     */
+    QueryNode getQuery() {
+        return query;
+    }
+
+    /**
+     * Retrieves the syntax tree of the query, with the clauses of every AND ordered by
+     * cost.
+     *
+     * @return the root of the tree.
+     */
+    QueryNode getRoot() {
+        return root;
+    }
+
+    /**
+     * Retrieves the segments the query was compiled against, which it must be evaluated
+     * in.
+     *
+     * @return the segments, as returned by {@link Database#getSegments()}.
+     */
+    List<Segment> getSegments() {
+        return segments;
+    }
+
+    /**
+     * Retrieves the expansions of the fuzzy and wildcard words of the query.
+     *
+     * @return an unmodifiable map from each fuzzy or wildcard term to the words it
+     *         matches.
+     */
+    Map<String, List<String>> getExpansions() {
+        return expansions;
+    }
+
+    /**
+     * Retrieves the query as groups of terms, as returned by
+     * {@link QueryParser#parseGroups(String)}, if it has their shape: a page must match
+     * any group, and all terms of a group. Such queries are evaluated by the same code as
+     * groups, and may be pruned.
+     *
+     * @return the groups of the query, in the order they were written; {@code null} if
+     *         the query has negated clauses or nested parentheses that groups cannot
+     *         express.
+     */
+    List<List<String>> getGroups() {
+        return groups;
+    }
+
+    /**
+     * Estimates how many pages the query can match.
+     *
+     * @return an upper bound of the number of matching pages; 0 if no page can match.
+     */
+    public long getCost() {
+        return cost;
+    }
+
+    /**
+     * Checks whether the plan was compiled against some segments, and is therefore still
+     * valid for a database with those segments.
+     *
+     * @param segments the segments of a database, as returned by
+     *                 {@link Database#getSegments()}.
+     * @return {@code true} if the plan was compiled against the same list of segments.
+     */
+    public boolean isCompiledFrom(List<Segment> segments) {
+        return this.segments == segments;
+    }
+
+    /**
+     * Writes the optimized query with every clause in parentheses, in the order the
+     * clauses are evaluated.
+     *
+     * @return the query as it is evaluated.
+     */
+    @Override
+    public String toString() {
+        return root.toString();
+    }
+
+    /**
+     * Converts a query to groups of terms, if it has their shape: an OR of ANDs of terms,
+     * or either of them alone. The conversion keeps no state, so the groups can be derived
+     * from any syntax tree.
+     *
+     * @param query the syntax tree of the query.
+     * @return the groups of the query, in the order they were written, or {@code null}.
+     */
+    static List<List<String>> toGroups(QueryNode query) {
+        List<QueryNode> clauses = query.getKind() == QueryNode.Kind.OR ? query.getChildren() : List.of(query);
+        List<List<String>> groups = new ArrayList<>(clauses.size());
+        for (QueryNode clause : clauses) {
+            List<QueryNode> terms = clause.getKind() == QueryNode.Kind.AND ? clause.getChildren() : List.of(clause);
+            List<String> group = new ArrayList<>(terms.size());
+            for (QueryNode term : terms) {
+                if (term.getKind() != QueryNode.Kind.TERM) {
+                    return null;
+                }
+                group.add(term.getTerm());
+            }
+            groups.add(group);
+        }
+        return groups;
+    }
+
+    /**
+     * The state of compiling a query: the segments it is compiled against, and the
+     * expansions and costs of the terms seen so far.
+     */
+    private static final class Compiler {
+        private final Database database;
+        private final List<Segment> segments;
+        private final long totalPages;
+        private final Map<String, List<String>> expansions = new HashMap<>();
+        private final Map<String, Long> termCosts = new HashMap<>();
+
+        /**
+         * Constructs a new {@code Compiler}.
+         *
+         * @param database the database to compile queries against.
+         */
+        private Compiler(Database database) {
+            this.database = database;
+            segments = database.getSegments();
+            long pages = 0;
+            for (Segment segment : segments) {
+                pages += segment.getTotalPages();
+            }
+            totalPages = pages;
+        }
+
+        /**
+         * Orders the clauses of every AND by cost, with the excluded clauses last, and
+         * drops the excluded clauses that match no page.
+         *
+         * @param node a clause of the query.
+         * @return the optimized clause.
+         */
+        private QueryNode optimize(QueryNode node) {
+            switch (node.getKind()) {
+                case AND:
+                    List<QueryNode> required = new ArrayList<>();
+                    List<QueryNode> excluded = new ArrayList<>();
+                    for (QueryNode child : node.getChildren()) {
+                        QueryNode optimized = optimize(child);
+                        if (optimized.getKind() != QueryNode.Kind.NOT) {
+                            required.add(optimized);
+                        } else if (estimate(optimized) > 0) {
+                            excluded.add(optimized);
+                        }
+                    }
+                    required.sort(Comparator.comparingLong(this::estimate));
+                    required.addAll(excluded);
+                    return required.isEmpty() ? node : QueryNode.and(required);
+                case OR:
+                    List<QueryNode> children = new ArrayList<>(node.getChildren().size());
+                    for (QueryNode child : node.getChildren()) {
+                        children.add(optimize(child));
+                    }
+                    return QueryNode.or(children);
+                case NOT:
+                    return QueryNode.not(optimize(node.getChildren().get(0)));
+                default:
+                    return node;
+            }
+        }
+
+        /**
+         * Estimates the number of pages a clause can match. A NOT clause is estimated by
+         * the pages it excludes.
+         *
+         * @param node a clause of the query.
+         * @return an upper bound of the number of pages matching the clause.
+         */
+        private long estimate(QueryNode node) {
+            switch (node.getKind()) {
+                case AND:
+                    long lowest = -1;
+                    for (QueryNode child : node.getChildren()) {
+                        if (child.getKind() != QueryNode.Kind.NOT) {
+                            long cost = estimate(child);
+                            lowest = lowest < 0 ? cost : Math.min(lowest, cost);
+                        }
+                    }
+                    return Math.max(lowest, 0);
+                case OR:
+                    long sum = 0;
+                    for (QueryNode child : node.getChildren()) {
+                        if (child.getKind() != QueryNode.Kind.NOT) {
+                            sum += estimate(child);
+                        }
+                    }
+                    return Math.min(sum, totalPages);
+                case NOT:
+                    return estimate(node.getChildren().get(0));
+                default:
+                    return termCosts.computeIfAbsent(node.getTerm(), this::estimateTerm);
+            }
+        }
+
+        /**
+         * Estimates the number of pages a term can match, expanding it if it is a fuzzy
+         * or wildcard word.
+         *
+         * @param term a term of the query.
+         * @return an upper bound of the number of pages containing the term.
+         */
+        private long estimateTerm(String term) {
+            List<String> expanded = QueryHandler.expand(term, database);
+            if (expanded != null) {
+                expansions.put(term, expanded);
+                long sum = 0;
+                for (String word : expanded) {
+                    sum += database.pagesWithWord(word);
+                }
+                return Math.min(sum, totalPages);
+            }
+            if (QueryHandler.isPhrase(term)) {
+                long lowest = Long.MAX_VALUE;
+                for (String word : QueryHandler.getPhraseWords(term)) {
+                    lowest = Math.min(lowest, database.pagesWithWord(word));
+                }
+                return lowest;
+            }
+            if (QueryHandler.isTitleTerm(term)) {
+                return database.pagesWithTitleWord(QueryHandler.getTitleWord(term));
+            }
+            return database.pagesWithWord(term);
+        }
+    }
+}
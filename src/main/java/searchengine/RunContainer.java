@@ -0,0 +1,108 @@
+package searchengine;
+
+/**
+ * The {@code RunContainer} class stores the values of a clustered {@link Container} as runs
+ * of consecutive values. Each run is stored as its first value followed by its length
+ * minus one, so a container holding every value takes four bytes.
+ */
+final class RunContainer extends Container {
+    private final char[] runs;
+    private final int runCount;
+
+    /**
+     * Constructs a new {@code RunContainer} over a list of runs.
+     *
+     * @param runs     the runs as pairs of first value and length minus one, in ascending
+     *                 order and not touching each other. The array is used as is.
+     * @param runCount the number of runs used, starting at index 0.
+     */
+    RunContainer(char[] runs, int runCount) {
+        this.runs = runs;
+        this.runCount = runCount;
+    }
+
+    @Override
+    int cardinality() {
+        int cardinality = 0;
+        for (int i = 0; i < runCount; i++) {
+            cardinality += runs[2 * i + 1] + 1;
+        }
+        return cardinality;
+    }
+
+    @Override
+    int runCount() {
+        return runCount;
+    }
+
+    @Override
+    boolean contains(char value) {
+        int low = 0;
+        int high = runCount - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int start = runs[2 * middle];
+            if (value < start) {
+                high = middle - 1;
+            } else if (value > start + runs[2 * middle + 1]) {
+                low = middle + 1;
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    Container and(Container other) {
+        if (other instanceof ArrayContainer) {
+            return other.and(this);
+        }
+        return toBitmapContainer().and(other);
+    }
+
+    @Override
+    Container or(Container other) {
+        return toBitmapContainer().or(other);
+    }
+
+    @Override
+    Container andNot(Container other) {
+        return toBitmapContainer().andNot(other);
+    }
+
+    @Override
+    int fill(int[] out, int offset, int high) {
+        for (int i = 0; i < runCount; i++) {
+            int start = runs[2 * i];
+            int end = start + runs[2 * i + 1];
+            for (int value = start; value <= end; value++) {
+                out[offset++] = high | value;
+            }
+        }
+        return offset;
+    }
+
+    @Override
+    BitmapContainer toBitmapContainer() {
+        long[] words = new long[BitmapContainer.WORDS];
+        for (int i = 0; i < runCount; i++) {
+            int start = runs[2 * i];
+            int end = start + runs[2 * i + 1];
+            int firstWord = start >>> 6;
+            int lastWord = end >>> 6;
+            long firstMask = -1L << start;
+            long lastMask = -1L >>> (63 - (end & 63));
+            if (firstWord == lastWord) {
+                words[firstWord] |= firstMask & lastMask;
+            } else {
+                words[firstWord] |= firstMask;
+                for (int word = firstWord + 1; word < lastWord; word++) {
+                    words[word] = -1L;
+                }
+                words[lastWord] |= lastMask;
+            }
+        }
+        return new BitmapContainer(words, cardinality());
+    }
+}
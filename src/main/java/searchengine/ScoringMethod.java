@@ -15,4 +15,58 @@ public interface ScoringMethod {
      * @return A double value representing the score.
      */
     double calculateScore(String word, Page page, Database database);
+
+    /**
+     * Calculates a score for a word on a given page from statistics already looked up
+     * in the index, without materializing the page.
+     *
+     * @param termFrequency The frequency of the word on the page.
+     * @param pagesWithWord The number of pages containing the word.
+     * @param pageId        The ID of the page in the database.
+     * @param database      The database containing all pages.
+     * @return A double value representing the score.
+     */
+    double calculateScore(int termFrequency, int pagesWithWord, int pageId, Database database);
+
+    /**
+     * Calculates a score for a word on a given page from the statistics of both fields of
+     * the page: its body words and its title words. Methods that do not distinguish
+     * fields score the body only, so a word that only occurs in the title scores 0.
+     *
+     * @param termFrequency  The frequency of the word in the body of the page.
+     * @param titleFrequency The frequency of the word in the title of the page.
+     * @param pagesWithWord  The number of pages containing the word.
+     * @param pageId         The ID of the page in the database.
+     * @param database       The database containing all pages.
+     * @return A double value representing the score.
+     */
+    default double calculateScore(int termFrequency, int titleFrequency, int pagesWithWord, int pageId,
+            Database database) {
+        return calculateScore(termFrequency, pagesWithWord, pageId, database);
+    }
+
+    /**
+     * Calculates the score of a word on a page with the given field statistics, to bound
+     * the scores of pages before they are read.
+     * <p>
+     * The score must not decrease when a frequency grows or a length shrinks, and must be
+     * 0 when both frequencies are 0. The score of the highest frequencies and the shortest
+     * lengths of a posting list, even if they come from different pages, is then at least
+     * the score of every page of the list. The default returns
+     * {@link Double#POSITIVE_INFINITY}, which bounds nothing, so dynamic pruning never
+     * skips a page for methods that do not implement it.
+     * </p>
+     *
+     * @param termFrequency  The frequency of the word in the body of the page.
+     * @param documentLength The number of words in the body of the page.
+     * @param titleFrequency The frequency of the word in the title of the page.
+     * @param titleLength    The number of words in the title of the page.
+     * @param pagesWithWord  The number of pages containing the word.
+     * @param database       The database containing all pages.
+     * @return The score of a page with the given statistics.
+     */
+    default double calculateMaxScore(int termFrequency, int documentLength, int titleFrequency, int titleLength,
+            int pagesWithWord, Database database) {
+        return Double.POSITIVE_INFINITY;
+    }
 }
@@ -2,10 +2,18 @@ package searchengine;
 
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * The {@code SearchEngine} class represents a search engine that interacts with
@@ -15,7 +23,18 @@ import java.util.Set;
  * interaction.
  */
 public class SearchEngine {
+    /**
+     * The number of compiled queries kept for reuse by {@link #compile(String)}.
+     */
+    static final int PLAN_CACHE_SIZE = 256;
+
     private Database database;
+    private volatile Suggester suggester;
+    private final Object suggesterLock = new Object();
+    private ExecutorService suggesterBuilder;
+    private Future<?> suggesterRebuild;
+    private final QueryParser queryParser = new QueryParser();
+    private final Map<String, QueryPlan> plans = new LinkedHashMap<>(16, 0.75f, true);
 
     /**
      * Constructs a new {@code SearchEngine} instance and initializes it with the
@@ -27,6 +46,21 @@ public class SearchEngine {
      */
     public SearchEngine(String databaseFile) throws IOException {
         this.database = new Database(databaseFile);
+        suggester = Suggester.build(database.getSegments());
+    }
+
+    /**
+     * Constructs a new {@code SearchEngine} instance and initializes it with the
+     * specified database file and index options.
+     * 
+     * @param databaseFile the file path to the database file used to initialize the
+     *                     {@link Database}.
+     * @param config       the options controlling how the index is built.
+     * @throws IOException if an I/O error occurs while reading the database file.
+     */
+    public SearchEngine(String databaseFile, IndexConfig config) throws IOException {
+        this.database = new Database(databaseFile, config);
+        suggester = Suggester.build(database.getSegments());
     }
 
     /**
@@ -39,7 +73,7 @@ public class SearchEngine {
      *         an empty set is returned.
      */
     public Set<Page> accessDatabase(String word) {
-        return database.getDatabase().getOrDefault(word, Collections.emptySet());
+        return new HashSet<>(database.getPages(postingsOf(word)));
     }
 
     /**
@@ -51,6 +85,128 @@ public class SearchEngine {
         return database;
     }
 
+    /**
+     * Completes a prefix to the most common words of the index that start with it, for
+     * suggesting queries while they are typed.
+     * <p>
+     * The completions come from a {@link Suggester} built when the search engine is
+     * created. When pages are added or segments are merged, the first call that sees the
+     * new segments starts building a new one on a background thread, and calls keep using
+     * the previous one until it is ready. Building takes far longer than a lookup, so no
+     * request waits for it, and concurrent requests share a single build.
+     * </p>
+     *
+     * @param prefix the prefix to complete.
+     * @param limit  the maximum number of completions to return, at most
+     *               {@link Suggester#DEFAULT_DEPTH}.
+     * @return the completions, most common first; an empty list if the prefix is empty or
+     *         no word starts with it.
+     * @throws IllegalArgumentException if {@code limit} is negative or too large.
+     */
+    public List<String> suggest(String prefix, int limit) {
+        Suggester current = suggester;
+        if (!current.isBuiltFrom(database.getSegments())) {
+            scheduleSuggesterRebuild();
+        }
+        return current.suggest(prefix, limit);
+    }
+
+    /**
+     * Waits until the suggester covers the current segments of the database, building it
+     * on the background thread if it does not.
+     *
+     * @throws IOException if the waiting thread is interrupted or the build failed.
+     */
+    void waitForSuggester() throws IOException {
+        if (suggester.isBuiltFrom(database.getSegments())) {
+            return;
+        }
+        try {
+            scheduleSuggesterRebuild().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for the suggester", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Suggester rebuild failed", e.getCause());
+        }
+    }
+
+    /**
+     * Starts building a suggester over the current segments on a single daemon thread,
+     * unless a build is already running.
+     *
+     * @return the running build.
+     */
+    private Future<?> scheduleSuggesterRebuild() {
+        synchronized (suggesterLock) {
+            if (suggesterRebuild == null || suggesterRebuild.isDone()) {
+                if (suggesterBuilder == null) {
+                    suggesterBuilder = Executors.newSingleThreadExecutor(runnable -> {
+                        Thread thread = new Thread(runnable, "suggester-builder");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+                }
+                suggesterRebuild = suggesterBuilder.submit(this::rebuildSuggester);
+            }
+            return suggesterRebuild;
+        }
+    }
+
+    /**
+     * Builds suggesters until one covers the current segments, so segments swapped in
+     * during a build are picked up before the build is done. A failed build is logged and
+     * leaves the previous suggester in use.
+     */
+    private void rebuildSuggester() {
+        try {
+            List<Segment> segments = database.getSegments();
+            while (!suggester.isBuiltFrom(segments)) {
+                suggester = Suggester.build(segments);
+                segments = database.getSegments();
+            }
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+            throw e;
+        }
+    }
+
+    /**
+     * Parses a query written in the query language of {@link QueryParser} and compiles it
+     * against the current segments of the database.
+     * <p>
+     * The plans of the {@value #PLAN_CACHE_SIZE} most recently compiled queries are kept,
+     * and a plan is reused as long as the segments it was compiled against are current,
+     * so a repeated query is neither parsed nor expanded again. When pages are added or
+     * segments are merged, the next call for a query compiles it again.
+     * </p>
+     *
+     * @param query the query, which may contain URL-encoded characters.
+     * @return the plan of the query.
+     * @throws IllegalArgumentException if the query is {@code null} or has no terms.
+     */
+    public QueryPlan compile(String query) {
+        if (query == null) {
+            throw new IllegalArgumentException("Query cannot be null or empty");
+        }
+        List<Segment> segments = database.getSegments();
+        QueryPlan plan;
+        synchronized (plans) {
+            plan = plans.get(query);
+        }
+        if (plan == null || !plan.isCompiledFrom(segments)) {
+            QueryNode root = plan != null ? plan.getQuery() : queryParser.parse(query);
+            plan = QueryPlan.compile(root, database);
+            synchronized (plans) {
+                plans.put(query, plan);
+                if (plans.size() > PLAN_CACHE_SIZE) {
+                    plans.remove(plans.keySet().iterator().next());
+                }
+            }
+        }
+        return plan;
+    }
+
     /**
      * Performs a search operation based on the provided parsed query.
      * <p>
@@ -83,40 +239,353 @@ public class SearchEngine {
             throw new IllegalArgumentException("Query cannot be null or empty");
         }
 
-        Set<Page> matchedPages = new HashSet<>();
-        if (andIsTrue) {
-            matchedPages = findMatchingPages(parsedQuery.get(0));
-            for (int i = 1; i < parsedQuery.size(); i++) {
-                Set<Page> groupMatchingPages = findMatchingPages(parsedQuery.get(i));
-                matchedPages.retainAll(groupMatchingPages);
+        List<Segment> segments = database.getSegments();
+        Map<String, List<String>> expansions = new HashMap<>();
+        for (List<String> group : parsedQuery) {
+            expandTerms(group, expansions);
+        }
+        IntList matchedPages = new IntList();
+        int firstPage = 0;
+        for (Segment segment : segments) {
+            PageIdSet segmentPages;
+            if (andIsTrue) {
+                segmentPages = findMatchingPages(segment, parsedQuery.get(0), expansions);
+                for (int i = 1; i < parsedQuery.size() && !segmentPages.isEmpty(); i++) {
+                    segmentPages = segmentPages.and(findMatchingPages(segment, parsedQuery.get(i), expansions));
+                }
+            } else {
+                segmentPages = PageIdSet.empty();
+                for (List<String> group : parsedQuery) {
+                    segmentPages = segmentPages.or(findMatchingPages(segment, group, expansions));
+                }
             }
-        } else {
-            for (List<String> group : parsedQuery) {
-                Set<Page> groupMatchingPages = findMatchingPages(group);
-                matchedPages.addAll(groupMatchingPages);
+            addShifted(segmentPages.toArray(), firstPage, matchedPages);
+            firstPage += segment.getTotalPages();
+        }
+        return database.getPages(matchedPages.toArray());
+    }
+
+    /**
+     * Finds the pages with the highest TF-IDF score for a query, giving the same pages in
+     * the same order as {@link #search(List, boolean)} followed by sorting with
+     * {@link TFIDFScoring} and keeping the first {@code k}.
+     * <p>
+     * When the database keeps impact-ordered posting lists and every group of the query
+     * is a single plain word, the pages are read from the front of the lists by an
+     * {@link ImpactSearcher}, so only about {@code k} postings per word are read however
+     * common the words are. Any other query is evaluated by
+     * {@link #searchTop(List, boolean, ScoringMethod, int)}.
+     * </p>
+     *
+     * @param parsedQuery a list of term groups, as for {@link #search(List, boolean)}.
+     * @param andIsTrue   {@code true} if a page must match all groups; {@code false} if
+     *                    it must match any group.
+     * @param k           the maximum number of pages to return.
+     * @return at most {@code k} pages, from the highest to the lowest score.
+     * @throws IllegalArgumentException if {@code parsedQuery} is {@code null} or empty,
+     *                                  or {@code k} is negative.
+     */
+    public List<Page> searchByImpact(List<List<String>> parsedQuery, boolean andIsTrue, int k) {
+        if (parsedQuery == null || parsedQuery.isEmpty()) {
+            throw new IllegalArgumentException("Query cannot be null or empty");
+        }
+        if (k < 0) {
+            throw new IllegalArgumentException("Result count must not be negative: " + k);
+        }
+        List<String> words = new ArrayList<>();
+        for (List<String> group : parsedQuery) {
+            if (group.size() == 1 && isPlainWord(group.get(0))) {
+                words.add(group.get(0));
             }
         }
-        return new ArrayList<>(matchedPages);
+        if (database.hasImpactIndex() && words.size() == parsedQuery.size() && (!andIsTrue || words.size() == 1)) {
+            return database.getPages(new ImpactSearcher(database, database.getSegments()).search(words, k));
+        }
+        return searchTop(parsedQuery, andIsTrue, new TFIDFScoring(), k);
+    }
+
+    /**
+     * Finds the pages with the highest score for a query, giving the same pages in the
+     * same order as {@link #search(List, boolean)} followed by
+     * {@link SortHandler#sortTopResults(List, List, Database, ScoringMethod, int)}.
+     * <p>
+     * The query is evaluated document at a time by a {@link QueryEvaluator}: the pages are
+     * matched by walking the posting lists of all segments, each matching page is scored
+     * once as it is found, and only the best {@code k} are kept. No list of all matching
+     * pages is built, and only the pages returned are read from the database. Unless the
+     * {@code pruning} option of the {@link IndexConfig} is disabled, pages whose score is
+     * bounded below the best {@code k} found so far are skipped without being scored.
+     * </p>
+     *
+     * @param parsedQuery   a list of term groups, as for {@link #search(List, boolean)}.
+     * @param andIsTrue     {@code true} if a page must match all groups; {@code false} if
+     *                      it must match any group.
+     * @param scoringMethod the scoring method to rank the pages by.
+     * @param k             the maximum number of pages to return.
+     * @return at most {@code k} pages, from the highest to the lowest score; pages with
+     *         equal scores are ordered by ID.
+     * @throws IllegalArgumentException if {@code parsedQuery} is {@code null} or empty,
+     *                                  or {@code k} is negative.
+     */
+    public List<Page> searchTop(List<List<String>> parsedQuery, boolean andIsTrue, ScoringMethod scoringMethod,
+            int k) {
+        if (parsedQuery == null || parsedQuery.isEmpty()) {
+            throw new IllegalArgumentException("Query cannot be null or empty");
+        }
+        QueryEvaluator evaluator = new QueryEvaluator(database, database.getSegments(), scoringMethod,
+                database.isPruning());
+        return database.getPages(evaluator.search(parsedQuery, andIsTrue, k));
     }
 
     /**
-     * Helper method to find pages matching all words in a group.
+     * Finds the pages with the highest TF-IDF score for a compiled query. A query of
+     * groups is evaluated by {@link #searchByImpact(List, boolean, int)}, and any other
+     * query by {@link #searchTop(QueryPlan, ScoringMethod, int)}.
+     *
+     * @param plan the query, as returned by {@link #compile(String)}.
+     * @param k    the maximum number of pages to return.
+     * @return at most {@code k} pages, from the highest to the lowest score.
+     * @throws IllegalArgumentException if {@code k} is negative.
+     */
+    public List<Page> searchByImpact(QueryPlan plan, int k) {
+        List<List<String>> groups = plan.getGroups();
+        if (groups != null && plan.getExpansions().isEmpty()) {
+            return searchByImpact(groups, false, k);
+        }
+        return searchTop(plan, new TFIDFScoring(), k);
+    }
+
+    /**
+     * Finds the pages with the highest score for a compiled query, which may combine
+     * clauses with AND, OR and NOT at any depth.
+     * <p>
+     * The query is evaluated document at a time by a {@link QueryEvaluator}, which builds
+     * a tree of iterators following the plan in every segment. Queries of groups give the
+     * same pages as {@link #searchTop(List, boolean, ScoringMethod, int)}. A plan compiled
+     * against segments that are no longer current is compiled again first.
+     * </p>
+     *
+     * @param plan          the query, as returned by {@link #compile(String)}.
+     * @param scoringMethod the scoring method to rank the pages by.
+     * @param k             the maximum number of pages to return.
+     * @return at most {@code k} pages, from the highest to the lowest score; pages with
+     *         equal scores are ordered by ID.
+     * @throws IllegalArgumentException if {@code k} is negative.
+     */
+    public List<Page> searchTop(QueryPlan plan, ScoringMethod scoringMethod, int k) {
+        if (!plan.isCompiledFrom(database.getSegments())) {
+            plan = QueryPlan.compile(plan.getQuery(), database);
+        }
+        QueryEvaluator evaluator = new QueryEvaluator(database, plan.getSegments(), scoringMethod,
+                database.isPruning());
+        return database.getPages(evaluator.search(plan, k));
+    }
+
+    /**
+     * Checks whether an entry of a query group is a single word matched as written.
+     *
+     * @param term an entry of a group returned by {@link QueryParser#parseGroups(String)}.
+     * @return {@code false} for phrases and title-only, fuzzy and wildcard words;
+     *         {@code true} otherwise.
+     */
+    static boolean isPlainWord(String term) {
+        return !QueryHandler.isPhrase(term) && !QueryHandler.isTitleTerm(term) && !QueryHandler.isFuzzyTerm(term)
+                && !QueryHandler.isWildcardTerm(term);
+    }
+
+    /**
+     * Helper method to find pages matching all words and phrases in a group.
+     * <p>
+     * Each segment of the database is searched separately, and the page IDs found in a
+     * segment are shifted by the number of pages in the segments before it.
+     * </p>
      *
      * @param group A group of words to search for.
-     * @return A set of pages that match all words in the group.
+     * @return The set of pages that match all words in the group.
+     */
+    public PageIdSet findMatchingPages(List<String> group) {
+        Map<String, List<String>> expansions = new HashMap<>();
+        expandTerms(group, expansions);
+        IntList matchedPages = new IntList();
+        int firstPage = 0;
+        for (Segment segment : database.getSegments()) {
+            addShifted(findMatchingPages(segment, group, expansions).toArray(), firstPage, matchedPages);
+            firstPage += segment.getTotalPages();
+        }
+        return PageIdSet.of(matchedPages.toArray());
+    }
+
+    /**
+     * Finds the pages of a single segment that match all words and phrases in a group.
+     * <p>
+     * Title-only words are looked up in the segment's {@link TitleIndex} first, so a group
+     * of title-only words never reads a body posting list. A fuzzy or wildcard word
+     * matches the union of the pages of its expansions. All other words, including the
+     * words of phrases, are intersected in two steps. The posting lists of the words
+     * whose page sets are not kept with the segment are intersected by a
+     * {@link ConjunctionIterator}, led by the rarest list, which skips through the others,
+     * so the cost follows the rarest list. The result is then intersected with the kept
+     * page sets of the common words, from the rarest to the most common, which costs
+     * about the size of the smaller set. Only the pages left after the intersection are
+     * checked for the phrases, with a {@link PhraseMatcher} each.
+     * </p>
+     *
+     * @param segment    the segment to search.
+     * @param group      a group of words and phrases to search for.
+     * @param expansions the expansions of the fuzzy and wildcard words of the group.
+     * @return the segment-local IDs of the pages that match the whole group.
      */
-    public Set<Page> findMatchingPages(List<String> group) {
-        if (group.isEmpty()) {
-            return Set.of();
+    private PageIdSet findMatchingPages(Segment segment, List<String> group, Map<String, List<String>> expansions) {
+        PageIdSet commonPages = null;
+        List<String> words = new ArrayList<>();
+        for (String term : group) {
+            PageIdSet pages;
+            if (QueryHandler.isPhrase(term)) {
+                words.addAll(QueryHandler.getPhraseWords(term));
+                continue;
+            } else if (expansions.containsKey(term)) {
+                pages = findExpandedPages(segment, expansions.get(term));
+            } else if (QueryHandler.isTitleTerm(term)) {
+                TitleIndex titles = segment.getTitleIndex();
+                int termId = titles.getTermId(QueryHandler.getTitleWord(term));
+                pages = termId < 0 ? PageIdSet.empty() : segment.removeDeleted(titles.getPageSet(termId));
+            } else {
+                words.add(term);
+                continue;
+            }
+            if (pages.isEmpty()) {
+                return PageIdSet.empty();
+            }
+            commonPages = commonPages == null ? pages : commonPages.and(pages);
+        }
+        if (words.isEmpty()) {
+            return commonPages == null ? PageIdSet.empty() : commonPages;
+        }
+        Integer[] termIds = new Integer[words.size()];
+        for (int i = 0; i < termIds.length; i++) {
+            termIds[i] = segment.getTermId(words.get(i));
+            if (termIds[i] < 0) {
+                return PageIdSet.empty();
+            }
+        }
+        Arrays.sort(termIds, Comparator.comparingInt(segment::getDocumentFrequency));
+
+        List<PostingsIterator> iterators = new ArrayList<>(termIds.length + 1);
+        for (int termId : termIds) {
+            if (!segment.hasPageSet(termId)) {
+                iterators.add(segment.getPostingsIterator(termId));
+            }
+        }
+        if (!iterators.isEmpty()) {
+            if (commonPages != null) {
+                iterators.add(commonPages.iterator());
+            }
+            commonPages = PageIdSet.of(new ConjunctionIterator(iterators));
+        }
+        for (int i = 0; i < termIds.length && (commonPages == null || !commonPages.isEmpty()); i++) {
+            if (segment.hasPageSet(termIds[i])) {
+                PageIdSet pages = segment.getPageSet(termIds[i]);
+                commonPages = commonPages == null ? pages : commonPages.and(pages);
+            }
         }
-        Set<Page> commonPages = new HashSet<>(accessDatabase(group.get(0)));
-        for (int i = 1; i < group.size(); i++) {
-            Set<Page> wordPages = new HashSet<>(accessDatabase(group.get(i)));
-            commonPages.retainAll(wordPages);
-            if (commonPages.isEmpty()) {
-                break;
+        for (String term : group) {
+            if (QueryHandler.isPhrase(term) && !commonPages.isEmpty()) {
+                commonPages = filterPhrase(segment, QueryHandler.getPhraseWords(term), commonPages);
             }
         }
         return commonPages;
     }
+
+    /**
+     * Finds the pages of a segment that contain any expansion of a fuzzy or wildcard word.
+     * The posting lists of all expansions are united in a single pass with
+     * {@link PageIdSet#union(List, int)}.
+     *
+     * @param segment    the segment to search.
+     * @param expansions the words the query word was expanded to.
+     * @return the union of the page sets of the expansions found in the segment.
+     */
+    private PageIdSet findExpandedPages(Segment segment, List<String> expansions) {
+        List<PostingsIterator> iterators = new ArrayList<>(expansions.size());
+        for (String expansion : expansions) {
+            int termId = segment.getTermId(expansion);
+            if (termId >= 0) {
+                iterators.add(segment.getPostingsIterator(termId));
+            }
+        }
+        return PageIdSet.union(iterators, segment.getTotalPages());
+    }
+
+    /**
+     * Expands the fuzzy and wildcard words of a query group, once per query, so every
+     * segment searches for the same expansions.
+     *
+     * @param group      a group of words and phrases.
+     * @param expansions the map receiving the expansions of each fuzzy or wildcard word.
+     */
+    private void expandTerms(List<String> group, Map<String, List<String>> expansions) {
+        for (String term : group) {
+            if (!expansions.containsKey(term)) {
+                List<String> expanded = QueryHandler.expand(term, database);
+                if (expanded != null) {
+                    expansions.put(term, expanded);
+                }
+            }
+        }
+    }
+
+    /**
+     * Keeps the candidate pages of a segment that contain a phrase.
+     *
+     * @param segment    the segment to search.
+     * @param words      the words of the phrase, which all occur in the segment.
+     * @param candidates the pages containing all words of the phrase.
+     * @return the candidates on which the words occur next to each other and in order.
+     */
+    private PageIdSet filterPhrase(Segment segment, List<String> words, PageIdSet candidates) {
+        int[] termIds = new int[words.size()];
+        for (int i = 0; i < termIds.length; i++) {
+            termIds[i] = segment.getTermId(words.get(i));
+        }
+        PhraseMatcher matcher = new PhraseMatcher(segment, termIds);
+        IntList matches = new IntList();
+        for (int pageId : candidates.toArray()) {
+            if (matcher.matches(pageId)) {
+                matches.add(pageId);
+            }
+        }
+        return PageIdSet.of(matches.toArray());
+    }
+
+    /**
+     * Adds segment-local page IDs to a list of page IDs of the whole database.
+     *
+     * @param pageIds   the segment-local page IDs.
+     * @param firstPage the page ID of the first page of the segment.
+     * @param out       the list to add the shifted page IDs to.
+     */
+    private void addShifted(int[] pageIds, int firstPage, IntList out) {
+        for (int pageId : pageIds) {
+            out.add(firstPage + pageId);
+        }
+    }
+
+    /**
+     * Looks up and decodes the posting lists of a word in all segments.
+     *
+     * @param word the word to look up.
+     * @return the IDs of the pages containing the word, or an empty array if there are none.
+     */
+    private int[] postingsOf(String word) {
+        IntList pageIds = new IntList();
+        int firstPage = 0;
+        for (Segment segment : database.getSegments()) {
+            int termId = segment.getTermId(word);
+            if (termId >= 0) {
+                addShifted(segment.getPostings(termId), firstPage, pageIds);
+            }
+            firstPage += segment.getTotalPages();
+        }
+        return pageIds.toArray();
+    }
 }
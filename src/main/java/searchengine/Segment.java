@@ -0,0 +1,601 @@
+package searchengine;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The {@code Segment} class is an immutable inverted index over a contiguous range of
+ * pages. A {@link Database} is made of one or more segments, whose pages are numbered
+ * one after another; page and term IDs inside a segment are local to it.
+ * <p>
+ * A segment consists of a {@link TermDictionary}, which gives every term a dense term ID,
+ * and one posting list per term ID. A posting list holds the sorted IDs of the pages that
+ * contain the term, with the term's frequency on each of those pages. All posting lists
+ * are compressed by {@link PostingsWriter} into a single buffer and are read back through
+ * {@link PostingsIterator}s. Alongside each posting list, {@link PositionsWriter} stores the
+ * line numbers at which the term occurs as a word on each page, for phrase queries, and
+ * its {@link TermImpacts} bound the scores of its pages, for dynamic pruning. For every
+ * page, the segment keeps its word count, line count, {@code *PAGE} line and title line.
+ * </p>
+ * <p>
+ * The words of the titles are also indexed as a separate field, in a {@link TitleIndex}
+ * with its own posting lists and title lengths. A {@link KGramIndex} over the dictionary,
+ * for wildcard words without a prefix, and an {@link ImpactIndex} of the posting lists,
+ * for ranked retrieval, are built on first use.
+ * </p>
+ * <p>
+ * Pages are deleted by marking them in {@link LiveDocs}, which are created on the first
+ * deletion. From then on, every {@link PostingsIterator} and page set of the segment skips
+ * the deleted pages; segments without deletions read their posting lists unfiltered.
+ * Document frequencies still count deleted pages until the segment is merged, which
+ * removes the pages from the posting lists.
+ * </p>
+ * <p>
+ * Segments are created by {@link SegmentBuilder} and can be saved and loaded with
+ * {@link IndexSnapshot}.
+ * </p>
+ */
+public class Segment {
+    private static final int DENSE_TERM_DIVISOR = 16;
+
+    private final PostingsCodec codec;
+    private final TermDictionary dictionary;
+    private final ByteBuffer postingData;
+    private final int[] postingOffsets;
+    private final int[] documentFrequencies;
+    private final ByteBuffer positionData;
+    private final int[] positionOffsets;
+    private final Map<Integer, PageIdSet> densePageSets;
+    private final int[] documentLengths;
+    private final long totalDocumentLength;
+    private final int[] lineCounts;
+    private final DocumentStore documents;
+    private final TitleIndex titleIndex;
+    private final TermImpacts impacts;
+    private volatile KGramIndex kGramIndex;
+    private volatile ImpactIndex impactIndex;
+    private volatile Map<String, int[]> urlPages;
+    private volatile LiveDocs liveDocs;
+
+    /**
+     * Constructs a new {@code Segment} from its parts, and builds the page sets of its
+     * dense terms.
+     *
+     * @param codec               the codec the posting lists are compressed with.
+     * @param dictionary          the term dictionary.
+     * @param postingData         the compressed posting lists.
+     * @param postingOffsets      the offset of each term's posting list.
+     * @param documentFrequencies the number of pages containing each term.
+     * @param positionData        the encoded word positions.
+     * @param positionOffsets     the offset of each term's positions.
+     * @param documentLengths     the word count of each page.
+     * @param lineCounts          the line count of each page.
+     * @param documents           the {@code *PAGE} and title lines of the pages.
+     * @param titleIndex          the index of the words in the titles.
+     * @param impacts             the competitive impacts of each term.
+     */
+    Segment(PostingsCodec codec, TermDictionary dictionary, ByteBuffer postingData, int[] postingOffsets,
+            int[] documentFrequencies, ByteBuffer positionData, int[] positionOffsets, int[] documentLengths,
+            int[] lineCounts, DocumentStore documents, TitleIndex titleIndex, TermImpacts impacts) {
+        this.codec = codec;
+        this.dictionary = dictionary;
+        this.postingData = postingData;
+        this.postingOffsets = postingOffsets;
+        this.documentFrequencies = documentFrequencies;
+        this.positionData = positionData;
+        this.positionOffsets = positionOffsets;
+        this.documentLengths = documentLengths;
+        long length = 0;
+        for (int documentLength : documentLengths) {
+            length += documentLength;
+        }
+        totalDocumentLength = length;
+        this.lineCounts = lineCounts;
+        this.documents = documents;
+        this.titleIndex = titleIndex;
+        this.impacts = impacts;
+        densePageSets = new HashMap<>();
+        for (int termId = 0; termId < documentFrequencies.length; termId++) {
+            if ((long) documentFrequencies[termId] * DENSE_TERM_DIVISOR >= documentLengths.length) {
+                densePageSets.put(termId, PageIdSet.of(getPostingsIterator(termId)));
+            }
+        }
+    }
+
+    /**
+     * Retrieves the term dictionary of the segment.
+     *
+     * @return the {@link TermDictionary} mapping terms to term IDs.
+     */
+    public TermDictionary getDictionary() {
+        return dictionary;
+    }
+
+    /**
+     * Looks up the term ID of a word.
+     *
+     * @param word the word to look up.
+     * @return the term ID of the word, or {@code -1} if no page of the segment contains it.
+     */
+    public int getTermId(String word) {
+        return dictionary.getTermId(word);
+    }
+
+    /**
+     * Counts the number of pages that contain a term. Deleted pages are counted until the
+     * segment is merged.
+     *
+     * @param termId the ID of the term.
+     * @return the length of the term's posting list.
+     */
+    public int getDocumentFrequency(int termId) {
+        return documentFrequencies[termId];
+    }
+
+    /**
+     * Opens an iterator over the posting list of a term, which skips deleted pages.
+     *
+     * @param termId the ID of the term.
+     * @return a new iterator over the live pages containing the term.
+     */
+    public PostingsIterator getPostingsIterator(int termId) {
+        LiveDocs live = liveDocs;
+        BlockPostingsIterator iterator = getBlockPostingsIterator(termId);
+        return live == null ? iterator : live.filter(iterator);
+    }
+
+    /**
+     * Creates an iterator over the posting list of a term that also tells the position of
+     * each page in the list, to look up its word positions with
+     * {@link #getPositions(int, int, IntList)}. The iterator includes deleted pages.
+     *
+     * @param termId the ID of the term.
+     * @return a new iterator positioned before the first page.
+     */
+    BlockPostingsIterator getBlockPostingsIterator(int termId) {
+        return new BlockPostingsIterator(codec, postingData, postingOffsets[termId], documentFrequencies[termId]);
+    }
+
+    /**
+     * Decodes the line numbers at which a term occurs as a word on one page of its posting
+     * list. Line 0 is the {@code *PAGE} line of the page.
+     *
+     * @param termId  the ID of the term.
+     * @param ordinal the index of the page in the term's posting list, as given by
+     *                {@link BlockPostingsIterator#ordinal()}.
+     * @param out     the list to store the positions in, in ascending order. It is cleared
+     *                first.
+     */
+    public void getPositions(int termId, int ordinal, IntList out) {
+        getPositions(termId, ordinal, out, new PositionsReader(positionData));
+    }
+
+    /**
+     * Decodes the line numbers at which a term occurs as a word on one page of its posting
+     * list, with a reader that is kept between calls. Reading the pages of a list in
+     * ascending order with the same reader avoids skipping the same positions again.
+     *
+     * @param termId  the ID of the term.
+     * @param ordinal the index of the page in the term's posting list.
+     * @param out     the list to store the positions in, in ascending order. It is cleared
+     *                first.
+     * @param reader  a reader created by {@link #newPositionsReader()}.
+     */
+    void getPositions(int termId, int ordinal, IntList out, PositionsReader reader) {
+        reader.read(positionOffsets[termId], documentFrequencies[termId], ordinal, out);
+    }
+
+    /**
+     * Creates a reader over the word positions of this segment.
+     *
+     * @return a new reader, for a single thread.
+     */
+    PositionsReader newPositionsReader() {
+        return new PositionsReader(positionData);
+    }
+
+    /**
+     * Retrieves the posting list of a term as a {@link PageIdSet}, for combining with other
+     * sets. Sets of terms that occur on at least one in {@value #DENSE_TERM_DIVISOR} pages are
+     * built once with the segment, without removing deleted pages; others are decoded on
+     * each call.
+     *
+     * @param termId the ID of the term.
+     * @return the set of live pages containing the term.
+     */
+    public PageIdSet getPageSet(int termId) {
+        PageIdSet pageSet = densePageSets.get(termId);
+        return pageSet != null ? removeDeleted(pageSet) : PageIdSet.of(getPostingsIterator(termId));
+    }
+
+    /**
+     * Checks whether the page set of a term is kept with the segment, which is the case
+     * for terms that occur on at least one in {@value #DENSE_TERM_DIVISOR} pages.
+     *
+     * @param termId the ID of the term.
+     * @return {@code true} if {@link #getPageSet(int)} does not decode the posting list.
+     */
+    boolean hasPageSet(int termId) {
+        return densePageSets.containsKey(termId);
+    }
+
+    /**
+     * Decodes the posting list of a term: the IDs of all live pages containing it.
+     *
+     * @param termId the ID of the term.
+     * @return the page IDs in ascending order.
+     */
+    public int[] getPostings(int termId) {
+        IntList pageIds = new IntList(documentFrequencies[termId]);
+        PostingsIterator iterator = getPostingsIterator(termId);
+        for (int pageId = iterator.next(); pageId != PostingsIterator.NO_MORE_DOCS; pageId = iterator.next()) {
+            pageIds.add(pageId);
+        }
+        return pageIds.toArray();
+    }
+
+    /**
+     * Decodes the term frequencies belonging to the posting list of a term.
+     *
+     * @param termId the ID of the term.
+     * @return the frequency of the term on each page of {@link #getPostings(int)}, in the
+     *         same order.
+     */
+    public int[] getFrequencies(int termId) {
+        IntList frequencies = new IntList(documentFrequencies[termId]);
+        PostingsIterator iterator = getPostingsIterator(termId);
+        while (iterator.next() != PostingsIterator.NO_MORE_DOCS) {
+            frequencies.add(iterator.freq());
+        }
+        return frequencies.toArray();
+    }
+
+    /**
+     * Looks up how often a term occurs as a word on a page.
+     *
+     * @param termId the ID of the term.
+     * @param pageId the ID of the page in the segment.
+     * @return the frequency of the term on the page, or 0 if the page does not contain it.
+     */
+    public int getTermFrequency(int termId, int pageId) {
+        PostingsIterator iterator = getPostingsIterator(termId);
+        return iterator.advance(pageId) == pageId ? iterator.freq() : 0;
+    }
+
+    /**
+     * Checks whether a page contains a term, including terms that do not count as words.
+     *
+     * @param termId the ID of the term.
+     * @param pageId the ID of the page in the segment.
+     * @return {@code true} if the term's posting list contains the page; {@code false} otherwise.
+     */
+    public boolean containsTerm(int termId, int pageId) {
+        return getPostingsIterator(termId).advance(pageId) == pageId;
+    }
+
+    /**
+     * Retrieves the codec the posting lists are compressed with.
+     *
+     * @return the postings codec.
+     */
+    public PostingsCodec getCodec() {
+        return codec;
+    }
+
+    /**
+     * Retrieves the buffer holding all compressed posting lists.
+     *
+     * @return the posting data. The buffer must not be modified.
+     */
+    ByteBuffer getPostingData() {
+        return postingData;
+    }
+
+    /**
+     * Retrieves the offset of a term's posting list in the posting data.
+     *
+     * @param termId the ID of the term.
+     * @return the offset of the encoded posting list.
+     */
+    int getPostingOffset(int termId) {
+        return postingOffsets[termId];
+    }
+
+    /**
+     * Retrieves the buffer holding the word positions of all terms.
+     *
+     * @return the position data. The buffer must not be modified.
+     */
+    ByteBuffer getPositionData() {
+        return positionData;
+    }
+
+    /**
+     * Retrieves the offset of a term's positions in the position data.
+     *
+     * @param termId the ID of the term.
+     * @return the offset of the encoded positions.
+     */
+    int getPositionOffset(int termId) {
+        return positionOffsets[termId];
+    }
+
+    /**
+     * Retrieves the size of the word positions of all terms together.
+     *
+     * @return the size of the position data in bytes.
+     */
+    public int getPositionsSize() {
+        return positionData.capacity();
+    }
+
+    /**
+     * Retrieves the size of all compressed posting lists together.
+     *
+     * @return the size of the posting data in bytes.
+     */
+    public int getPostingsSize() {
+        return postingData.capacity();
+    }
+
+    /**
+     * Retrieves the number of words on a page, as counted by {@link Page#getTotalWords()}.
+     *
+     * @param pageId the ID of the page in the segment.
+     * @return the number of words on the page.
+     */
+    public int getDocumentLength(int pageId) {
+        return documentLengths[pageId];
+    }
+
+    /**
+     * Retrieves the number of words on all pages of the segment together, which is kept
+     * so that average page lengths can be computed without a pass over the pages.
+     *
+     * @return the sum of the word counts of all pages.
+     */
+    public long getTotalDocumentLength() {
+        return totalDocumentLength;
+    }
+
+    /**
+     * Retrieves the number of lines in a page record, including its {@code *PAGE} and
+     * title lines.
+     *
+     * @param pageId the ID of the page in the segment.
+     * @return the number of lines of the page.
+     */
+    public int getLineCount(int pageId) {
+        return lineCounts[pageId];
+    }
+
+    /**
+     * Retrieves the {@code *PAGE} line of a page.
+     *
+     * @param pageId the ID of the page in the segment.
+     * @return the first line of the page.
+     */
+    public String getHeaderLine(int pageId) {
+        return documents.getHeaderLine(pageId);
+    }
+
+    /**
+     * Retrieves the title of a page, which is the line following its {@code *PAGE} line.
+     *
+     * @param pageId the ID of the page in the segment.
+     * @return the title of the page, or {@code null} if the page has no second line.
+     */
+    public String getTitle(int pageId) {
+        return documents.getTitle(pageId);
+    }
+
+    /**
+     * Retrieves the index of the words in the titles of the pages.
+     *
+     * @return the title field index.
+     */
+    TitleIndex getTitleIndex() {
+        return titleIndex;
+    }
+
+    /**
+     * Retrieves the k-gram index of the term dictionary, building it on the first call.
+     * Most queries never need it, so it is neither built with the segment nor saved in
+     * snapshots.
+     *
+     * @return the k-gram index of the dictionary.
+     */
+    KGramIndex getKGramIndex() {
+        KGramIndex index = kGramIndex;
+        if (index == null) {
+            synchronized (this) {
+                index = kGramIndex;
+                if (index == null) {
+                    index = KGramIndex.build(dictionary);
+                    kGramIndex = index;
+                }
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Retrieves the competitive impacts of the terms: for each term, the pairs of term
+     * frequency and page length that bound the score of every page in its posting list.
+     * They are found when the segment is built, and do not change when pages are deleted.
+     *
+     * @return the {@link TermImpacts} of the body words.
+     */
+    TermImpacts getTermImpacts() {
+        return impacts;
+    }
+
+    /**
+     * Retrieves the impact-ordered posting lists, building them on the first call. A
+     * {@link Database} with the {@code impacts} option builds them as soon as the segment
+     * is added, so no query waits for them.
+     *
+     * @return the impact index of the segment.
+     */
+    ImpactIndex getImpactIndex() {
+        ImpactIndex index = impactIndex;
+        if (index == null) {
+            synchronized (this) {
+                index = impactIndex;
+                if (index == null) {
+                    index = ImpactIndex.build(this);
+                    impactIndex = index;
+                }
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Finds the pages of the segment with a URL, including deleted ones. The map from URLs
+     * to pages is built on the first call.
+     *
+     * @param url the URL of the pages, as on their {@code *PAGE} lines.
+     * @return the IDs of the pages in the segment, in ascending order; empty if there are none.
+     */
+    int[] getPageIds(String url) {
+        Map<String, int[]> pages = urlPages;
+        if (pages == null) {
+            synchronized (this) {
+                pages = urlPages;
+                if (pages == null) {
+                    pages = new HashMap<>();
+                    for (int pageId = 0; pageId < getTotalPages(); pageId++) {
+                        String pageUrl = getHeaderLine(pageId).substring(6);
+                        int[] pageIds = pages.get(pageUrl);
+                        if (pageIds == null) {
+                            pageIds = new int[] {pageId};
+                        } else {
+                            pageIds = Arrays.copyOf(pageIds, pageIds.length + 1);
+                            pageIds[pageIds.length - 1] = pageId;
+                        }
+                        pages.put(pageUrl, pageIds);
+                    }
+                    urlPages = pages;
+                }
+            }
+        }
+        return pages.getOrDefault(url, new int[0]);
+    }
+
+    /**
+     * Marks a page as deleted. The page is skipped by every query started afterwards, and
+     * removed from the posting lists when the segment is merged.
+     *
+     * @param pageId the ID of the page in the segment.
+     * @return {@code true} if the page was live; {@code false} if it was already deleted.
+     */
+    boolean delete(int pageId) {
+        return getLiveDocs().delete(pageId);
+    }
+
+    /**
+     * Checks whether a page is deleted.
+     *
+     * @param pageId the ID of the page in the segment.
+     * @return {@code true} if the page is deleted; {@code false} if it is live.
+     */
+    public boolean isDeleted(int pageId) {
+        LiveDocs live = liveDocs;
+        return live != null && live.isDeleted(pageId);
+    }
+
+    /**
+     * Counts the deleted pages of the segment, including those already removed from the
+     * posting lists.
+     *
+     * @return the number of deleted pages.
+     */
+    public int getDeletedCount() {
+        LiveDocs live = liveDocs;
+        return live == null ? 0 : live.getDeletedCount();
+    }
+
+    /**
+     * Counts the deleted pages that are still in the posting lists, which a merge of the
+     * segment would remove.
+     *
+     * @return the number of deleted pages not yet removed.
+     */
+    int getPendingDeletions() {
+        LiveDocs live = liveDocs;
+        return live == null ? 0 : live.getPendingCount();
+    }
+
+    /**
+     * Lists the deleted pages of the segment.
+     *
+     * @return the IDs of the deleted pages, in ascending order.
+     */
+    int[] getDeletedPages() {
+        LiveDocs live = liveDocs;
+        return live == null ? new int[0] : live.toArray();
+    }
+
+    /**
+     * Removes the deleted pages of the segment from a set of its pages.
+     *
+     * @param pages a set of segment-local page IDs.
+     * @return the live pages of the set.
+     */
+    PageIdSet removeDeleted(PageIdSet pages) {
+        LiveDocs live = liveDocs;
+        return live == null || live.getDeletedCount() == 0 ? pages : pages.andNot(live.getDeletedSet());
+    }
+
+    /**
+     * Marks pages that were left out of the posting lists when the segment was merged.
+     * Must be called before the segment is shared with other threads.
+     *
+     * @param pageIds the IDs of the pages without postings.
+     */
+    void markPurged(int[] pageIds) {
+        if (pageIds.length > 0) {
+            liveDocs = new LiveDocs(getTotalPages(), pageIds);
+        }
+    }
+
+    /**
+     * Retrieves the live docs of the segment, creating them on the first deletion.
+     *
+     * @return the live docs.
+     */
+    private LiveDocs getLiveDocs() {
+        LiveDocs live = liveDocs;
+        if (live == null) {
+            synchronized (this) {
+                live = liveDocs;
+                if (live == null) {
+                    live = new LiveDocs(getTotalPages(), new int[0]);
+                    liveDocs = live;
+                }
+            }
+        }
+        return live;
+    }
+
+    /**
+     * Retrieves the store holding the {@code *PAGE} and title lines of the pages.
+     *
+     * @return the document store.
+     */
+    DocumentStore getDocuments() {
+        return documents;
+    }
+
+    /**
+     * Retrieves the number of pages in the segment.
+     *
+     * @return the page count.
+     */
+    public int getTotalPages() {
+        return documentLengths.length;
+    }
+}
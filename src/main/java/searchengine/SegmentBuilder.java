@@ -0,0 +1,580 @@
+package searchengine;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * The {@code SegmentBuilder} class creates {@link Segment}s, either by indexing a corpus
+ * file or by merging existing segments. A builder creates a single segment and must not
+ * be reused.
+ * <p>
+ * To index a corpus, the file is split into one chunk per build thread at {@code *PAGE}
+ * boundaries, and each worker builds a partial index for its chunk with chunk-local term
+ * and page IDs. The partial term lists are then merged into one sorted
+ * {@link TermDictionary}, and each worker copies its postings into place, shifted by the
+ * number of pages in the chunks before it. Finally, the posting lists are compressed with
+ * the configured {@link PostingsCodec}, their {@link TermImpacts} are found while they are
+ * still uncompressed, and the {@link TitleIndex} is built from the title lines. The result
+ * does not depend on the number of threads.
+ * </p>
+ */
+public class SegmentBuilder {
+    private final IndexConfig config;
+    private final PostingsCodec codec;
+    private TermDictionary dictionary;
+    private ByteBuffer postingData;
+    private int[] postingOffsets;
+    private int[] documentFrequencies;
+    private ByteBuffer positionData;
+    private int[] positionOffsets;
+    private long[][] impacts;
+    private int[] documentLengths;
+    private int[] lineCounts;
+    private DocumentStore documents;
+    private int totalPages;
+
+    /**
+     * Constructs a new {@code SegmentBuilder}.
+     *
+     * @param config the options controlling how the segment is built.
+     */
+    public SegmentBuilder(IndexConfig config) {
+        this.config = config;
+        codec = config.createCodec();
+    }
+
+    /**
+     * Indexes a corpus file into a new segment. The file is read one page record at a
+     * time through a {@link PageReader}, so the raw corpus is never held in memory as a
+     * whole.
+     *
+     * @param corpus the path to the corpus file.
+     * @return the new segment.
+     * @throws IOException if an error occurs while reading the file.
+     */
+    public Segment build(Path corpus) throws IOException {
+        int threads = config.getThreads();
+        long[] bounds = CorpusReader.split(corpus, threads);
+        List<Callable<Chunk>> indexTasks = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            long start = bounds[i];
+            long end = bounds[i + 1];
+            indexTasks.add(() -> indexChunk(corpus, start, end));
+        }
+        ExecutorService pool = threads == 1 ? null : Executors.newFixedThreadPool(threads);
+        try {
+            mergeChunks(runAll(pool, indexTasks), pool);
+        } finally {
+            if (pool != null) {
+                pool.shutdown();
+            }
+        }
+        return new Segment(codec, dictionary, postingData, postingOffsets, documentFrequencies, positionData,
+                positionOffsets, documentLengths, lineCounts, documents, TitleIndex.build(documents),
+                TermImpacts.of(impacts));
+    }
+
+    /**
+     * Merges adjacent segments into a new segment. The pages of the new segment are the
+     * pages of the given segments, in the given order, so global page IDs do not change
+     * when the segments are replaced by the merged segment. Posting lists are re-encoded
+     * with the codec of this builder, and the title index is rebuilt from the merged titles.
+     * <p>
+     * Pages deleted from the given segments are left out of the posting lists and get a
+     * length of 0, and terms that only occurred on them are dropped. The pages keep their
+     * IDs and their {@code *PAGE} and title lines, and are marked deleted in the merged
+     * segment. Pages deleted while the merge runs are not left out; the caller must mark
+     * them in the merged segment as well.
+     * </p>
+     *
+     * @param segments the segments to merge, in page order.
+     * @return the merged segment.
+     * @throws IllegalArgumentException if {@code segments} is empty.
+     */
+    public Segment merge(List<Segment> segments) {
+        if (segments.isEmpty()) {
+            throw new IllegalArgumentException("No segments to merge");
+        }
+        Set<String> distinct = new HashSet<>();
+        for (Segment segment : segments) {
+            TermDictionary.TermIterator iterator = segment.getDictionary().iterator(0, segment.getDictionary().size());
+            while (iterator.next()) {
+                distinct.add(iterator.term());
+            }
+        }
+        String[] terms = distinct.toArray(new String[0]);
+        TermDictionary.sort(terms);
+        dictionary = new TermDictionary(terms);
+
+        int[] firstPages = new int[segments.size()];
+        totalPages = 0;
+        for (int i = 0; i < segments.size(); i++) {
+            firstPages[i] = totalPages;
+            totalPages += segments.get(i).getTotalPages();
+        }
+        documentLengths = new int[totalPages];
+        lineCounts = new int[totalPages];
+        List<DocumentStore> stores = new ArrayList<>();
+        BitSet deleted = new BitSet(totalPages);
+        for (int i = 0; i < segments.size(); i++) {
+            Segment segment = segments.get(i);
+            for (int pageId : segment.getDeletedPages()) {
+                deleted.set(firstPages[i] + pageId);
+            }
+            for (int pageId = 0; pageId < segment.getTotalPages(); pageId++) {
+                if (!deleted.get(firstPages[i] + pageId)) {
+                    documentLengths[firstPages[i] + pageId] = segment.getDocumentLength(pageId);
+                }
+                lineCounts[firstPages[i] + pageId] = segment.getLineCount(pageId);
+            }
+            stores.add(segment.getDocuments());
+        }
+        documents = DocumentStore.concat(stores);
+
+        documentFrequencies = new int[terms.length];
+        postingOffsets = new int[terms.length];
+        positionOffsets = new int[terms.length];
+        impacts = new long[terms.length][];
+        ByteList out = new ByteList();
+        ByteList positionsOut = new ByteList();
+        IntList pageIds = new IntList();
+        IntList frequencies = new IntList();
+        IntList positions = new IntList();
+        IntList pagePositions = new IntList();
+        // One reader per segment, which reads the pages of each list in order without seeking.
+        PositionsReader[] readers = new PositionsReader[segments.size()];
+        for (int i = 0; i < segments.size(); i++) {
+            readers[i] = segments.get(i).newPositionsReader();
+        }
+        for (int termId = 0; termId < terms.length; termId++) {
+            pageIds.clear();
+            frequencies.clear();
+            positions.clear();
+            for (int i = 0; i < segments.size(); i++) {
+                Segment segment = segments.get(i);
+                int localId = segment.getTermId(terms[termId]);
+                if (localId < 0) {
+                    continue;
+                }
+                BlockPostingsIterator iterator = segment.getBlockPostingsIterator(localId);
+                for (int pageId = iterator.next(); pageId != PostingsIterator.NO_MORE_DOCS; pageId = iterator.next()) {
+                    if (deleted.get(firstPages[i] + pageId)) {
+                        continue;
+                    }
+                    pageIds.add(firstPages[i] + pageId);
+                    frequencies.add(iterator.freq());
+                    segment.getPositions(localId, iterator.ordinal(), pagePositions, readers[i]);
+                    for (int j = 0; j < pagePositions.size(); j++) {
+                        positions.add(pagePositions.get(j));
+                    }
+                }
+            }
+            documentFrequencies[termId] = pageIds.size();
+            postingOffsets[termId] = out.size();
+            int[] termPages = pageIds.toArray();
+            int[] termFrequencies = frequencies.toArray();
+            PostingsWriter.write(termPages, termFrequencies, documentLengths, codec, out);
+            impacts[termId] = TermImpacts.compute(termPages, termFrequencies, termPages.length, documentLengths);
+            positionOffsets[termId] = positionsOut.size();
+            PositionsWriter.write(termFrequencies, positions.toArray(), positionsOut);
+        }
+        if (!deleted.isEmpty()) {
+            removeUnusedTerms(terms);
+        }
+        postingData = ByteBuffer.wrap(out.toArray());
+        positionData = ByteBuffer.wrap(positionsOut.toArray());
+        Segment merged = new Segment(codec, dictionary, postingData, postingOffsets, documentFrequencies,
+                positionData, positionOffsets, documentLengths, lineCounts, documents, TitleIndex.build(documents),
+                TermImpacts.of(impacts));
+        merged.markPurged(deleted.stream().toArray());
+        return merged;
+    }
+
+    /**
+     * Drops the terms without postings from the merged dictionary, which are the terms
+     * that only occurred on deleted pages. The encoded posting lists of the other terms
+     * stay where they are.
+     *
+     * @param terms the terms of the merged dictionary, in term ID order.
+     */
+    private void removeUnusedTerms(String[] terms) {
+        int used = 0;
+        for (int termId = 0; termId < terms.length; termId++) {
+            if (documentFrequencies[termId] > 0) {
+                terms[used] = terms[termId];
+                documentFrequencies[used] = documentFrequencies[termId];
+                postingOffsets[used] = postingOffsets[termId];
+                positionOffsets[used] = positionOffsets[termId];
+                impacts[used++] = impacts[termId];
+            }
+        }
+        if (used < terms.length) {
+            dictionary = new TermDictionary(Arrays.copyOf(terms, used));
+            documentFrequencies = Arrays.copyOf(documentFrequencies, used);
+            postingOffsets = Arrays.copyOf(postingOffsets, used);
+            positionOffsets = Arrays.copyOf(positionOffsets, used);
+            impacts = Arrays.copyOf(impacts, used);
+        }
+    }
+
+    /**
+     * Builds a partial inverted index for one byte range of the corpus, using term IDs
+     * local to the chunk's reader and page IDs counted from 0.
+     * <p>
+     * Every line of a page is indexed, but only lines accepted by
+     * {@link Page#isWord(int, String, String)} count towards term frequencies and page lengths.
+     * </p>
+     *
+     * @param path  the path to the corpus file.
+     * @param start the offset of the first byte of the range.
+     * @param end   the offset just past the last byte of the range.
+     * @return the partial index of the range.
+     * @throws IOException if an error occurs while reading the file.
+     */
+    private Chunk indexChunk(Path path, long start, long end) throws IOException {
+        Chunk chunk = new Chunk();
+        int[][] pageIds = new int[0][];
+        int[][] counts = new int[0][];
+        int[] sizes = new int[0];
+        int[][] positions = new int[0][];
+        int[] positionSizes = new int[0];
+        int[] lastPage = new int[0];
+        boolean[] words = new boolean[0];
+        int known = 0;
+        try (PageReader reader = openReader(path, start, end)) {
+            int[] record;
+            while ((record = reader.nextRecord()) != null) {
+                int page = chunk.pages++;
+                int termCount = reader.getTermCount();
+                if (termCount > pageIds.length) {
+                    int capacity = Math.max(termCount, pageIds.length * 2);
+                    pageIds = Arrays.copyOf(pageIds, capacity);
+                    counts = Arrays.copyOf(counts, capacity);
+                    sizes = Arrays.copyOf(sizes, capacity);
+                    positions = Arrays.copyOf(positions, capacity);
+                    positionSizes = Arrays.copyOf(positionSizes, capacity);
+                    lastPage = Arrays.copyOf(lastPage, capacity);
+                    words = Arrays.copyOf(words, capacity);
+                }
+                for (; known < termCount; known++) {
+                    pageIds[known] = new int[2];
+                    counts[known] = new int[2];
+                    positions[known] = new int[0];
+                    lastPage[known] = -1;
+                    words[known] = !reader.getTerm(known).isEmpty();
+                }
+
+                int length = 0;
+                for (int line = 0; line < record.length; line++) {
+                    int term = record[line];
+                    int size = sizes[term];
+                    if (lastPage[term] != page) {
+                        lastPage[term] = page;
+                        if (size == pageIds[term].length) {
+                            pageIds[term] = Arrays.copyOf(pageIds[term], size * 2);
+                            counts[term] = Arrays.copyOf(counts[term], size * 2);
+                        }
+                        pageIds[term][size] = page;
+                        sizes[term] = ++size;
+                    }
+                    if (line >= Page.FIRST_WORD_LINE && words[term]) {
+                        counts[term][size - 1]++;
+                        length++;
+                        int positionSize = positionSizes[term];
+                        if (positionSize == positions[term].length) {
+                            positions[term] = Arrays.copyOf(positions[term], Math.max(2, positionSize * 2));
+                        }
+                        positions[term][positionSize] = line;
+                        positionSizes[term] = positionSize + 1;
+                    }
+                }
+                chunk.lengths.add(length);
+                chunk.lineCounts.add(record.length);
+                chunk.documentOffsets.add(chunk.documentData.size());
+                DocumentStore.addDocument(reader.getTerm(record[0]),
+                        record.length > 1 ? reader.getTerm(record[1]) : null, chunk.documentData);
+            }
+            chunk.documentOffsets.add(chunk.documentData.size());
+            chunk.terms = new String[known];
+            for (int i = 0; i < known; i++) {
+                chunk.terms[i] = reader.getTerm(i);
+            }
+        }
+        chunk.pageIds = pageIds;
+        chunk.counts = counts;
+        chunk.sizes = sizes;
+        chunk.positions = positions;
+        chunk.positionSizes = positionSizes;
+        return chunk;
+    }
+
+    /**
+     * Merges the partial indexes of all chunks into the segment being built. The chunks must be
+     * given in file order.
+     *
+     * @param chunks the partial indexes, in file order.
+     * @param pool   the pool to copy postings with, or {@code null} to copy on this thread.
+     * @throws IOException if a copy task fails.
+     */
+    private void mergeChunks(List<Chunk> chunks, ExecutorService pool) throws IOException {
+        Set<String> distinct = new HashSet<>();
+        for (Chunk chunk : chunks) {
+            Collections.addAll(distinct, chunk.terms);
+        }
+        String[] terms = distinct.toArray(new String[0]);
+        TermDictionary.sort(terms);
+        dictionary = new TermDictionary(terms);
+
+        documentFrequencies = new int[terms.length];
+        int[] positionCounts = new int[terms.length];
+        totalPages = 0;
+        for (Chunk chunk : chunks) {
+            chunk.firstPage = totalPages;
+            totalPages += chunk.pages;
+            chunk.globalIds = new int[chunk.terms.length];
+            chunk.starts = new int[chunk.terms.length];
+            chunk.positionStarts = new int[chunk.terms.length];
+            for (int local = 0; local < chunk.terms.length; local++) {
+                int global = dictionary.getTermId(chunk.terms[local]);
+                chunk.globalIds[local] = global;
+                chunk.starts[local] = documentFrequencies[global];
+                documentFrequencies[global] += chunk.sizes[local];
+                chunk.positionStarts[local] = positionCounts[global];
+                positionCounts[global] += chunk.positionSizes[local];
+            }
+        }
+        int[][] pageIds = new int[terms.length][];
+        int[][] frequencies = new int[terms.length][];
+        int[][] positions = new int[terms.length][];
+        for (int termId = 0; termId < terms.length; termId++) {
+            pageIds[termId] = new int[documentFrequencies[termId]];
+            frequencies[termId] = new int[documentFrequencies[termId]];
+            positions[termId] = new int[positionCounts[termId]];
+        }
+        documentLengths = new int[totalPages];
+        lineCounts = new int[totalPages];
+        List<DocumentStore> stores = new ArrayList<>();
+        for (Chunk chunk : chunks) {
+            stores.add(new DocumentStore(ByteBuffer.wrap(chunk.documentData.toArray()),
+                    chunk.documentOffsets.toArray()));
+        }
+        documents = DocumentStore.concat(stores);
+
+        List<Callable<Void>> copyTasks = new ArrayList<>();
+        for (Chunk chunk : chunks) {
+            copyTasks.add(() -> {
+                copyChunk(chunk, pageIds, frequencies, positions);
+                return null;
+            });
+        }
+        runAll(pool, copyTasks);
+        encodePostings(pageIds, frequencies, positions, chunks.size(), pool);
+    }
+
+    /**
+     * Copies the postings and page data of one chunk into their final place. Chunks write
+     * to disjoint parts of the arrays, so they can be copied concurrently.
+     *
+     * @param chunk       the chunk to copy.
+     * @param pageIds     the global posting lists, indexed by term ID.
+     * @param frequencies the global term frequencies, indexed by term ID.
+     * @param positions   the global word positions, indexed by term ID.
+     */
+    private void copyChunk(Chunk chunk, int[][] pageIds, int[][] frequencies, int[][] positions) {
+        for (int local = 0; local < chunk.terms.length; local++) {
+            int global = chunk.globalIds[local];
+            int start = chunk.starts[local];
+            int[] localPageIds = chunk.pageIds[local];
+            int[] target = pageIds[global];
+            for (int i = 0; i < chunk.sizes[local]; i++) {
+                target[start + i] = chunk.firstPage + localPageIds[i];
+            }
+            System.arraycopy(chunk.counts[local], 0, frequencies[global], start, chunk.sizes[local]);
+            System.arraycopy(chunk.positions[local], 0, positions[global], chunk.positionStarts[local],
+                    chunk.positionSizes[local]);
+        }
+        for (int page = 0; page < chunk.pages; page++) {
+            documentLengths[chunk.firstPage + page] = chunk.lengths.get(page);
+            lineCounts[chunk.firstPage + page] = chunk.lineCounts.get(page);
+        }
+        chunk.pageIds = null;
+        chunk.counts = null;
+        chunk.positions = null;
+    }
+
+    /**
+     * Compresses the merged posting lists into the posting buffer, encodes the word
+     * positions into the position buffer, and finds the competitive impacts of each list.
+     * The term range is split into slices that are encoded concurrently and then
+     * concatenated in term order. Each uncompressed list is released as soon as it has been
+     * encoded.
+     *
+     * @param pageIds     the posting lists, indexed by term ID.
+     * @param frequencies the term frequencies, indexed by term ID.
+     * @param positions   the word positions, indexed by term ID.
+     * @param slices      the number of slices to encode concurrently.
+     * @param pool        the pool to encode with, or {@code null} to encode on this thread.
+     * @throws IOException if an encoding task fails, or the encoded postings or positions
+     *                     exceed the size of a single buffer.
+     */
+    private void encodePostings(int[][] pageIds, int[][] frequencies, int[][] positions, int slices,
+            ExecutorService pool) throws IOException {
+        int termCount = pageIds.length;
+        postingOffsets = new int[termCount];
+        positionOffsets = new int[termCount];
+        impacts = new long[termCount][];
+        List<Callable<ByteList[]>> encodeTasks = new ArrayList<>();
+        for (int slice = 0; slice < slices; slice++) {
+            int from = (int) ((long) termCount * slice / slices);
+            int to = (int) ((long) termCount * (slice + 1) / slices);
+            encodeTasks.add(() -> {
+                ByteList out = new ByteList();
+                ByteList positionsOut = new ByteList();
+                for (int termId = from; termId < to; termId++) {
+                    postingOffsets[termId] = out.size();
+                    PostingsWriter.write(pageIds[termId], frequencies[termId], documentLengths, codec, out);
+                    positionOffsets[termId] = positionsOut.size();
+                    PositionsWriter.write(frequencies[termId], positions[termId], positionsOut);
+                    impacts[termId] = TermImpacts.compute(pageIds[termId], frequencies[termId],
+                            pageIds[termId].length, documentLengths);
+                    pageIds[termId] = null;
+                    frequencies[termId] = null;
+                    positions[termId] = null;
+                }
+                return new ByteList[] { out, positionsOut };
+            });
+        }
+        List<ByteList[]> encoded = runAll(pool, encodeTasks);
+        postingData = concatenate(encoded, 0, postingOffsets, slices, "postings");
+        positionData = concatenate(encoded, 1, positionOffsets, slices, "positions");
+    }
+
+    /**
+     * Concatenates the buffers encoded for each slice of the term range into one buffer, and
+     * shifts the offsets of the terms of each slice by the size of the slices before it.
+     *
+     * @param encoded the buffers encoded by each slice.
+     * @param part    the index of the buffer to concatenate in each slice's result.
+     * @param offsets the offset of each term in its slice's buffer, shifted in place.
+     * @param slices  the number of slices.
+     * @param name    the name of the data, for the error message.
+     * @return the concatenated buffer.
+     * @throws IOException if the data exceeds the size of a single buffer.
+     */
+    private static ByteBuffer concatenate(List<ByteList[]> encoded, int part, int[] offsets, int slices, String name)
+            throws IOException {
+        long totalSize = 0;
+        for (ByteList[] out : encoded) {
+            totalSize += out[part].size();
+        }
+        if (totalSize > Integer.MAX_VALUE - 8) {
+            throw new IOException("Compressed " + name + " exceed the maximum buffer size: " + totalSize + " bytes");
+        }
+        int termCount = offsets.length;
+        byte[] data = new byte[(int) totalSize];
+        int base = 0;
+        for (int slice = 0; slice < slices; slice++) {
+            int from = (int) ((long) termCount * slice / slices);
+            int to = (int) ((long) termCount * (slice + 1) / slices);
+            for (int termId = from; termId < to; termId++) {
+                offsets[termId] += base;
+            }
+            ByteList out = encoded.get(slice)[part];
+            out.copyTo(data, base);
+            base += out.size();
+        }
+        return ByteBuffer.wrap(data);
+    }
+
+    /**
+     * Opens a reader on a byte range of the corpus, using the reader selected in the
+     * {@link IndexConfig}.
+     *
+     * @param path  the path to the corpus file.
+     * @param start the offset of the first byte of the range.
+     * @param end   the offset just past the last byte of the range.
+     * @return a new reader for the range.
+     * @throws IOException if the file cannot be opened.
+     */
+    private PageReader openReader(Path path, long start, long end) throws IOException {
+        switch (config.getReader()) {
+            case IndexConfig.READER_MMAP:
+                return new MappedCorpusScanner(path, start, end);
+            case IndexConfig.READER_STREAM:
+                return new CorpusReader(path, start, end);
+            default:
+                throw new IllegalStateException("Unknown reader: " + config.getReader());
+        }
+    }
+
+    /**
+     * Runs a list of tasks and waits for all of them to finish.
+     *
+     * @param pool  the pool to run the tasks on, or {@code null} to run them one after
+     *              another on the calling thread.
+     * @param tasks the tasks to run.
+     * @return the results of the tasks, in the order of the tasks.
+     * @throws IOException if any task failed with an {@link IOException}.
+     */
+    private static <T> List<T> runAll(ExecutorService pool, List<Callable<T>> tasks) throws IOException {
+        try {
+            List<T> results = new ArrayList<>(tasks.size());
+            if (pool == null) {
+                for (Callable<T> task : tasks) {
+                    results.add(task.call());
+                }
+                return results;
+            }
+            for (Future<T> future : pool.invokeAll(tasks)) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Index build was interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IllegalStateException("Index build failed", e.getCause());
+        } catch (IOException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException("Index build failed", e);
+        }
+    }
+
+    /**
+     * The partial index built by one worker for one byte range of the corpus.
+     */
+    private static class Chunk {
+        private final IntList lengths = new IntList();
+        private final IntList lineCounts = new IntList();
+        private final ByteList documentData = new ByteList();
+        private final IntList documentOffsets = new IntList();
+        private String[] terms;
+        private int[][] pageIds;
+        private int[][] counts;
+        private int[] sizes;
+        private int pages;
+        private int firstPage;
+        private int[] globalIds;
+        private int[] starts;
+        private int[][] positions;
+        private int[] positionSizes;
+        private int[] positionStarts;
+    }
+}
@@ -28,4 +28,36 @@ public class SimpleFrequencyScoring implements ScoringMethod {
     public double calculateScore(String word, Page page, Database database) {
         return page.getWordFrequency(word);
     }
+
+    /**
+     * Calculates the score of a word on a page using its frequency from the index.
+     *
+     * @param termFrequency the frequency of the word on the page.
+     * @param pagesWithWord the number of pages containing the word (unused).
+     * @param pageId        the ID of the page (unused).
+     * @param database      the database containing the page (unused).
+     * @return the frequency of the word on the page.
+     */
+    @Override
+    public double calculateScore(int termFrequency, int pagesWithWord, int pageId, Database database) {
+        return termFrequency;
+    }
+
+    /**
+     * Calculates the score of a word on a page with the given statistics, which is its
+     * frequency.
+     *
+     * @param termFrequency  the frequency of the word on the page.
+     * @param documentLength the number of words on the page (unused).
+     * @param titleFrequency the frequency of the word in the title (unused).
+     * @param titleLength    the number of words in the title (unused).
+     * @param pagesWithWord  the number of pages containing the word (unused).
+     * @param database       the database containing the page (unused).
+     * @return the frequency of the word on the page.
+     */
+    @Override
+    public double calculateMaxScore(int termFrequency, int documentLength, int titleFrequency, int titleLength,
+            int pagesWithWord, Database database) {
+        return termFrequency;
+    }
 }
@@ -1,5 +1,8 @@
 package searchengine;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
 
 /**
@@ -33,8 +36,8 @@ public class SortHandler {
      *                     together.
      * @param searchEngine The search engine instance, used to retrieve the
      *                     database.
-     * @param algorithm    The user-selected scoring algorithm (e.g., "SIMPLE" or
-     *                     "TFIDF").
+     * @param algorithm    The user-selected scoring algorithm (e.g., "SIMPLE",
+     *                     "TFIDF", "BM25" or "BM25F").
      * @return A list of pages sorted by relevance based on the chosen algorithm.
      */
     public List<Page> sortResults(List<Page> pages, List<List<String>> parsedQuery, SearchEngine searchEngine,
@@ -43,9 +46,84 @@ public class SortHandler {
         return sortByAlgorithm(pages, parsedQuery, searchEngine.getDatabase(), algo);
     }
 
+    /**
+     * Finds the most relevant pages of a list using the selected scoring algorithm,
+     * without sorting the others. See
+     * {@link #sortTopResults(List, List, Database, ScoringMethod, int)}.
+     *
+     * @param pages        The list of pages to rank.
+     * @param parsedQuery  The parsed query, represented as a list of term groups.
+     * @param searchEngine The search engine instance, used to retrieve the
+     *                     database.
+     * @param algorithm    The user-selected scoring algorithm (e.g., "SIMPLE",
+     *                     "TFIDF", "BM25" or "BM25F").
+     * @param k            The maximum number of pages to return.
+     * @return The {@code k} most relevant pages, in descending order of relevance.
+     * @throws IllegalArgumentException if the algorithm is unknown or {@code k} is
+     *                                  negative.
+     */
+    public List<Page> sortResults(List<Page> pages, List<List<String>> parsedQuery, SearchEngine searchEngine,
+            String algorithm, int k) {
+        ScoringMethod algo = selectScoringMethod(algorithm);
+        return sortTopResults(pages, parsedQuery, searchEngine.getDatabase(), algo, k);
+    }
+
+    /**
+     * Finds the most relevant pages of a list using the given scoring method, in the same
+     * order as the first {@code k} pages of
+     * {@link #sortByAlgorithm(List, List, Database, ScoringMethod)}.
+     * <p>
+     * All pages are scored in one pass, as for sorting, but only the best {@code k} are
+     * kept, in a min-heap whose root is the worst page kept so far. A page replaces the
+     * root only if it scores higher, so most pages of a broad query cost a single
+     * comparison, and only the {@code k} pages kept are sorted at the end.
+     * </p>
+     *
+     * @param pages         The list of pages to rank. It is not modified.
+     * @param parsedQuery   The parsed query structure.
+     * @param database      The database used for scoring.
+     * @param scoringMethod The scoring method to use for ranking the pages.
+     * @param k             The maximum number of pages to return.
+     * @return A new list of the {@code k} most relevant pages, in descending order of
+     *         relevance; pages with equal scores keep their order.
+     * @throws IllegalArgumentException if {@code k} is negative.
+     */
+    public List<Page> sortTopResults(List<Page> pages, List<List<String>> parsedQuery, Database database,
+            ScoringMethod scoringMethod, int k) {
+        if (k < 0) {
+            throw new IllegalArgumentException("Result count must not be negative: " + k);
+        }
+        double[] scores = calculatePageScores(pages, parsedQuery, database, scoringMethod);
+        List<Page> topPages = new ArrayList<>();
+        for (int i : selectTop(scores, k)) {
+            topPages.add(pages.get(i));
+        }
+        return topPages;
+    }
+
+    /**
+     * Selects the positions of the highest scores with a {@link TopScoreCollector}.
+     *
+     * @param scores the scores to select from.
+     * @param k      the maximum number of positions to select.
+     * @return the positions of the {@code k} highest scores, from the highest to the
+     *         lowest score, and by ascending position among equal scores.
+     */
+    static int[] selectTop(double[] scores, int k) {
+        TopScoreCollector collector = new TopScoreCollector(Math.min(k, scores.length));
+        for (int i = 0; i < scores.length; i++) {
+            collector.collect(i, scores[i]);
+        }
+        return collector.getPageIds();
+    }
+
     /**
      * Sorts a list of pages based on their relevance score using the given scoring
      * method.
+     * <p>
+     * The score of every page is calculated once, before sorting, instead of inside the
+     * comparator. Pages with equal scores keep their order.
+     * </p>
      *
      * @param listOfPages   The list of pages to sort.
      * @param parsedQuery   The parsed query structure.
@@ -55,17 +133,83 @@ public class SortHandler {
      */
     public List<Page> sortByAlgorithm(List<Page> listOfPages, List<List<String>> parsedQuery, Database database,
             ScoringMethod scoringMethod) {
-        listOfPages.sort((page1, page2) -> {
-            double score1 = calculatePageScore(page1, parsedQuery, database, scoringMethod);
-            double score2 = calculatePageScore(page2, parsedQuery, database, scoringMethod);
-            return Double.compare(score2, score1);
-        });
+        double[] scores = calculatePageScores(listOfPages, parsedQuery, database, scoringMethod);
+        Integer[] order = new Integer[scores.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingDouble((Integer i) -> scores[i]).reversed());
+        List<Page> sortedPages = new ArrayList<>(listOfPages);
+        for (int i = 0; i < order.length; i++) {
+            listOfPages.set(i, sortedPages.get(order[i]));
+        }
         return listOfPages;
     }
 
+    /**
+     * Calculates the relevance scores of a list of pages, giving the same scores as
+     * {@link #calculatePageScore(Page, List, Database, ScoringMethod)}.
+     * <p>
+     * The document frequency of each query word is looked up once, and its term
+     * frequencies on all pages are read from its posting lists in one pass through
+     * {@link Database#getTermFrequencies(String, int[])}, and likewise its title
+     * frequencies from the title index. A fuzzy or wildcard word is scored as the sum of
+     * its expansions.
+     * </p>
+     *
+     * @param pages         The pages to score; they must be pages of the database.
+     * @param parsedQuery   The parsed query structure, organized as groups of
+     *                      terms.
+     * @param database      The database containing all pages.
+     * @param scoringMethod The scoring method used to calculate the relevance.
+     * @return The score of each page, in the order of {@code pages}.
+     */
+    public double[] calculatePageScores(List<Page> pages, List<List<String>> parsedQuery, Database database,
+            ScoringMethod scoringMethod) {
+        int[] pageIds = new int[pages.size()];
+        for (int i = 0; i < pageIds.length; i++) {
+            pageIds[i] = pages.get(i).getId();
+        }
+        int[] sortedIds = pageIds.clone();
+        Arrays.sort(sortedIds);
+        int[] positions = new int[pageIds.length];
+        for (int i = 0; i < pageIds.length; i++) {
+            positions[i] = Arrays.binarySearch(sortedIds, pageIds[i]);
+        }
+
+        double[] scores = new double[pageIds.length];
+        double[] groupScores = new double[pageIds.length];
+        for (List<String> group : parsedQuery) {
+            Arrays.fill(groupScores, 0.0);
+            for (String word : getScoredWords(group, database)) {
+                boolean titleOnly = QueryHandler.isTitleTerm(word);
+                String titleWord = titleOnly ? QueryHandler.getTitleWord(word) : word;
+                int pagesWithWord = titleOnly ? database.pagesWithTitleWord(titleWord) : database.pagesWithWord(word);
+                if (pagesWithWord == 0) {
+                    continue;
+                }
+                int[] termFrequencies = titleOnly ? new int[sortedIds.length]
+                        : database.getTermFrequencies(word, sortedIds);
+                int[] titleFrequencies = database.getTitleTermFrequencies(titleWord, sortedIds);
+                for (int i = 0; i < pageIds.length; i++) {
+                    groupScores[i] += scoringMethod.calculateScore(termFrequencies[positions[i]],
+                            titleFrequencies[positions[i]], pagesWithWord, pageIds[i], database);
+                }
+            }
+            for (int i = 0; i < pageIds.length; i++) {
+                scores[i] = Math.max(scores[i], groupScores[i]);
+            }
+        }
+        return scores;
+    }
+
     /**
      * Calculates the relevance score of a page based on the provided scoring
-     * method.
+     * method. Word statistics are read from the index of the database, so the page
+     * must be one of its pages. A phrase is scored as the sum of its words. The title
+     * frequency of every word is passed on for field-aware methods such as
+     * {@link BM25FScoring}; a title-only word has no body frequency and is counted in the
+     * title index. A fuzzy or wildcard word is scored as the sum of its expansions.
      *
      * @param page          The page for which the score is being calculated.
      * @param parsedQuery   The parsed query structure, organized as groups of
@@ -82,19 +226,45 @@ public class SortHandler {
         for (List<String> group : parsedQuery) {
             double groupScore = 0.0;
 
-            for (String word : group) {
-                groupScore += scoringMethod.calculateScore(word, page, database);
+            for (String word : getScoredWords(group, database)) {
+                boolean titleOnly = QueryHandler.isTitleTerm(word);
+                String titleWord = titleOnly ? QueryHandler.getTitleWord(word) : word;
+                int pagesWithWord = titleOnly ? database.pagesWithTitleWord(titleWord) : database.pagesWithWord(word);
+                if (pagesWithWord == 0) {
+                    continue;
+                }
+                int termFrequency = titleOnly ? 0 : database.getTermFrequency(word, page.getId());
+                int titleFrequency = database.getTitleTermFrequency(titleWord, page.getId());
+                groupScore += scoringMethod.calculateScore(termFrequency, titleFrequency, pagesWithWord, page.getId(),
+                        database);
             }
             maxGroupScore = Math.max(maxGroupScore, groupScore);
         }
         return maxGroupScore;
     }
 
+    /**
+     * Lists the words of a query group to score, with its phrases replaced by their words
+     * and its fuzzy and wildcard words replaced by their expansions in the database.
+     *
+     * @param group    a group returned by {@link QueryParser#parseGroups(String)}.
+     * @param database the database to expand fuzzy and wildcard words in.
+     * @return the words to score, in order.
+     */
+    private List<String> getScoredWords(List<String> group, Database database) {
+        List<String> words = new ArrayList<>();
+        for (String term : group) {
+            List<String> expansions = QueryHandler.expand(term, database);
+            words.addAll(expansions != null ? expansions : QueryHandler.getWords(List.of(term)));
+        }
+        return words;
+    }
+
     /**
      * Selects a scoring method based on the user's chosen algorithm.
      *
      * @param algorithm A string representing the user-selected algorithm
-     *                  (e.g., "SIMPLE" or "TFIDF").
+     *                  (e.g., "SIMPLE", "TFIDF", "BM25" or "BM25F").
      * @return A new instance of the corresponding {@link ScoringMethod}
      *         implementation.
      * @throws IllegalArgumentException if the provided algorithm is unknown or
@@ -106,6 +276,10 @@ public class SortHandler {
                 return new SimpleFrequencyScoring();
             case "TFIDF":
                 return new TFIDFScoring();
+            case "BM25":
+                return new BM25Scoring();
+            case "BM25F":
+                return new BM25FScoring();
             default:
                 throw new IllegalArgumentException("Unknown algorithm: " + algorithm);
         }
@@ -0,0 +1,314 @@
+package searchengine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The {@code Suggester} class completes a prefix typed into the search box to the words
+ * of the index that start with it, most common first. It is a character trie over the
+ * terms of all segments of the index, in which every node stores the top {@link #getDepth()}
+ * completions below it, ranked by document frequency. A lookup walks one node per
+ * character of the prefix and copies the stored completions, so it never visits the
+ * subtree of the prefix, however many terms it holds.
+ * <p>
+ * The trie is a snapshot of the segments it was built from: it does not change when
+ * pages are added or segments are merged. {@link SearchEngine} builds a new one when the
+ * segments of its {@link Database} change. Terms that cannot be typed as a single query
+ * word, that is {@code *PAGE:} lines and lines containing whitespace, are left out.
+ * </p>
+ */
+final class Suggester {
+    /**
+     * The default number of completions stored per node.
+     */
+    static final int DEFAULT_DEPTH = 10;
+
+    private static final int ROOT = 0;
+    private static final int NO_NODE = -1;
+
+    private final List<Segment> segments;
+    private final int depth;
+    private final String[] terms;
+    private final int[] documentFrequencies;
+
+    private char[] labels;
+    private int[] firstChildren;
+    private int[] nextSiblings;
+    private int[] nodeTerms;
+    private int nodeCount;
+
+    private final int[] completionStarts;
+    private final int[] completionCounts;
+    private final int[] completions;
+
+    /**
+     * Constructs a new {@code Suggester} over a set of terms.
+     *
+     * @param segments            the segments the terms were taken from, or {@code null}.
+     * @param terms               the terms, sorted by {@link TermDictionary#compare(String, String)}.
+     * @param documentFrequencies the number of pages containing each term.
+     * @param depth               the number of completions to store per node.
+     * @throws IllegalArgumentException if {@code depth} is not positive or the arrays differ
+     *                                  in length.
+     */
+    Suggester(List<Segment> segments, String[] terms, int[] documentFrequencies, int depth) {
+        if (depth <= 0) {
+            throw new IllegalArgumentException("Depth must be positive: " + depth);
+        }
+        if (terms.length != documentFrequencies.length) {
+            throw new IllegalArgumentException("Every term needs a document frequency");
+        }
+        this.segments = segments;
+        this.depth = depth;
+        this.terms = terms;
+        this.documentFrequencies = documentFrequencies;
+
+        int capacity = 1024;
+        labels = new char[capacity];
+        firstChildren = new int[capacity];
+        nextSiblings = new int[capacity];
+        nodeTerms = new int[capacity];
+        newNode('\0');
+        for (int i = 0; i < terms.length; i++) {
+            insert(i);
+        }
+
+        completionStarts = new int[nodeCount];
+        completionCounts = new int[nodeCount];
+        IntList pool = new IntList(nodeCount * 2);
+        // A child is always created after its parent, so walking the nodes backwards
+        // ranks the completions of every child before those of its parent.
+        int[] candidates = new int[depth + 1];
+        for (int node = nodeCount - 1; node >= 0; node--) {
+            int count = 0;
+            if (nodeTerms[node] >= 0) {
+                candidates[count++] = nodeTerms[node];
+            }
+            for (int child = firstChildren[node]; child != NO_NODE; child = nextSiblings[child]) {
+                for (int i = 0; i < completionCounts[child]; i++) {
+                    count = offer(candidates, count, pool.get(completionStarts[child] + i));
+                }
+            }
+            completionStarts[node] = pool.size();
+            completionCounts[node] = count;
+            for (int i = 0; i < count; i++) {
+                pool.add(candidates[i]);
+            }
+        }
+        completions = pool.toArray();
+    }
+
+    /**
+     * Builds the suggester of a list of segments, with {@link #DEFAULT_DEPTH} completions
+     * per node. The document frequency of a term is summed over all segments.
+     *
+     * @param segments the segments whose terms to complete to.
+     * @return the suggester.
+     */
+    static Suggester build(List<Segment> segments) {
+        Map<String, Integer> frequencies = new HashMap<>();
+        for (Segment segment : segments) {
+            TermDictionary.TermIterator iterator = segment.getDictionary().iterator(0, segment.getDictionary().size());
+            while (iterator.next()) {
+                String term = iterator.term();
+                if (isSuggestible(term)) {
+                    frequencies.merge(term, segment.getDocumentFrequency(iterator.termId()), Integer::sum);
+                }
+            }
+        }
+        String[] terms = frequencies.keySet().toArray(new String[0]);
+        TermDictionary.sort(terms);
+        int[] documentFrequencies = new int[terms.length];
+        for (int i = 0; i < terms.length; i++) {
+            documentFrequencies[i] = frequencies.get(terms[i]);
+        }
+        return new Suggester(segments, terms, documentFrequencies, DEFAULT_DEPTH);
+    }
+
+    /**
+     * Checks whether a term of the index can be suggested, that is, whether it can be
+     * typed as a single word of a query.
+     *
+     * @param term the term to check.
+     * @return {@code true} if the term is non-empty, is not a {@code *PAGE:} line and
+     *         contains no whitespace; {@code false} otherwise.
+     */
+    static boolean isSuggestible(String term) {
+        if (term.isEmpty() || term.startsWith("*PAGE:")) {
+            return false;
+        }
+        for (int i = 0; i < term.length(); i++) {
+            if (Character.isWhitespace(term.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Finds the most common terms starting with a prefix.
+     *
+     * @param prefix the prefix to complete. A term equal to the prefix is a completion too.
+     * @param limit  the maximum number of completions to return.
+     * @return up to {@code limit} terms, by descending document frequency and then in
+     *         dictionary order; an empty list if the prefix is empty or no term starts
+     *         with it.
+     * @throws IllegalArgumentException if {@code limit} is negative or larger than
+     *                                  {@link #getDepth()}.
+     */
+    List<String> suggest(String prefix, int limit) {
+        if (limit < 0 || limit > depth) {
+            throw new IllegalArgumentException("Limit must be between 0 and " + depth + ": " + limit);
+        }
+        if (prefix == null || prefix.isEmpty()) {
+            return List.of();
+        }
+        int node = ROOT;
+        for (int i = 0; i < prefix.length() && node != NO_NODE; i++) {
+            node = findChild(node, prefix.charAt(i));
+        }
+        if (node == NO_NODE) {
+            return List.of();
+        }
+        int count = Math.min(limit, completionCounts[node]);
+        List<String> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            result.add(terms[completions[completionStarts[node] + i]]);
+        }
+        return result;
+    }
+
+    /**
+     * Checks whether this suggester was built from a list of segments. The check is by
+     * identity, as {@link Database#getSegments()} returns a new list whenever the segments
+     * change.
+     *
+     * @param segments the segments to compare with.
+     * @return {@code true} if the suggester covers exactly these segments.
+     */
+    boolean isBuiltFrom(List<Segment> segments) {
+        return this.segments == segments;
+    }
+
+    /**
+     * Retrieves the number of completions stored per node, which bounds the number of
+     * completions a lookup can return.
+     *
+     * @return the depth of the suggester.
+     */
+    int getDepth() {
+        return depth;
+    }
+
+    /**
+     * Retrieves the number of terms the suggester completes to.
+     *
+     * @return the term count.
+     */
+    int size() {
+        return terms.length;
+    }
+
+    /**
+     * Retrieves the number of nodes of the trie, including the root.
+     *
+     * @return the node count.
+     */
+    int getNodeCount() {
+        return nodeCount;
+    }
+
+    /**
+     * Adds a term to the trie, creating the nodes of its characters that are missing.
+     *
+     * @param term the index of the term in {@link #terms}.
+     */
+    private void insert(int term) {
+        String text = terms[term];
+        int node = ROOT;
+        for (int i = 0; i < text.length(); i++) {
+            int child = findChild(node, text.charAt(i));
+            if (child == NO_NODE) {
+                child = newNode(text.charAt(i));
+                nextSiblings[child] = firstChildren[node];
+                firstChildren[node] = child;
+            }
+            node = child;
+        }
+        nodeTerms[node] = term;
+    }
+
+    /**
+     * Finds the child of a node reached by a character.
+     *
+     * @param node  the parent node.
+     * @param label the character to follow.
+     * @return the child node, or {@link #NO_NODE} if there is none.
+     */
+    private int findChild(int node, char label) {
+        int child = firstChildren[node];
+        while (child != NO_NODE && labels[child] != label) {
+            child = nextSiblings[child];
+        }
+        return child;
+    }
+
+    /**
+     * Appends a node without children or term to the trie, growing the node arrays when
+     * they are full.
+     *
+     * @param label the character leading to the node.
+     * @return the new node.
+     */
+    private int newNode(char label) {
+        if (nodeCount == labels.length) {
+            int capacity = labels.length * 2;
+            labels = Arrays.copyOf(labels, capacity);
+            firstChildren = Arrays.copyOf(firstChildren, capacity);
+            nextSiblings = Arrays.copyOf(nextSiblings, capacity);
+            nodeTerms = Arrays.copyOf(nodeTerms, capacity);
+        }
+        labels[nodeCount] = label;
+        firstChildren[nodeCount] = NO_NODE;
+        nextSiblings[nodeCount] = NO_NODE;
+        nodeTerms[nodeCount] = -1;
+        return nodeCount++;
+    }
+
+    /**
+     * Inserts a term into a list of completions ranked by document frequency, dropping
+     * the last one when the list would grow beyond {@link #depth}.
+     *
+     * @param candidates the ranked completions, with room for one more.
+     * @param count      the number of completions in the list.
+     * @param term       the term to insert.
+     * @return the new number of completions in the list.
+     */
+    private int offer(int[] candidates, int count, int term) {
+        int i = count;
+        while (i > 0 && ranksBefore(term, candidates[i - 1])) {
+            candidates[i] = candidates[i - 1];
+            i--;
+        }
+        candidates[i] = term;
+        return Math.min(count + 1, depth);
+    }
+
+    /**
+     * Compares two terms by rank: the higher document frequency first, and the term
+     * first in dictionary order when the frequencies are equal.
+     *
+     * @param term  the index of a term.
+     * @param other the index of another term.
+     * @return {@code true} if {@code term} ranks before {@code other}.
+     */
+    private boolean ranksBefore(int term, int other) {
+        if (documentFrequencies[term] != documentFrequencies[other]) {
+            return documentFrequencies[term] > documentFrequencies[other];
+        }
+        return term < other;
+    }
+}
@@ -75,4 +75,61 @@ public class TFIDFScoring implements ScoringMethod {
         // Return the product of TF and IDF
         return tf * idf;
     }
-}
\ No newline at end of file
+
+    /**
+     * Calculates the TF-IDF score for a word on a page from statistics already looked up
+     * in the index. Uses the same formulas as
+     * {@link #calculateScore(String, Page, Database)}, with the page length read from
+     * {@link Database#getDocumentLength(int)}.
+     *
+     * @param termFrequency The frequency of the word on the page.
+     * @param pagesWithWord The number of pages containing the word.
+     * @param pageId        The ID of the page in the database.
+     * @param database      The database containing all pages in the corpus.
+     * @return The TF-IDF score for the word on the specified page, or 0 if the word does
+     *         not occur on the page.
+     */
+    @Override
+    public double calculateScore(int termFrequency, int pagesWithWord, int pageId, Database database) {
+        if (termFrequency == 0 || pagesWithWord == 0) {
+            return 0;
+        }
+        return score(termFrequency, database.getDocumentLength(pageId), pagesWithWord, database);
+    }
+
+    /**
+     * Calculates the TF-IDF score of a word on a page with the given statistics, which
+     * grows with the frequency and shrinks with the page length. The title is not scored.
+     *
+     * @param termFrequency  The frequency of the word on the page.
+     * @param documentLength The number of words on the page.
+     * @param titleFrequency The frequency of the word in the title (unused).
+     * @param titleLength    The number of words in the title (unused).
+     * @param pagesWithWord  The number of pages containing the word.
+     * @param database       The database containing all pages in the corpus.
+     * @return The TF-IDF score, or 0 if the word does not occur on the page.
+     */
+    @Override
+    public double calculateMaxScore(int termFrequency, int documentLength, int titleFrequency, int titleLength,
+            int pagesWithWord, Database database) {
+        if (termFrequency == 0 || pagesWithWord == 0) {
+            return 0;
+        }
+        return score(termFrequency, documentLength, pagesWithWord, database);
+    }
+
+    /**
+     * Calculates the TF-IDF score of a word that occurs on a page.
+     *
+     * @param termFrequency  The frequency of the word on the page, at least 1.
+     * @param documentLength The number of words on the page.
+     * @param pagesWithWord  The number of pages containing the word, at least 1.
+     * @param database       The database containing all pages in the corpus.
+     * @return The TF-IDF score.
+     */
+    private double score(int termFrequency, int documentLength, int pagesWithWord, Database database) {
+        double tf = (double) termFrequency / documentLength;
+        double idf = Math.log((double) database.getTotalPages() / pagesWithWord);
+        return tf * idf;
+    }
+}
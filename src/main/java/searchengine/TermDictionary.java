@@ -0,0 +1,528 @@
+package searchengine;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * The {@code TermDictionary} class maps every indexed term to a dense integer term ID.
+ * Terms are kept in sorted order and a term's ID is its rank, so IDs do not depend on
+ * the order in which pages were read, neighbouring IDs share prefixes, and all terms with
+ * a given prefix or within a given range have consecutive IDs.
+ * <p>
+ * The terms are stored front-coded as UTF-8 bytes in blocks of {@value #BLOCK_SIZE}. The
+ * first term of a block is stored in full; every further term stores only the length of
+ * the prefix it shares with the term before it and the remaining bytes. A table holds the
+ * offset of every block. A lookup binary-searches the blocks by their first terms, which
+ * are compared in place, and then decodes at most one block. Since the term ID of a term is
+ * its rank, the dictionary also maps terms to the posting offsets kept by term ID in
+ * {@link Segment}, without storing the terms a second time.
+ * </p>
+ * <p>
+ * Terms are ordered by their UTF-8 bytes, which is the order of their Unicode code points;
+ * {@link #sort(String[])} sorts terms in this order. The dictionary is immutable and can be
+ * shared between threads. Its data can be saved and memory-mapped by {@link IndexSnapshot}.
+ * </p>
+ */
+public class TermDictionary {
+    /**
+     * The number of terms in each front-coded block.
+     */
+    static final int BLOCK_SIZE = 16;
+
+    private final ByteBuffer data;
+    private final int[] blockOffsets;
+    private final int size;
+
+    /**
+     * Constructs a new {@code TermDictionary} over the given terms.
+     *
+     * @param sortedTerms distinct terms in ascending order, as sorted by
+     *                    {@link #sort(String[])}.
+     * @throws IllegalArgumentException if the terms are not distinct and sorted.
+     */
+    public TermDictionary(String[] sortedTerms) {
+        ByteList out = new ByteList();
+        blockOffsets = new int[(sortedTerms.length + BLOCK_SIZE - 1) / BLOCK_SIZE];
+        byte[] previous = null;
+        for (int termId = 0; termId < sortedTerms.length; termId++) {
+            byte[] term = sortedTerms[termId].getBytes(StandardCharsets.UTF_8);
+            if (previous != null && compare(previous, previous.length, term) >= 0) {
+                throw new IllegalArgumentException("Terms are not distinct and sorted at: " + sortedTerms[termId]);
+            }
+            if (termId % BLOCK_SIZE == 0) {
+                blockOffsets[termId / BLOCK_SIZE] = out.size();
+                out.addVInt(term.length);
+                addBytes(term, 0, out);
+            } else {
+                int shared = sharedPrefix(previous, term);
+                out.addVInt(shared);
+                out.addVInt(term.length - shared);
+                addBytes(term, shared, out);
+            }
+            previous = term;
+        }
+        data = ByteBuffer.wrap(out.toArray());
+        size = sortedTerms.length;
+    }
+
+    /**
+     * Constructs a new {@code TermDictionary} over front-coded data, as loaded from a
+     * snapshot.
+     *
+     * @param data         the front-coded blocks.
+     * @param blockOffsets the offset of every block in {@code data}.
+     * @param size         the number of terms.
+     * @throws IllegalArgumentException if the number of blocks does not match the number
+     *                                  of terms.
+     */
+    TermDictionary(ByteBuffer data, int[] blockOffsets, int size) {
+        if (blockOffsets.length != (size + BLOCK_SIZE - 1) / BLOCK_SIZE) {
+            throw new IllegalArgumentException("Block count does not match term count: " + size);
+        }
+        this.data = data;
+        this.blockOffsets = blockOffsets;
+        this.size = size;
+    }
+
+    /**
+     * Sorts terms into the order of the dictionary, which is the order of their UTF-8
+     * bytes. It only differs from {@link String#compareTo} for characters outside the Basic
+     * Multilingual Plane.
+     *
+     * @param terms the terms to sort in place.
+     */
+    public static void sort(String[] terms) {
+        Arrays.sort(terms, TermDictionary::compare);
+    }
+
+    /**
+     * Compares two terms in the order of the dictionary, by their Unicode code points.
+     *
+     * @param a the first term.
+     * @param b the second term.
+     * @return a negative number, zero or a positive number if {@code a} sorts before, equal
+     *         to or after {@code b}.
+     */
+    public static int compare(String a, String b) {
+        int length = Math.min(a.length(), b.length());
+        for (int i = 0; i < length; i++) {
+            char x = a.charAt(i);
+            char y = b.charAt(i);
+            if (x != y) {
+                return codePointOrder(x) - codePointOrder(y);
+            }
+        }
+        return a.length() - b.length();
+    }
+
+    /**
+     * Looks up the ID of a term.
+     *
+     * @param term the term to look up.
+     * @return the ID of the term, or {@code -1} if the term is not in the dictionary.
+     */
+    public int getTermId(String term) {
+        if (term == null) {
+            return -1;
+        }
+        int id = search(term.getBytes(StandardCharsets.UTF_8));
+        return id >= 0 ? id : -1;
+    }
+
+    /**
+     * Retrieves the term with the given ID.
+     *
+     * @param termId the ID of the term.
+     * @return the term.
+     * @throws IndexOutOfBoundsException if there is no term with the ID.
+     */
+    public String getTerm(int termId) {
+        if (termId < 0 || termId >= size) {
+            throw new IndexOutOfBoundsException("Term ID out of range: " + termId);
+        }
+        TermIterator iterator = iterator(termId, termId + 1);
+        iterator.next();
+        return iterator.term();
+    }
+
+    /**
+     * Retrieves the number of terms in the dictionary.
+     *
+     * @return the number of terms.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Finds the first term that is not smaller than the given term.
+     *
+     * @param term the term to search for.
+     * @return the ID of the first term sorting at or after {@code term}, or {@link #size()}
+     *         if there is none.
+     */
+    public int ceiling(String term) {
+        int id = search(term.getBytes(StandardCharsets.UTF_8));
+        return id >= 0 ? id : -id - 1;
+    }
+
+    /**
+     * Iterates over the terms with IDs in a range, in order.
+     *
+     * @param fromTermId the ID of the first term, inclusive.
+     * @param toTermId   the ID after the last term, exclusive.
+     * @return an iterator positioned before the first term.
+     * @throws IndexOutOfBoundsException if the range is not within the dictionary.
+     */
+    public TermIterator iterator(int fromTermId, int toTermId) {
+        if (fromTermId < 0 || toTermId > size || fromTermId > toTermId) {
+            throw new IndexOutOfBoundsException("Invalid term range: " + fromTermId + " to " + toTermId);
+        }
+        return new TermIterator(fromTermId, toTermId);
+    }
+
+    /**
+     * Iterates over all terms that start with a prefix, in order. An empty prefix matches
+     * all terms.
+     *
+     * @param prefix the prefix of the terms.
+     * @return an iterator positioned before the first term with the prefix.
+     */
+    public TermIterator prefixIterator(String prefix) {
+        byte[] key = prefix.getBytes(StandardCharsets.UTF_8);
+        int from = lowerBound(key);
+        int to = size;
+        int last = key.length - 1;
+        if (last >= 0) {
+            // UTF-8 never contains 0xFF, so the last byte can always be incremented.
+            byte[] end = Arrays.copyOf(key, key.length);
+            end[last]++;
+            to = lowerBound(end);
+        }
+        return new TermIterator(from, to);
+    }
+
+    /**
+     * Iterates over all terms within a range, in order.
+     *
+     * @param from the smallest term, inclusive, or {@code null} to start at the first term.
+     * @param to   the term after the range, exclusive, or {@code null} to end at the last
+     *             term.
+     * @return an iterator positioned before the first term of the range.
+     */
+    public TermIterator rangeIterator(String from, String to) {
+        int fromTermId = from == null ? 0 : ceiling(from);
+        int toTermId = to == null ? size : ceiling(to);
+        return new TermIterator(fromTermId, Math.max(fromTermId, toTermId));
+    }
+
+    /**
+     * Retrieves the front-coded blocks, to save them to a snapshot.
+     *
+     * @return the dictionary data. The buffer must not be modified.
+     */
+    ByteBuffer getData() {
+        return data;
+    }
+
+    /**
+     * Retrieves the offset of every block, to save them to a snapshot.
+     *
+     * @return the block offsets. The array must not be modified.
+     */
+    int[] getBlockOffsets() {
+        return blockOffsets;
+    }
+
+    /**
+     * Retrieves the size of the front-coded blocks.
+     *
+     * @return the size of the dictionary data in bytes.
+     */
+    public int getDataSize() {
+        return data.limit();
+    }
+
+    /**
+     * Finds the first term that is not smaller than a key.
+     *
+     * @param key the UTF-8 bytes of the key.
+     * @return the ID of the first term sorting at or after the key, or {@link #size()}.
+     */
+    private int lowerBound(byte[] key) {
+        int id = search(key);
+        return id >= 0 ? id : -id - 1;
+    }
+
+    /**
+     * Searches for a term by its UTF-8 bytes.
+     *
+     * @param key the UTF-8 bytes of the term.
+     * @return the ID of the term if it is in the dictionary; otherwise
+     *         {@code -(insertion point) - 1}, where the insertion point is the ID of the
+     *         first term sorting after the key, like {@link Arrays#binarySearch(int[], int)}.
+     */
+    private int search(byte[] key) {
+        int block = findBlock(key, 0);
+        if (block < 0) {
+            return -1;
+        }
+        int end = Math.min(size, (block + 1) * BLOCK_SIZE);
+        TermIterator iterator = new TermIterator(block * BLOCK_SIZE, end);
+        while (iterator.next()) {
+            int cmp = compare(iterator.bytes, iterator.length, key);
+            if (cmp == 0) {
+                return iterator.termId;
+            } else if (cmp > 0) {
+                return -iterator.termId - 1;
+            }
+        }
+        return -end - 1;
+    }
+
+    /**
+     * Finds the last block whose first term is not larger than a key, by a binary search
+     * over the first terms of the blocks.
+     *
+     * @param key  the UTF-8 bytes of the key.
+     * @param from the first block to consider.
+     * @return the index of the block, or {@code from - 1} if the first term of block
+     *         {@code from} is larger than the key.
+     */
+    private int findBlock(byte[] key, int from) {
+        int low = from;
+        int high = blockOffsets.length - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int cmp = compareFirstTerm(middle, key);
+            if (cmp < 0) {
+                low = middle + 1;
+            } else if (cmp > 0) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return high;
+    }
+
+    /**
+     * Compares the first term of a block with a key, reading the term in place.
+     *
+     * @param block the index of the block.
+     * @param key   the UTF-8 bytes of the key.
+     * @return a negative number, zero or a positive number if the first term of the block
+     *         sorts before, equal to or after the key.
+     */
+    private int compareFirstTerm(int block, byte[] key) {
+        int position = blockOffsets[block];
+        int length = 0;
+        int b;
+        int shift = 0;
+        do {
+            b = data.get(position++);
+            length |= (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0);
+        int common = Math.min(length, key.length);
+        for (int i = 0; i < common; i++) {
+            int cmp = (data.get(position + i) & 0xFF) - (key[i] & 0xFF);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return length - key.length;
+    }
+
+    /**
+     * Compares a decoded term with a key by their unsigned bytes.
+     *
+     * @param term   the bytes of the term.
+     * @param length the length of the term in {@code term}.
+     * @param key    the bytes of the key.
+     * @return a negative number, zero or a positive number if the term sorts before, equal
+     *         to or after the key.
+     */
+    private static int compare(byte[] term, int length, byte[] key) {
+        int common = Math.min(length, key.length);
+        for (int i = 0; i < common; i++) {
+            int cmp = (term[i] & 0xFF) - (key[i] & 0xFF);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return length - key.length;
+    }
+
+    /**
+     * Maps a UTF-16 code unit to a value whose order matches the code point order of the
+     * characters. Surrogates, which encode the characters above {@code U+FFFF}, are moved
+     * after all other code units.
+     *
+     * @param c the code unit.
+     * @return the value to compare.
+     */
+    private static int codePointOrder(char c) {
+        if (c >= 0xE000) {
+            return c - 0x800;
+        }
+        return c >= 0xD800 ? c + 0x2000 : c;
+    }
+
+    /**
+     * Counts the bytes two terms share at their start.
+     *
+     * @param a the first term.
+     * @param b the second term.
+     * @return the length of the common prefix.
+     */
+    private static int sharedPrefix(byte[] a, byte[] b) {
+        int length = Math.min(a.length, b.length);
+        int shared = 0;
+        while (shared < length && a[shared] == b[shared]) {
+            shared++;
+        }
+        return shared;
+    }
+
+    /**
+     * Appends the bytes of a term from an offset to a byte buffer.
+     *
+     * @param bytes the bytes of the term.
+     * @param from  the first byte to append.
+     * @param out   the buffer to append to.
+     */
+    private static void addBytes(byte[] bytes, int from, ByteList out) {
+        for (int i = from; i < bytes.length; i++) {
+            out.add(bytes[i]);
+        }
+    }
+
+    /**
+     * The {@code TermIterator} class decodes the terms of a range of term IDs one after
+     * another. Each term is decoded from the one before it, so iterating over a range
+     * decodes every block only once.
+     */
+    public final class TermIterator {
+        private final int toTermId;
+        private byte[] bytes = new byte[32];
+        private int length;
+        private int position;
+        private int termId;
+
+        /**
+         * Constructs a new {@code TermIterator} and decodes the terms of the block before
+         * the first term of the range.
+         *
+         * @param fromTermId the ID of the first term, inclusive.
+         * @param toTermId   the ID after the last term, exclusive.
+         */
+        private TermIterator(int fromTermId, int toTermId) {
+            this.toTermId = toTermId;
+            int block = fromTermId / BLOCK_SIZE;
+            termId = block * BLOCK_SIZE - 1;
+            if (block < blockOffsets.length) {
+                position = blockOffsets[block];
+            }
+            while (termId + 1 < fromTermId) {
+                decodeNext();
+            }
+        }
+
+        /**
+         * Moves to the next term of the range.
+         *
+         * @return {@code true} if there was another term; {@code false} at the end of the
+         *         range.
+         */
+        public boolean next() {
+            if (termId + 1 >= toTermId) {
+                termId = toTermId;
+                return false;
+            }
+            decodeNext();
+            return true;
+        }
+
+        /**
+         * Moves forward to the first term of the range after the current one that is not
+         * smaller than a key. Whole blocks between the current term and the key are
+         * skipped without being decoded, so seeking from term to term through the
+         * dictionary reads only the blocks it lands in.
+         *
+         * @param key the term to seek to.
+         * @return {@code true} if such a term exists; {@code false} if the end of the range
+         *         was reached.
+         */
+        public boolean seekCeiling(String key) {
+            byte[] target = key.getBytes(StandardCharsets.UTF_8);
+            int current = Math.max(termId + 1, 0) / BLOCK_SIZE;
+            int block = findBlock(target, current + 1);
+            if (block > current) {
+                if (block * BLOCK_SIZE >= toTermId) {
+                    // Every term left in the range sorts before the first term of the block.
+                    termId = toTermId;
+                    return false;
+                }
+                termId = block * BLOCK_SIZE - 1;
+                position = blockOffsets[block];
+            }
+            while (next()) {
+                if (compare(bytes, length, target) >= 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Retrieves the ID of the current term.
+         *
+         * @return the term ID.
+         */
+        public int termId() {
+            return termId;
+        }
+
+        /**
+         * Decodes the current term.
+         *
+         * @return the term.
+         */
+        public String term() {
+            return new String(bytes, 0, length, StandardCharsets.UTF_8);
+        }
+
+        /**
+         * Decodes the term after the current one, which must exist.
+         */
+        private void decodeNext() {
+            termId++;
+            int shared = termId % BLOCK_SIZE == 0 ? 0 : readVInt();
+            int suffix = readVInt();
+            length = shared + suffix;
+            if (length > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(length, bytes.length * 2));
+            }
+            for (int i = shared; i < length; i++) {
+                bytes[i] = data.get(position++);
+            }
+        }
+
+        /**
+         * Reads a variable-byte integer at the current position and moves past it.
+         *
+         * @return the value read.
+         */
+        private int readVInt() {
+            int b = data.get(position++);
+            int value = b & 0x7F;
+            for (int shift = 7; b < 0; shift += 7) {
+                b = data.get(position++);
+                value |= (b & 0x7F) << shift;
+            }
+            return value;
+        }
+    }
+}
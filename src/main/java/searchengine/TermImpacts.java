@@ -0,0 +1,173 @@
+package searchengine;
+
+import java.util.Arrays;
+
+/**
+ * The {@code TermImpacts} class holds the competitive impacts of every term of a field: the
+ * pairs of term frequency and field length that bound the score of any page containing
+ * the term.
+ * <p>
+ * A page with a higher frequency and a shorter field than another never scores lower, by
+ * any {@link ScoringMethod} that supports {@link ScoringMethod#calculateMaxScore(int, int,
+ * int, int, int, Database)}. So only the pages that no other page beats on both counts are
+ * kept: ordered by length, each kept pair has a higher frequency than all shorter ones.
+ * The best score of a term is the best score of its pairs, which are few even for common
+ * terms, and is found without reading the posting list.
+ * </p>
+ * <p>
+ * The pairs of all terms are kept in two flat arrays, with the index of the first pair of
+ * each term in a third.
+ * </p>
+ */
+final class TermImpacts {
+    private static final TermImpacts EMPTY = new TermImpacts(new int[1], new int[0], new int[0]);
+
+    private final int[] offsets;
+    private final int[] frequencies;
+    private final int[] lengths;
+
+    /**
+     * Constructs a new {@code TermImpacts} from its arrays.
+     *
+     * @param offsets     the index of the first pair of each term, and the number of
+     *                    pairs after the last term.
+     * @param frequencies the term frequency of each pair.
+     * @param lengths     the field length of each pair.
+     */
+    TermImpacts(int[] offsets, int[] frequencies, int[] lengths) {
+        this.offsets = offsets;
+        this.frequencies = frequencies;
+        this.lengths = lengths;
+    }
+
+    /**
+     * Flattens the pairs of every term into a new {@code TermImpacts}.
+     *
+     * @param impacts the pairs of each term, as returned by
+     *                {@link #compute(int[], int[], int, int[])}.
+     * @return the impacts of all terms.
+     */
+    static TermImpacts of(long[][] impacts) {
+        if (impacts.length == 0) {
+            return EMPTY;
+        }
+        int[] offsets = new int[impacts.length + 1];
+        for (int termId = 0; termId < impacts.length; termId++) {
+            offsets[termId + 1] = offsets[termId] + impacts[termId].length;
+        }
+        int[] frequencies = new int[offsets[impacts.length]];
+        int[] lengths = new int[frequencies.length];
+        for (int termId = 0; termId < impacts.length; termId++) {
+            for (int i = 0; i < impacts[termId].length; i++) {
+                frequencies[offsets[termId] + i] = (int) (impacts[termId][i] >>> 32);
+                lengths[offsets[termId] + i] = (int) impacts[termId][i];
+            }
+        }
+        return new TermImpacts(offsets, frequencies, lengths);
+    }
+
+    /**
+     * Finds the competitive impacts of the posting lists of a field held in memory.
+     *
+     * @param postings    the page IDs of each term.
+     * @param frequencies the frequency of each term on each of its pages.
+     * @param lengths     the field length of every page.
+     * @return the impacts of all terms.
+     */
+    static TermImpacts build(int[][] postings, int[][] frequencies, int[] lengths) {
+        long[][] impacts = new long[postings.length][];
+        for (int termId = 0; termId < postings.length; termId++) {
+            impacts[termId] = compute(postings[termId], frequencies[termId], postings[termId].length, lengths);
+        }
+        return of(impacts);
+    }
+
+    /**
+     * Finds the competitive impacts of a posting list.
+     *
+     * @param pageIds     the page IDs of the list.
+     * @param frequencies the frequency of the term on each page.
+     * @param count       the number of pages in the list.
+     * @param lengths     the field length of every page, indexed by page ID.
+     * @return the pairs that no other pair beats on both frequency and length, each
+     *         packed as the frequency in the high and the length in the low 32 bits, by
+     *         ascending length and frequency.
+     */
+    static long[] compute(int[] pageIds, int[] frequencies, int count, int[] lengths) {
+        // Sort by ascending length and, for equal lengths, descending frequency, so the
+        // first pair of each length is its best.
+        long[] pairs = new long[count];
+        for (int i = 0; i < count; i++) {
+            pairs[i] = (long) lengths[pageIds[i]] << 32 | Integer.MAX_VALUE - frequencies[i];
+        }
+        Arrays.sort(pairs);
+        int kept = 0;
+        int best = 0;
+        for (long pair : pairs) {
+            int frequency = Integer.MAX_VALUE - (int) pair;
+            if (frequency > best) {
+                best = frequency;
+                pairs[kept++] = (long) frequency << 32 | pair >>> 32;
+            }
+        }
+        return Arrays.copyOf(pairs, kept);
+    }
+
+    /**
+     * Counts the terms.
+     *
+     * @return the number of terms.
+     */
+    int size() {
+        return offsets.length - 1;
+    }
+
+    /**
+     * Retrieves the index of the first pair of a term.
+     *
+     * @param termId the ID of the term.
+     * @return the index of its first pair.
+     */
+    int getStart(int termId) {
+        return offsets[termId];
+    }
+
+    /**
+     * Retrieves the index just past the last pair of a term.
+     *
+     * @param termId the ID of the term.
+     * @return the index after its last pair.
+     */
+    int getEnd(int termId) {
+        return offsets[termId + 1];
+    }
+
+    /**
+     * Retrieves the term frequency of a pair.
+     *
+     * @param index the index of the pair.
+     * @return the term frequency.
+     */
+    int getFrequency(int index) {
+        return frequencies[index];
+    }
+
+    /**
+     * Retrieves the field length of a pair.
+     *
+     * @param index the index of the pair.
+     * @return the field length.
+     */
+    int getLength(int index) {
+        return lengths[index];
+    }
+
+    /**
+     * Counts the pairs of all terms.
+     *
+     * @return the number of pairs.
+     */
+    int getPairCount() {
+        return frequencies.length;
+    }
+}
@@ -0,0 +1,138 @@
+package searchengine;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * The {@code TermTable} class assigns IDs to terms given as UTF-8 byte ranges.
+ * It is an open-addressing hash table over a single byte pool, so looking up a term
+ * that is already known needs neither a {@link String} nor any other allocation.
+ * The {@link String} form of a term is decoded once, when the term is first added.
+ */
+public class TermTable {
+    private static final int EMPTY = -1;
+
+    private byte[] pool;
+    private int poolSize;
+    private int[] starts;
+    private int[] lengths;
+    private int[] hashes;
+    private String[] strings;
+    private int size;
+    private int[] slots;
+
+    /**
+     * Constructs a new, empty {@code TermTable}.
+     */
+    public TermTable() {
+        pool = new byte[1 << 12];
+        starts = new int[64];
+        lengths = new int[64];
+        hashes = new int[64];
+        strings = new String[64];
+        slots = new int[128];
+        Arrays.fill(slots, EMPTY);
+    }
+
+    /**
+     * Looks up a term given as bytes of a buffer, adding it if it is not known yet.
+     *
+     * @param buffer the buffer holding the term's UTF-8 bytes.
+     * @param offset the absolute index of the first byte of the term in the buffer.
+     * @param length the number of bytes in the term.
+     * @return the ID of the term. IDs are assigned densely from 0 in order of first
+     *         appearance.
+     */
+    public int add(ByteBuffer buffer, int offset, int length) {
+        int hash = 1;
+        for (int i = 0; i < length; i++) {
+            hash = 31 * hash + buffer.get(offset + i);
+        }
+        int mask = slots.length - 1;
+        int slot = mix(hash) & mask;
+        while (slots[slot] != EMPTY) {
+            int id = slots[slot];
+            if (hashes[id] == hash && matches(id, buffer, offset, length)) {
+                return id;
+            }
+            slot = (slot + 1) & mask;
+        }
+        int id = insert(buffer, offset, length, hash);
+        slots[slot] = id;
+        if (size * 2 > slots.length) {
+            rehash();
+        }
+        return id;
+    }
+
+    /**
+     * Retrieves the {@link String} form of a term.
+     *
+     * @param id the ID of the term.
+     * @return the term as a string.
+     */
+    public String get(int id) {
+        return strings[id];
+    }
+
+    /**
+     * Retrieves the number of distinct terms in the table.
+     *
+     * @return the number of terms.
+     */
+    public int size() {
+        return size;
+    }
+
+    private boolean matches(int id, ByteBuffer buffer, int offset, int length) {
+        if (lengths[id] != length) {
+            return false;
+        }
+        int start = starts[id];
+        for (int i = 0; i < length; i++) {
+            if (pool[start + i] != buffer.get(offset + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int insert(ByteBuffer buffer, int offset, int length, int hash) {
+        if (size == starts.length) {
+            int capacity = size * 2;
+            starts = Arrays.copyOf(starts, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+            hashes = Arrays.copyOf(hashes, capacity);
+            strings = Arrays.copyOf(strings, capacity);
+        }
+        if (poolSize + length > pool.length) {
+            pool = Arrays.copyOf(pool, Math.max(pool.length * 2, poolSize + length));
+        }
+        buffer.get(offset, pool, poolSize, length);
+        int id = size++;
+        starts[id] = poolSize;
+        lengths[id] = length;
+        hashes[id] = hash;
+        strings[id] = new String(pool, poolSize, length, StandardCharsets.UTF_8);
+        poolSize += length;
+        return id;
+    }
+
+    private void rehash() {
+        slots = new int[slots.length * 2];
+        Arrays.fill(slots, EMPTY);
+        int mask = slots.length - 1;
+        for (int id = 0; id < size; id++) {
+            int slot = mix(hashes[id]) & mask;
+            while (slots[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = id;
+        }
+    }
+
+    private static int mix(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+}
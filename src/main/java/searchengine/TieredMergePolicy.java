@@ -0,0 +1,114 @@
+package searchengine;
+
+import java.util.List;
+
+/**
+ * The {@code TieredMergePolicy} class decides which segments of a {@link Database} to merge.
+ * Segments are grouped into size tiers by their number of live pages, so deleted pages
+ * do not keep a segment in a tier it has shrunk out of: tier 0 holds segments below
+ * {@code minSegmentPages} pages, and each following tier holds segments up to
+ * {@code mergeFactor} times larger than the one before. As soon as {@code mergeFactor}
+ * adjacent segments share a tier, they are merged into one segment of the next tier.
+ * <p>
+ * Only adjacent segments are merged, so merging never changes the order of pages and
+ * global page IDs stay the same. Every page is rewritten about once per tier, so the
+ * total merge cost grows with the logarithm of the index size.
+ * </p>
+ * <p>
+ * Merging also removes deleted pages from the posting lists. When no tier needs a merge,
+ * a segment whose posting lists still hold deleted pages for at least one in
+ * {@value #DELETES_DIVISOR} of the pages in them is rewritten on its own.
+ * </p>
+ */
+public class TieredMergePolicy {
+    /**
+     * A segment with deleted pages for at least one in this many of the pages in its
+     * posting lists is rewritten.
+     */
+    static final int DELETES_DIVISOR = 5;
+
+    private final int mergeFactor;
+    private final int minSegmentPages;
+
+    /**
+     * Constructs a new {@code TieredMergePolicy}.
+     *
+     * @param mergeFactor     the number of adjacent segments of a tier that are merged
+     *                        together, and the size ratio between tiers. Must be at least 2.
+     * @param minSegmentPages the page count below which segments are in the lowest tier.
+     *                        Must be at least 1.
+     * @throws IllegalArgumentException if a parameter is out of range.
+     */
+    public TieredMergePolicy(int mergeFactor, int minSegmentPages) {
+        if (mergeFactor < 2) {
+            throw new IllegalArgumentException("Merge factor must be at least 2: " + mergeFactor);
+        }
+        if (minSegmentPages < 1) {
+            throw new IllegalArgumentException("Minimum segment size must be at least 1: " + minSegmentPages);
+        }
+        this.mergeFactor = mergeFactor;
+        this.minSegmentPages = minSegmentPages;
+    }
+
+    /**
+     * Finds the next range of segments to merge. Among all runs of adjacent segments in the
+     * same tier, the first run in the lowest tier with at least {@code mergeFactor} segments
+     * is chosen, and its first {@code mergeFactor} segments are merged. Otherwise, the
+     * first segment with enough deleted pages is chosen alone.
+     *
+     * @param segments the segments of the index, in page order.
+     * @return the index of the first segment to merge and the index just past the last, or
+     *         {@code null} if no merge is needed.
+     */
+    public int[] findMerge(List<Segment> segments) {
+        int[] best = null;
+        int bestTier = Integer.MAX_VALUE;
+        int start = 0;
+        while (start < segments.size()) {
+            int tier = tier(livePages(segments.get(start)));
+            int end = start + 1;
+            while (end < segments.size() && tier(livePages(segments.get(end))) == tier) {
+                end++;
+            }
+            if (end - start >= mergeFactor && tier < bestTier) {
+                best = new int[] { start, start + mergeFactor };
+                bestTier = tier;
+            }
+            start = end;
+        }
+        for (int i = 0; best == null && i < segments.size(); i++) {
+            int pending = segments.get(i).getPendingDeletions();
+            if (pending > 0 && (long) pending * DELETES_DIVISOR >= livePages(segments.get(i)) + pending) {
+                best = new int[] { i, i + 1 };
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Counts the pages of a segment that are not deleted. Pages removed by an earlier merge
+     * still take up page IDs, but are not counted.
+     *
+     * @param segment a segment.
+     * @return the number of live pages of the segment.
+     */
+    private static int livePages(Segment segment) {
+        return segment.getTotalPages() - segment.getDeletedCount();
+    }
+
+    /**
+     * Computes the size tier of a segment.
+     *
+     * @param pages the number of pages in the segment.
+     * @return the tier of the segment, starting at 0 for the smallest segments.
+     */
+    int tier(int pages) {
+        int tier = 0;
+        long limit = minSegmentPages;
+        while (pages >= limit) {
+            limit *= mergeFactor;
+            tier++;
+        }
+        return tier;
+    }
+}
@@ -0,0 +1,240 @@
+package searchengine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The {@code TitleIndex} class is the inverted index of the title field of a
+ * {@link Segment}. Titles are split into lower-case words by {@link #tokenize(String)},
+ * and every word gets a posting list of the pages whose title contains it, with its
+ * frequency in each title. The word count of every title is kept for length normalization.
+ * <p>
+ * Titles are short, so the index is small and kept uncompressed. {@link SegmentBuilder}
+ * builds it from the title lines of a segment's {@link DocumentStore}, both for new and
+ * for merged segments, and {@link IndexSnapshot} saves it with the segment. Lookups in
+ * the title index never read the body posting lists of the segment.
+ * </p>
+ */
+final class TitleIndex {
+    private final TermDictionary dictionary;
+    private final int[][] postings;
+    private final int[][] frequencies;
+    private final int[] lengths;
+    private final long totalLength;
+    private final TermImpacts impacts;
+
+    /**
+     * Constructs a new {@code TitleIndex} from its parts, and finds the competitive
+     * impacts of its words.
+     *
+     * @param dictionary  the title words.
+     * @param postings    the sorted page IDs of each word.
+     * @param frequencies the frequency of each word on each page of its posting list.
+     * @param lengths     the number of words in the title of each page.
+     */
+    TitleIndex(TermDictionary dictionary, int[][] postings, int[][] frequencies, int[] lengths) {
+        this.dictionary = dictionary;
+        this.postings = postings;
+        this.frequencies = frequencies;
+        this.lengths = lengths;
+        long length = 0;
+        for (int titleLength : lengths) {
+            length += titleLength;
+        }
+        totalLength = length;
+        impacts = TermImpacts.build(postings, frequencies, lengths);
+    }
+
+    /**
+     * Builds the title index of the pages of a document store. Pages are visited in
+     * ascending order, so every posting list is sorted as it is built.
+     *
+     * @param documents the store holding the title lines of the pages.
+     * @return the title index.
+     */
+    static TitleIndex build(DocumentStore documents) {
+        int pages = documents.size();
+        int[] lengths = new int[pages];
+        Map<String, Integer> termIds = new HashMap<>();
+        List<IntList> pageIds = new ArrayList<>();
+        List<IntList> counts = new ArrayList<>();
+        for (int pageId = 0; pageId < pages; pageId++) {
+            List<String> words = tokenize(documents.getTitle(pageId));
+            lengths[pageId] = words.size();
+            for (String word : words) {
+                Integer termId = termIds.get(word);
+                if (termId == null) {
+                    termId = pageIds.size();
+                    termIds.put(word, termId);
+                    pageIds.add(new IntList(2));
+                    counts.add(new IntList(2));
+                }
+                IntList list = pageIds.get(termId);
+                IntList count = counts.get(termId);
+                if (list.size() > 0 && list.get(list.size() - 1) == pageId) {
+                    count.set(count.size() - 1, count.get(count.size() - 1) + 1);
+                } else {
+                    list.add(pageId);
+                    count.add(1);
+                }
+            }
+        }
+
+        String[] terms = termIds.keySet().toArray(new String[0]);
+        TermDictionary.sort(terms);
+        int[][] postings = new int[terms.length][];
+        int[][] frequencies = new int[terms.length][];
+        for (int i = 0; i < terms.length; i++) {
+            int termId = termIds.get(terms[i]);
+            postings[i] = pageIds.get(termId).toArray();
+            frequencies[i] = counts.get(termId).toArray();
+        }
+        return new TitleIndex(new TermDictionary(terms), postings, frequencies, lengths);
+    }
+
+    /**
+     * Splits a title into words: the lower-case runs of letters and digits.
+     *
+     * @param title the title line, or {@code null} for a page without one.
+     * @return the words of the title, in order.
+     */
+    static List<String> tokenize(String title) {
+        List<String> words = new ArrayList<>();
+        if (title == null) {
+            return words;
+        }
+        int start = -1;
+        for (int i = 0; i <= title.length(); i++) {
+            boolean letter = i < title.length() && Character.isLetterOrDigit(title.charAt(i));
+            if (letter && start < 0) {
+                start = i;
+            } else if (!letter && start >= 0) {
+                words.add(title.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        return words;
+    }
+
+    /**
+     * Retrieves the dictionary of the title words.
+     *
+     * @return the {@link TermDictionary} mapping title words to term IDs.
+     */
+    TermDictionary getDictionary() {
+        return dictionary;
+    }
+
+    /**
+     * Looks up the term ID of a title word.
+     *
+     * @param word the word to look up, in lower case.
+     * @return the term ID of the word, or {@code -1} if no title contains it.
+     */
+    int getTermId(String word) {
+        return dictionary.getTermId(word);
+    }
+
+    /**
+     * Counts the number of pages whose title contains a word.
+     *
+     * @param termId the ID of the word.
+     * @return the length of the word's posting list.
+     */
+    int getDocumentFrequency(int termId) {
+        return postings[termId].length;
+    }
+
+    /**
+     * Retrieves the pages whose title contains a word, for combining with other sets.
+     *
+     * @param termId the ID of the word.
+     * @return the set of pages whose title contains the word.
+     */
+    PageIdSet getPageSet(int termId) {
+        return PageIdSet.of(postings[termId]);
+    }
+
+    /**
+     * Retrieves the posting list of a word.
+     *
+     * @param termId the ID of the word.
+     * @return the page IDs in ascending order. The array must not be modified.
+     */
+    int[] getPostings(int termId) {
+        return postings[termId];
+    }
+
+    /**
+     * Retrieves the frequencies belonging to the posting list of a word.
+     *
+     * @param termId the ID of the word.
+     * @return the frequency of the word in each title of {@link #getPostings(int)}. The
+     *         array must not be modified.
+     */
+    int[] getFrequencies(int termId) {
+        return frequencies[termId];
+    }
+
+    /**
+     * Looks up how often a word occurs in the title of a page.
+     *
+     * @param termId the ID of the word.
+     * @param pageId the ID of the page in the segment.
+     * @return the frequency of the word in the title, or 0 if the title does not contain it.
+     */
+    int getTermFrequency(int termId, int pageId) {
+        int index = Arrays.binarySearch(postings[termId], pageId);
+        return index < 0 ? 0 : frequencies[termId][index];
+    }
+
+    /**
+     * Retrieves the competitive impacts of the title words, for bounding their scores.
+     *
+     * @return the pairs of title frequency and title length of every word.
+     */
+    TermImpacts getImpacts() {
+        return impacts;
+    }
+
+    /**
+     * Retrieves the number of words in the title of a page.
+     *
+     * @param pageId the ID of the page in the segment.
+     * @return the number of title words.
+     */
+    int getLength(int pageId) {
+        return lengths[pageId];
+    }
+
+    /**
+     * Retrieves the number of pages covered by the index.
+     *
+     * @return the page count.
+     */
+    int getTotalPages() {
+        return lengths.length;
+    }
+
+    /**
+     * Retrieves the number of words in all titles together.
+     *
+     * @return the sum of the title lengths of all pages.
+     */
+    long getTotalLength() {
+        return totalLength;
+    }
+
+    /**
+     * Retrieves the number of distinct title words.
+     *
+     * @return the size of the title dictionary.
+     */
+    int size() {
+        return postings.length;
+    }
+}
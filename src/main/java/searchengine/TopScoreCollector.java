@@ -0,0 +1,157 @@
+package searchengine;
+
+/**
+ * The {@code TopScoreCollector} class keeps the {@code k} best of a stream of scored
+ * pages, in a bounded min-heap whose root is the worst page kept so far.
+ * <p>
+ * A page is better than another if it scores higher, or scores the same and has a lower
+ * ID. A new page only replaces the root if it is better, so most pages of a broad query
+ * cost a single comparison, and only the {@code k} pages kept are sorted at the end. The
+ * heap is kept in two parallel arrays, so collecting a page allocates nothing.
+ * </p>
+ */
+final class TopScoreCollector {
+    private final int[] pageIds;
+    private final double[] scores;
+    private int size;
+
+    /**
+     * Constructs a new, empty {@code TopScoreCollector}.
+     *
+     * @param k the maximum number of pages to keep.
+     * @throws IllegalArgumentException if {@code k} is negative.
+     */
+    TopScoreCollector(int k) {
+        if (k < 0) {
+            throw new IllegalArgumentException("Result count must not be negative: " + k);
+        }
+        pageIds = new int[k];
+        scores = new double[k];
+    }
+
+    /**
+     * Offers a page to the collector.
+     *
+     * @param pageId the ID of the page.
+     * @param score  the score of the page.
+     */
+    void collect(int pageId, double score) {
+        if (size < pageIds.length) {
+            pageIds[size] = pageId;
+            scores[size] = score;
+            upHeap(size++);
+        } else if (size > 0 && isWorse(pageIds[0], scores[0], pageId, score)) {
+            pageIds[0] = pageId;
+            scores[0] = score;
+            downHeap(0, size);
+        }
+    }
+
+    /**
+     * Counts the pages kept so far.
+     *
+     * @return the number of pages kept, at most {@code k}.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Retrieves the score a page must beat to be kept, if pages are offered in ascending
+     * ID order, so that a page with the same score as the worst page kept never replaces
+     * it.
+     *
+     * @return the lowest score kept once {@code k} pages are kept; negative infinity
+     *         before, or positive infinity if {@code k} is 0.
+     */
+    double getMinCompetitiveScore() {
+        if (pageIds.length == 0) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return size < pageIds.length ? Double.NEGATIVE_INFINITY : scores[0];
+    }
+
+    /**
+     * Lists the pages kept and empties the collector.
+     *
+     * @return the IDs of the pages kept, from the highest to the lowest score, and by
+     *         ascending ID among equal scores.
+     */
+    int[] getPageIds() {
+        int[] top = new int[size];
+        for (int i = size - 1; i >= 0; i--) {
+            top[i] = pageIds[0];
+            swap(0, i);
+            downHeap(0, i);
+        }
+        size = 0;
+        return top;
+    }
+
+    /**
+     * Checks whether one page ranks below another.
+     *
+     * @param pageId      the ID of the first page.
+     * @param score       the score of the first page.
+     * @param otherPageId the ID of the second page.
+     * @param otherScore  the score of the second page.
+     * @return {@code true} if the first page scores lower, or scores the same and has a
+     *         higher ID.
+     */
+    private static boolean isWorse(int pageId, double score, int otherPageId, double otherScore) {
+        return score < otherScore || score == otherScore && pageId > otherPageId;
+    }
+
+    /**
+     * Moves an entry towards the root until its parent is worse.
+     *
+     * @param index the index of the entry.
+     */
+    private void upHeap(int index) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (!isWorse(pageIds[index], scores[index], pageIds[parent], scores[parent])) {
+                return;
+            }
+            swap(index, parent);
+            index = parent;
+        }
+    }
+
+    /**
+     * Moves an entry away from the root until both its children are better.
+     *
+     * @param index the index of the entry.
+     * @param end   the number of entries in the heap.
+     */
+    private void downHeap(int index, int end) {
+        while (true) {
+            int worst = index;
+            for (int child = 2 * index + 1; child <= 2 * index + 2 && child < end; child++) {
+                if (isWorse(pageIds[child], scores[child], pageIds[worst], scores[worst])) {
+                    worst = child;
+                }
+            }
+            if (worst == index) {
+                return;
+            }
+            swap(index, worst);
+            index = worst;
+        }
+    }
+
+    /**
+     * Swaps two entries of the heap.
+     *
+     * @param i the index of the first entry.
+     * @param j the index of the second entry.
+     */
+    private void swap(int i, int j) {
+        int pageId = pageIds[i];
+        pageIds[i] = pageIds[j];
+        pageIds[j] = pageId;
+        double score = scores[i];
+        scores[i] = scores[j];
+        scores[j] = score;
+    }
+}
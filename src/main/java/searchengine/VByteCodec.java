@@ -0,0 +1,47 @@
+package searchengine;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The {@code VByteCodec} class stores every value of a block in variable-byte form:
+ * seven bits per byte, lowest bits first, with the high bit set on every byte except
+ * the last. Small doc ID gaps and frequencies take a single byte each.
+ */
+public class VByteCodec implements PostingsCodec {
+
+    /**
+     * Constructs a new {@code VByteCodec} instance.
+     * <p>
+     * This class does not require any specific initialization.
+     * </p>
+     */
+    public VByteCodec() {
+
+    }
+
+    @Override
+    public String getName() {
+        return IndexConfig.CODEC_VBYTE;
+    }
+
+    @Override
+    public void encode(int[] values, int count, ByteList out) {
+        for (int i = 0; i < count; i++) {
+            out.addVInt(values[i]);
+        }
+    }
+
+    @Override
+    public int decode(ByteBuffer in, int offset, int[] values, int count) {
+        for (int i = 0; i < count; i++) {
+            int b = in.get(offset++);
+            int value = b & 0x7F;
+            for (int shift = 7; b < 0; shift += 7) {
+                b = in.get(offset++);
+                value |= (b & 0x7F) << shift;
+            }
+            values[i] = value;
+        }
+        return offset;
+    }
+}
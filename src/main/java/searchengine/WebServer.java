@@ -2,12 +2,14 @@ package searchengine;
 
 import java.io.IOException;
 import java.net.InetSocketAddress;
+import java.net.URLDecoder;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpServer;
@@ -67,6 +69,8 @@ public class WebServer {
     createContext("/code.js", "application/javascript", "web/code.js");
     createContext("/style.css", "text/css", "web/style.css");
     server.createContext("/search", this::respondToClient);
+    server.createContext("/suggest", this::respondToSuggest);
+    server.createContext("/metrics", this::respondToMetrics);
   }
 
   /**
@@ -110,9 +114,22 @@ public class WebServer {
    * Fetches a list of pages in the database that satisfy the user query and sorts
    * the
    * results based on the user's preferences.
+   * <p>
+   * Only the {@code k} best pages are returned, {@link QueryHandler#DEFAULT_RESULT_COUNT}
+   * unless the request has a {@code k} parameter. The query is compiled by
+   * {@link SearchEngine#compile(String)}, so it may combine clauses with AND, OR, NOT and
+   * parentheses. TF-IDF queries are answered by
+   * {@link SearchEngine#searchByImpact(QueryPlan, int)}, which reads only the best
+   * postings when the index keeps impacts; other algorithms are evaluated by
+   * {@link SearchEngine#searchTop(QueryPlan, ScoringMethod, int)}, which scores each
+   * matching page once while walking the posting lists.
+   * </p>
    *
    * @param io The {@link HttpExchange} object representing the HTTP request.
    * @return A byte array containing a formatted list of pages matching the query.
+   * @throws IllegalArgumentException if the request has no query, a query without
+   *                                  terms, or a {@code k} parameter that is not a
+   *                                  positive number.
    */
   public byte[] fetchSearchResults(HttpExchange io) {
     try {
@@ -120,14 +137,20 @@ public class WebServer {
       QueryHandler queryHandler = new QueryHandler();
       String query = queryHandler.extractQueryParams(rawQuery);
       String algorithm = queryHandler.extractAlgorithm(rawQuery);
-      List<List<String>> parsedQuery = queryHandler.parseQuery(query);
-      boolean andIsTrue = queryHandler.getAndIsTrue();
+      int resultCount = queryHandler.extractResultCount(rawQuery);
+      QueryPlan plan = searchEngine.compile(query);
 
-      List<Page> searchResults = searchEngine.search(parsedQuery, andIsTrue);
-      SortHandler sortHandler = new SortHandler();
-      List<Page> sortedResults = sortHandler.sortResults(searchResults, parsedQuery, searchEngine, algorithm);
+      List<Page> sortedResults;
+      if ("TFIDF".equals(algorithm)) {
+        sortedResults = searchEngine.searchByImpact(plan, resultCount);
+      } else {
+        ScoringMethod scoringMethod = new SortHandler().selectScoringMethod(algorithm);
+        sortedResults = searchEngine.searchTop(plan, scoringMethod, resultCount);
+      }
 
       return formatResponse(sortedResults);
+    } catch (IllegalArgumentException e) {
+      throw e;
     } catch (Exception e) {
       e.printStackTrace();
       String errorMessage = "An error occurred while processing your request.";
@@ -157,6 +180,8 @@ public class WebServer {
 
   /**
    * Responds to a client request by fetching and sending the appropriate data.
+   * An invalid request, such as one with a {@code k} parameter that is not a positive
+   * number, is answered with status 400 and the reason as plain text.
    *
    * @param io The {@link HttpExchange} object representing the HTTP request.
    */
@@ -167,6 +192,98 @@ public class WebServer {
       String contentType = responseCode == 404 ? "text/plain" : "application/json";
 
       respond(io, responseCode, contentType, responseBytes);
+    } catch (IllegalArgumentException e) {
+      respond(io, 400, "text/plain", String.valueOf(e.getMessage()).getBytes(CHARSET));
+    } catch (Exception e) {
+      e.printStackTrace();
+      byte[] errorBytes = "An error occurred while sending the response.".getBytes(CHARSET);
+      respond(io, 500, "text/plain", errorBytes);
+    }
+  }
+
+  /**
+   * Fetches the completions of the {@code prefix} parameter of a request, for the
+   * suggestions shown while a query is typed.
+   *
+   * @param io The {@link HttpExchange} object representing the HTTP request.
+   * @return A byte array containing a JSON array of the completions, which is empty if
+   *         the prefix is missing or nothing starts with it.
+   */
+  public byte[] fetchSuggestions(HttpExchange io) {
+    String prefix = new QueryHandler().parseQueryParams(io.getRequestURI().getRawQuery()).get("prefix");
+    if (prefix == null) {
+      return formatSuggestions(List.of());
+    }
+    try {
+      prefix = URLDecoder.decode(prefix, CHARSET);
+    } catch (IllegalArgumentException e) {
+      return formatSuggestions(List.of());
+    }
+    return formatSuggestions(searchEngine.suggest(prefix, Suggester.DEFAULT_DEPTH));
+  }
+
+  /**
+   * Formats a list of completions into a JSON array of strings.
+   *
+   * @param suggestions The completions to format.
+   * @return A byte array containing the formatted response.
+   */
+  public byte[] formatSuggestions(List<String> suggestions) {
+    ArrayList<String> response = new ArrayList<>();
+    for (String suggestion : suggestions) {
+      response.add("\"" + suggestion.replace("\\", "\\\\").replace("\"", "\\\"") + "\"");
+    }
+    return response.toString().getBytes(CHARSET);
+  }
+
+  /**
+   * Responds to a request for the completions of a prefix.
+   *
+   * @param io The {@link HttpExchange} object representing the HTTP request.
+   */
+  public void respondToSuggest(HttpExchange io) {
+    try {
+      respond(io, 200, "application/json", fetchSuggestions(io));
+    } catch (Exception e) {
+      e.printStackTrace();
+      byte[] errorBytes = "An error occurred while sending the response.".getBytes(CHARSET);
+      respond(io, 500, "text/plain", errorBytes);
+    }
+  }
+
+  /**
+   * Formats the cost of the fuzzy and wildcard expansions of the database into a JSON
+   * object, with one object of counters for each kind of expansion.
+   *
+   * @return A byte array containing the formatted metrics.
+   */
+  public byte[] formatMetrics() {
+    Database database = searchEngine.getDatabase();
+    return ("{\"fuzzy\": " + formatMetrics(database.getFuzzyMetrics())
+        + ", \"wildcard\": " + formatMetrics(database.getWildcardMetrics()) + "}").getBytes(CHARSET);
+  }
+
+  /**
+   * Formats the counters of one kind of expansion into a JSON object.
+   *
+   * @param metrics The counters to format.
+   * @return The JSON object.
+   */
+  private String formatMetrics(ExpansionMetrics metrics) {
+    return String.format(Locale.ROOT, "{\"expansions\": %d, \"capped\": %d, \"termsScanned\": %d, "
+        + "\"termsMatched\": %d, \"termsKept\": %d, \"averageMillis\": %.3f, \"maxMillis\": %.3f}",
+        metrics.getExpansions(), metrics.getCapped(), metrics.getTermsScanned(), metrics.getTermsMatched(),
+        metrics.getTermsKept(), metrics.getAverageMillis(), metrics.getMaxMillis());
+  }
+
+  /**
+   * Responds to a request for the expansion metrics.
+   *
+   * @param io The {@link HttpExchange} object representing the HTTP request.
+   */
+  public void respondToMetrics(HttpExchange io) {
+    try {
+      respond(io, 200, "application/json", formatMetrics());
     } catch (Exception e) {
       e.printStackTrace();
       byte[] errorBytes = "An error occurred while sending the response.".getBytes(CHARSET);
@@ -0,0 +1,116 @@
+package searchengine;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The {@code WildcardPattern} class matches terms against a query word containing
+ * {@value #WILDCARD} characters, each of which stands for any sequence of characters,
+ * including the empty one. {@code astro*} matches the terms starting with {@code astro},
+ * {@code *logy} those ending with {@code logy}, and {@code a*ism} those starting with
+ * {@code a} and ending with {@code ism}.
+ * <p>
+ * Besides matching a single term, a pattern tells how to find its candidates without
+ * reading the whole dictionary: the characters before the first wildcard are a prefix
+ * that bounds a range of the sorted {@link TermDictionary}, and for a pattern starting
+ * with a wildcard, its literal parts give the k-grams to look up in a {@link KGramIndex}.
+ * </p>
+ */
+final class WildcardPattern {
+    /**
+     * The wildcard character.
+     */
+    static final char WILDCARD = '*';
+
+    private final String pattern;
+
+    /**
+     * Constructs a new {@code WildcardPattern}.
+     *
+     * @param pattern the pattern, with {@value #WILDCARD} for any sequence of characters.
+     */
+    WildcardPattern(String pattern) {
+        this.pattern = pattern;
+    }
+
+    /**
+     * Retrieves the characters before the first wildcard.
+     *
+     * @return the literal prefix every matching term starts with; empty if the pattern
+     *         starts with a wildcard.
+     */
+    String getPrefix() {
+        int wildcard = pattern.indexOf(WILDCARD);
+        return wildcard < 0 ? pattern : pattern.substring(0, wildcard);
+    }
+
+    /**
+     * Checks whether a term matches the pattern. A wildcard that cannot match where it was
+     * first tried is retried one character further, so the check takes time proportional
+     * to the product of the lengths at worst, and linear time for a single wildcard.
+     *
+     * @param term the term to check.
+     * @return {@code true} if the whole term matches the whole pattern.
+     */
+    boolean matches(String term) {
+        int p = 0;
+        int t = 0;
+        int star = -1;
+        int mark = 0;
+        while (t < term.length()) {
+            if (p < pattern.length() && pattern.charAt(p) == WILDCARD) {
+                star = p++;
+                mark = t;
+            } else if (p < pattern.length() && pattern.charAt(p) == term.charAt(t)) {
+                p++;
+                t++;
+            } else if (star >= 0) {
+                p = star + 1;
+                t = ++mark;
+            } else {
+                return false;
+            }
+        }
+        while (p < pattern.length() && pattern.charAt(p) == WILDCARD) {
+            p++;
+        }
+        return p == pattern.length();
+    }
+
+    /**
+     * Lists the k-grams every matching term contains. The literal parts of the pattern are
+     * marked with {@link KGramIndex#BOUNDARY} where they must start or end the term, and
+     * every k-gram of a part is listed.
+     *
+     * @param k the length of the k-grams.
+     * @return the k-grams of the literal parts; empty if every part is shorter than
+     *         {@code k}, in which case the index cannot narrow down the candidates.
+     */
+    List<String> getGrams(int k) {
+        List<String> grams = new ArrayList<>();
+        String[] parts = pattern.split("\\" + WILDCARD, -1);
+        for (int i = 0; i < parts.length; i++) {
+            String part = parts[i];
+            if (i == 0) {
+                part = KGramIndex.BOUNDARY + part;
+            }
+            if (i == parts.length - 1) {
+                part = part + KGramIndex.BOUNDARY;
+            }
+            for (int start = 0; start + k <= part.length(); start++) {
+                grams.add(part.substring(start, start + k));
+            }
+        }
+        return grams;
+    }
+
+    /**
+     * Retrieves the pattern.
+     *
+     * @return the pattern as written.
+     */
+    @Override
+    public String toString() {
+        return pattern;
+    }
+}
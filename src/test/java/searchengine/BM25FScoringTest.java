@@ -0,0 +1,113 @@
+package searchengine;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the {@link BM25FScoring} class.
+ * <p>
+ * This test class validates the BM25F formula against the test database, checks that
+ * the page-based and index-based calculations agree, and that title matches are boosted.
+ * </p>
+ */
+public class BM25FScoringTest {
+    private static final Path TEST_FILE_PATH = Paths.get("src/test/java/searchengine/resources/test-file.txt");
+
+    private BM25FScoring bm25fScoring;
+    private Database database;
+
+    /**
+     * Sets up the test environment by loading the test database.
+     *
+     * @throws IOException if the test file cannot be read.
+     */
+    @BeforeEach
+    public void setup() throws IOException {
+        database = new Database(TEST_FILE_PATH.toAbsolutePath().toString());
+        bm25fScoring = new BM25FScoring();
+    }
+
+    /**
+     * Tests that every page of the test file has a one-word title.
+     */
+    @Test
+    public void testAverageTitleLength() {
+        assertEquals(1.0, database.getAverageTitleLength(), 0.0001, "Every title of the test file has one word.");
+    }
+
+    /**
+     * Tests the BM25F score of 'word1', which only occurs in the body, on page 0.
+     */
+    @Test
+    public void testCalculateScoreForBodyWord() {
+        Page page = database.getPage(0);
+        double idf = Math.log(1 + (4 - 2 + 0.5) / (2 + 0.5));
+        double frequency = 1 / (1 - BM25FScoring.BODY_B + BM25FScoring.BODY_B * 2 / 1.0);
+        double expectedScore = idf * frequency * (BM25Scoring.K1 + 1) / (frequency + BM25Scoring.K1);
+
+        assertEquals(expectedScore, bm25fScoring.calculateScore("word1", page, database), 0.0001,
+                "BM25F score for 'word1' on page1 should match the formula.");
+        assertEquals(expectedScore, bm25fScoring.calculateScore(1, 0, 2, 0, database), 0.0001,
+                "Index-based BM25F score should match the page-based score.");
+    }
+
+    /**
+     * Tests the BM25F score of 'title1', which only occurs in the title, on page 0.
+     */
+    @Test
+    public void testCalculateScoreForTitleWord() {
+        Page page = database.getPage(0);
+        double idf = Math.log(1 + (4 - 1 + 0.5) / (1 + 0.5));
+        double frequency = BM25FScoring.TITLE_WEIGHT;
+        double expectedScore = idf * frequency * (BM25Scoring.K1 + 1) / (frequency + BM25Scoring.K1);
+
+        assertEquals(expectedScore, bm25fScoring.calculateScore("title1", page, database), 0.0001,
+                "BM25F score for 'title1' on page1 should match the formula.");
+        assertEquals(expectedScore, bm25fScoring.calculateScore(0, 1, 1, 0, database), 0.0001,
+                "Index-based BM25F score should match the page-based score.");
+        assertEquals(0.0, new BM25Scoring().calculateScore(0, 1, 1, 0, database), 0.0001,
+                "BM25 should ignore the title field.");
+    }
+
+    /**
+     * Tests that a match in the title scores higher than the same match in the body.
+     */
+    @Test
+    public void testTitleMatchIsBoosted() {
+        assertTrue(bm25fScoring.calculateScore(0, 1, 2, 0, database) > bm25fScoring.calculateScore(1, 0, 2, 0, database),
+                "A title match should score higher than a body match.");
+        assertEquals(0.0, bm25fScoring.calculateScore(0, 0, 2, 0, database), 0.0001,
+                "A word in neither field should score 0.");
+    }
+
+    /**
+     * Tests that the bound of a page's statistics is its score, including its title.
+     */
+    @Test
+    public void testCalculateMaxScore() {
+        assertEquals(bm25fScoring.calculateScore(1, 0, 2, 0, database), bm25fScoring.calculateMaxScore(1, 2, 0, 1, 2,
+                database), 0.0001, "The bound of page1's body statistics should be its score.");
+        assertEquals(bm25fScoring.calculateScore(0, 1, 1, 0, database), bm25fScoring.calculateMaxScore(0,
+                Integer.MAX_VALUE, 1, 1, 1, database), 0.0001,
+                "The bound of page1's title statistics should be its score.");
+        assertTrue(bm25fScoring.calculateMaxScore(1, 2, 1, 1, 2, database) > bm25fScoring.calculateMaxScore(1, 2, 0, 1,
+                2, database), "A title match should raise the bound.");
+        assertEquals(0.0, bm25fScoring.calculateMaxScore(0, 0, 0, 0, 2, database), 0.0001,
+                "A word in neither field should be bounded by 0.");
+    }
+
+    /**
+     * Tests that the selection in {@link SortHandler} creates a BM25F scorer.
+     */
+    @Test
+    public void testSelectScoringMethodBM25F() {
+        assertTrue(new SortHandler().selectScoringMethod("BM25F") instanceof BM25FScoring,
+                "'BM25F' should select BM25F scoring.");
+    }
+}
@@ -0,0 +1,98 @@
+package searchengine;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the {@link BM25Scoring} class.
+ * <p>
+ * This test class validates the BM25 formula against the test database, and checks
+ * that the page-based and index-based calculations agree.
+ * </p>
+ */
+public class BM25ScoringTest {
+    private static final Path TEST_FILE_PATH = Paths.get("src/test/java/searchengine/resources/test-file.txt");
+
+    private BM25Scoring bm25Scoring;
+    private Database database;
+
+    /**
+     * Sets up the test environment by loading the test database.
+     *
+     * @throws IOException if the test file cannot be read.
+     */
+    @BeforeEach
+    public void setup() throws IOException {
+        database = new Database(TEST_FILE_PATH.toAbsolutePath().toString());
+        bm25Scoring = new BM25Scoring();
+    }
+
+    /**
+     * Tests that the average page length is the number of words on all pages divided by
+     * the number of pages.
+     */
+    @Test
+    public void testAverageDocumentLength() {
+        assertEquals(4.0 / 4, database.getAverageDocumentLength(), 0.0001,
+                "The test file has 4 words on 4 pages; the title lines do not count.");
+    }
+
+    /**
+     * Tests the BM25 score of 'word1' on page 0 against the formula.
+     */
+    @Test
+    public void testCalculateScoreForWord1OnPage1() {
+        Page page = database.getPage(0);
+        double idf = Math.log(1 + (4 - 2 + 0.5) / (2 + 0.5));
+        double lengthNorm = 1 - BM25Scoring.B + BM25Scoring.B * 2 / 1.0;
+        double expectedScore = idf * (BM25Scoring.K1 + 1) / (1 + BM25Scoring.K1 * lengthNorm);
+
+        assertEquals(expectedScore, bm25Scoring.calculateScore("word1", page, database), 0.0001,
+                "BM25 score for 'word1' on page1 should match the formula.");
+        assertEquals(expectedScore, bm25Scoring.calculateScore(1, 2, 0, database), 0.0001,
+                "Index-based BM25 score should match the page-based score.");
+    }
+
+    /**
+     * Tests that words that do not occur on a page score 0.
+     */
+    @Test
+    public void testCalculateScoreForMissingWord() {
+        Page page = database.getPage(0);
+        assertEquals(0.0, bm25Scoring.calculateScore("word3", page, database), 0.0001,
+                "A word that is not on the page should score 0.");
+        assertEquals(0.0, bm25Scoring.calculateScore("nonexistentword", page, database), 0.0001,
+                "A word that is not in the database should score 0.");
+    }
+
+    /**
+     * Tests that the bound of a page's statistics is its score, and grows with the term
+     * frequency and shrinks with the document length.
+     */
+    @Test
+    public void testCalculateMaxScore() {
+        assertEquals(bm25Scoring.calculateScore(1, 2, 0, database), bm25Scoring.calculateMaxScore(1, 2, 0, 1, 2,
+                database), 0.0001, "The bound of page1's statistics should be its score.");
+        assertTrue(bm25Scoring.calculateMaxScore(2, 2, 0, 1, 2, database) > bm25Scoring.calculateMaxScore(1, 2, 0, 1,
+                2, database), "A higher frequency should raise the bound.");
+        assertTrue(bm25Scoring.calculateMaxScore(1, 1, 0, 1, 2, database) > bm25Scoring.calculateMaxScore(1, 2, 0, 1,
+                2, database), "A shorter page should raise the bound.");
+        assertEquals(0.0, bm25Scoring.calculateMaxScore(0, 0, 3, 1, 2, database), 0.0001,
+                "A word missing from the body should be bounded by 0.");
+    }
+
+    /**
+     * Tests that the selection in {@link SortHandler} creates a BM25 scorer.
+     */
+    @Test
+    public void testSelectScoringMethodBM25() {
+        assertTrue(new SortHandler().selectScoringMethod("BM25") instanceof BM25Scoring,
+                "'BM25' should select BM25 scoring.");
+    }
+}
@@ -0,0 +1,176 @@
+package searchengine;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.ByteBuffer;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the {@link BlockPostingsIterator} class.
+ * <p>
+ * This test class verifies that posting lists written by {@link PostingsWriter} are read
+ * back correctly with {@code next()} and {@code advance(target)}, with both codecs and
+ * across block boundaries, and that the impacts of each block are read back from its
+ * header.
+ * </p>
+ */
+class BlockPostingsIteratorTest {
+    private static final int PAGE_COUNT = 1000;
+
+    /**
+     * Tests that {@code next()} returns every page ID and frequency in order, followed by
+     * {@link PostingsIterator#NO_MORE_DOCS}.
+     */
+    @Test
+    public void testNextReturnsAllPostings() {
+        for (PostingsCodec codec : new PostingsCodec[] { new VByteCodec(), new PForCodec() }) {
+            PostingsIterator iterator = open(codec);
+            assertEquals(-1, iterator.docId(), "Iterator should start before the first page.");
+            assertEquals(PAGE_COUNT, iterator.cost(), "Cost should be the number of pages.");
+            for (int i = 0; i < PAGE_COUNT; i++) {
+                assertEquals(pageId(i), iterator.next(), codec.getName() + ": page " + i + " should be returned in order.");
+                assertEquals(frequency(i), iterator.freq(), codec.getName() + ": frequency " + i + " should match.");
+            }
+            assertEquals(PostingsIterator.NO_MORE_DOCS, iterator.next(), "Exhausted iterator should return NO_MORE_DOCS.");
+            assertEquals(PostingsIterator.NO_MORE_DOCS, iterator.next(), "Iterator should stay exhausted.");
+        }
+    }
+
+    /**
+     * Tests that {@code advance(target)} moves to the first page at or after the target,
+     * within a block and across skipped blocks, and does not move backwards.
+     */
+    @Test
+    public void testAdvance() {
+        for (PostingsCodec codec : new PostingsCodec[] { new VByteCodec(), new PForCodec() }) {
+            PostingsIterator iterator = open(codec);
+            assertEquals(pageId(0), iterator.advance(0), "Advancing to 0 should return the first page.");
+            assertEquals(pageId(5), iterator.advance(pageId(4) + 1), "Advance should round up to the next page.");
+            assertEquals(pageId(5), iterator.advance(pageId(2)), "Advance should not move backwards.");
+            assertEquals(pageId(700), iterator.advance(pageId(700)), "Advance should skip whole blocks.");
+            assertEquals(frequency(700), iterator.freq(), "Frequency should match after skipping blocks.");
+            assertEquals(pageId(701), iterator.next(), "Next should continue after an advance.");
+            assertEquals(PostingsIterator.NO_MORE_DOCS, iterator.advance(pageId(PAGE_COUNT - 1) + 1),
+                    "Advancing past the last page should exhaust the iterator.");
+            assertEquals(PostingsIterator.NO_MORE_DOCS, iterator.next(), "Iterator should stay exhausted.");
+        }
+    }
+
+    /**
+     * Tests that {@code advanceShallow(target)} moves to the block of the target without
+     * moving past it, that the impacts of the block are those of its pages, and that the
+     * iterator continues from the start of the block.
+     */
+    @Test
+    public void testAdvanceShallowAndBlockImpacts() {
+        int[] lengths = new int[pageId(PAGE_COUNT - 1) + 1];
+        for (int pageId = 0; pageId < lengths.length; pageId++) {
+            lengths[pageId] = 1 + pageId % 13;
+        }
+        BlockPostingsIterator iterator = open(new PForCodec(), lengths);
+        int[] frequencies = new int[PostingsWriter.BLOCK_SIZE];
+        int[] impactLengths = new int[PostingsWriter.BLOCK_SIZE];
+        int blockSize = PostingsWriter.BLOCK_SIZE;
+        for (int block : new int[] { 0, 2, 3, 5 }) {
+            int first = block * blockSize;
+            int last = Math.min(first + blockSize, PAGE_COUNT) - 1;
+            assertEquals(pageId(last), iterator.advanceShallow(pageId(first)),
+                    "Block " + block + " should end at its last page.");
+            assertEquals(pageId(last), iterator.advanceShallow(pageId(first) - 1),
+                    "A shallow advance should not move backwards.");
+
+            int[] pageIds = new int[last - first + 1];
+            int[] blockFrequencies = new int[pageIds.length];
+            for (int i = 0; i < pageIds.length; i++) {
+                pageIds[i] = pageId(first + i);
+                blockFrequencies[i] = frequency(first + i);
+            }
+            long[] expected = TermImpacts.compute(pageIds, blockFrequencies, pageIds.length, lengths);
+            int count = iterator.getBlockImpacts(frequencies, impactLengths);
+            assertEquals(expected.length, count, "Block " + block + " should have its competitive pairs.");
+            for (int i = 0; i < count; i++) {
+                assertEquals(expected[i] >>> 32, frequencies[i], "Wrong frequency of pair " + i + " of " + block);
+                assertEquals((int) expected[i], impactLengths[i], "Wrong length of pair " + i + " of " + block);
+            }
+        }
+        assertEquals(pageId(5 * blockSize), iterator.next(), "Next should return the first page of the block.");
+        assertEquals(pageId(5 * blockSize + 1), iterator.advance(pageId(5 * blockSize + 1)),
+                "Advance should work after a shallow advance.");
+        assertEquals(PostingsIterator.NO_MORE_DOCS, iterator.advanceShallow(pageId(PAGE_COUNT - 1) + 1),
+                "A shallow advance past the last page should find no block.");
+    }
+
+    /**
+     * Tests that galloping finds the first value at least the target, from any start,
+     * for targets before, between, on and after the values.
+     */
+    @Test
+    public void testGallop() {
+        int[] values = { 1, 4, 4, 9, 16, 25, 36, 49, 64, 81, 0 };
+        int end = values.length - 1;
+        for (int from = 0; from <= end; from++) {
+            for (int target = 0; target <= 82; target++) {
+                int expected = from;
+                while (expected < end && values[expected] < target) {
+                    expected++;
+                }
+                assertEquals(expected, BlockPostingsIterator.gallop(values, from, end, target),
+                        "Galloping from " + from + " to " + target + " should match a linear scan.");
+            }
+        }
+    }
+
+    /**
+     * Writes the test posting list with a codec after a few unrelated bytes, and opens an
+     * iterator over it.
+     *
+     * @param codec the codec to encode the list with.
+     * @return an iterator over the encoded list.
+     */
+    private PostingsIterator open(PostingsCodec codec) {
+        return open(codec, null);
+    }
+
+    /**
+     * Writes the test posting list with a codec and document lengths after a few
+     * unrelated bytes, and opens an iterator over it.
+     *
+     * @param codec   the codec to encode the list with.
+     * @param lengths the document length of every page, or {@code null}.
+     * @return an iterator over the encoded list.
+     */
+    private BlockPostingsIterator open(PostingsCodec codec, int[] lengths) {
+        int[] pageIds = new int[PAGE_COUNT];
+        int[] frequencies = new int[PAGE_COUNT];
+        for (int i = 0; i < PAGE_COUNT; i++) {
+            pageIds[i] = pageId(i);
+            frequencies[i] = frequency(i);
+        }
+        ByteList out = new ByteList();
+        out.add(0);
+        out.add(0);
+        PostingsWriter.write(pageIds, frequencies, lengths, codec, out);
+        return new BlockPostingsIterator(codec, ByteBuffer.wrap(out.toArray()), 2, PAGE_COUNT);
+    }
+
+    /**
+     * Computes the page ID at a position in the test list; gaps vary and are sometimes large.
+     *
+     * @param index the position in the list.
+     * @return the page ID at that position.
+     */
+    private static int pageId(int index) {
+        return index * 3 + (index / 100) * 5000 + (index % 7);
+    }
+
+    /**
+     * Computes the frequency at a position in the test list.
+     *
+     * @param index the position in the list.
+     * @return the term frequency at that position.
+     */
+    private static int frequency(int index) {
+        return index % 11 == 0 ? 300 : index % 4;
+    }
+}
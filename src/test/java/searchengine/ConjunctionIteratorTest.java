@@ -0,0 +1,127 @@
+package searchengine;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the {@link ConjunctionIterator} class.
+ * <p>
+ * This test class verifies that intersecting encoded posting lists of very different
+ * lengths gives the same pages as intersecting bit sets, with both {@code next()} and
+ * {@code advance(target)}.
+ * </p>
+ */
+class ConjunctionIteratorTest {
+    private static final int MAX_PAGE_ID = 200000;
+    private static final double[] DENSITIES = { 0.0005, 0.01, 0.2, 0.6 };
+    private BitSet[] sets;
+
+    /**
+     * Creates one random page set per density.
+     */
+    @BeforeEach
+    public void setup() {
+        Random random = new Random(5);
+        sets = new BitSet[DENSITIES.length];
+        for (int i = 0; i < DENSITIES.length; i++) {
+            sets[i] = new BitSet();
+            for (int pageId = 0; pageId < MAX_PAGE_ID; pageId++) {
+                if (random.nextDouble() < DENSITIES[i]) {
+                    sets[i].set(pageId);
+                }
+            }
+        }
+    }
+
+    /**
+     * Tests that every combination of lists, given in any order, intersects to the same
+     * pages as their bit sets, and that the cost is that of the shortest list.
+     */
+    @Test
+    public void testNextMatchesBitSet() {
+        for (int mask = 1; mask < 1 << sets.length; mask++) {
+            BitSet expected = null;
+            List<PostingsIterator> iterators = new ArrayList<>();
+            for (int i = sets.length - 1; i >= 0; i--) {
+                if ((mask & 1 << i) != 0) {
+                    expected = expected == null ? (BitSet) sets[i].clone() : expected;
+                    expected.and(sets[i]);
+                    iterators.add(open(sets[i]));
+                }
+            }
+            ConjunctionIterator conjunction = new ConjunctionIterator(iterators);
+            assertEquals(sets[Integer.numberOfTrailingZeros(mask)].cardinality(), conjunction.cost(),
+                    "The cost should be that of the shortest list for mask " + mask);
+            assertArrayEquals(expected.stream().toArray(), PageIdSet.of(conjunction).toArray(),
+                    "The intersection should match the bit sets for mask " + mask);
+        }
+    }
+
+    /**
+     * Tests that advancing lands on the first common page at least the target and never
+     * moves backwards.
+     */
+    @Test
+    public void testAdvance() {
+        BitSet expected = (BitSet) sets[2].clone();
+        expected.and(sets[3]);
+        ConjunctionIterator conjunction = new ConjunctionIterator(List.of(open(sets[3]), open(sets[2])));
+        for (int target = 0; target < MAX_PAGE_ID; target += 997) {
+            int next = expected.nextSetBit(Math.max(target, conjunction.docId()));
+            int pageId = conjunction.advance(target);
+            assertEquals(next < 0 ? PostingsIterator.NO_MORE_DOCS : next, pageId,
+                    "Advancing to " + target + " should find the next common page.");
+        }
+        assertEquals(PostingsIterator.NO_MORE_DOCS, conjunction.advance(MAX_PAGE_ID),
+                "No page should be past the last.");
+    }
+
+    /**
+     * Tests that the frequency is read from the shortest list, and that an intersection
+     * of no lists is rejected.
+     */
+    @Test
+    public void testFreqAndInvalidInput() {
+        PostingsIterator frequent = new BlockPostingsIterator(new PForCodec(), encode(new int[] { 1, 2, 3 }, 5), 0, 3);
+        ConjunctionIterator conjunction = new ConjunctionIterator(List.of(open(sets[3]), frequent));
+        conjunction.next();
+        assertEquals(5, conjunction.freq(), "The frequency should come from the shortest list.");
+        assertThrows(IllegalArgumentException.class, () -> new ConjunctionIterator(List.of()),
+                "An intersection of no lists should be rejected.");
+    }
+
+    /**
+     * Encodes a set as a posting list and opens an iterator over it.
+     *
+     * @param set the page IDs of the list.
+     * @return an iterator over the encoded list.
+     */
+    private PostingsIterator open(BitSet set) {
+        int[] pageIds = set.stream().toArray();
+        return new BlockPostingsIterator(new PForCodec(), encode(pageIds, 1), 0, pageIds.length);
+    }
+
+    /**
+     * Encodes a posting list in which every page has the same frequency.
+     *
+     * @param pageIds   the page IDs, in ascending order.
+     * @param frequency the frequency of every page.
+     * @return a buffer holding the encoded list at offset 0.
+     */
+    private ByteBuffer encode(int[] pageIds, int frequency) {
+        int[] frequencies = new int[pageIds.length];
+        Arrays.fill(frequencies, frequency);
+        ByteList out = new ByteList();
+        PostingsWriter.write(pageIds, frequencies, new PForCodec(), out);
+        return ByteBuffer.wrap(out.toArray());
+    }
+}
@@ -0,0 +1,87 @@
+package searchengine;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the {@link CorpusReader} class.
+ * <p>
+ * This test class verifies that records are split at {@code *PAGE} lines, that
+ * lines before the first record are skipped, and that the reader reports the end
+ * of the file.
+ * </p>
+ */
+class CorpusReaderTest {
+
+    private static final Path TEST_FILE_PATH = Paths.get("src/test/java/searchengine/resources/test-file.txt");
+    private static final Path ERROR_FILE_PATH = Paths.get("data/test-file-errors.txt");
+
+    /**
+     * Tests that each record holds the lines from its {@code *PAGE} line up to the
+     * next one.
+     *
+     * @throws IOException if the test file cannot be read.
+     */
+    @Test
+    public void testNextPageReturnsRecordsInFileOrder() throws IOException {
+        try (CorpusReader reader = new CorpusReader(TEST_FILE_PATH)) {
+            assertEquals(List.of("*PAGE:http://page1.com", "title1", "word1", "word2"), reader.nextPage());
+            assertEquals(List.of("*PAGE:http://page2.com", "word3"), reader.nextPage());
+            assertEquals(List.of("*PAGE:http://page3.com", "title3"), reader.nextPage());
+            assertEquals(List.of("*PAGE:http://page4.com", "title4", "word1", "word3"), reader.nextPage());
+            assertNull(reader.nextPage(), "Reader should return null after the last record.");
+        }
+    }
+
+    /**
+     * Tests that lines before the first {@code *PAGE} line are not part of any record.
+     *
+     * @throws IOException if the test file cannot be read.
+     */
+    @Test
+    public void testLinesBeforeFirstPageAreSkipped() throws IOException {
+        try (CorpusReader reader = new CorpusReader(ERROR_FILE_PATH)) {
+            List<String> first = reader.nextPage();
+            assertEquals("*PAGE:http://page1.com", first.get(0), "First record should start at the first page.");
+
+            int records = 1;
+            while (reader.nextPage() != null) {
+                records++;
+            }
+            assertEquals(5, records, "The error file should contain 5 records.");
+        }
+    }
+
+    /**
+     * Tests that the ranges produced by {@code split} start at page boundaries and
+     * together yield every record exactly once.
+     *
+     * @throws IOException if the test file cannot be read.
+     */
+    @Test
+    public void testSplitRangesCoverAllRecords() throws IOException {
+        long[] bounds = CorpusReader.split(ERROR_FILE_PATH, 4);
+        assertEquals(5, bounds.length, "Four parts should have five boundaries.");
+
+        int records = 0;
+        for (int i = 0; i < 4; i++) {
+            assertTrue(bounds[i] <= bounds[i + 1], "Boundaries should be ascending.");
+            int counted = CorpusReader.countPages(ERROR_FILE_PATH, bounds[i], bounds[i + 1]);
+            try (CorpusReader reader = new CorpusReader(ERROR_FILE_PATH, bounds[i], bounds[i + 1])) {
+                int read = 0;
+                while (reader.nextPage() != null) {
+                    read++;
+                }
+                assertEquals(counted, read, "countPages should agree with the reader.");
+            }
+            records += counted;
+        }
+        assertEquals(5, records, "All records should be read exactly once.");
+    }
+}
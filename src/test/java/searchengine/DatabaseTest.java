@@ -3,11 +3,14 @@ package searchengine;
 import static org.junit.jupiter.api.Assertions.*;
 
 import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.List;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 /**
  * Unit tests for the {@link Database} class.
@@ -20,8 +23,12 @@ import org.junit.jupiter.api.Test;
 class DatabaseTest {
 
     private static final Path TEST_FILE_PATH = Paths.get("src/test/java/searchengine/resources/test-file.txt");
+    private static final Path ERROR_FILE_PATH = Paths.get("data/test-file-errors.txt");
     private Database database;
 
+    @TempDir
+    Path directory;
+
     /**
      * Sets up the test environment by initializing a {@link Database} instance
      * using a test file before each test.
@@ -73,4 +80,318 @@ class DatabaseTest {
         int totalPages = database.getTotalPages();
         assertEquals(4, totalPages, "Total pages in the database should be 4.");
     }
-}
\ No newline at end of file
+
+    /**
+     * Tests that building the index with several threads gives the same pages and
+     * page IDs for every word as a single-threaded build.
+     *
+     * @throws IOException if the test file cannot be read.
+     */
+    @Test
+    public void testParallelBuildMatchesSingleThreadedBuild() throws IOException {
+        IndexConfig single = new IndexConfig();
+        single.setThreads(1);
+        IndexConfig parallel = new IndexConfig();
+        parallel.setThreads(3);
+        Segment expected = new Database(ERROR_FILE_PATH.toString(), single).getSegments().get(0);
+        Segment actual = new Database(ERROR_FILE_PATH.toString(), parallel).getSegments().get(0);
+
+        assertEquals(expected.getTotalPages(), actual.getTotalPages(), "Page counts should match.");
+        TermDictionary expectedTerms = expected.getDictionary();
+        TermDictionary actualTerms = actual.getDictionary();
+        assertEquals(expectedTerms.size(), actualTerms.size(), "Term counts should match.");
+        for (int termId = 0; termId < expectedTerms.size(); termId++) {
+            String term = expectedTerms.getTerm(termId);
+            assertEquals(term, actualTerms.getTerm(termId), "Term IDs should match.");
+            assertArrayEquals(expected.getPostings(termId), actual.getPostings(termId),
+                    "Page IDs for '" + term + "' should match.");
+            assertArrayEquals(expected.getFrequencies(termId), actual.getFrequencies(termId),
+                    "Frequencies for '" + term + "' should match.");
+        }
+        for (int pageId = 0; pageId < expected.getTotalPages(); pageId++) {
+            assertEquals(expected.getDocumentLength(pageId), actual.getDocumentLength(pageId),
+                    "Page lengths should match.");
+        }
+    }
+
+    /**
+     * Tests that posting lists hold the IDs of the pages containing a term, in
+     * file order, with the term's frequency on each page.
+     */
+    @Test
+    public void testPostingsAndFrequencies() {
+        Segment segment = database.getSegments().get(0);
+        int termId = segment.getTermId("word1");
+        assertArrayEquals(new int[] { 0, 3 }, segment.getPostings(termId), "'word1' should be on pages 0 and 3.");
+        assertArrayEquals(new int[] { 1, 1 }, segment.getFrequencies(termId), "'word1' should occur once on each page.");
+        assertEquals(0, database.getTermFrequency("word1", 1), "'word1' should not occur on page 1.");
+        assertEquals(-1, segment.getTermId("word100"), "Unknown words should have no term ID.");
+    }
+
+    /**
+     * Tests that the frequencies of a word on a list of pages are read from its
+     * posting list, with 0 for pages that do not contain it.
+     */
+    @Test
+    public void testGetTermFrequencies() {
+        assertArrayEquals(new int[] { 1, 0, 0, 1 }, database.getTermFrequencies("word1", new int[] { 0, 1, 2, 3 }),
+                "'word1' should occur once on pages 0 and 3.");
+        assertArrayEquals(new int[] { 0, 0 }, database.getTermFrequencies("word100", new int[] { 0, 3 }),
+                "Unknown words should not occur on any page.");
+        assertArrayEquals(new int[0], database.getTermFrequencies("word1", new int[0]),
+                "No pages should give no frequencies.");
+    }
+
+    /**
+     * Tests that pages created from the index expose the URL, title and word
+     * statistics of the indexed page.
+     */
+    @Test
+    public void testGetPage() {
+        Page page = database.getPage(0);
+        assertEquals("http://page1.com", page.getUrl(), "URL should be read from the index.");
+        assertEquals("title1", page.getTitle(), "Title should be read from the index.");
+        assertEquals(2, page.getTotalWords(), "Title lines should not count as words.");
+        assertEquals(1, page.getWordFrequency("word2"), "'word2' should occur once on page 0.");
+        assertTrue(page.containsSearchterm("word1"), "Page 0 should contain 'word1'.");
+        assertFalse(page.containsSearchterm("word3"), "Page 0 should not contain 'word3'.");
+    }
+
+    /**
+     * Tests that both postings codecs produce the same posting lists.
+     *
+     * @throws IOException if the test file cannot be read.
+     */
+    @Test
+    public void testCodecsProduceSamePostings() throws IOException {
+        IndexConfig vbyte = new IndexConfig();
+        vbyte.setCodec(IndexConfig.CODEC_VBYTE);
+        Database other = new Database(TEST_FILE_PATH.toAbsolutePath().toString(), vbyte);
+
+        assertEquals(IndexConfig.CODEC_PFOR, database.getCodec().getName(), "PFor should be the default codec.");
+        assertEquals(IndexConfig.CODEC_VBYTE, other.getCodec().getName(), "VByte should be selected.");
+        Segment expected = database.getSegments().get(0);
+        Segment actual = other.getSegments().get(0);
+        for (int termId = 0; termId < expected.getDictionary().size(); termId++) {
+            assertArrayEquals(expected.getPostings(termId), actual.getPostings(termId), "Page IDs should match.");
+            assertArrayEquals(expected.getFrequencies(termId), actual.getFrequencies(termId), "Frequencies should match.");
+        }
+    }
+
+    /**
+     * Tests that a page read from the corpus and the same page read from the index count
+     * words by the same rule: exactly, including case.
+     *
+     * @throws IOException if the corpus file cannot be written or read.
+     */
+    @Test
+    public void testWordFrequencyCase() throws IOException {
+        List<String> lines = List.of("*PAGE:http://case.com", "Case", "word", "Word", "WORD", "word");
+        Path corpus = directory.resolve("case.txt");
+        Files.write(corpus, lines);
+        Page page = new Page(lines);
+        Page indexed = new Database(corpus.toString()).getPage(0);
+        for (String word : new String[] { "word", "Word", "WORD", "wORD", "case" }) {
+            assertEquals(page.getWordFrequency(word), indexed.getWordFrequency(word),
+                    "Both pages should count '" + word + "' alike.");
+        }
+        assertEquals(2, indexed.getWordFrequency("word"), "'word' should be counted twice.");
+        assertEquals(1, indexed.getWordFrequency("WORD"), "'WORD' should be counted once.");
+        assertEquals(0, indexed.getWordFrequency("wORD"), "Words should be matched with their case.");
+    }
+
+    /**
+     * Tests that an added corpus file is searchable right away, with page IDs following
+     * the existing pages, and that background merges keep page IDs and statistics.
+     *
+     * @throws IOException if a corpus file cannot be read or written.
+     */
+    @Test
+    public void testAddCorpusAndMerge() throws IOException {
+        Path corpus = directory.resolve("added.txt");
+        Files.write(corpus, List.of("*PAGE:http://page5.com", "title5", "word1", "word5", "word5"));
+        IndexConfig config = new IndexConfig();
+        config.setMergeFactor(2);
+        Database segmented = new Database(TEST_FILE_PATH.toString(), config);
+
+        segmented.addCorpus(corpus.toString());
+        assertEquals(5, segmented.getTotalPages(), "The added page should be counted.");
+        assertEquals(3, segmented.pagesWithWord("word1"), "'word1' should be found in both corpus files.");
+        assertEquals("http://page5.com", segmented.getUrl(4), "The added page should follow the existing pages.");
+        assertEquals(2, segmented.getTermFrequency("word5", 4), "'word5' should occur twice on the added page.");
+
+        segmented.addCorpus(corpus.toString());
+        segmented.waitForMerges();
+        assertEquals(1, segmented.getSegments().size(), "Small segments should be merged.");
+        assertEquals(6, segmented.getTotalPages(), "Merging should keep all pages.");
+        assertEquals(4, segmented.pagesWithWord("word1"), "Merging should keep document frequencies.");
+        assertEquals("http://page1.com", segmented.getUrl(0), "Merging should keep page IDs.");
+        assertEquals("http://page5.com", segmented.getUrl(5), "Merging should keep page IDs.");
+        assertEquals(2, segmented.getTermFrequency("word5", 5), "Merging should keep term frequencies.");
+    }
+
+    /**
+     * Tests that segments are only merged within the smallest tier configured: with a tier
+     * of a single page, the existing 4 pages and the added page are in different tiers.
+     *
+     * @throws IOException if a corpus file cannot be read or written.
+     */
+    @Test
+    public void testMinSegmentPages() throws IOException {
+        Path corpus = directory.resolve("added.txt");
+        Files.write(corpus, List.of("*PAGE:http://page5.com", "title5", "word1", "word5"));
+        IndexConfig config = new IndexConfig();
+        config.setMergeFactor(2);
+        config.setMinSegmentPages(1);
+        Database segmented = new Database(TEST_FILE_PATH.toString(), config);
+
+        segmented.addCorpus(corpus.toString());
+        segmented.waitForMerges();
+        assertEquals(2, segmented.getSegments().size(), "Segments in different tiers should not be merged.");
+    }
+
+    /**
+     * Tests the title field statistics: the title of page2 is its only line after the
+     * {@code *PAGE} line, so 'word3' occurs in its title but not in its body.
+     */
+    @Test
+    public void testTitleStatistics() {
+        assertEquals(1, database.pagesWithTitleWord("word3"), "Only page2 has 'word3' as title.");
+        assertEquals(0, database.pagesWithTitleWord("word1"), "No title contains 'word1'.");
+        assertEquals(1, database.getTitleTermFrequency("word3", 1), "'word3' is the title of page2.");
+        assertEquals(0, database.getTermFrequency("word3", 1), "The title of page2 is not a body word.");
+        assertArrayEquals(new int[] { 0, 1, 0 }, database.getTitleTermFrequencies("word3", new int[] { 0, 1, 3 }),
+                "The title frequencies should match each page.");
+        assertEquals(1, database.getTitleLength(0), "The title of page1 has one word.");
+    }
+
+    /**
+     * Tests that fuzzy expansion finds the words within the maximum edits, closest and
+     * most common first, and keeps no more than the configured number.
+     *
+     * @throws IOException if the test file cannot be read.
+     */
+    @Test
+    public void testExpandFuzzy() throws IOException {
+        assertEquals(List.of("word1", "word3", "word2"), database.expandFuzzy("word9", 1),
+                "Words at the same distance should be ordered by document frequency.");
+        assertEquals(List.of("word1", "word3", "word2"), database.expandFuzzy("wrd1", 2).subList(0, 3),
+                "The exact distance should come before the document frequency.");
+        assertEquals(List.of("title1"), database.expandFuzzy("titel1", 2), "Two edits should find 'title1'.");
+        assertTrue(database.expandFuzzy("titel1", 1).isEmpty(), "'titel1' is two edits from 'title1'.");
+
+        IndexConfig config = new IndexConfig();
+        config.setMaxExpansions(2);
+        Database capped = new Database(TEST_FILE_PATH.toString(), config);
+        assertEquals(List.of("word1", "word3"), capped.expandFuzzy("word9", 1), "The expansions should be capped.");
+    }
+
+    /**
+     * Tests that wildcard words expand to the matching words, found through the prefix
+     * or the k-grams, and that the cost of every expansion is recorded.
+     *
+     * @throws IOException if the test file cannot be read.
+     */
+    @Test
+    public void testExpandWildcard() throws IOException {
+        assertEquals(List.of("word1", "word3", "word2"), database.expandWildcard("word*"),
+                "Words starting with 'word' should be ordered by document frequency.");
+        assertEquals(List.of("word1"), database.expandWildcard("*rd1"), "Only 'word1' ends with 'rd1'.");
+        assertEquals(List.of("title1", "title3", "title4"), database.expandWildcard("*itl*"),
+                "Every title word contains 'itl'.");
+        assertEquals(List.of("title3"), database.expandWildcard("t*3"), "Only 'title3' starts with 't' and ends with '3'.");
+        assertTrue(database.expandWildcard("*xyz").isEmpty(), "No word ends with 'xyz'.");
+
+        ExpansionMetrics metrics = database.getWildcardMetrics();
+        assertEquals(5, metrics.getExpansions(), "Every expansion should be recorded.");
+        assertEquals(8, metrics.getTermsKept(), "The kept words of all expansions should be summed.");
+        assertEquals(0, metrics.getCapped(), "No expansion should be capped.");
+        assertEquals(0, database.getFuzzyMetrics().getExpansions(), "No fuzzy expansion should be recorded.");
+
+        IndexConfig config = new IndexConfig();
+        config.setMaxExpansions(1);
+        Database capped = new Database(TEST_FILE_PATH.toString(), config);
+        assertEquals(List.of("word1"), capped.expandWildcard("w*"), "The expansions should be capped.");
+        assertEquals(1, capped.getWildcardMetrics().getCapped(), "The capped expansion should be counted.");
+        assertEquals(3, capped.getWildcardMetrics().getTermsMatched(), "All matches before the cap should be counted.");
+    }
+
+    /**
+     * Tests that a deleted page is left out of posting lists and term frequencies at once,
+     * while it keeps its page ID and the document frequencies of its segment still count
+     * it. The segment is kept from before the deletion, since the deletion schedules a
+     * merge that replaces it.
+     */
+    @Test
+    public void testDeletePage() {
+        Segment segment = database.getSegments().get(0);
+        assertEquals(1, database.deletePage("http://page1.com"), "One page should be deleted.");
+        assertEquals(0, database.deletePage("http://page1.com"), "A deleted page should not be deleted again.");
+        assertEquals(0, database.deletePage("http://missing.com"), "An unknown URL should delete nothing.");
+        assertTrue(database.isDeleted(0), "Page1 should be deleted.");
+        assertFalse(database.isDeleted(3), "Page4 should stay live.");
+        assertEquals(1, database.getDeletedCount(), "One page should be counted as deleted.");
+        assertEquals(0, database.getTermFrequency("word1", 0), "The deleted page should not contain 'word1'.");
+        assertArrayEquals(new int[] { 0, 1 }, database.getTermFrequencies("word1", new int[] { 0, 3 }),
+                "Only page4 should still contain 'word1'.");
+        assertArrayEquals(new int[] { 3 }, segment.getPostings(segment.getTermId("word1")),
+                "Only page4 should be in the posting list of 'word1'.");
+        assertEquals(2, segment.getDocumentFrequency(segment.getTermId("word1")),
+                "Document frequencies should count deleted pages.");
+        assertEquals("http://page1.com", database.getUrl(0), "The deleted page should keep its page ID.");
+    }
+
+    /**
+     * Tests that replacing a page deletes the old version and adds the new one as the
+     * next page, and that a new URL is added without deleting anything.
+     *
+     * @throws IOException if the new page cannot be indexed.
+     */
+    @Test
+    public void testReplacePage() throws IOException {
+        assertEquals(1, database.replacePage("http://page4.com", List.of("title4", "word5", "word5")),
+                "The old page4 should be deleted.");
+        assertEquals(5, database.getTotalPages(), "The new version should be added as a page.");
+        assertTrue(database.isDeleted(3), "The old version should be deleted.");
+        assertEquals("http://page4.com", database.getUrl(4), "The new version should get the next page ID.");
+        assertEquals(2, database.getTermFrequency("word5", 4), "The new version should be indexed.");
+        assertEquals(0, database.getTermFrequency("word1", 3), "The old version should not be found.");
+
+        assertEquals(1, database.replacePage("http://page4.com", List.of("title4", "word1")),
+                "Only the live version should be deleted.");
+        assertEquals(0, database.replacePage("http://page6.com", List.of("title6")),
+                "A new URL should delete nothing.");
+        assertEquals(2, database.getDeletedCount(), "Both old versions of page4 should be deleted.");
+        assertThrows(IllegalArgumentException.class,
+                () -> database.replacePage("http://page7.com", List.of("title7", "*PAGE:http://page8.com")),
+                "A line starting a new page should be rejected.");
+    }
+
+    /**
+     * Tests that merging removes deleted pages from the posting lists and drops words
+     * that only occurred on them, keeps their page IDs, and keeps deletions made before
+     * the merged segment is swapped in.
+     *
+     * @throws IOException if a page cannot be indexed.
+     */
+    @Test
+    public void testMergeRemovesDeletedPages() throws IOException {
+        IndexConfig config = new IndexConfig();
+        config.setMergeFactor(2);
+        Database segmented = new Database(TEST_FILE_PATH.toString(), config);
+        segmented.replacePage("http://page1.com", List.of("title1", "word1", "word6"));
+        segmented.deletePage("http://page2.com");
+        segmented.waitForMerges();
+
+        assertEquals(1, segmented.getSegments().size(), "The new page should be merged into the first segment.");
+        Segment merged = segmented.getSegments().get(0);
+        assertEquals(5, segmented.getTotalPages(), "Merging should keep the slots of deleted pages.");
+        assertTrue(segmented.isDeleted(0) && segmented.isDeleted(1), "Deleted pages should stay deleted.");
+        assertEquals(0, merged.getPendingDeletions(), "The deleted pages should be removed from the postings.");
+        assertEquals(-1, merged.getTermId("word2"), "'word2' only occurred on the deleted page1.");
+        assertEquals(2, segmented.pagesWithWord("word1"), "Only page4 and the new page1 should contain 'word1'.");
+        assertEquals(0, segmented.getDocumentLength(0), "The deleted page should have no words left.");
+        assertEquals("http://page1.com", segmented.getUrl(4), "The new page1 should keep its page ID.");
+        assertEquals(1, segmented.getTermFrequency("word6", 4), "The new page1 should keep its words.");
+    }
+}
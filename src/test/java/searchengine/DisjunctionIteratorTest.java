@@ -0,0 +1,129 @@
+package searchengine;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the {@link DisjunctionIterator} class.
+ * <p>
+ * This test class verifies that uniting encoded posting lists of very different lengths
+ * gives the same pages as uniting bit sets, with both {@code next()} and
+ * {@code advance(target)}, and that the frequencies of all lists on a page are summed.
+ * </p>
+ */
+class DisjunctionIteratorTest {
+    private static final int MAX_PAGE_ID = 200000;
+    private static final double[] DENSITIES = { 0.0005, 0.01, 0.2, 0.6 };
+    private BitSet[] sets;
+
+    /**
+     * Creates one random page set per density.
+     */
+    @BeforeEach
+    public void setup() {
+        Random random = new Random(7);
+        sets = new BitSet[DENSITIES.length];
+        for (int i = 0; i < DENSITIES.length; i++) {
+            sets[i] = new BitSet();
+            for (int pageId = 0; pageId < MAX_PAGE_ID; pageId++) {
+                if (random.nextDouble() < DENSITIES[i]) {
+                    sets[i].set(pageId);
+                }
+            }
+        }
+    }
+
+    /**
+     * Tests that every combination of lists unites to the same pages as their bit sets,
+     * with each page counted once, and that the cost is the summed length of the lists.
+     */
+    @Test
+    public void testNextMatchesBitSet() {
+        for (int mask = 1; mask < 1 << sets.length; mask++) {
+            BitSet expected = new BitSet();
+            long cost = 0;
+            List<PostingsIterator> iterators = new ArrayList<>();
+            for (int i = 0; i < sets.length; i++) {
+                if ((mask & 1 << i) != 0) {
+                    expected.or(sets[i]);
+                    cost += sets[i].cardinality();
+                    iterators.add(open(sets[i], 1));
+                }
+            }
+            DisjunctionIterator disjunction = new DisjunctionIterator(iterators);
+            assertEquals(cost, disjunction.cost(), "The cost should be the summed length for mask " + mask);
+            assertArrayEquals(expected.stream().toArray(), PageIdSet.of(disjunction).toArray(),
+                    "The union should match the bit sets for mask " + mask);
+        }
+    }
+
+    /**
+     * Tests that advancing lands on the first page of any list at least the target and
+     * never moves backwards.
+     */
+    @Test
+    public void testAdvance() {
+        BitSet expected = (BitSet) sets[0].clone();
+        expected.or(sets[1]);
+        DisjunctionIterator disjunction = new DisjunctionIterator(List.of(open(sets[1], 1), open(sets[0], 1)));
+        for (int target = 0; target < MAX_PAGE_ID; target += 97) {
+            int next = expected.nextSetBit(Math.max(target, disjunction.docId()));
+            int pageId = disjunction.advance(target);
+            assertEquals(next < 0 ? PostingsIterator.NO_MORE_DOCS : next, pageId,
+                    "Advancing to " + target + " should find the next page of any list.");
+        }
+        assertEquals(PostingsIterator.NO_MORE_DOCS, disjunction.advance(MAX_PAGE_ID),
+                "No page should be past the last.");
+        assertEquals(PostingsIterator.NO_MORE_DOCS, disjunction.next(), "An exhausted union should stay exhausted.");
+    }
+
+    /**
+     * Tests that the frequency is summed over the lists on the current page, and that a
+     * union of no lists is rejected.
+     */
+    @Test
+    public void testFreqAndInvalidInput() {
+        BitSet first = new BitSet();
+        first.set(1);
+        first.set(3);
+        BitSet second = new BitSet();
+        second.set(3);
+        second.set(5);
+        DisjunctionIterator disjunction = new DisjunctionIterator(List.of(open(first, 2), open(second, 5),
+                open(second, 7)));
+        assertEquals(1, disjunction.next(), "Page 1 should come first.");
+        assertEquals(2, disjunction.freq(), "Only the first list is on page 1.");
+        assertEquals(3, disjunction.next(), "Page 3 should come next.");
+        assertEquals(14, disjunction.freq(), "All three lists are on page 3.");
+        assertEquals(5, disjunction.next(), "Page 5 should come last.");
+        assertEquals(12, disjunction.freq(), "The last two lists are on page 5.");
+        assertEquals(PostingsIterator.NO_MORE_DOCS, disjunction.next(), "No page should follow page 5.");
+        assertThrows(IllegalArgumentException.class, () -> new DisjunctionIterator(List.of()),
+                "A union of no lists should be rejected.");
+    }
+
+    /**
+     * Encodes a set as a posting list and opens an iterator over it.
+     *
+     * @param set       the page IDs of the list.
+     * @param frequency the frequency of every page.
+     * @return an iterator over the encoded list.
+     */
+    private PostingsIterator open(BitSet set, int frequency) {
+        int[] pageIds = set.stream().toArray();
+        int[] frequencies = new int[pageIds.length];
+        Arrays.fill(frequencies, frequency);
+        ByteList out = new ByteList();
+        PostingsWriter.write(pageIds, frequencies, new PForCodec(), out);
+        return new BlockPostingsIterator(new PForCodec(), ByteBuffer.wrap(out.toArray()), 0, pageIds.length);
+    }
+}
@@ -0,0 +1,86 @@
+package searchengine;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the {@link DocumentStore} class.
+ * <p>
+ * This test class verifies that {@code *PAGE} and title lines are stored and decoded
+ * correctly, including pages without a title, empty titles and non-ASCII text, and that
+ * stores can be concatenated.
+ * </p>
+ */
+class DocumentStoreTest {
+    private DocumentStore store;
+
+    /**
+     * Builds a store with three pages before each test.
+     */
+    @BeforeEach
+    public void setup() {
+        store = storeOf("*PAGE:http://page1.com", "title1",
+                "*PAGE:http://page2.com", null,
+                "*PAGE:http://päge3.com", "Tïtle ☃");
+    }
+
+    /**
+     * Tests that the lines of each page are decoded as they were added.
+     */
+    @Test
+    public void testGetLines() {
+        assertEquals(3, store.size(), "The store should hold three pages.");
+        assertEquals("*PAGE:http://page1.com", store.getHeaderLine(0), "The header line should be decoded.");
+        assertEquals("title1", store.getTitle(0), "The title line should be decoded.");
+        assertEquals("*PAGE:http://page2.com", store.getHeaderLine(1), "A page without title should keep its header.");
+        assertNull(store.getTitle(1), "A page without title line should have no title.");
+        assertEquals("*PAGE:http://päge3.com", store.getHeaderLine(2), "Non-ASCII headers should be decoded.");
+        assertEquals("Tïtle ☃", store.getTitle(2), "Non-ASCII titles should be decoded.");
+    }
+
+    /**
+     * Tests that an empty title line is kept apart from a missing one.
+     */
+    @Test
+    public void testEmptyTitle() {
+        DocumentStore empty = storeOf("*PAGE:http://page1.com", "");
+        assertEquals("", empty.getTitle(0), "An empty title line should be an empty title.");
+    }
+
+    /**
+     * Tests that concatenated stores hold the pages of each store in order.
+     */
+    @Test
+    public void testConcat() {
+        DocumentStore other = storeOf("*PAGE:http://page4.com", "title4");
+        DocumentStore combined = DocumentStore.concat(List.of(store, other));
+        assertEquals(4, combined.size(), "The combined store should hold all pages.");
+        assertEquals(store.getDataSize() + other.getDataSize(), combined.getDataSize(), "No bytes should be added.");
+        assertEquals("Tïtle ☃", combined.getTitle(2), "Pages of the first store should keep their IDs.");
+        assertNull(combined.getTitle(1), "Pages of the first store should keep their titles.");
+        assertEquals("*PAGE:http://page4.com", combined.getHeaderLine(3), "Pages of the second store should follow.");
+        assertEquals("title4", combined.getTitle(3), "Pages of the second store should keep their titles.");
+    }
+
+    /**
+     * Builds a store from pairs of header and title lines.
+     *
+     * @param lines the header line and title line of each page; titles may be {@code null}.
+     * @return the store.
+     */
+    private static DocumentStore storeOf(String... lines) {
+        ByteList data = new ByteList();
+        int[] offsets = new int[lines.length / 2 + 1];
+        for (int i = 0; i < lines.length; i += 2) {
+            offsets[i / 2] = data.size();
+            DocumentStore.addDocument(lines[i], lines[i + 1], data);
+        }
+        offsets[lines.length / 2] = data.size();
+        return new DocumentStore(ByteBuffer.wrap(data.toArray()), offsets);
+    }
+}
@@ -0,0 +1,99 @@
+package searchengine;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the {@link ExclusionIterator} class.
+ * <p>
+ * This test class verifies that removing the pages of one encoded posting list from
+ * another gives the same pages as the difference of their bit sets, with both
+ * {@code next()} and {@code advance(target)}.
+ * </p>
+ */
+class ExclusionIteratorTest {
+    private static final int MAX_PAGE_ID = 100000;
+    private static final double[] DENSITIES = { 0.001, 0.05, 0.5, 0.95 };
+    private BitSet[] sets;
+
+    /**
+     * Creates one random page set per density.
+     */
+    @BeforeEach
+    public void setup() {
+        Random random = new Random(11);
+        sets = new BitSet[DENSITIES.length];
+        for (int i = 0; i < DENSITIES.length; i++) {
+            sets[i] = new BitSet();
+            for (int pageId = 0; pageId < MAX_PAGE_ID; pageId++) {
+                if (random.nextDouble() < DENSITIES[i]) {
+                    sets[i].set(pageId);
+                }
+            }
+        }
+    }
+
+    /**
+     * Tests that every pair of lists gives the same pages as the difference of their bit
+     * sets, and that the cost and frequency are those of the included list.
+     */
+    @Test
+    public void testNextMatchesBitSet() {
+        for (int include = 0; include < sets.length; include++) {
+            for (int exclude = 0; exclude < sets.length; exclude++) {
+                BitSet expected = (BitSet) sets[include].clone();
+                expected.andNot(sets[exclude]);
+                ExclusionIterator exclusion = new ExclusionIterator(open(sets[include], 3), open(sets[exclude], 1));
+                assertEquals(sets[include].cardinality(), exclusion.cost(),
+                        "The cost should be that of the included list.");
+                assertArrayEquals(expected.stream().toArray(), PageIdSet.of(exclusion).toArray(),
+                        "The difference of lists " + include + " and " + exclude + " should match the bit sets.");
+            }
+        }
+        ExclusionIterator exclusion = new ExclusionIterator(open(sets[2], 3), open(sets[1], 1));
+        exclusion.next();
+        assertEquals(3, exclusion.freq(), "The frequency should come from the included list.");
+    }
+
+    /**
+     * Tests that advancing lands on the first page at least the target that is not
+     * excluded, and never moves backwards.
+     */
+    @Test
+    public void testAdvance() {
+        BitSet expected = (BitSet) sets[3].clone();
+        expected.andNot(sets[2]);
+        ExclusionIterator exclusion = new ExclusionIterator(open(sets[3], 1), open(sets[2], 1));
+        for (int target = 0; target < MAX_PAGE_ID; target += 499) {
+            int next = expected.nextSetBit(Math.max(target, exclusion.docId()));
+            int pageId = exclusion.advance(target);
+            assertEquals(next < 0 ? PostingsIterator.NO_MORE_DOCS : next, pageId,
+                    "Advancing to " + target + " should find the next page that is not excluded.");
+        }
+        assertEquals(PostingsIterator.NO_MORE_DOCS, exclusion.advance(MAX_PAGE_ID),
+                "No page should be past the last.");
+    }
+
+    /**
+     * Encodes a set as a posting list and opens an iterator over it.
+     *
+     * @param set       the page IDs of the list.
+     * @param frequency the frequency of every page.
+     * @return an iterator over the encoded list.
+     */
+    private PostingsIterator open(BitSet set, int frequency) {
+        int[] pageIds = set.stream().toArray();
+        int[] frequencies = new int[pageIds.length];
+        Arrays.fill(frequencies, frequency);
+        ByteList out = new ByteList();
+        PostingsWriter.write(pageIds, frequencies, new PForCodec(), out);
+        return new BlockPostingsIterator(new PForCodec(), ByteBuffer.wrap(out.toArray()), 0, pageIds.length);
+    }
+}
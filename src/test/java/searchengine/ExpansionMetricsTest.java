@@ -0,0 +1,51 @@
+package searchengine;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the {@link ExpansionMetrics} class.
+ * <p>
+ * This test class verifies that recorded expansions are summed, that capped expansions
+ * are counted, and that the average and maximum times are computed.
+ * </p>
+ */
+class ExpansionMetricsTest {
+    private ExpansionMetrics metrics;
+
+    /**
+     * Creates empty metrics before each test.
+     */
+    @BeforeEach
+    public void setup() {
+        metrics = new ExpansionMetrics();
+    }
+
+    /**
+     * Tests that empty metrics report zeros.
+     */
+    @Test
+    public void testEmpty() {
+        assertEquals(0, metrics.getExpansions(), "Nothing should be recorded yet.");
+        assertEquals(0.0, metrics.getAverageMillis(), "The average of no expansions should be 0.");
+        assertEquals(0.0, metrics.getMaxMillis(), "The maximum of no expansions should be 0.");
+    }
+
+    /**
+     * Tests that the counters of recorded expansions are summed.
+     */
+    @Test
+    public void testRecord() {
+        metrics.record(100, 60, 50, 3000000);
+        metrics.record(10, 2, 2, 1000000);
+        assertEquals(2, metrics.getExpansions(), "Two expansions should be recorded.");
+        assertEquals(1, metrics.getCapped(), "Only the first expansion kept fewer terms than matched.");
+        assertEquals(110, metrics.getTermsScanned(), "The scanned terms should be summed.");
+        assertEquals(62, metrics.getTermsMatched(), "The matched terms should be summed.");
+        assertEquals(52, metrics.getTermsKept(), "The kept terms should be summed.");
+        assertEquals(2.0, metrics.getAverageMillis(), 1e-9, "The average time should be 2 ms.");
+        assertEquals(3.0, metrics.getMaxMillis(), 1e-9, "The longest time should be 3 ms.");
+    }
+}
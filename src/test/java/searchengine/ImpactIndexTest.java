@@ -0,0 +1,94 @@
+package searchengine;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Unit tests for the {@link ImpactIndex} class.
+ * <p>
+ * This test class verifies that the blocks of every term are ordered by impact, that
+ * they hold exactly the postings of the term, and that every posting lies within the
+ * bounds of its level.
+ * </p>
+ */
+class ImpactIndexTest {
+    private Segment segment;
+    private ImpactIndex index;
+
+    @TempDir
+    Path directory;
+
+    /**
+     * Builds the impact index of a generated corpus before each test.
+     *
+     * @throws IOException if the corpus cannot be written or read.
+     */
+    @BeforeEach
+    public void setup() throws IOException {
+        Path corpus = ImpactSearcherTest.writeCorpus(directory.resolve("corpus.txt"), new Random(3), 200);
+        segment = new Database(corpus.toString()).getSegments().get(0);
+        index = ImpactIndex.build(segment);
+    }
+
+    /**
+     * Tests that the blocks of every term go from the highest to the lowest level, with
+     * ascending page IDs, and hold exactly the postings of the term.
+     */
+    @Test
+    public void testBlocksHoldPostingsInImpactOrder() {
+        long postings = 0;
+        for (int termId = 0; termId < segment.getDictionary().size(); termId++) {
+            int[] pageIds = new int[0];
+            int previousLevel = ImpactIndex.LEVELS;
+            for (int block = index.getFirstBlock(termId); block < index.getEndBlock(termId); block++) {
+                assertTrue(index.getLevel(block) < previousLevel, "Levels should decrease from block to block.");
+                previousLevel = index.getLevel(block);
+                for (int i = index.getBlockStart(block); i < index.getBlockEnd(block); i++) {
+                    if (i > index.getBlockStart(block)) {
+                        assertTrue(index.getPageId(i - 1) < index.getPageId(i), "Page IDs should ascend in a block.");
+                    }
+                    pageIds = Arrays.copyOf(pageIds, pageIds.length + 1);
+                    pageIds[pageIds.length - 1] = index.getPageId(i);
+                }
+            }
+            Arrays.sort(pageIds);
+            assertArrayEquals(segment.getPostings(termId), pageIds, "The blocks should hold the postings of term " + termId);
+            postings += pageIds.length;
+        }
+        assertEquals(postings, index.getPostingsCount(), "Every posting should be stored once.");
+    }
+
+    /**
+     * Tests that the impact of every posting lies within the bounds of its block's level,
+     * and that postings of terms that are not words are at level 0.
+     */
+    @Test
+    public void testImpactsWithinLevelBounds() {
+        for (int termId = 0; termId < segment.getDictionary().size(); termId++) {
+            for (int block = index.getFirstBlock(termId); block < index.getEndBlock(termId); block++) {
+                int level = index.getLevel(block);
+                for (int i = index.getBlockStart(block); i < index.getBlockEnd(block); i++) {
+                    int pageId = index.getPageId(i);
+                    int frequency = segment.getTermFrequency(termId, pageId);
+                    if (frequency == 0) {
+                        assertEquals(0, level, "A posting that is not a word should be at level 0.");
+                        continue;
+                    }
+                    double impact = (double) frequency / segment.getDocumentLength(pageId);
+                    assertTrue(index.getLowerBound(level) <= impact, "The impact should not be below its level.");
+                    assertTrue(impact <= index.getUpperBound(level), "The impact should not be above its level.");
+                }
+            }
+        }
+        assertEquals(0.0, index.getUpperBound(0), "Level 0 should only hold impacts of 0.");
+        assertEquals(1.0, index.getUpperBound(ImpactIndex.LEVELS - 1), "The highest level should reach 1.");
+    }
+}
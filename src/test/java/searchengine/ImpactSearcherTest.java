@@ -0,0 +1,119 @@
+package searchengine;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Unit tests for the {@link ImpactSearcher} class.
+ * <p>
+ * This test class verifies that the pages read from the impact-ordered posting lists
+ * are the same, in the same order, as the first pages of all matching pages sorted by
+ * {@link TFIDFScoring}, over several segments, and that reading stops early.
+ * </p>
+ */
+class ImpactSearcherTest {
+    private static final String[] WORDS = { "the", "of", "and", "war", "peace", "city", "river", "king", "rare" };
+
+    private SearchEngine searchEngine;
+    private Database database;
+
+    @TempDir
+    Path directory;
+
+    /**
+     * Builds a database of two generated corpus files before each test.
+     *
+     * @throws IOException if the corpus files cannot be written or read.
+     */
+    @BeforeEach
+    public void setup() throws IOException {
+        Random random = new Random(5);
+        IndexConfig config = new IndexConfig();
+        config.setImpacts(true);
+        searchEngine = new SearchEngine(writeCorpus(directory.resolve("first.txt"), random, 300).toString(), config);
+        database = searchEngine.getDatabase();
+        database.addCorpus(writeCorpus(directory.resolve("second.txt"), random, 200).toString());
+        database.waitForMerges();
+    }
+
+    /**
+     * Writes a corpus of pages with words drawn so that earlier words are more common.
+     *
+     * @param path   the file to write.
+     * @param random the random number generator.
+     * @param pages  the number of pages.
+     * @return the path of the corpus.
+     * @throws IOException if the file cannot be written.
+     */
+    static Path writeCorpus(Path path, Random random, int pages) throws IOException {
+        List<String> lines = new ArrayList<>();
+        for (int page = 0; page < pages; page++) {
+            lines.add("*PAGE:http://" + path.getFileName() + "/page" + page);
+            lines.add(WORDS[random.nextInt(WORDS.length)]);
+            int length = 1 + random.nextInt(40);
+            for (int i = 0; i < length; i++) {
+                lines.add(WORDS[(int) (WORDS.length * Math.pow(random.nextDouble(), 2))]);
+            }
+        }
+        Files.write(path, lines);
+        return path;
+    }
+
+    /**
+     * Tests that single words and words combined with OR give the same pages as scoring
+     * and sorting all matching pages.
+     */
+    @Test
+    public void testMatchesSortedSearch() {
+        String[][] queries = { { "the" }, { "rare" }, { "war", "peace" }, { "the", "of", "rare" }, { "missing" },
+                { "king", "missing" } };
+        for (String[] query : queries) {
+            List<List<String>> parsedQuery = new ArrayList<>();
+            for (String word : query) {
+                parsedQuery.add(List.of(word));
+            }
+            List<Page> all = new SortHandler().sortByAlgorithm(searchEngine.search(parsedQuery, false), parsedQuery,
+                    database, new TFIDFScoring());
+            for (int k : new int[] { 0, 1, 5, 50, 1000 }) {
+                int[] found = new ImpactSearcher(database, database.getSegments()).search(List.of(query), k);
+                assertEquals(Math.min(k, all.size()), found.length, "Wrong number of pages for " + String.join(" OR ", query));
+                for (int i = 0; i < found.length; i++) {
+                    assertEquals(all.get(i).getId(), found[i],
+                            "Wrong page at rank " + i + " of the top " + k + " for " + String.join(" OR ", query));
+                }
+            }
+        }
+    }
+
+    /**
+     * Tests that only the front of a posting list is read for a small number of pages.
+     */
+    @Test
+    public void testReadsOnlyTheFront() {
+        ImpactSearcher searcher = new ImpactSearcher(database, database.getSegments());
+        searcher.search(List.of("the"), 3);
+        assertTrue(searcher.getPostingsRead() < database.pagesWithWord("the") / 2,
+                "Finding three pages should read far fewer postings than 'the' has.");
+        assertTrue(searcher.getBlocksRead() > 0, "Some blocks should be read.");
+    }
+
+    /**
+     * Tests that a negative number of pages is rejected.
+     */
+    @Test
+    public void testNegativeCount() {
+        ImpactSearcher searcher = new ImpactSearcher(database, database.getSegments());
+        assertThrows(IllegalArgumentException.class, () -> searcher.search(List.of("the"), -1),
+                "A negative number of pages should be rejected.");
+    }
+}
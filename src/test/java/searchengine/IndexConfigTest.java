@@ -0,0 +1,121 @@
+package searchengine;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the {@link IndexConfig} class.
+ * <p>
+ * This test class verifies that option lines are parsed correctly and that
+ * malformed or unknown options are rejected.
+ * </p>
+ */
+class IndexConfigTest {
+
+    /**
+     * Tests that the thread count is read from a {@code threads=} line, and that blank
+     * lines and comments are ignored.
+     */
+    @Test
+    public void testParseThreads() {
+        IndexConfig config = IndexConfig.parse(List.of("", "# build options", " threads = 4 "));
+        assertEquals(4, config.getThreads(), "Thread count should be read from the options.");
+    }
+
+    /**
+     * Tests that an empty option list keeps the default thread count.
+     */
+    @Test
+    public void testParseEmptyKeepsDefaults() {
+        IndexConfig config = IndexConfig.parse(List.of());
+        assertEquals(Runtime.getRuntime().availableProcessors(), config.getThreads(),
+                "Default thread count should be the number of processors.");
+    }
+
+    /**
+     * Tests that unknown options, malformed lines, and invalid values throw an
+     * {@link IllegalArgumentException}.
+     */
+    @Test
+    public void testParseRejectsInvalidOptions() {
+        assertThrows(IllegalArgumentException.class, () -> IndexConfig.parse(List.of("colour=blue")));
+        assertThrows(IllegalArgumentException.class, () -> IndexConfig.parse(List.of("threads")));
+        assertThrows(IllegalArgumentException.class, () -> IndexConfig.parse(List.of("threads=0")));
+        assertThrows(IllegalArgumentException.class, () -> IndexConfig.parse(List.of("threads=many")));
+        assertThrows(IllegalArgumentException.class, () -> IndexConfig.parse(List.of("codec=zip")));
+        assertThrows(IllegalArgumentException.class, () -> IndexConfig.parse(List.of("mergeFactor=1")));
+        assertThrows(IllegalArgumentException.class, () -> IndexConfig.parse(List.of("minSegmentPages=0")));
+        assertThrows(IllegalArgumentException.class, () -> IndexConfig.parse(List.of("maxExpansions=0")));
+    }
+
+    /**
+     * Tests that the postings codec is read from a {@code codec=} line and that the
+     * matching codec is created.
+     */
+    @Test
+    public void testParseCodec() {
+        IndexConfig config = IndexConfig.parse(List.of("codec=vbyte"));
+        assertEquals(IndexConfig.CODEC_VBYTE, config.getCodec(), "Codec should be read from the options.");
+        assertTrue(config.createCodec() instanceof VByteCodec, "A VByteCodec should be created.");
+        assertTrue(new IndexConfig().createCodec() instanceof PForCodec, "PFor should be the default codec.");
+    }
+
+    /**
+     * Tests that the merge factor is read from a {@code mergeFactor=} line.
+     */
+    @Test
+    public void testParseMergeFactor() {
+        assertEquals(4, new IndexConfig().getMergeFactor(), "The default merge factor should be 4.");
+        assertEquals(8, IndexConfig.parse(List.of("mergeFactor=8")).getMergeFactor(),
+                "Merge factor should be read from the options.");
+    }
+
+    /**
+     * Tests that the size of the smallest merge tier is read from a
+     * {@code minSegmentPages=} line.
+     */
+    @Test
+    public void testParseMinSegmentPages() {
+        assertEquals(1000, new IndexConfig().getMinSegmentPages(), "The smallest tier should default to 1000 pages.");
+        assertEquals(10, IndexConfig.parse(List.of("minSegmentPages=10")).getMinSegmentPages(),
+                "The smallest tier should be read from the options.");
+    }
+
+    /**
+     * Tests that the expansion cap is read from a {@code maxExpansions=} line.
+     */
+    @Test
+    public void testParseMaxExpansions() {
+        assertEquals(50, new IndexConfig().getMaxExpansions(), "The default expansion cap should be 50.");
+        assertEquals(10, IndexConfig.parse(List.of("maxExpansions=10")).getMaxExpansions(),
+                "The expansion cap should be read from the options.");
+    }
+
+    /**
+     * Tests that impact-ordered posting lists are enabled by an {@code impacts=} line,
+     * and that other values than {@code true} and {@code false} are rejected.
+     */
+    @Test
+    public void testParseImpacts() {
+        assertFalse(new IndexConfig().isImpacts(), "Impacts should be disabled by default.");
+        assertTrue(IndexConfig.parse(List.of("impacts=true")).isImpacts(), "Impacts should be enabled.");
+        assertFalse(IndexConfig.parse(List.of("impacts=false")).isImpacts(), "Impacts should be disabled.");
+        assertThrows(IllegalArgumentException.class, () -> IndexConfig.parse(List.of("impacts=yes")),
+                "A value other than true or false should be rejected.");
+    }
+
+    /**
+     * Tests that dynamic pruning is enabled by default and can be disabled by a
+     * {@code pruning=} line.
+     */
+    @Test
+    public void testParsePruning() {
+        assertTrue(new IndexConfig().isPruning(), "Pruning should be enabled by default.");
+        assertFalse(IndexConfig.parse(List.of("pruning=false")).isPruning(), "Pruning should be disabled.");
+        assertThrows(IllegalArgumentException.class, () -> IndexConfig.parse(List.of("pruning=no")),
+                "A value other than true or false should be rejected.");
+    }
+}
@@ -0,0 +1,156 @@
+package searchengine;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Unit tests for the {@link IndexSnapshot} class.
+ * <p>
+ * This test class verifies that a snapshot written after a build reproduces the index,
+ * that it is reused while the corpus is unchanged, and that the index is rebuilt when the
+ * corpus or codec changes or the snapshot is corrupt.
+ * </p>
+ */
+class IndexSnapshotTest {
+    private static final Path TEST_FILE_PATH = Paths.get("src/test/java/searchengine/resources/test-file.txt");
+    private static final FileTime OLD_TIME = FileTime.fromMillis(1000000000000L);
+
+    @TempDir
+    Path directory;
+
+    private Path corpus;
+    private Path snapshot;
+    private IndexConfig config;
+
+    /**
+     * Copies the test corpus into a temporary directory and configures a snapshot next to it.
+     *
+     * @throws IOException if the test file cannot be copied.
+     */
+    @BeforeEach
+    public void setUp() throws IOException {
+        corpus = directory.resolve("corpus.txt");
+        snapshot = directory.resolve("corpus.txt.snapshot");
+        Files.copy(TEST_FILE_PATH, corpus);
+        config = new IndexConfig();
+        config.setSnapshot(snapshot.toString());
+    }
+
+    /**
+     * Tests that a database loaded from a snapshot has the same terms, postings and pages
+     * as the database that wrote it, and that loading does not rewrite the snapshot.
+     *
+     * @throws IOException if the corpus or snapshot cannot be accessed.
+     */
+    @Test
+    public void testSnapshotReproducesIndex() throws IOException {
+        Database built = new Database(corpus.toString(), config);
+        assertTrue(Files.exists(snapshot), "A snapshot should be written after the build.");
+        Files.setLastModifiedTime(snapshot, OLD_TIME);
+
+        Database loaded = new Database(corpus.toString(), config);
+        assertEquals(OLD_TIME, Files.getLastModifiedTime(snapshot), "Loading should not rewrite the snapshot.");
+        assertEquals(built.getTotalPages(), loaded.getTotalPages(), "Page counts should match.");
+        Segment builtSegment = built.getSegments().get(0);
+        Segment loadedSegment = loaded.getSegments().get(0);
+        assertEquals(builtSegment.getDictionary().size(), loadedSegment.getDictionary().size(),
+                "Term counts should match.");
+        for (int termId = 0; termId < builtSegment.getDictionary().size(); termId++) {
+            assertEquals(builtSegment.getDictionary().getTerm(termId), loadedSegment.getDictionary().getTerm(termId),
+                    "Terms should match.");
+            assertArrayEquals(builtSegment.getPostings(termId), loadedSegment.getPostings(termId),
+                    "Page IDs should match.");
+            assertArrayEquals(builtSegment.getFrequencies(termId), loadedSegment.getFrequencies(termId),
+                    "Frequencies should match.");
+            IntList builtPositions = new IntList();
+            IntList loadedPositions = new IntList();
+            for (int ordinal = 0; ordinal < builtSegment.getDocumentFrequency(termId); ordinal++) {
+                builtSegment.getPositions(termId, ordinal, builtPositions);
+                loadedSegment.getPositions(termId, ordinal, loadedPositions);
+                assertArrayEquals(builtPositions.toArray(), loadedPositions.toArray(), "Positions should match.");
+            }
+        }
+        TitleIndex builtTitles = builtSegment.getTitleIndex();
+        TitleIndex loadedTitles = loadedSegment.getTitleIndex();
+        assertEquals(builtTitles.size(), loadedTitles.size(), "Title word counts should match.");
+        for (int termId = 0; termId < builtTitles.size(); termId++) {
+            assertEquals(builtTitles.getDictionary().getTerm(termId), loadedTitles.getDictionary().getTerm(termId),
+                    "Title words should match.");
+            assertArrayEquals(builtTitles.getPostings(termId), loadedTitles.getPostings(termId),
+                    "Title page IDs should match.");
+            assertArrayEquals(builtTitles.getFrequencies(termId), loadedTitles.getFrequencies(termId),
+                    "Title frequencies should match.");
+        }
+        for (int pageId = 0; pageId < built.getTotalPages(); pageId++) {
+            assertEquals(built.getTitleLength(pageId), loaded.getTitleLength(pageId), "Title lengths should match.");
+            assertEquals(built.getUrl(pageId), loaded.getUrl(pageId), "URLs should match.");
+            assertEquals(built.getTitle(pageId), loaded.getTitle(pageId), "Titles should match.");
+            assertEquals(built.getDocumentLength(pageId), loaded.getDocumentLength(pageId), "Lengths should match.");
+        }
+    }
+
+    /**
+     * Tests that a snapshot is still used when the corpus was only touched, because its
+     * checksum is unchanged.
+     *
+     * @throws IOException if the corpus or snapshot cannot be accessed.
+     */
+    @Test
+    public void testTouchedCorpusKeepsSnapshot() throws IOException {
+        new Database(corpus.toString(), config);
+        Files.setLastModifiedTime(snapshot, OLD_TIME);
+        Files.setLastModifiedTime(corpus, FileTime.fromMillis(System.currentTimeMillis() + 60000));
+
+        new Database(corpus.toString(), config);
+        assertEquals(OLD_TIME, Files.getLastModifiedTime(snapshot), "The snapshot should have been reused.");
+    }
+
+    /**
+     * Tests that the index is rebuilt when the corpus changes.
+     *
+     * @throws IOException if the corpus or snapshot cannot be accessed.
+     */
+    @Test
+    public void testChangedCorpusIsRebuilt() throws IOException {
+        new Database(corpus.toString(), config);
+        Files.writeString(corpus, "\n*PAGE:http://page5.com\ntitle5\nword5\n", StandardCharsets.UTF_8,
+                StandardOpenOption.APPEND);
+
+        Database database = new Database(corpus.toString(), config);
+        assertEquals(5, database.getTotalPages(), "The new page should be indexed.");
+        assertEquals(1, database.pagesWithWord("word5"), "The new word should be indexed.");
+        assertEquals(5, new Database(corpus.toString(), config).getTotalPages(), "The new snapshot should be used.");
+    }
+
+    /**
+     * Tests that the index is rebuilt when the snapshot was written with another codec or
+     * is corrupt.
+     *
+     * @throws IOException if the corpus or snapshot cannot be accessed.
+     */
+    @Test
+    public void testMismatchedOrCorruptSnapshotIsRebuilt() throws IOException {
+        new Database(corpus.toString(), config);
+        Files.setLastModifiedTime(snapshot, OLD_TIME);
+        config.setCodec(IndexConfig.CODEC_VBYTE);
+        Database database = new Database(corpus.toString(), config);
+        assertNotEquals(OLD_TIME, Files.getLastModifiedTime(snapshot), "A snapshot with another codec should be replaced.");
+        assertEquals(4, database.getTotalPages(), "The index should be rebuilt.");
+
+        Files.write(snapshot, new byte[] { 1, 2, 3 });
+        database = new Database(corpus.toString(), config);
+        assertEquals(4, database.getTotalPages(), "A corrupt snapshot should be replaced by a rebuild.");
+        assertEquals(2, database.pagesWithWord("word1"), "The rebuilt index should be complete.");
+    }
+}
@@ -0,0 +1,77 @@
+package searchengine;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the {@link KGramIndex} class.
+ * <p>
+ * This test class verifies the term lists of single k-grams and the candidates of
+ * wildcard patterns, compared with checking every term of the dictionary.
+ * </p>
+ */
+class KGramIndexTest {
+    private TermDictionary dictionary;
+    private KGramIndex index;
+
+    /**
+     * Builds the k-gram index of a small dictionary before each test.
+     */
+    @BeforeEach
+    public void setup() {
+        String[] terms = { "astrology", "astronomy", "biology", "geology", "logo", "lolo", "zoology" };
+        dictionary = new TermDictionary(terms);
+        index = KGramIndex.build(dictionary);
+    }
+
+    /**
+     * Tests the terms listed for single k-grams.
+     */
+    @Test
+    public void testGetTermIds() {
+        assertArrayEquals(new int[] { 0, 1 }, index.getTermIds("$as"), "Only terms starting with 'as' should be listed.");
+        assertArrayEquals(new int[] { 0, 2, 3, 6 }, index.getTermIds("gy$"), "Only terms ending with 'gy' should be listed.");
+        assertArrayEquals(new int[] { 5 }, index.getTermIds("lol"), "Only 'lolo' contains 'lol'.");
+        assertArrayEquals(new int[] { 4, 5 }, index.getTermIds("$lo"), "A term should be listed once per k-gram.");
+        assertEquals(0, index.getTermIds("xyz").length, "A missing k-gram should have no terms.");
+    }
+
+    /**
+     * Tests that the candidates of patterns include every matching term.
+     */
+    @Test
+    public void testGetCandidates() {
+        for (String pattern : new String[] { "*logy", "*olo*", "*ono*", "*o*y", "*lo*o" }) {
+            WildcardPattern wildcard = new WildcardPattern(pattern);
+            List<String> grams = wildcard.getGrams(KGramIndex.K);
+            if (grams.isEmpty()) {
+                continue;
+            }
+            int[] candidates = index.getCandidates(grams);
+            for (int termId = 0; termId < dictionary.size(); termId++) {
+                boolean candidate = Arrays.binarySearch(candidates, termId) >= 0;
+                if (wildcard.matches(dictionary.getTerm(termId))) {
+                    assertTrue(candidate, dictionary.getTerm(termId) + " should be a candidate of " + pattern);
+                }
+            }
+        }
+        assertArrayEquals(new int[] { 0, 2, 3, 6 }, index.getCandidates(List.of("log", "ogy", "gy$")),
+                "The candidates of '*logy' should be the terms containing all its k-grams.");
+        assertThrows(IllegalArgumentException.class, () -> index.getCandidates(List.of()),
+                "At least one k-gram should be required.");
+    }
+
+    /**
+     * Tests the size of the index.
+     */
+    @Test
+    public void testSize() {
+        assertTrue(index.size() > 0, "The index should hold k-grams.");
+        assertTrue(index.getPostingsCount() >= index.size(), "Every k-gram should list at least one term.");
+    }
+}
@@ -0,0 +1,138 @@
+package searchengine;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the {@link LevenshteinAutomaton} class.
+ * <p>
+ * This test class verifies the states of the automaton on single strings, and that
+ * intersecting it with a dictionary finds exactly the terms within the maximum number of
+ * edits, as found by comparing the word with every term.
+ * </p>
+ */
+class LevenshteinAutomatonTest {
+    private String[] terms;
+    private TermDictionary dictionary;
+
+    /**
+     * Builds a dictionary of all strings of up to four letters from {@code a} to
+     * {@code d}, plus a few longer words, before each test.
+     */
+    @BeforeEach
+    public void setup() {
+        List<String> words = new ArrayList<>(List.of("kitten", "sitting", "mitten", "smitten", "knitting"));
+        List<String> level = List.of("");
+        for (int length = 1; length <= 4; length++) {
+            List<String> next = new ArrayList<>();
+            for (String prefix : level) {
+                for (char c = 'a'; c <= 'd'; c++) {
+                    next.add(prefix + c);
+                }
+            }
+            words.addAll(next);
+            level = next;
+        }
+        terms = words.toArray(new String[0]);
+        TermDictionary.sort(terms);
+        dictionary = new TermDictionary(terms);
+    }
+
+    /**
+     * Tests the states reached by reading whole strings.
+     */
+    @Test
+    public void testStates() {
+        LevenshteinAutomaton automaton = new LevenshteinAutomaton("kitten", 2);
+        assertTrue(automaton.isMatch(read(automaton, "kitten")), "The word itself should be accepted.");
+        assertEquals(1, automaton.distance(read(automaton, "mitten")), "One replacement should be counted.");
+        assertEquals(2, automaton.distance(read(automaton, "smitten")),
+                "'smitten' is one insertion and one replacement from 'kitten'.");
+        assertFalse(automaton.isMatch(read(automaton, "sitting")), "'sitting' is three edits from 'kitten'.");
+        assertTrue(automaton.canMatch(read(automaton, "kit")), "A prefix of the word can still be completed.");
+        assertFalse(automaton.canMatch(read(automaton, "xyz")), "Three wrong characters cannot be recovered.");
+    }
+
+    /**
+     * Tests that the intersection with a dictionary finds the same terms and distances as
+     * comparing the word with every term.
+     */
+    @Test
+    public void testIntersectMatchesBruteForce() {
+        for (String word : new String[] { "abc", "dd", "a", "kitten", "bcda", "xyz", "" }) {
+            for (int maxEdits = 0; maxEdits <= LevenshteinAutomaton.MAX_EDITS; maxEdits++) {
+                LevenshteinAutomaton.Matches matches = new LevenshteinAutomaton(word, maxEdits).intersect(dictionary);
+                List<Integer> expected = new ArrayList<>();
+                for (int termId = 0; termId < terms.length; termId++) {
+                    if (editDistance(word, terms[termId]) <= maxEdits) {
+                        expected.add(termId);
+                    }
+                }
+                List<Integer> actual = new ArrayList<>();
+                for (int i = 0; i < matches.getTermIds().length; i++) {
+                    int termId = matches.getTermIds()[i];
+                    actual.add(termId);
+                    assertEquals(editDistance(word, terms[termId]), matches.getDistances()[i],
+                            "The distance of '" + terms[termId] + "' to '" + word + "' should be exact.");
+                }
+                assertEquals(expected, actual, "Wrong matches for '" + word + "' within " + maxEdits + " edits.");
+            }
+        }
+    }
+
+    /**
+     * Tests that an unsupported number of edits is rejected.
+     */
+    @Test
+    public void testInvalidMaxEdits() {
+        assertThrows(IllegalArgumentException.class, () -> new LevenshteinAutomaton("word", 3),
+                "More than two edits should be rejected.");
+        assertThrows(IllegalArgumentException.class, () -> new LevenshteinAutomaton("word", -1),
+                "A negative number of edits should be rejected.");
+    }
+
+    /**
+     * Runs the automaton over a string from its start state.
+     *
+     * @param automaton the automaton.
+     * @param text      the characters to read.
+     * @return the state reached.
+     */
+    private int[] read(LevenshteinAutomaton automaton, String text) {
+        int[] state = automaton.start();
+        for (int i = 0; i < text.length(); i++) {
+            int[] next = new int[state.length];
+            automaton.step(state, text.charAt(i), next);
+            state = next;
+        }
+        return state;
+    }
+
+    /**
+     * Computes the edit distance of two strings with the full dynamic programming table.
+     *
+     * @param a the first string.
+     * @param b the second string.
+     * @return the least number of insertions, deletions and replacements turning
+     *         {@code a} into {@code b}.
+     */
+    private int editDistance(String a, String b) {
+        int[][] table = new int[a.length() + 1][b.length() + 1];
+        for (int i = 0; i <= a.length(); i++) {
+            for (int j = 0; j <= b.length(); j++) {
+                if (i == 0 || j == 0) {
+                    table[i][j] = i + j;
+                } else {
+                    int replace = table[i - 1][j - 1] + (a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1);
+                    table[i][j] = Math.min(replace, Math.min(table[i - 1][j], table[i][j - 1]) + 1);
+                }
+            }
+        }
+        return table[a.length()][b.length()];
+    }
+}
@@ -0,0 +1,98 @@
+package searchengine;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the {@link LiveDocs} class.
+ * <p>
+ * This test class verifies that deletions are counted once, that purged pages are told
+ * apart from pending deletions, and that filtered posting iterators skip deleted pages.
+ * </p>
+ */
+class LiveDocsTest {
+    private static final Path TEST_FILE_PATH = Paths.get("src/test/java/searchengine/resources/test-file.txt");
+    private LiveDocs liveDocs;
+
+    /**
+     * Creates live docs for 130 pages, so the bits span three words.
+     */
+    @BeforeEach
+    public void setup() {
+        liveDocs = new LiveDocs(130, new int[0]);
+    }
+
+    /**
+     * Tests that a page is deleted once, and that deletions in every word of the bitset
+     * are counted and listed.
+     */
+    @Test
+    public void testDelete() {
+        assertFalse(liveDocs.isDeleted(64), "No page should be deleted at first.");
+        assertTrue(liveDocs.delete(64), "A live page should be deleted.");
+        assertFalse(liveDocs.delete(64), "A deleted page should not be deleted again.");
+        assertTrue(liveDocs.delete(0), "The first page should be deleted.");
+        assertTrue(liveDocs.delete(129), "The last page should be deleted.");
+        assertTrue(liveDocs.isDeleted(64), "The deleted page should be marked.");
+        assertFalse(liveDocs.isDeleted(63), "The page before it should stay live.");
+        assertFalse(liveDocs.isDeleted(65), "The page after it should stay live.");
+        assertEquals(3, liveDocs.getDeletedCount(), "Each page should be counted once.");
+        assertArrayEquals(new int[] { 0, 64, 129 }, liveDocs.toArray(), "The deleted pages should be listed in order.");
+    }
+
+    /**
+     * Tests that the set of deleted pages is rebuilt after a deletion.
+     */
+    @Test
+    public void testDeletedSetFollowsDeletions() {
+        liveDocs.delete(5);
+        PageIdSet first = liveDocs.getDeletedSet();
+        assertSame(first, liveDocs.getDeletedSet(), "The set should be shared while nothing is deleted.");
+        liveDocs.delete(7);
+        assertArrayEquals(new int[] { 5, 7 }, liveDocs.getDeletedSet().toArray(),
+                "The set should include the new deletion.");
+    }
+
+    /**
+     * Tests that purged pages are deleted but do not count as pending deletions.
+     */
+    @Test
+    public void testPurgedPages() {
+        LiveDocs merged = new LiveDocs(10, new int[] { 2, 3 });
+        assertTrue(merged.isDeleted(2), "Purged pages should be deleted.");
+        assertEquals(0, merged.getPendingCount(), "Purged pages should not be pending.");
+        merged.delete(4);
+        assertEquals(3, merged.getDeletedCount(), "Purged and new deletions should be counted.");
+        assertEquals(1, merged.getPendingCount(), "Only the new deletion should be pending.");
+    }
+
+    /**
+     * Tests that a filtered iterator skips deleted pages on both {@code next} and
+     * {@code advance}, and keeps the frequencies of the live pages.
+     *
+     * @throws IOException if the test file cannot be read.
+     */
+    @Test
+    public void testFilter() throws IOException {
+        Segment segment = new SegmentBuilder(new IndexConfig()).build(TEST_FILE_PATH);
+        int termId = segment.getTermId("word1");
+        LiveDocs pages = new LiveDocs(segment.getTotalPages(), new int[0]);
+        pages.delete(0);
+        PostingsIterator iterator = pages.filter(segment.getBlockPostingsIterator(termId));
+        assertEquals(3, iterator.next(), "Page1 is deleted, so page4 should come first.");
+        assertEquals(1, iterator.freq(), "'word1' occurs once on page4.");
+        assertEquals(PostingsIterator.NO_MORE_DOCS, iterator.next(), "Page4 is the last page with 'word1'.");
+
+        iterator = pages.filter(segment.getBlockPostingsIterator(termId));
+        assertEquals(3, iterator.advance(0), "Advancing to the deleted page should land on page4.");
+        pages.delete(3);
+        iterator = pages.filter(segment.getBlockPostingsIterator(termId));
+        assertEquals(PostingsIterator.NO_MORE_DOCS, iterator.next(), "No live page should contain 'word1'.");
+    }
+}
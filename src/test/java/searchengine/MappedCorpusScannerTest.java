@@ -0,0 +1,62 @@
+package searchengine;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the {@link MappedCorpusScanner} class.
+ * <p>
+ * This test class verifies that the memory-mapped scanner yields exactly the same
+ * records as the streaming {@link CorpusReader}, and that repeated lines share one
+ * {@link String} instance.
+ * </p>
+ */
+class MappedCorpusScannerTest {
+
+    private static final Path TEST_FILE_PATH = Paths.get("src/test/java/searchengine/resources/test-file.txt");
+    private static final Path ERROR_FILE_PATH = Paths.get("data/test-file-errors.txt");
+    private static final Path TINY_FILE_PATH = Paths.get("data/enwiki-tiny.txt");
+
+    /**
+     * Tests that the scanner and the streaming reader return the same records for
+     * well-formed and malformed files.
+     *
+     * @throws IOException if a test file cannot be read.
+     */
+    @Test
+    public void testRecordsMatchCorpusReader() throws IOException {
+        for (Path path : List.of(TEST_FILE_PATH, ERROR_FILE_PATH, TINY_FILE_PATH)) {
+            try (CorpusReader expected = new CorpusReader(path);
+                    MappedCorpusScanner actual = new MappedCorpusScanner(path)) {
+                List<String> record;
+                while ((record = expected.nextPage()) != null) {
+                    assertEquals(record, actual.nextPage(), "Records of " + path + " should match.");
+                }
+                assertNull(actual.nextPage(), "Scanner should end together with the reader on " + path + ".");
+            }
+        }
+    }
+
+    /**
+     * Tests that equal lines on different pages are returned as the same instance.
+     *
+     * @throws IOException if the test file cannot be read.
+     */
+    @Test
+    public void testRepeatedWordsShareOneInstance() throws IOException {
+        try (MappedCorpusScanner scanner = new MappedCorpusScanner(TEST_FILE_PATH)) {
+            String first = scanner.nextPage().get(2);
+            scanner.nextPage();
+            scanner.nextPage();
+            String second = scanner.nextPage().get(2);
+            assertEquals("word1", first, "Third line of page 1 should be 'word1'.");
+            assertSame(first, second, "Both occurrences of 'word1' should be the same instance.");
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package searchengine;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the {@link PForCodec} class.
+ * <p>
+ * This test class verifies that blocks survive an encode/decode round trip, including
+ * blocks with exceptions, and that uniform blocks are bit-packed.
+ * </p>
+ */
+class PForCodecTest {
+
+    /**
+     * Tests that a block of small values with a few large exceptions decodes to the
+     * values that were encoded, and that the returned offset is the end of the block.
+     */
+    @Test
+    public void testRoundTripWithExceptions() {
+        Random random = new Random(42);
+        int[] values = new int[PostingsWriter.BLOCK_SIZE];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = random.nextInt(16);
+        }
+        values[3] = 100000;
+        values[77] = Integer.MAX_VALUE;
+        assertRoundTrip(values, values.length);
+    }
+
+    /**
+     * Tests that partial blocks, blocks of zeros, and blocks of large values decode
+     * correctly.
+     */
+    @Test
+    public void testRoundTripEdgeCases() {
+        int[] large = new int[PostingsWriter.BLOCK_SIZE];
+        for (int i = 0; i < large.length; i++) {
+            large[i] = Integer.MAX_VALUE - i;
+        }
+        assertRoundTrip(new int[] { 5, Integer.MAX_VALUE, 0 }, 3);
+        assertRoundTrip(new int[PostingsWriter.BLOCK_SIZE], PostingsWriter.BLOCK_SIZE);
+        assertRoundTrip(large, large.length);
+    }
+
+    /**
+     * Tests that a block of values below 16 is packed into four bits per value.
+     */
+    @Test
+    public void testUniformBlockIsBitPacked() {
+        int[] values = new int[PostingsWriter.BLOCK_SIZE];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = 8 + i % 8;
+        }
+        ByteList out = new ByteList();
+        new PForCodec().encode(values, values.length, out);
+        assertEquals(2 + values.length / 2, out.size(), "Values should take four bits each plus a two-byte header.");
+    }
+
+    /**
+     * Encodes and decodes a block after a few unrelated bytes, and checks the result.
+     *
+     * @param values the values to encode.
+     * @param count  the number of values in the block.
+     */
+    private void assertRoundTrip(int[] values, int count) {
+        ByteList out = new ByteList();
+        out.add(0xAB);
+        PForCodec codec = new PForCodec();
+        codec.encode(values, count, out);
+
+        int[] decoded = new int[count];
+        int end = codec.decode(ByteBuffer.wrap(out.toArray()), 1, decoded, count);
+        for (int i = 0; i < count; i++) {
+            assertEquals(values[i], decoded[i], "Value " + i + " should survive the round trip.");
+        }
+        assertEquals(out.size(), end, "Decoding should end at the end of the block.");
+    }
+}
@@ -0,0 +1,213 @@
+package searchengine;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the {@link PageIdSet} class.
+ * <p>
+ * This test class verifies set operations against {@link BitSet} on sparse, dense and
+ * clustered sets, so that every combination of array, bitmap and run containers is
+ * exercised.
+ * </p>
+ */
+class PageIdSetTest {
+    private static final int MAX_PAGE_ID = 300000;
+
+    /**
+     * Tests that a set built from sorted IDs holds exactly those IDs.
+     */
+    @Test
+    public void testOfAndContains() {
+        PageIdSet set = PageIdSet.of(new int[] { 1, 5, 70000, 70001 });
+        assertEquals(4, set.cardinality(), "Set should hold four IDs.");
+        assertTrue(set.contains(70000), "Set should contain 70000.");
+        assertFalse(set.contains(2), "Set should not contain 2.");
+        assertArrayEquals(new int[] { 1, 5, 70000, 70001 }, set.toArray(), "IDs should be returned in order.");
+        assertTrue(PageIdSet.empty().isEmpty(), "Empty set should be empty.");
+    }
+
+    /**
+     * Tests intersection, union and difference for every pair of sparse, dense and
+     * clustered sets.
+     */
+    @Test
+    public void testOperationsMatchBitSet() {
+        Random random = new Random(7);
+        BitSet[] references = {
+                randomSet(random, 0.001), randomSet(random, 0.02), randomSet(random, 0.5), clusteredSet(random) };
+        for (BitSet first : references) {
+            for (BitSet second : references) {
+                PageIdSet a = toPageIdSet(first);
+                PageIdSet b = toPageIdSet(second);
+
+                BitSet and = (BitSet) first.clone();
+                and.and(second);
+                assertSameIds(and, a.and(b), "AND");
+                BitSet or = (BitSet) first.clone();
+                or.or(second);
+                assertSameIds(or, a.or(b), "OR");
+                BitSet andNot = (BitSet) first.clone();
+                andNot.andNot(second);
+                assertSameIds(andNot, a.andNot(b), "ANDNOT");
+            }
+        }
+    }
+
+    /**
+     * Tests that removing a set from itself and intersecting disjoint sets give empty sets.
+     */
+    @Test
+    public void testEmptyResults() {
+        PageIdSet set = PageIdSet.of(new int[] { 3, 4, 5, 100000 });
+        assertTrue(set.andNot(set).isEmpty(), "A set minus itself should be empty.");
+        assertTrue(set.and(PageIdSet.of(new int[] { 6, 99999 })).isEmpty(), "Disjoint sets should not intersect.");
+        assertArrayEquals(set.toArray(), set.or(PageIdSet.empty()).toArray(), "Union with the empty set should be unchanged.");
+    }
+
+    /**
+     * Tests that the union of many posting lists matches the union of their bit sets.
+     */
+    @Test
+    public void testUnionMatchesBitSet() {
+        Random random = new Random(11);
+        BitSet expected = new BitSet();
+        List<PostingsIterator> iterators = new ArrayList<>();
+        for (double probability : new double[] { 0.0001, 0.001, 0.02, 0.3 }) {
+            BitSet set = randomSet(random, probability);
+            expected.or(set);
+            iterators.add(new ArrayPostingsIterator(set.stream().toArray()));
+        }
+        iterators.add(new ArrayPostingsIterator(new int[0]));
+        assertSameIds(expected, PageIdSet.union(iterators, MAX_PAGE_ID), "UNION");
+        assertArrayEquals(new int[] { 2, 7 },
+                PageIdSet.union(List.of(new ArrayPostingsIterator(new int[] { 2, 7 })), MAX_PAGE_ID).toArray(),
+                "The union of a single list should be that list.");
+        assertTrue(PageIdSet.union(List.of(), MAX_PAGE_ID).isEmpty(), "The union of no lists should be empty.");
+    }
+
+    /**
+     * Tests that an iterator over a set returns its IDs in order and advances to the
+     * first ID at least the target.
+     */
+    @Test
+    public void testIterator() {
+        PageIdSet set = PageIdSet.of(new int[] { 3, 8, 70000, 70001, 200000 });
+        PostingsIterator iterator = set.iterator();
+        assertEquals(5, iterator.cost(), "The cost should be the number of IDs.");
+        assertEquals(3, iterator.next(), "The first ID should come first.");
+        assertEquals(1, iterator.freq(), "Every ID should have a frequency of 1.");
+        assertEquals(70000, iterator.advance(9), "Advance should move to the next group.");
+        assertEquals(70000, iterator.advance(5), "Advance should not move backwards.");
+        assertEquals(70001, iterator.next(), "Next should continue after an advance.");
+        assertEquals(PostingsIterator.NO_MORE_DOCS, iterator.advance(200001), "No ID should be past the last.");
+        assertEquals(PostingsIterator.NO_MORE_DOCS, PageIdSet.empty().iterator().next(),
+                "The empty set should have no IDs.");
+    }
+
+    /**
+     * Creates a random set in which each ID is present with the given probability.
+     *
+     * @param random      the random number generator.
+     * @param probability the probability of each ID being present.
+     * @return the random set.
+     */
+    private BitSet randomSet(Random random, double probability) {
+        BitSet set = new BitSet();
+        for (int pageId = 0; pageId < MAX_PAGE_ID; pageId++) {
+            if (random.nextDouble() < probability) {
+                set.set(pageId);
+            }
+        }
+        return set;
+    }
+
+    /**
+     * Creates a random set made of long runs of consecutive IDs.
+     *
+     * @param random the random number generator.
+     * @return the random set.
+     */
+    private BitSet clusteredSet(Random random) {
+        BitSet set = new BitSet();
+        for (int start = random.nextInt(1000); start < MAX_PAGE_ID; start += 2000 + random.nextInt(20000)) {
+            set.set(start, Math.min(MAX_PAGE_ID, start + 500 + random.nextInt(5000)));
+        }
+        return set;
+    }
+
+    /**
+     * Converts a {@link BitSet} into a {@link PageIdSet}.
+     *
+     * @param set the set to convert.
+     * @return a page ID set holding the same IDs.
+     */
+    private PageIdSet toPageIdSet(BitSet set) {
+        return PageIdSet.of(set.stream().toArray());
+    }
+
+    /**
+     * Checks that a page ID set holds the same IDs as a reference set.
+     *
+     * @param expected  the reference set.
+     * @param actual    the page ID set to check.
+     * @param operation the name of the operation that produced the set.
+     */
+    private void assertSameIds(BitSet expected, PageIdSet actual, String operation) {
+        assertArrayEquals(expected.stream().toArray(), actual.toArray(), operation + " should match BitSet.");
+        assertEquals(expected.cardinality(), actual.cardinality(), operation + " cardinality should match.");
+        assertEquals(expected.isEmpty(), actual.isEmpty(), operation + " emptiness should match.");
+    }
+
+    /**
+     * A {@link PostingsIterator} over an array of page IDs, all with a frequency of 1.
+     */
+    private static final class ArrayPostingsIterator implements PostingsIterator {
+        private final int[] pageIds;
+        private int index = -1;
+
+        /**
+         * Constructs a new {@code ArrayPostingsIterator}.
+         *
+         * @param pageIds the page IDs in ascending order.
+         */
+        ArrayPostingsIterator(int[] pageIds) {
+            this.pageIds = pageIds;
+        }
+
+        @Override
+        public int docId() {
+            return index < 0 ? -1 : index < pageIds.length ? pageIds[index] : NO_MORE_DOCS;
+        }
+
+        @Override
+        public int next() {
+            index = Math.min(index + 1, pageIds.length);
+            return docId();
+        }
+
+        @Override
+        public int advance(int target) {
+            while (next() < target) {
+                // Skip to the first page ID at or after the target.
+            }
+            return docId();
+        }
+
+        @Override
+        public int freq() {
+            return 1;
+        }
+
+        @Override
+        public long cost() {
+            return pageIds.length;
+        }
+    }
+}
@@ -76,6 +76,8 @@ class PageTest {
         assertEquals(0, page.getWordFrequency(""), "Empty input should return 0.");
         assertEquals(0, page.getWordFrequency("*PAGE:"), "Ignored lines should return 0.");
         assertEquals(0, page.getWordFrequency("title"), "Ignored title lines should return 0.");
+        assertEquals(1, page.getWordFrequency("WORD3"), "'WORD3' should be counted as written.");
+        assertEquals(0, page.getWordFrequency("word3"), "Words should be matched with their case.");
     }
 
     /**
@@ -183,4 +185,17 @@ class PageTest {
             throw new RuntimeException("Unable to set page ID for testing", e);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Tests that the title is recognized by its place in the page, so that words starting
+     * with {@code title} are counted and a title that does not is not.
+     */
+    @Test
+    public void testTitleIsRecognizedByPosition() {
+        Page page = new Page(Arrays.asList("*PAGE:http://page1.com", "word1", "titles", "title", "word1"));
+        assertEquals(1, page.getWordFrequency("titles"), "'titles' in the body should be counted.");
+        assertEquals(1, page.getWordFrequency("title"), "'title' in the body should be counted.");
+        assertEquals(1, page.getWordFrequency("word1"), "The title line should not be counted.");
+        assertEquals(3, page.getTotalWords(), "All body lines should be counted.");
+    }
+}
@@ -0,0 +1,96 @@
+package searchengine;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.ByteBuffer;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the {@link PositionsReader} class.
+ * <p>
+ * This test class verifies that positions written by {@link PositionsWriter} are read
+ * back for every page of a posting list, including lists spanning several blocks and
+ * pages without positions.
+ * </p>
+ */
+class PositionsReaderTest {
+
+    /**
+     * Tests that the positions of every page of a multi-block list are read back, in
+     * any order of pages.
+     */
+    @Test
+    public void testReadAcrossBlocks() {
+        int pages = PostingsWriter.BLOCK_SIZE * 2 + 17;
+        int[] counts = new int[pages];
+        IntList positions = new IntList();
+        for (int page = 0; page < pages; page++) {
+            counts[page] = page % 4;
+            for (int i = 0; i < counts[page]; i++) {
+                positions.add(page + i * 300);
+            }
+        }
+        ByteList out = new ByteList();
+        out.add(42);
+        PositionsWriter.write(counts, positions.toArray(), out);
+
+        PositionsReader reader = new PositionsReader(ByteBuffer.wrap(out.toArray()));
+        IntList result = new IntList();
+        for (int page = pages - 1; page >= 0; page -= 3) {
+            reader.read(1, pages, page, result);
+            assertEquals(counts[page], result.size(), "Page " + page + " should have all its positions.");
+            for (int i = 0; i < counts[page]; i++) {
+                assertEquals(page + i * 300, result.get(i), "Position " + i + " of page " + page + " should match.");
+            }
+        }
+    }
+
+    /**
+     * Tests that reading a page clears the positions of the page read before.
+     */
+    @Test
+    public void testReadClearsList() {
+        ByteList out = new ByteList();
+        PositionsWriter.write(new int[] { 2, 0 }, new int[] { 3, 5 }, out);
+        PositionsReader reader = new PositionsReader(ByteBuffer.wrap(out.toArray()));
+        IntList result = new IntList();
+        reader.read(0, 2, 0, result);
+        assertEquals(2, result.size(), "The first page should have two positions.");
+        reader.read(0, 2, 1, result);
+        assertEquals(0, result.size(), "The second page should have no positions.");
+    }
+
+    /**
+     * Tests that a reader kept between calls reads the pages of a list correctly in
+     * ascending order, when skipping pages and when moving to another block or list.
+     */
+    @Test
+    public void testReadAscendingWithSameReader() {
+        int pages = PostingsWriter.BLOCK_SIZE + 40;
+        int[] counts = new int[pages];
+        IntList positions = new IntList();
+        for (int page = 0; page < pages; page++) {
+            counts[page] = 1 + page % 3;
+            for (int i = 0; i < counts[page]; i++) {
+                positions.add(page * 10 + i);
+            }
+        }
+        ByteList out = new ByteList();
+        PositionsWriter.write(counts, positions.toArray(), out);
+        int secondList = out.size();
+        PositionsWriter.write(new int[] { 1 }, new int[] { 7 }, out);
+
+        PositionsReader reader = new PositionsReader(ByteBuffer.wrap(out.toArray()));
+        IntList result = new IntList();
+        for (int page = 0; page < pages; page += 5) {
+            reader.read(0, pages, page, result);
+            assertEquals(counts[page], result.size(), "Page " + page + " should have all its positions.");
+            assertEquals(page * 10, result.get(0), "The first position of page " + page + " should match.");
+        }
+        reader.read(secondList, 1, 0, result);
+        assertEquals(7, result.get(0), "The position of the other list should match.");
+        reader.read(0, pages, 3, result);
+        assertEquals(30, result.get(0), "Reading an earlier page again should start over.");
+    }
+}
@@ -0,0 +1,288 @@
+package searchengine;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Unit tests for the {@link QueryEvaluator} class.
+ * <p>
+ * This test class verifies that evaluating a query document at a time finds the same
+ * pages in the same order as searching for all matching pages and ranking them with
+ * {@link SortHandler#sortTopResults(List, List, Database, ScoringMethod, int)}, for every
+ * kind of query word and scoring method.
+ * </p>
+ */
+class QueryEvaluatorTest {
+    private static final String TINY_FILE_PATH = "data/enwiki-tiny.txt";
+    private static final String[] QUERIES = { "the", "university%20OR%20denmark", "copenhagen%20university",
+            "%22university%20of%22", "title:copenhagen%20OR%20sea", "denmrk~1", "cop*%20OR%20japan",
+            "the%20OR%20title:japan%20danish", "%22of%20copenhagen%22%20it", "unknownword%20OR%20sea" };
+    private SearchEngine searchEngine;
+    private SortHandler sortHandler;
+
+    @TempDir
+    Path directory;
+
+    /**
+     * Indexes the tiny Wikipedia sample.
+     *
+     * @throws IOException if the sample cannot be read.
+     */
+    @BeforeEach
+    public void setup() throws IOException {
+        IndexConfig config = new IndexConfig();
+        config.setSnapshot(null);
+        searchEngine = new SearchEngine(TINY_FILE_PATH, config);
+        sortHandler = new SortHandler();
+    }
+
+    /**
+     * Tests that every query, with AND and OR between its groups, gives the same pages
+     * as the full search followed by ranking, for every scoring method and count.
+     */
+    @Test
+    public void testMatchesSearchAndSort() {
+        assertMatchesSearchAndSort("before any change");
+    }
+
+    /**
+     * Tests that deleted pages are skipped and replacements are found when the pages are
+     * spread over several segments.
+     *
+     * @throws IOException if a replacement cannot be indexed.
+     */
+    @Test
+    public void testMatchesSearchAndSortAcrossSegments() throws IOException {
+        Database database = searchEngine.getDatabase();
+        database.deletePage("https://en.wikipedia.org/wiki/Japan");
+        database.replacePage("https://en.wikipedia.org/wiki/Denmark",
+                List.of("Denmark", "denmark", "is", "a", "nordic", "country", "of", "the", "sea"));
+        database.replacePage("https://en.wikipedia.org/wiki/Copenhagen",
+                List.of("Copenhagen", "copenhagen", "university", "of", "copenhagen"));
+        assertTrue(database.getSegments().size() > 1, "The replacements should be new segments.");
+        assertMatchesSearchAndSort("after deleting and replacing pages");
+        List<Page> pages = searchEngine.searchTop(new QueryParser().parseGroups("japan"), true, new TFIDFScoring(), 10);
+        assertTrue(pages.stream().noneMatch(page -> page.getUrl().endsWith("/Japan")),
+                "The deleted page should not be found.");
+    }
+
+    /**
+     * Tests that pruning finds the same pages as scoring every matching page.
+     */
+    @Test
+    public void testPruningKeepsResults() {
+        Database database = searchEngine.getDatabase();
+        for (String algorithm : List.of("SIMPLE", "TFIDF", "BM25", "BM25F")) {
+            ScoringMethod scoringMethod = sortHandler.selectScoringMethod(algorithm);
+            QueryEvaluator pruned = new QueryEvaluator(database, database.getSegments(), scoringMethod, true);
+            QueryEvaluator exhaustive = new QueryEvaluator(database, database.getSegments(), scoringMethod, false);
+            for (String query : List.of("the%20OR%20of%20OR%20denmark", "the%20of%20OR%20sea%20the", "copenhagen")) {
+                List<List<String>> parsedQuery = new QueryParser().parseGroups(query);
+                for (int k : new int[] { 1, 2, 5 }) {
+                    assertArrayEquals(exhaustive.search(parsedQuery, false, k), pruned.search(parsedQuery, false, k),
+                            "Pruning should not change the pages of " + algorithm + " " + query + " (k=" + k + ")");
+                }
+            }
+        }
+    }
+
+    /**
+     * Tests that pruning skips the pages that only contain a common word, once a page
+     * with a rare word is found, for the scoring methods that weigh words by rarity.
+     */
+    @Test
+    public void testPruningSkipsPages() {
+        Database database = searchEngine.getDatabase();
+        List<List<String>> parsedQuery = new QueryParser().parseGroups("the%20OR%20sea");
+        for (String algorithm : List.of("TFIDF", "BM25", "BM25F")) {
+            ScoringMethod scoringMethod = sortHandler.selectScoringMethod(algorithm);
+            QueryEvaluator pruned = new QueryEvaluator(database, database.getSegments(), scoringMethod, true);
+            QueryEvaluator exhaustive = new QueryEvaluator(database, database.getSegments(), scoringMethod, false);
+            assertArrayEquals(exhaustive.search(parsedQuery, false, 1), pruned.search(parsedQuery, false, 1),
+                    "Pruning should not change the best page for " + algorithm + ".");
+            assertTrue(pruned.getScoredPages() < exhaustive.getScoredPages(),
+                    "Pruning should skip pages for " + algorithm + ".");
+        }
+    }
+
+    /**
+     * Tests that pruning with the bounds of whole blocks finds the same pages as scoring
+     * every matching page, on a generated corpus with posting lists of many blocks, and
+     * that it skips pages of a single common word.
+     *
+     * @throws IOException if the corpus cannot be written or read.
+     */
+    @Test
+    public void testBlockPruning() throws IOException {
+        IndexConfig config = new IndexConfig();
+        config.setSnapshot(null);
+        Database database = new SearchEngine(ImpactSearcherTest.writeCorpus(directory.resolve("corpus.txt"),
+                new Random(3), 2000).toString(), config).getDatabase();
+        String[] queries = { "the", "rare", "war%20OR%20peace", "the%20OR%20of%20OR%20rare",
+                "king%20river%20OR%20city" };
+        for (String algorithm : List.of("SIMPLE", "TFIDF", "BM25", "BM25F")) {
+            ScoringMethod scoringMethod = sortHandler.selectScoringMethod(algorithm);
+            QueryEvaluator pruned = new QueryEvaluator(database, database.getSegments(), scoringMethod, true);
+            QueryEvaluator exhaustive = new QueryEvaluator(database, database.getSegments(), scoringMethod, false);
+            for (String query : queries) {
+                List<List<String>> parsedQuery = new QueryParser().parseGroups(query);
+                for (int k : new int[] { 1, 10, 100 }) {
+                    assertArrayEquals(exhaustive.search(parsedQuery, false, k), pruned.search(parsedQuery, false, k),
+                            "Pruning should not change the pages of " + algorithm + " " + query + " (k=" + k + ")");
+                }
+            }
+        }
+        QueryEvaluator pruned = new QueryEvaluator(database, database.getSegments(), new BM25Scoring(), true);
+        QueryEvaluator exhaustive = new QueryEvaluator(database, database.getSegments(), new BM25Scoring(), false);
+        List<List<String>> common = new QueryParser().parseGroups("the");
+        assertArrayEquals(exhaustive.search(common, true, 1), pruned.search(common, true, 1),
+                "Pruning should not change the best page of a single word.");
+        assertTrue(pruned.getScoredPages() < exhaustive.getScoredPages(),
+                "Pruning should skip blocks of a single common word.");
+    }
+
+    /**
+     * Tests that a compiled query that can be written as groups finds the same pages as
+     * its groups.
+     */
+    @Test
+    public void testPlanMatchesGroups() {
+        Database database = searchEngine.getDatabase();
+        for (String algorithm : List.of("SIMPLE", "TFIDF", "BM25", "BM25F")) {
+            QueryEvaluator evaluator = new QueryEvaluator(database, database.getSegments(),
+                    sortHandler.selectScoringMethod(algorithm), true);
+            for (String query : QUERIES) {
+                QueryPlan plan = QueryPlan.compile(new QueryParser().parse(query), database);
+                assertNotNull(plan.getGroups(), "The plan of " + query + " should have groups.");
+                List<List<String>> parsedQuery = new QueryParser().parseGroups(query);
+                for (int k : new int[] { 1, 3, 100 }) {
+                    assertArrayEquals(evaluator.search(parsedQuery, false, k), evaluator.search(plan, k),
+                            "The plan should find the pages of its groups for " + algorithm + " " + query);
+                }
+            }
+        }
+    }
+
+    /**
+     * Tests that compiled queries with excluded and nested clauses find the pages given
+     * by combining the pages of their clauses, best first.
+     */
+    @Test
+    public void testPlanWithExcludedAndNestedClauses() {
+        Set<Integer> denmark = matches("denmark");
+        Set<Integer> expected = new HashSet<>(denmark);
+        expected.removeAll(matches("university"));
+        assertTrue(!expected.isEmpty() && expected.size() < denmark.size(),
+                "The sample should have pages with denmark, with and without university.");
+        assertPlanMatches("denmark%20NOT%20university", expected);
+
+        expected = matches("city%20OR%20sea");
+        expected.retainAll(matches("danish"));
+        assertFalse(expected.isEmpty(), "The sample should have pages with city or sea and danish.");
+        assertPlanMatches("(city%20OR%20sea)%20danish", expected);
+
+        expected = matches("the");
+        expected.removeAll(matches("title:copenhagen%20OR%20%22university%20of%22"));
+        assertPlanMatches("the%20NOT%20%28title:copenhagen%20OR%20%22university%20of%22%29", expected);
+
+        assertPlanMatches("sea%20NOT%20unknownword", matches("sea"));
+        assertPlanMatches("NOT%20sea", Set.of());
+        assertPlanMatches("sea%20OR%20NOT%20japan", matches("sea"));
+    }
+
+    /**
+     * Tests that a count of 0 finds nothing and a negative count is rejected.
+     */
+    @Test
+    public void testResultCount() {
+        QueryEvaluator evaluator = new QueryEvaluator(searchEngine.getDatabase(),
+                searchEngine.getDatabase().getSegments(), new BM25Scoring(), true);
+        List<List<String>> query = new QueryParser().parseGroups("the");
+        assertEquals(0, evaluator.search(query, true, 0).length, "A count of 0 should find nothing.");
+        assertEquals(2, evaluator.search(query, true, 2).length, "Only the best 2 pages should be found.");
+        assertThrows(IllegalArgumentException.class, () -> evaluator.search(query, true, -1),
+                "A negative count should be rejected.");
+        assertEquals(evaluator.search(query, true, searchEngine.getDatabase().getTotalPages()).length,
+                evaluator.search(query, true, Integer.MAX_VALUE).length,
+                "A count above the number of pages should find every matching page.");
+    }
+
+    /**
+     * Finds the pages matching a query of groups.
+     *
+     * @param query the query, as for {@link QueryParser#parseGroups(String)}.
+     * @return the IDs of the pages that match any group.
+     */
+    private Set<Integer> matches(String query) {
+        Set<Integer> pageIds = new HashSet<>();
+        for (Page page : searchEngine.search(new QueryParser().parseGroups(query), false)) {
+            pageIds.add(page.getId());
+        }
+        return pageIds;
+    }
+
+    /**
+     * Checks that a compiled query finds the expected pages for every scoring method, and
+     * that its best pages are the first of all its pages.
+     *
+     * @param query    the query.
+     * @param expected the IDs of the pages the query should match.
+     */
+    private void assertPlanMatches(String query, Set<Integer> expected) {
+        Database database = searchEngine.getDatabase();
+        QueryPlan plan = QueryPlan.compile(new QueryParser().parse(query), database);
+        for (String algorithm : List.of("SIMPLE", "TFIDF", "BM25", "BM25F")) {
+            QueryEvaluator evaluator = new QueryEvaluator(database, database.getSegments(),
+                    sortHandler.selectScoringMethod(algorithm), true);
+            int[] all = evaluator.search(plan, database.getTotalPages());
+            Set<Integer> actual = new HashSet<>();
+            for (int pageId : all) {
+                actual.add(pageId);
+            }
+            assertEquals(expected, actual, "Wrong pages for " + algorithm + " " + query);
+            int[] best = evaluator.search(plan, 2);
+            assertArrayEquals(Arrays.copyOf(all, Math.min(2, all.length)), best,
+                    "The best pages should come first for " + algorithm + " " + query);
+        }
+    }
+
+    /**
+     * Checks all queries against the full search followed by ranking.
+     *
+     * @param state a description of the index, for the assertion messages.
+     */
+    private void assertMatchesSearchAndSort(String state) {
+        Database database = searchEngine.getDatabase();
+        for (String algorithm : List.of("SIMPLE", "TFIDF", "BM25", "BM25F")) {
+            ScoringMethod scoringMethod = sortHandler.selectScoringMethod(algorithm);
+            for (String query : QUERIES) {
+                List<List<String>> parsedQuery = new QueryParser().parseGroups(query);
+                for (boolean andIsTrue : new boolean[] { true, false }) {
+                    List<Page> matches = searchEngine.search(parsedQuery, andIsTrue);
+                    for (int k : new int[] { 1, 3, matches.size() + 1 }) {
+                        List<Page> expected = sortHandler.sortTopResults(matches, parsedQuery, database,
+                                scoringMethod, k);
+                        int[] actual = new QueryEvaluator(database, database.getSegments(), scoringMethod, true)
+                                .search(parsedQuery, andIsTrue, k);
+                        String context = algorithm + " " + query + " (and=" + andIsTrue + ", k=" + k + ") " + state;
+                        assertEquals(expected.size(), actual.length, "Wrong number of pages for " + context);
+                        for (int i = 0; i < actual.length; i++) {
+                            assertEquals(expected.get(i).getId(), actual[i], "Wrong page " + i + " for " + context);
+                        }
+                    }
+                }
+            }
+        }
+    }
+}
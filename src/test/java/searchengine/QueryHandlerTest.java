@@ -2,7 +2,6 @@ package searchengine;
 
 import static org.junit.jupiter.api.Assertions.*;
 
-import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 
@@ -11,23 +10,18 @@ import org.junit.jupiter.api.Test;
 
 /**
  * Unit tests for the {@link QueryHandler} class.
- * This test suite verifies the correctness of query parsing, parameter
- * extraction,
- * and logical operator handling in queries.
+ * This test suite verifies the correctness of parameter extraction and the
+ * recognition of the kinds of query terms.
  */
 class QueryHandlerTest {
     private QueryHandler queryHandler;
-    private List<List<String>> parsedQuery;
 
     /**
-     * Sets up the {@link QueryHandler} instance and initializes a parsed query.
-     *
-     * @throws IOException if an I/O error occurs during setup
+     * Sets up the {@link QueryHandler} instance.
      */
     @BeforeEach
-    public void setup() throws IOException {
+    public void setup() {
         queryHandler = new QueryHandler();
-        parsedQuery = queryHandler.parseQuery("word1%20OR%20word3");
     }
 
     /**
@@ -131,57 +125,72 @@ class QueryHandlerTest {
     }
 
     /**
-     * Verifies that a query with "AND" is parsed into separate groups,
-     * and the {@code andIsTrue} flag is set correctly.
+     * Verifies that {@link QueryHandler#extractResultCount(String)} reads the "k"
+     * parameter, falls back to the default and rejects counts that are not positive.
      */
     @Test
-    public void testParseQueryWithAND() {
-        queryHandler = new QueryHandler();
-        parsedQuery = queryHandler.parseQuery("word1%20AND%20word3");
+    public void testExtractResultCount() {
+        assertEquals(5, queryHandler.extractResultCount("q=word1&k=5"), "The k parameter should be read.");
+        assertEquals(QueryHandler.DEFAULT_RESULT_COUNT, queryHandler.extractResultCount("q=word1"),
+                "A missing k parameter should give the default.");
+        assertThrows(IllegalArgumentException.class, () -> queryHandler.extractResultCount("q=word1&k=0"),
+                "A count of 0 should be rejected.");
+        assertThrows(IllegalArgumentException.class, () -> queryHandler.extractResultCount("q=word1&k=ten"),
+                "A count that is not a number should be rejected.");
+        assertEquals(QueryHandler.MAX_RESULT_COUNT, queryHandler.extractResultCount("q=word1&k=2147483647"),
+                "A count above the maximum should be capped.");
+    }
 
-        assertTrue(queryHandler.getAndIsTrue(), "AND flag should be true.");
-        assertEquals(2, parsedQuery.size(), "Query should contain two groups.");
-        assertEquals("word1", parsedQuery.get(0).get(0), "First group should contain 'word1'.");
-        assertEquals("word3", parsedQuery.get(1).get(0), "Second group should contain 'word3'.");
+    /**
+     * Verifies that phrases are recognized and split into their words.
+     */
+    @Test
+    public void testPhraseTerm() {
+        assertTrue(QueryHandler.isPhrase("\"world war\""), "The entry should be recognized as a phrase.");
+        assertFalse(QueryHandler.isPhrase("ii"), "A word should not be a phrase.");
+        assertEquals(List.of("world", "war"), QueryHandler.getPhraseWords("\"world war\""),
+                "The phrase should split into its words.");
+        assertEquals(List.of("world", "war", "ii"), QueryHandler.getWords(List.of("\"world war\"", "ii")),
+                "The words of the group should include the words of the phrase.");
     }
 
     /**
-     * Verifies that splitting an array with "AND" results in the expected groups.
+     * Verifies that title-only words are recognized and their prefix removed.
      */
     @Test
-    public void testNormalAND() {
-        String query = "group1%20AND%20group2%20AND%20group3";
-        String[] expected = { "group1", "group2", "group3" };
-        String[] groups = query.split("(%20)*AND(%20)*");
-        assertArrayEquals(expected, groups);
+    public void testTitleTerm() {
+        assertTrue(QueryHandler.isTitleTerm("title:war"), "The entry should be a title-only word.");
+        assertFalse(QueryHandler.isTitleTerm("title:"), "An empty title-only word should not be title-only.");
+        assertFalse(QueryHandler.isTitleTerm("peace"), "A plain word should not be title-only.");
+        assertEquals("war", QueryHandler.getTitleWord("title:war"), "The prefix should be removed.");
     }
 
     /**
-     * Verifies that a query with "OR" is parsed into separate groups.
+     * Verifies that fuzzy words are recognized with and without a number of edits, and
+     * that other uses of a tilde are plain words.
      */
     @Test
-    public void testParseQueryWithOR() {
-        QueryHandler queryHandler = new QueryHandler();
-        List<List<String>> parsedQuery = queryHandler.parseQuery("word1%20OR%20word3");
-
-        assertNotNull(queryHandler, "QueryHandler should be initialized.");
-        assertEquals(2, parsedQuery.size(), "Query should contain two groups.");
-        assertEquals("word1", parsedQuery.get(0).get(0), "First group should contain 'word1'.");
-        assertEquals("word3", parsedQuery.get(1).get(0), "Second group should contain 'word3'.");
+    public void testFuzzyTerm() {
+        assertTrue(QueryHandler.isFuzzyTerm("wrold~1"), "A word with one edit should be fuzzy.");
+        assertEquals("wrold", QueryHandler.getFuzzyWord("wrold~1"), "The marker should be removed.");
+        assertEquals(1, QueryHandler.getMaxEdits("wrold~1"), "The number of edits should be read.");
+        assertEquals(2, QueryHandler.getMaxEdits("histroy~"), "Two edits should be allowed by default.");
+        assertFalse(QueryHandler.isFuzzyTerm("wrold~3"), "More than two edits should not be fuzzy.");
+        assertFalse(QueryHandler.isFuzzyTerm("~1"), "A marker without a word should not be fuzzy.");
+        assertFalse(QueryHandler.isFuzzyTerm("peace"), "A plain word should not be fuzzy.");
+        assertFalse(QueryHandler.isFuzzyTerm("title:wrold~1"), "A title-only word should not be fuzzy.");
     }
 
     /**
-     * Verifies that a query without logical operators is parsed into a single
-     * group.
+     * Tests that wildcard words are recognized.
      */
     @Test
-    public void testParseQueryWithoutLogicalOperator() {
-        QueryHandler queryHandler = new QueryHandler();
-        List<List<String>> parsedQuery = queryHandler.parseQuery("word1%20%20word3");
-
-        assertNotNull(queryHandler, "QueryHandler should be initialized.");
-        assertEquals(1, parsedQuery.size(), "Query should contain one group.");
-        assertEquals("word1", parsedQuery.get(0).get(0), "First group should contain 'word1'.");
-        assertEquals("word3", parsedQuery.get(0).get(1), "First group should contain 'word3'.");
+    public void testWildcardTerm() {
+        assertTrue(QueryHandler.isWildcardTerm("astro*"), "A prefix pattern should be a wildcard word.");
+        assertTrue(QueryHandler.isWildcardTerm("*logy"), "A suffix pattern should be a wildcard word.");
+        assertFalse(QueryHandler.isWildcardTerm("**"), "A pattern without letters should not be a wildcard word.");
+        assertFalse(QueryHandler.isWildcardTerm("title:astro*"), "A title-only word should not be a wildcard word.");
+        assertFalse(QueryHandler.isWildcardTerm("astro"), "A plain word should not be a wildcard word.");
+        assertFalse(QueryHandler.isFuzzyTerm("astro*~1"), "A wildcard word should not be fuzzy.");
     }
-}
\ No newline at end of file
+}
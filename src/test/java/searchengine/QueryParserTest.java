@@ -0,0 +1,170 @@
+package searchengine;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the {@link QueryParser} class.
+ * <p>
+ * This test class verifies the precedence of the operators, parentheses, negation,
+ * phrases and title fields, the decoding of URL-encoded characters, and that mistakes in
+ * a query are tolerated, and how queries are written as groups of terms.
+ * </p>
+ */
+class QueryParserTest {
+    private QueryParser parser;
+
+    /**
+     * Creates the parser shared by all queries of a test.
+     */
+    @BeforeEach
+    public void setup() {
+        parser = new QueryParser();
+    }
+
+    /**
+     * Tests that words next to each other are joined by AND, which binds tighter than OR.
+     */
+    @Test
+    public void testPrecedence() {
+        assertEquals("war", parser.parse("war").toString(), "A single word should be a term.");
+        assertEquals("(war AND peace)", parser.parse("war%20peace").toString(),
+                "Words next to each other should be joined by AND.");
+        assertEquals("((war AND peace) OR treaty)", parser.parse("war%20peace%20OR%20treaty").toString(),
+                "AND should bind tighter than OR.");
+        assertEquals("(war OR (peace AND treaty))", parser.parse("war OR peace AND treaty").toString(),
+                "Spaces should separate words like %20.");
+        assertEquals(parser.parse("a b c"), parser.parse("a AND b AND c"),
+                "Implicit and explicit AND should give the same tree.");
+        assertEquals(QueryNode.Kind.AND, parser.parse("a AND b AND c").getKind(), "The root should be an AND.");
+        assertEquals(3, parser.parse("a AND (b AND c)").getChildren().size(), "Nested ANDs should be merged.");
+        assertEquals("(BRAND OR ANDROID)", parser.parse("BRAND OR ANDROID").toString(),
+                "Operators should only be recognized as words of their own.");
+        assertEquals("(war AND or)", parser.parse("war or").toString(), "Operators should be upper case.");
+    }
+
+    /**
+     * Tests that parentheses group clauses, also when encoded, and that unbalanced ones
+     * are tolerated.
+     */
+    @Test
+    public void testParentheses() {
+        assertEquals("((war OR peace) AND treaty)", parser.parse("(war OR peace) treaty").toString(),
+                "Parentheses should group an OR inside an AND.");
+        assertEquals("((war OR peace) AND treaty)", parser.parse("%28war%20OR%20peace%29%20treaty").toString(),
+                "Encoded parentheses should be decoded.");
+        assertEquals("(a AND (b OR (c AND d)))", parser.parse("a (b OR (c d))").toString(),
+                "Parentheses should nest.");
+        assertEquals("(a AND (b OR c))", parser.parse("a (b OR c").toString(),
+                "A missing closing parenthesis should be assumed at the end.");
+        assertEquals("(a OR (b AND c))", parser.parse("a OR b) c").toString(),
+                "A closing parenthesis without an opening one should be ignored.");
+        assertEquals("(a AND b)", parser.parse("a () b").toString(), "Empty parentheses should be ignored.");
+    }
+
+    /**
+     * Tests that NOT negates the next clause, and is ignored without one.
+     */
+    @Test
+    public void testNot() {
+        QueryNode root = parser.parse("war NOT peace");
+        assertEquals("(war AND NOT peace)", root.toString(), "NOT should negate the next word.");
+        assertEquals(QueryNode.Kind.NOT, root.getChildren().get(1).getKind(), "The second clause should be a NOT.");
+        assertEquals("(war AND NOT (peace OR treaty))", parser.parse("war AND NOT (peace OR treaty)").toString(),
+                "NOT should negate a clause in parentheses.");
+        assertEquals("((war AND NOT peace) OR treaty)", parser.parse("war NOT peace OR treaty").toString(),
+                "NOT should bind tighter than OR.");
+        assertEquals("war", parser.parse("war NOT").toString(), "A trailing NOT should be ignored.");
+        assertEquals("(war OR peace)", parser.parse("war NOT OR peace").toString(),
+                "A NOT followed by an operator should be ignored.");
+        assertEquals("NOT war", parser.parse("NOT war").toString(), "A query may consist of a NOT alone.");
+    }
+
+    /**
+     * Tests that quoted words form phrases, in which operators are plain words.
+     */
+    @Test
+    public void testPhrases() {
+        assertEquals(QueryNode.term("\"war and peace\""), parser.parse("%22war%20and%20peace%22"),
+                "Quoted words should form a phrase.");
+        assertEquals(QueryNode.term("\"war AND peace\""), parser.parse("\"war  AND peace\""),
+                "Operators in a phrase should be words, separated by single spaces.");
+        assertEquals("(\"war peace\" OR treaty)", parser.parse("\"war peace\"OR treaty").toString(),
+                "A quote should end a word.");
+        assertEquals(QueryNode.term("war"), parser.parse("\"war\""), "A quoted single word should be a word.");
+        assertEquals("(war AND peace)", parser.parse("\"war peace").toString(),
+                "An unclosed quote should be ignored.");
+        assertEquals("war", parser.parse("war \"\"").toString(), "Empty quotes should be ignored.");
+    }
+
+    /**
+     * Tests that the title prefix applies to a word, a phrase or a clause in parentheses,
+     * in lower case, and that fuzzy and wildcard words are kept as written.
+     */
+    @Test
+    public void testFields() {
+        assertEquals(QueryNode.term("title:war"), parser.parse("title%3AWar"), "A title word should be lower case.");
+        assertEquals("(title:war AND title:peace)", parser.parse("title:\"War Peace\"").toString(),
+                "A title phrase should match all its words in the title.");
+        assertEquals("((title:war OR title:peace) AND treaty)",
+                parser.parse("title:(war OR Peace) treaty").toString(),
+                "The title prefix should apply to every word in parentheses, and no further.");
+        assertEquals("war", parser.parse("title: war").toString(), "An empty title prefix should be ignored.");
+        assertEquals(QueryNode.term("wrold~1"), parser.parse("wrold%7E1"), "A fuzzy word should be decoded.");
+        assertEquals(QueryNode.term("astro*"), parser.parse("astro%2a"), "A wildcard word should be decoded.");
+        assertEquals(QueryNode.term("caf%C3%A9"), parser.parse("caf%C3%A9"),
+                "Other escapes should be kept as written.");
+    }
+
+    /**
+     * Tests that queries without terms are rejected, and that a parser keeps no state
+     * between queries.
+     */
+    @Test
+    public void testInvalidInputAndReuse() {
+        for (String query : new String[] { "", "%20", "AND", "OR NOT", "()", "\"\"", "title:" }) {
+            assertThrows(IllegalArgumentException.class, () -> parser.parse(query),
+                    "A query without terms should be rejected: " + query);
+        }
+        assertThrows(IllegalArgumentException.class, () -> parser.parse(null), "A null query should be rejected.");
+        QueryNode first = parser.parse("a OR b");
+        parser.parse("c AND (d");
+        assertEquals(first, parser.parse("a OR b"), "Parsing a query again should give an equal tree.");
+        assertEquals(List.of(QueryNode.term("a"), QueryNode.term("b")), first.getChildren(),
+                "The tree should not change when other queries are parsed.");
+    }
+
+    /**
+     * Tests that queries are written as groups of terms, with words joined by AND in one
+     * group and OR separating the groups, and that queries groups cannot express are
+     * rejected.
+     */
+    @Test
+    public void testParseGroups() {
+        assertEquals(List.of(List.of("word1"), List.of("word3")), parser.parseGroups("word1%20OR%20word3"),
+                "OR should separate groups.");
+        assertEquals(List.of(List.of("word1", "word3")), parser.parseGroups("word1%20%20word3"),
+                "Words next to each other should form one group.");
+        assertEquals(List.of(List.of("word1", "word3")), parser.parseGroups("word1%20AND%20word3"),
+                "Words joined by AND should form one group.");
+        assertEquals(List.of(List.of("\"world war\"", "ii")), parser.parseGroups("%22world%20war%22%20ii"),
+                "A phrase should be a single entry of its group.");
+        assertEquals(List.of(List.of("title:war", "peace")), parser.parseGroups("title%3AWar%20peace%20title:"),
+                "A title word should be kept in lower case, and an empty one dropped.");
+        assertEquals(List.of(List.of("wrold~1", "histroy~", "peace")),
+                parser.parseGroups("wrold~1%20histroy%7E%20peace"),
+                "Fuzzy words should be kept as written.");
+        assertEquals(List.of(List.of("astro*", "*logy", "a*ism")), parser.parseGroups("astro*%20%2Alogy%20a%2aism"),
+                "Wildcard words should be kept as written.");
+        assertThrows(IllegalArgumentException.class, () -> parser.parseGroups("word1 NOT word2"),
+                "An excluded word should not fit groups.");
+        assertThrows(IllegalArgumentException.class, () -> parser.parseGroups("(word1 OR word2) word3"),
+                "A nested OR should not fit groups.");
+        assertThrows(IllegalArgumentException.class, () -> parser.parseGroups("%20"),
+                "A query without terms should be rejected.");
+    }
+}
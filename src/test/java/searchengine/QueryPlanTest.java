@@ -0,0 +1,115 @@
+package searchengine;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the {@link QueryPlan} class.
+ * <p>
+ * This test class verifies the cost estimates and clause order of compiled queries, which
+ * queries are kept as groups, and when a plan stops being valid.
+ * </p>
+ */
+class QueryPlanTest {
+    private static final String TINY_FILE_PATH = "data/enwiki-tiny.txt";
+    private Database database;
+    private QueryParser parser;
+
+    /**
+     * Indexes the tiny Wikipedia sample.
+     *
+     * @throws IOException if the sample cannot be read.
+     */
+    @BeforeEach
+    public void setup() throws IOException {
+        IndexConfig config = new IndexConfig();
+        config.setSnapshot(null);
+        database = new Database(TINY_FILE_PATH, config);
+        parser = new QueryParser();
+    }
+
+    /**
+     * Tests that the clauses of an AND are ordered by cost with excluded clauses last,
+     * that excluded clauses matching nothing are dropped, and that the cost bounds the
+     * number of matching pages.
+     */
+    @Test
+    public void testCostAndOrder() {
+        int university = database.pagesWithWord("university");
+        int the = database.pagesWithWord("the");
+        assertTrue(university > 0 && university < the, "The sample should have a rare and a common word.");
+
+        QueryPlan plan = compile("the university NOT unknownword NOT copenhagen");
+        assertEquals("(university AND the AND NOT copenhagen)", plan.toString(),
+                "The rarest clause should come first and the excluded clauses last.");
+        assertEquals(university, plan.getCost(), "An AND should cost as much as its rarest clause.");
+        assertEquals(Math.min(university + the, database.getTotalPages()), compile("the OR university").getCost(),
+                "An OR should cost the sum of its clauses, up to the number of pages.");
+        assertEquals(Math.min(university, the), compile("%22university%20the%22").getCost(),
+                "A phrase should cost as much as its rarest word.");
+        assertEquals(database.pagesWithTitleWord("copenhagen"), compile("title:Copenhagen").getCost(),
+                "A title word should cost its title frequency.");
+        assertEquals(0, compile("unknownword sea").getCost(), "An AND of a missing word should match nothing.");
+        assertEquals(0, compile("NOT sea").getCost(), "Excluded clauses alone should match nothing.");
+
+        QueryPlan fuzzy = compile("denmrk~1");
+        List<String> expanded = fuzzy.getExpansions().get("denmrk~1");
+        assertNotNull(expanded, "The fuzzy word should be expanded when compiled.");
+        long sum = 0;
+        for (String word : expanded) {
+            sum += database.pagesWithWord(word);
+        }
+        assertEquals(Math.min(sum, database.getTotalPages()), fuzzy.getCost(),
+                "An expanded word should cost the sum of its expansions.");
+    }
+
+    /**
+     * Tests that only queries without excluded or nested clauses are kept as groups, in
+     * the order they were written.
+     */
+    @Test
+    public void testGroups() {
+        assertEquals(List.of(List.of("the")), compile("the").getGroups(), "A word should be a single group.");
+        assertEquals(List.of(List.of("the", "\"university of\""), List.of("title:sea")),
+                compile("the %22university of%22 OR title:sea").getGroups(),
+                "An OR of ANDs of terms should be kept as groups in written order.");
+        assertEquals(List.of(List.of("the", "sea")), compile("the AND sea").getGroups(),
+                "An explicit AND should be a single group.");
+        assertNull(compile("the NOT sea").getGroups(), "An excluded clause should not fit groups.");
+        assertNull(compile("(the OR sea) university").getGroups(), "A nested OR should not fit groups.");
+    }
+
+    /**
+     * Tests that a plan is only valid for the segments it was compiled against, and can
+     * be compiled again from its query.
+     *
+     * @throws IOException if the replacement page cannot be indexed.
+     */
+    @Test
+    public void testIsCompiledFrom() throws IOException {
+        QueryPlan plan = compile("sea NOT japan");
+        assertTrue(plan.isCompiledFrom(database.getSegments()), "A new plan should be valid.");
+        database.deletePage("https://en.wikipedia.org/wiki/Japan");
+        assertTrue(plan.isCompiledFrom(database.getSegments()), "Deleting a page should keep the plan valid.");
+        database.replacePage("https://en.wikipedia.org/wiki/Denmark", List.of("Denmark", "sea"));
+        assertFalse(plan.isCompiledFrom(database.getSegments()), "A new segment should invalidate the plan.");
+        QueryPlan recompiled = QueryPlan.compile(plan.getQuery(), database);
+        assertTrue(recompiled.isCompiledFrom(database.getSegments()), "The compiled plan should be valid again.");
+        assertEquals(plan.toString(), recompiled.toString(), "The query should be the same.");
+    }
+
+    /**
+     * Parses and compiles a query against the sample.
+     *
+     * @param query the query.
+     * @return the plan of the query.
+     */
+    private QueryPlan compile(String query) {
+        return QueryPlan.compile(parser.parse(query), database);
+    }
+}
@@ -2,11 +2,14 @@ package searchengine;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
@@ -183,7 +186,249 @@ class SearchEngineTest {
     @Test
     public void testFindMatchingPagesReturnsEmptySet() {
         parsedQuery.add(List.of("nonexistentword1", "nonexistentword2"));
-        Set<Page> result = searchEngine.findMatchingPages(parsedQuery.get(0));
+        PageIdSet result = searchEngine.findMatchingPages(parsedQuery.get(0));
         assertTrue(result.isEmpty(), "Expected an empty set when no pages match the query.");
     }
+
+    /**
+     * Tests that a phrase only matches pages where its words occur next to each other
+     * and in order.
+     */
+    @Test
+    public void testSearchPagesWithPhrase() {
+        List<Page> result = searchEngine.search(new QueryParser().parseGroups("%22word1%20word2%22"), andIsTrue);
+        assertEquals(1, result.size(), "Only page1 has 'word2' right after 'word1'.");
+        assertEquals("http://page1.com", result.get(0).getUrl(), "The phrase should match page1.");
+
+        result = searchEngine.search(new QueryParser().parseGroups("%22word1%20word3%22"), andIsTrue);
+        assertEquals(1, result.size(), "Only page4 has 'word3' right after 'word1'.");
+        assertEquals("http://page4.com", result.get(0).getUrl(), "The phrase should match page4.");
+
+        result = searchEngine.search(new QueryParser().parseGroups("%22word2%20word1%22"), andIsTrue);
+        assertTrue(result.isEmpty(), "No page has 'word1' right after 'word2'.");
+    }
+
+    /**
+     * Tests that title-only words match the pages whose title contains them, alone and
+     * together with body words.
+     */
+    @Test
+    public void testSearchPagesWithTitleTerm() {
+        List<Page> result = searchEngine.search(new QueryParser().parseGroups("title:title4"), andIsTrue);
+        assertEquals(1, result.size(), "Only page4 has 'title4' as title.");
+        assertEquals("http://page4.com", result.get(0).getUrl(), "The title word should match page4.");
+
+        result = searchEngine.search(new QueryParser().parseGroups("title:title1%20word1"), andIsTrue);
+        assertEquals(1, result.size(), "Only page1 has 'title1' in the title and 'word1' in the body.");
+        assertEquals("http://page1.com", result.get(0).getUrl(), "The query should match page1.");
+
+        result = searchEngine.search(new QueryParser().parseGroups("title:word1"), andIsTrue);
+        assertTrue(result.isEmpty(), "No title contains 'word1'.");
+    }
+
+    /**
+     * Tests that a fuzzy word matches the pages of all its expansions, alone and together
+     * with other words of its group.
+     */
+    @Test
+    public void testSearchPagesWithFuzzyTerm() {
+        List<Page> result = searchEngine.search(new QueryParser().parseGroups("wrd1~1"), andIsTrue);
+        assertEquals(2, result.size(), "'wrd1~1' should match the pages containing 'word1'.");
+
+        result = searchEngine.search(new QueryParser().parseGroups("word9~1"), andIsTrue);
+        assertEquals(3, result.size(), "'word9~1' should match the pages containing 'word1', 'word2' or 'word3'.");
+
+        result = searchEngine.search(new QueryParser().parseGroups("word9~1%20word2"), andIsTrue);
+        assertEquals(1, result.size(), "Only page1 contains 'word2' and an expansion of 'word9~1'.");
+        assertEquals("http://page1.com", result.get(0).getUrl(), "The query should match page1.");
+
+        result = searchEngine.search(new QueryParser().parseGroups("wrd1~0"), andIsTrue);
+        assertTrue(result.isEmpty(), "Without edits, only the exact word should match.");
+    }
+
+    /**
+     * Tests that prefixes are completed to the most common words, and that words of an
+     * added corpus file are suggested once the suggester is rebuilt in the background,
+     * while the previous suggester keeps answering.
+     *
+     * @throws IOException if the added corpus file cannot be written or read.
+     */
+    @Test
+    public void testSuggest() throws IOException {
+        assertEquals(List.of("word1", "word3"), searchEngine.suggest("word", 2),
+                "The two most common words starting with 'word' should be suggested.");
+        assertTrue(searchEngine.suggest("xyz", 10).isEmpty(), "No word starts with 'xyz'.");
+
+        Path corpus = Files.createTempFile("added", ".txt");
+        try {
+            Files.write(corpus, List.of("*PAGE:http://page5.com", "title5", "word5", "wordy"));
+            searchEngine.getDatabase().addCorpus(corpus.toString());
+            assertEquals(List.of("word1", "word3", "word2"), searchEngine.suggest("word", 10),
+                    "The previous suggester should answer while the new one is built.");
+            searchEngine.waitForSuggester();
+            assertEquals(List.of("word1", "word3", "word2", "word5", "wordy"), searchEngine.suggest("word", 10),
+                    "The words of the added file should be suggested after the existing ones.");
+        } finally {
+            Files.delete(corpus);
+        }
+    }
+
+    /**
+     * Tests that a wildcard word matches the pages containing any word fitting it, with
+     * the wildcard at the end, at the start or in the middle.
+     */
+    @Test
+    public void testSearchPagesWithWildcardTerm() {
+        List<Page> result = searchEngine.search(new QueryParser().parseGroups("word*"), andIsTrue);
+        assertEquals(3, result.size(), "'word*' should match the pages containing 'word1', 'word2' or 'word3'.");
+
+        result = searchEngine.search(new QueryParser().parseGroups("*rd1"), andIsTrue);
+        assertEquals(2, result.size(), "'*rd1' should match the pages containing 'word1'.");
+
+        result = searchEngine.search(new QueryParser().parseGroups("ti*3"), andIsTrue);
+        assertEquals(1, result.size(), "'ti*3' should only match 'title3'.");
+        assertEquals("http://page3.com", result.get(0).getUrl(), "The query should match page3.");
+
+        result = searchEngine.search(new QueryParser().parseGroups("word*%20title*"), andIsTrue);
+        assertEquals(2, result.size(), "Page1 and page4 contain a word and a title word.");
+
+        result = searchEngine.search(new QueryParser().parseGroups("*xyz"), andIsTrue);
+        assertTrue(result.isEmpty(), "No word ends with 'xyz'.");
+    }
+
+    /**
+     * Tests that the best TF-IDF pages are the same with and without impact-ordered
+     * posting lists, for queries read from the lists and for queries that are sorted in
+     * full.
+     *
+     * @throws IOException if the test file cannot be read.
+     */
+    @Test
+    public void testSearchByImpact() throws IOException {
+        IndexConfig config = new IndexConfig();
+        config.setImpacts(true);
+        SearchEngine impactEngine = new SearchEngine(TEST_FILE_PATH, config);
+        assertTrue(impactEngine.getDatabase().hasImpactIndex(), "The database should keep impacts.");
+        for (String query : new String[] { "word1", "word2%20OR%20word3", "word1%20word3", "%22word1%20word2%22" }) {
+            for (int k = 0; k <= 4; k++) {
+                QueryParser parser = new QueryParser();
+                List<List<String>> parsed = parser.parseGroups(query);
+                List<Page> expected = searchEngine.searchByImpact(parsed, false, k);
+                List<Page> actual = impactEngine.searchByImpact(parsed, false, k);
+                assertEquals(expected.size(), actual.size(), "Wrong number of pages for " + query + " with k=" + k);
+                for (int i = 0; i < expected.size(); i++) {
+                    assertEquals(expected.get(i).getUrl(), actual.get(i).getUrl(), "Wrong page " + i + " for " + query);
+                }
+            }
+        }
+        List<Page> best = impactEngine.searchByImpact(new QueryParser().parseGroups("word1"), true, 1);
+        assertEquals("http://page1.com", best.get(0).getUrl(),
+                "Page1 and page4 tie on 'word1', so the lower page ID should come first.");
+        assertThrows(IllegalArgumentException.class,
+                () -> impactEngine.searchByImpact(new QueryParser().parseGroups("word1"), true, -1),
+                "A negative number of pages should be rejected.");
+    }
+
+    /**
+     * Tests that the best pages found document at a time are the same as those of the
+     * full search followed by ranking, and that invalid input is rejected.
+     */
+    @Test
+    public void testSearchTop() {
+        SortHandler sortHandler = new SortHandler();
+        ScoringMethod scoringMethod = new BM25Scoring();
+        String[] queries = { "word1", "word2%20OR%20word3", "word1%20word3", "title:title4%20OR%20word2" };
+        for (String query : queries) {
+            QueryParser parser = new QueryParser();
+            List<List<String>> parsed = parser.parseGroups(query);
+            List<Page> matches = searchEngine.search(parsed, false);
+            List<Page> expected = sortHandler.sortTopResults(matches, parsed, searchEngine.getDatabase(),
+                    scoringMethod, 2);
+            List<Page> actual = searchEngine.searchTop(parsed, false, scoringMethod, 2);
+            assertEquals(expected.size(), actual.size(), "Wrong number of pages for " + query);
+            for (int i = 0; i < expected.size(); i++) {
+                assertEquals(expected.get(i).getUrl(), actual.get(i).getUrl(), "Wrong page " + i + " for " + query);
+            }
+        }
+        assertThrows(IllegalArgumentException.class, () -> searchEngine.searchTop(List.of(), true, scoringMethod, 1),
+                "An empty query should be rejected.");
+        assertThrows(IllegalArgumentException.class,
+                () -> searchEngine.searchTop(new QueryParser().parseGroups("word1"), true, scoringMethod, -1),
+                "A negative number of pages should be rejected.");
+    }
+
+    /**
+     * Tests that compiled queries are reused until the segments change, and that searching
+     * with a plan finds the same pages as searching with the groups of the query.
+     *
+     * @throws IOException if the new page cannot be indexed.
+     */
+    @Test
+    public void testCompile() throws IOException {
+        QueryPlan plan = searchEngine.compile("word1%20OR%20word3");
+        assertSame(plan, searchEngine.compile("word1%20OR%20word3"), "A repeated query should reuse its plan.");
+        assertThrows(IllegalArgumentException.class, () -> searchEngine.compile("%20"),
+                "A query without terms should be rejected.");
+        ScoringMethod scoringMethod = new BM25Scoring();
+        List<List<String>> parsed = new QueryParser().parseGroups("word1%20OR%20word3");
+        assertEquals(urls(searchEngine.searchTop(parsed, false, scoringMethod, 3)),
+                urls(searchEngine.searchTop(plan, scoringMethod, 3)), "The plan should find the pages of its groups.");
+        assertEquals(urls(searchEngine.searchByImpact(parsed, false, 3)), urls(searchEngine.searchByImpact(plan, 3)),
+                "The plan should find the pages of its groups by impact.");
+        assertEquals(List.of("http://page4.com"),
+                urls(searchEngine.searchTop(searchEngine.compile("word1%20NOT%20word2"), scoringMethod, 3)),
+                "Pages with the excluded word should not be found.");
+
+        searchEngine.getDatabase().replacePage("http://page2.com", List.of("title2", "word1"));
+        QueryPlan recompiled = searchEngine.compile("word1%20OR%20word3");
+        assertNotSame(plan, recompiled, "A new segment should compile the query again.");
+        assertTrue(recompiled.isCompiledFrom(searchEngine.getDatabase().getSegments()),
+                "The new plan should be compiled against the new segments.");
+        assertEquals(urls(searchEngine.searchTop(recompiled, scoringMethod, 3)),
+                urls(searchEngine.searchTop(plan, scoringMethod, 3)), "An outdated plan should be compiled again.");
+    }
+
+    /**
+     * Lists the URLs of pages.
+     *
+     * @param pages the pages.
+     * @return the URLs of the pages, in order.
+     */
+    private List<String> urls(List<Page> pages) {
+        List<String> urls = new ArrayList<>();
+        for (Page page : pages) {
+            urls.add(page.getUrl());
+        }
+        return urls;
+    }
+
+    /**
+     * Tests that a deleted page is not found by any kind of query word, with and without
+     * impact-ordered posting lists, and that its replacement is found instead.
+     *
+     * @throws IOException if the test file cannot be read or the new page cannot be indexed.
+     */
+    @Test
+    public void testSearchSkipsDeletedPages() throws IOException {
+        IndexConfig config = new IndexConfig();
+        config.setImpacts(true);
+        SearchEngine impactEngine = new SearchEngine(TEST_FILE_PATH, config);
+        for (SearchEngine engine : List.of(searchEngine, impactEngine)) {
+            engine.getDatabase().deletePage("http://page1.com");
+            for (String query : new String[] { "word2", "title:title1", "%22word1%20word2%22", "wrd2~1", "*rd2" }) {
+                assertTrue(engine.search(new QueryParser().parseGroups(query), andIsTrue).isEmpty(),
+                        "The deleted page1 should not match " + query);
+            }
+            List<Page> result = engine.searchByImpact(new QueryParser().parseGroups("word1"), andIsTrue, 2);
+            assertEquals(1, result.size(), "Only page4 should be left with 'word1'.");
+            assertEquals("http://page4.com", result.get(0).getUrl(), "The deleted page1 should be skipped.");
+            assertTrue(engine.accessDatabase("word2").isEmpty(), "No live page should contain 'word2'.");
+
+            engine.getDatabase().replacePage("http://page4.com", List.of("title4", "word2"));
+            result = engine.search(new QueryParser().parseGroups("word2%20OR%20word3"), false);
+            assertEquals(2, result.size(), "Page2 and the new page4 should match.");
+            assertEquals("http://page4.com", result.get(1).getUrl(), "Only the new page4 should match.");
+            assertEquals(4, result.get(1).getId(), "The new page4 should have the next page ID.");
+        }
+    }
 }
@@ -0,0 +1,111 @@
+package searchengine;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Unit tests for the {@link SegmentBuilder} class.
+ * <p>
+ * This test class verifies that merging segments produces the same segment as building
+ * the concatenation of their corpus files in one go.
+ * </p>
+ */
+class SegmentBuilderTest {
+    private static final Path TEST_FILE_PATH = Paths.get("src/test/java/searchengine/resources/test-file.txt");
+
+    @TempDir
+    Path directory;
+
+    /**
+     * Tests that a merged segment has the same terms, postings and pages as a segment
+     * built from the concatenated corpus, with the pages of the second segment following
+     * those of the first.
+     *
+     * @throws IOException if a corpus file cannot be read or written.
+     */
+    @Test
+    public void testMergeMatchesSingleBuild() throws IOException {
+        Path other = directory.resolve("other.txt");
+        Files.write(other, List.of("*PAGE:http://page5.com", "title5", "word2", "word5", "word5"));
+        Path combined = directory.resolve("combined.txt");
+        Files.write(combined, Files.readAllLines(TEST_FILE_PATH));
+        Files.write(combined, Files.readAllLines(other), StandardOpenOption.APPEND);
+
+        IndexConfig config = new IndexConfig();
+        Segment first = new SegmentBuilder(config).build(TEST_FILE_PATH);
+        Segment second = new SegmentBuilder(config).build(other);
+        Segment merged = new SegmentBuilder(config).merge(List.of(first, second));
+        Segment expected = new SegmentBuilder(config).build(combined);
+
+        assertEquals(first.getTotalPages() + second.getTotalPages(), merged.getTotalPages(),
+                "The merged segment should hold the pages of both segments.");
+        assertEquals(expected.getTotalPages(), merged.getTotalPages(), "Page counts should match.");
+        assertEquals(expected.getDictionary().size(), merged.getDictionary().size(), "Term counts should match.");
+        for (int termId = 0; termId < expected.getDictionary().size(); termId++) {
+            String term = expected.getDictionary().getTerm(termId);
+            assertEquals(term, merged.getDictionary().getTerm(termId), "Terms should match.");
+            assertEquals(expected.getDocumentFrequency(termId), merged.getDocumentFrequency(termId),
+                    "Document frequencies for '" + term + "' should match.");
+            assertArrayEquals(expected.getPostings(termId), merged.getPostings(termId),
+                    "Page IDs for '" + term + "' should match.");
+            assertArrayEquals(expected.getFrequencies(termId), merged.getFrequencies(termId),
+                    "Frequencies for '" + term + "' should match.");
+        }
+        for (int pageId = 0; pageId < expected.getTotalPages(); pageId++) {
+            assertEquals(expected.getHeaderLine(pageId), merged.getHeaderLine(pageId), "Header lines should match.");
+            assertEquals(expected.getTitle(pageId), merged.getTitle(pageId), "Titles should match.");
+            assertEquals(expected.getDocumentLength(pageId), merged.getDocumentLength(pageId),
+                    "Lengths should match.");
+            assertEquals(expected.getLineCount(pageId), merged.getLineCount(pageId), "Line counts should match.");
+        }
+    }
+
+    /**
+     * Tests that a builder cannot merge an empty list of segments.
+     */
+    @Test
+    public void testMergeRejectsEmptyList() {
+        assertThrows(IllegalArgumentException.class, () -> new SegmentBuilder(new IndexConfig()).merge(List.of()),
+                "Merging no segments should be rejected.");
+    }
+
+    /**
+     * Tests that merging leaves deleted pages out of the posting lists and positions while
+     * they keep their page IDs and stay deleted, and that the positions of the other pages
+     * still line up with their postings.
+     *
+     * @throws IOException if the test file cannot be read.
+     */
+    @Test
+    public void testMergeLeavesOutDeletedPages() throws IOException {
+        IndexConfig config = new IndexConfig();
+        Segment first = new SegmentBuilder(config).build(TEST_FILE_PATH);
+        Segment second = new SegmentBuilder(config).build(TEST_FILE_PATH);
+        first.delete(0);
+        second.delete(3);
+        Segment merged = new SegmentBuilder(config).merge(List.of(first, second));
+
+        assertEquals(8, merged.getTotalPages(), "Deleted pages should keep their slots.");
+        assertTrue(merged.isDeleted(0) && merged.isDeleted(7), "Deleted pages should stay deleted.");
+        assertEquals(2, merged.getDeletedCount(), "Both deleted pages should be counted.");
+        assertEquals(0, merged.getPendingDeletions(), "No deleted page should be left in the postings.");
+        int word1 = merged.getTermId("word1");
+        assertEquals(2, merged.getDocumentFrequency(word1), "Only page4 and the second page1 should contain 'word1'.");
+        assertArrayEquals(new int[] { 3, 4 }, merged.getPostings(word1), "The live pages should keep their IDs.");
+        assertEquals(0, merged.getDocumentLength(0), "A deleted page should have no words.");
+        assertEquals("*PAGE:http://page1.com", merged.getHeaderLine(0), "A deleted page should keep its header line.");
+        PhraseMatcher matcher = new PhraseMatcher(merged, new int[] { word1, merged.getTermId("word2") });
+        assertTrue(matcher.matches(4), "The positions of the second page1 should match its postings.");
+        matcher = new PhraseMatcher(merged, new int[] { word1, merged.getTermId("word3") });
+        assertTrue(matcher.matches(3), "The positions of page4 should match its postings.");
+    }
+}
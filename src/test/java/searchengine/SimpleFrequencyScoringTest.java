@@ -8,7 +8,6 @@ import org.junit.jupiter.api.Test;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.Set;
 
 /**
  * Unit tests for the {@link SimpleFrequencyScoring} class.
@@ -41,8 +40,7 @@ public class SimpleFrequencyScoringTest {
         simpleFrequencyScoring = new SimpleFrequencyScoring();
         database = new Database(TEST_FILE_PATH.toAbsolutePath().toString());
 
-        Set<Page> pages = database.getDatabase().values().iterator().next();
-        testPage = pages.iterator().next();
+        testPage = database.getPage(0);
     }
 
     /**
@@ -1,5 +1,6 @@
 package searchengine;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -80,8 +81,8 @@ public class SortHandlerTest {
      */
     @Test
     public void testSortByAlgorithmSIMPLEDoesNotReturnNullOrEmptyList() throws IOException {
-        QueryHandler queryHandler = new QueryHandler();
-        List<List<String>> query = queryHandler.parseQuery("word1");
+        QueryParser parser = new QueryParser();
+        List<List<String>> query = parser.parseGroups("word1");
 
         Set<Page> pages = searchEngine.accessDatabase("word1");
         List<Page> pagesList = new ArrayList<>(pages);
@@ -100,8 +101,8 @@ public class SortHandlerTest {
      */
     @Test
     public void testSortByAlgorithmTFIDFDoesNotReturnNullOrEmptyList() throws IOException {
-        QueryHandler queryHandler = new QueryHandler();
-        List<List<String>> query = queryHandler.parseQuery("word1");
+        QueryParser parser = new QueryParser();
+        List<List<String>> query = parser.parseGroups("word1");
 
         Set<Page> pages = searchEngine.accessDatabase("word1");
         List<Page> pagesList = new ArrayList<>(pages);
@@ -118,8 +119,8 @@ public class SortHandlerTest {
      */
     @Test
     public void testSortByAlgorithmSIMPLEReturnsListSortedByTF() {
-        QueryHandler queryHandler = new QueryHandler();
-        List<List<String>> query = queryHandler.parseQuery("word1");
+        QueryParser parser = new QueryParser();
+        List<List<String>> query = parser.parseGroups("word1");
 
         Set<Page> pages = searchEngine.accessDatabase("word1");
         List<Page> pagesList = new ArrayList<>(pages);
@@ -142,8 +143,8 @@ public class SortHandlerTest {
      */
     @Test
     public void testSortByAlgorithmTFIDFReturnsListSortedByTFIDF() {
-        QueryHandler queryHandler = new QueryHandler();
-        List<List<String>> query = queryHandler.parseQuery("word1");
+        QueryParser parser = new QueryParser();
+        List<List<String>> query = parser.parseGroups("word1");
 
         Set<Page> pages = searchEngine.accessDatabase("word1");
         List<Page> pagesList = new ArrayList<>(pages);
@@ -165,10 +166,112 @@ public class SortHandlerTest {
      */
     @Test
     public void testSortResultsWithEmptyPages() {
-        QueryHandler queryHandler = new QueryHandler();
+        QueryParser parser = new QueryParser();
         List<Page> pages = new ArrayList<>();
-        List<List<String>> parsedQuery = queryHandler.parseQuery("word1");
+        List<List<String>> parsedQuery = parser.parseGroups("word1");
         List<Page> sortedPages = sortHandler.sortResults(pages, parsedQuery, searchEngine, "SIMPLE");
         assertTrue(sortedPages.isEmpty(), "Sorted list should be empty for empty input pages.");
     }
-}
\ No newline at end of file
+
+    /**
+     * Tests that the scores calculated for a list of pages at once equal the scores
+     * calculated page by page, for both algorithms and an unsorted list of pages.
+     */
+    @Test
+    public void testCalculatePageScoresMatchesPageScore() {
+        QueryParser parser = new QueryParser();
+        List<List<String>> query = parser.parseGroups("word1%20word2%20OR%20word3");
+        Database database = searchEngine.getDatabase();
+        List<Page> pagesList = new ArrayList<>();
+        for (int pageId = database.getTotalPages() - 1; pageId >= 0; pageId--) {
+            pagesList.add(database.getPage(pageId));
+        }
+
+        for (String algorithm : List.of("SIMPLE", "TFIDF")) {
+            ScoringMethod algo = sortHandler.selectScoringMethod(algorithm);
+            double[] scores = sortHandler.calculatePageScores(pagesList, query, database, algo);
+            for (int i = 0; i < pagesList.size(); i++) {
+                assertEquals(sortHandler.calculatePageScore(pagesList.get(i), query, database, algo), scores[i],
+                        "Scores of page " + pagesList.get(i).getId() + " should match for " + algorithm + ".");
+            }
+        }
+    }
+
+    /**
+     * Tests that a fuzzy word is scored as its expansions: 'wrd1~1' only expands to
+     * 'word1', so both queries give every page the same score.
+     */
+    @Test
+    public void testFuzzyTermScoredAsExpansions() {
+        Database database = searchEngine.getDatabase();
+        List<List<String>> fuzzy = new QueryParser().parseGroups("wrd1~1");
+        List<List<String>> exact = new QueryParser().parseGroups("word1");
+        ScoringMethod algo = sortHandler.selectScoringMethod("TFIDF");
+        for (int pageId = 0; pageId < database.getTotalPages(); pageId++) {
+            Page page = database.getPage(pageId);
+            assertEquals(sortHandler.calculatePageScore(page, exact, database, algo),
+                    sortHandler.calculatePageScore(page, fuzzy, database, algo),
+                    "The fuzzy word should score like 'word1' on page " + pageId + ".");
+        }
+        assertTrue(sortHandler.calculatePageScore(database.getPage(0), fuzzy, database, algo) > 0,
+                "Page1 contains 'word1', so the fuzzy word should score.");
+    }
+
+    /**
+     * Tests that a wildcard word is scored as its expansions: '*rd1' only expands to
+     * 'word1', so both queries give every page the same score.
+     */
+    @Test
+    public void testWildcardTermScoredAsExpansions() {
+        Database database = searchEngine.getDatabase();
+        List<List<String>> wildcard = new QueryParser().parseGroups("*rd1");
+        List<List<String>> exact = new QueryParser().parseGroups("word1");
+        ScoringMethod algo = sortHandler.selectScoringMethod("BM25");
+        for (int pageId = 0; pageId < database.getTotalPages(); pageId++) {
+            Page page = database.getPage(pageId);
+            assertEquals(sortHandler.calculatePageScore(page, exact, database, algo),
+                    sortHandler.calculatePageScore(page, wildcard, database, algo),
+                    "The wildcard word should score like 'word1' on page " + pageId + ".");
+        }
+    }
+
+    /**
+     * Tests that the top pages are the first pages of a full sort, in the same order and
+     * for every count, and that the list passed in is not reordered.
+     */
+    @Test
+    public void testSortTopResultsMatchesFullSort() {
+        Database database = searchEngine.getDatabase();
+        List<List<String>> query = new QueryParser().parseGroups("word1%20OR%20word3%20OR%20title3");
+        for (String algorithm : List.of("SIMPLE", "TFIDF", "BM25", "BM25F")) {
+            ScoringMethod algo = sortHandler.selectScoringMethod(algorithm);
+            List<Page> pages = searchEngine.search(query, false);
+            List<Page> sorted = sortHandler.sortByAlgorithm(new ArrayList<>(pages), query, database, algo);
+            for (int k = 0; k <= pages.size() + 1; k++) {
+                List<Page> top = sortHandler.sortTopResults(pages, query, database, algo, k);
+                assertEquals(Math.min(k, pages.size()), top.size(), "Wrong number of pages for k=" + k);
+                for (int i = 0; i < top.size(); i++) {
+                    assertEquals(sorted.get(i).getId(), top.get(i).getId(),
+                            algorithm + ": page " + i + " should match the full sort for k=" + k);
+                }
+            }
+            assertEquals(0, pages.get(0).getId(), "The pages passed in should keep their order.");
+        }
+        assertThrows(IllegalArgumentException.class, () -> sortHandler.sortResults(new ArrayList<>(), query,
+                searchEngine, "TFIDF", -1), "A negative number of pages should be rejected.");
+    }
+
+    /**
+     * Tests that the highest scores are selected in descending order, with equal scores
+     * in ascending position.
+     */
+    @Test
+    public void testSelectTop() {
+        double[] scores = { 0.5, 2.0, 0.5, 3.0, 2.0, 0.0, 0.5 };
+        assertArrayEquals(new int[] { 3, 1, 4, 0 }, SortHandler.selectTop(scores, 4),
+                "Ties should keep the lower positions.");
+        assertArrayEquals(new int[] { 3, 1, 4, 0, 2, 6, 5 }, SortHandler.selectTop(scores, 10),
+                "A count above the number of scores should select all.");
+        assertEquals(0, SortHandler.selectTop(scores, 0).length, "A count of 0 should select nothing.");
+    }
+}
@@ -0,0 +1,115 @@
+package searchengine;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the {@link Suggester} class.
+ * <p>
+ * This test class verifies that completions are ranked by document frequency, that every
+ * node keeps only its top completions, and that the suggester built from the segments of
+ * a database sums document frequencies and leaves out terms that are not words.
+ * </p>
+ */
+class SuggesterTest {
+    private Suggester suggester;
+
+    /**
+     * Builds a suggester with three completions per node over a handful of terms before
+     * each test.
+     */
+    @BeforeEach
+    public void setup() {
+        String[] terms = { "car", "card", "care", "cared", "carp", "cat", "dog" };
+        int[] documentFrequencies = { 5, 2, 7, 1, 2, 9, 3 };
+        suggester = new Suggester(null, terms, documentFrequencies, 3);
+    }
+
+    /**
+     * Tests that completions come by descending document frequency and that only the top
+     * completions of a prefix are kept.
+     */
+    @Test
+    public void testSuggestRanksByDocumentFrequency() {
+        assertEquals(List.of("cat", "care", "car"), suggester.suggest("c", 3),
+                "The three most common terms starting with 'c' should be suggested.");
+        assertEquals(List.of("care", "car", "card"), suggester.suggest("car", 3),
+                "A term equal to the prefix should be a completion, and ties go to dictionary order.");
+        assertEquals(List.of("care", "cared"), suggester.suggest("care", 3),
+                "Only the terms starting with 'care' should be suggested.");
+    }
+
+    /**
+     * Tests that the limit cuts off the stored completions and that it is checked.
+     */
+    @Test
+    public void testSuggestWithLimit() {
+        assertEquals(List.of("cat"), suggester.suggest("ca", 1), "Only the top completion should be returned.");
+        assertTrue(suggester.suggest("ca", 0).isEmpty(), "A limit of 0 should return nothing.");
+        assertThrows(IllegalArgumentException.class, () -> suggester.suggest("ca", 4),
+                "A limit above the depth should be rejected.");
+        assertThrows(IllegalArgumentException.class, () -> suggester.suggest("ca", -1),
+                "A negative limit should be rejected.");
+    }
+
+    /**
+     * Tests prefixes without completions.
+     */
+    @Test
+    public void testSuggestWithoutCompletions() {
+        assertTrue(suggester.suggest("cow", 3).isEmpty(), "No term starts with 'cow'.");
+        assertTrue(suggester.suggest("cards", 3).isEmpty(), "A prefix longer than every term has no completions.");
+        assertTrue(suggester.suggest("", 3).isEmpty(), "An empty prefix should have no completions.");
+        assertTrue(suggester.suggest(null, 3).isEmpty(), "A null prefix should have no completions.");
+    }
+
+    /**
+     * Tests the size of the trie: one node per distinct prefix plus the root.
+     */
+    @Test
+    public void testSize() {
+        assertEquals(7, suggester.size(), "All terms should be completed to.");
+        assertEquals(12, suggester.getNodeCount(), "The trie should share the nodes of common prefixes.");
+        assertEquals(3, suggester.getDepth(), "The depth should be kept.");
+    }
+
+    /**
+     * Tests that an invalid depth is rejected.
+     */
+    @Test
+    public void testInvalidDepth() {
+        assertThrows(IllegalArgumentException.class, () -> new Suggester(null, new String[0], new int[0], 0),
+                "A depth of 0 should be rejected.");
+    }
+
+    /**
+     * Tests which terms of the index can be suggested.
+     */
+    @Test
+    public void testIsSuggestible() {
+        assertTrue(Suggester.isSuggestible("word1"), "A word should be suggestible.");
+        assertFalse(Suggester.isSuggestible("*PAGE:http://page1.com"), "A *PAGE line should not be suggestible.");
+        assertFalse(Suggester.isSuggestible("World War II"), "A line with spaces should not be suggestible.");
+        assertFalse(Suggester.isSuggestible(""), "An empty line should not be suggestible.");
+    }
+
+    /**
+     * Tests a suggester built from the segments of a database.
+     *
+     * @throws IOException if the test file cannot be read.
+     */
+    @Test
+    public void testBuild() throws IOException {
+        Database database = new Database("data/test-file.txt");
+        Suggester built = Suggester.build(database.getSegments());
+        assertEquals(List.of("word1", "word3", "word2"), built.suggest("w", Suggester.DEFAULT_DEPTH),
+                "Words should be ranked by the number of pages containing them.");
+        assertTrue(built.suggest("*", Suggester.DEFAULT_DEPTH).isEmpty(), "*PAGE lines should be left out.");
+        assertTrue(built.isBuiltFrom(database.getSegments()), "The suggester should know its segments.");
+    }
+}
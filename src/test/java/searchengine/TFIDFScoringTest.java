@@ -8,7 +8,6 @@ import org.junit.jupiter.api.Test;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.Set;
 
 /**
  * Unit tests for the {@link TFIDFScoring} class.
@@ -42,13 +41,12 @@ public class TFIDFScoringTest {
         database = new Database(TEST_FILE_PATH.toAbsolutePath().toString());
         tfidfScoring = new TFIDFScoring();
 
-        for (Set<Page> pages : database.getDatabase().values()) {
-            for (Page page : pages) {
-                if (page.getUrl().equals("http://page1.com")) {
-                    page1 = page;
-                } else if (page.getUrl().equals("http://page4.com")) {
-                    page4 = page;
-                }
+        for (int pageId = 0; pageId < database.getTotalPages(); pageId++) {
+            Page page = database.getPage(pageId);
+            if (page.getUrl().equals("http://page1.com")) {
+                page1 = page;
+            } else if (page.getUrl().equals("http://page4.com")) {
+                page4 = page;
             }
         }
     }
@@ -112,4 +110,18 @@ public class TFIDFScoringTest {
         double expectedScore = 0.0;
         assertEquals(expectedScore, actualScore, 0.0001, "TF-IDF score for a non-existent word should be 0.");
     }
-}
\ No newline at end of file
+
+    /**
+     * Tests that the bound of page1's statistics for 'word1' is its score, and that a
+     * word missing from the body is bounded by 0.
+     */
+    @Test
+    public void testCalculateMaxScore() {
+        double expectedScore = tfidfScoring.calculateScore("word1", page1, database);
+        assertEquals(expectedScore, tfidfScoring.calculateMaxScore(page1.getWordFrequency("word1"),
+                page1.getTotalWords(), 0, 1, database.pagesWithWord("word1"), database), 0.0001,
+                "The bound of page1's statistics should be its score.");
+        assertEquals(0.0, tfidfScoring.calculateMaxScore(0, 0, 1, 1, 2, database), 0.0001,
+                "A word missing from the body should be bounded by 0.");
+    }
+}
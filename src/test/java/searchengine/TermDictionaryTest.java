@@ -0,0 +1,161 @@
+package searchengine;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the {@link TermDictionary} class.
+ * <p>
+ * This test class verifies exact lookups, prefix and range iteration over a dictionary
+ * spanning several front-coded blocks, and the code point order of terms.
+ * </p>
+ */
+class TermDictionaryTest {
+    private String[] terms;
+    private TermDictionary dictionary;
+
+    /**
+     * Builds a dictionary of 100 terms, enough for several blocks, before each test.
+     */
+    @BeforeEach
+    public void setup() {
+        List<String> words = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            words.add("war" + i);
+            words.add("wa" + i);
+        }
+        for (int i = 0; i < 20; i++) {
+            words.add("peace" + i);
+        }
+        terms = words.toArray(new String[0]);
+        TermDictionary.sort(terms);
+        dictionary = new TermDictionary(terms);
+    }
+
+    /**
+     * Tests that every term is found under its rank and decoded back, and that missing
+     * terms are not found.
+     */
+    @Test
+    public void testLookup() {
+        assertEquals(terms.length, dictionary.size(), "All terms should be in the dictionary.");
+        for (int termId = 0; termId < terms.length; termId++) {
+            assertEquals(termId, dictionary.getTermId(terms[termId]), "A term's ID should be its rank.");
+            assertEquals(terms[termId], dictionary.getTerm(termId), "A term should be decoded from its ID.");
+        }
+        assertEquals(-1, dictionary.getTermId("war"), "A prefix of terms should not be found.");
+        assertEquals(-1, dictionary.getTermId("a"), "A term before all terms should not be found.");
+        assertEquals(-1, dictionary.getTermId("zebra"), "A term after all terms should not be found.");
+        assertEquals(-1, dictionary.getTermId(null), "Null should not be found.");
+    }
+
+    /**
+     * Tests that prefix iteration returns exactly the terms with the prefix, in order.
+     */
+    @Test
+    public void testPrefixIterator() {
+        assertEquals(collect(t -> t.startsWith("war")), iterate(dictionary.prefixIterator("war")),
+                "The prefix 'war' should match all terms starting with it.");
+        assertEquals(collect(t -> t.startsWith("war1")), iterate(dictionary.prefixIterator("war1")),
+                "The prefix 'war1' should match 'war1' and 'war10' to 'war19'.");
+        assertTrue(iterate(dictionary.prefixIterator("x")).isEmpty(), "No term should start with 'x'.");
+        assertEquals(terms.length, iterate(dictionary.prefixIterator("")).size(),
+                "The empty prefix should match all terms.");
+    }
+
+    /**
+     * Tests that range iteration returns the terms from the lower bound up to, but not
+     * including, the upper bound.
+     */
+    @Test
+    public void testRangeIterator() {
+        assertEquals(collect(t -> TermDictionary.compare(t, "peace5") >= 0 && TermDictionary.compare(t, "wa2") < 0),
+                iterate(dictionary.rangeIterator("peace5", "wa2")), "The range should include its lower bound only.");
+        assertEquals(terms.length, iterate(dictionary.rangeIterator(null, null)).size(),
+                "An open range should contain all terms.");
+        assertTrue(iterate(dictionary.rangeIterator("war", "peace")).isEmpty(), "A reversed range should be empty.");
+        assertEquals(dictionary.getTermId("war0"), dictionary.ceiling("war"),
+                "The ceiling of 'war' should be the first term after it.");
+        assertEquals(terms.length, dictionary.ceiling("zebra"), "Nothing should follow the last term.");
+    }
+
+    /**
+     * Tests that seeking moves forward to the first term not smaller than the key, across
+     * blocks and within the range of the iterator.
+     */
+    @Test
+    public void testSeekCeiling() {
+        TermDictionary.TermIterator iterator = dictionary.iterator(0, dictionary.size());
+        assertTrue(iterator.next(), "The dictionary should not be empty.");
+        assertTrue(iterator.seekCeiling("wa2"), "'wa2' should be found.");
+        assertEquals("wa2", iterator.term(), "Seeking to a term should land on it.");
+        assertTrue(iterator.seekCeiling("war"), "A term should follow 'war'.");
+        assertEquals("war0", iterator.term(), "Seeking to a missing term should land on the next one.");
+        assertEquals(dictionary.getTermId("war0"), iterator.termId(), "The term ID should follow the seek.");
+        assertTrue(iterator.next(), "Iteration should continue after a seek.");
+        assertEquals("war1", iterator.term(), "Iteration should continue from the term found.");
+        assertFalse(iterator.seekCeiling("zebra"), "Nothing should follow the last term.");
+
+        TermDictionary.TermIterator range = dictionary.rangeIterator("peace0", "wa0");
+        assertFalse(range.seekCeiling("wa5"), "Seeking should stop at the end of the range.");
+    }
+
+    /**
+     * Tests that terms are ordered by code point, so characters outside the Basic
+     * Multilingual Plane sort after all others, and that unsorted terms are rejected.
+     */
+    @Test
+    public void testOrder() {
+        String[] unicode = { "😀", "Ａ", "a" };
+        TermDictionary.sort(unicode);
+        assertArrayEquals(new String[] { "a", "Ａ", "😀" }, unicode,
+                "Supplementary characters should sort after all BMP characters.");
+        TermDictionary unicodeDictionary = new TermDictionary(unicode);
+        assertEquals(2, unicodeDictionary.getTermId("😀"), "Supplementary characters should be found.");
+
+        assertThrows(IllegalArgumentException.class, () -> new TermDictionary(new String[] { "b", "a" }),
+                "Unsorted terms should be rejected.");
+        assertThrows(IllegalArgumentException.class, () -> new TermDictionary(new String[] { "a", "a" }),
+                "Duplicate terms should be rejected.");
+    }
+
+    /**
+     * Collects the terms of the dictionary accepted by a filter.
+     *
+     * @param filter the filter.
+     * @return the accepted terms, in dictionary order.
+     */
+    private List<String> collect(Predicate<String> filter) {
+        List<String> result = new ArrayList<>();
+        for (String term : terms) {
+            if (filter.test(term)) {
+                result.add(term);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Collects the terms of an iterator, checking that their IDs are consecutive.
+     *
+     * @param iterator the iterator.
+     * @return the terms, in order.
+     */
+    private List<String> iterate(TermDictionary.TermIterator iterator) {
+        List<String> result = new ArrayList<>();
+        int previous = -1;
+        while (iterator.next()) {
+            assertTrue(previous < 0 || iterator.termId() == previous + 1, "Term IDs should be consecutive.");
+            previous = iterator.termId();
+            result.add(iterator.term());
+            assertEquals(iterator.termId(), dictionary.getTermId(iterator.term()), "The ID should match the term.");
+        }
+        return result;
+    }
+}
@@ -0,0 +1,48 @@
+package searchengine;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the {@link TermImpacts} class.
+ * <p>
+ * This test class verifies that only the pairs of frequency and length that no other
+ * pair beats on both counts are kept, and that the pairs of several terms are flattened
+ * in term order.
+ * </p>
+ */
+class TermImpactsTest {
+    /**
+     * Tests that dominated pairs are dropped and the rest are ordered by length.
+     */
+    @Test
+    public void testCompute() {
+        int[] lengths = { 10, 4, 4, 20, 7, 30 };
+        int[] pageIds = { 0, 1, 2, 3, 4, 5 };
+        int[] frequencies = { 3, 1, 2, 5, 2, 5 };
+        long[] impacts = TermImpacts.compute(pageIds, frequencies, pageIds.length, lengths);
+        assertArrayEquals(new long[] { 2L << 32 | 4, 3L << 32 | 10, 5L << 32 | 20 }, impacts,
+                "Only the best frequency of each shorter length should be kept.");
+        assertEquals(0, TermImpacts.compute(pageIds, frequencies, 0, lengths).length,
+                "An empty list should have no impacts.");
+    }
+
+    /**
+     * Tests that the pairs of every term are found between its offsets.
+     */
+    @Test
+    public void testBuild() {
+        int[] lengths = { 2, 5, 1 };
+        TermImpacts impacts = TermImpacts.build(new int[][] { { 0, 1 }, { 2 } }, new int[][] { { 1, 4 }, { 1 } },
+                lengths);
+        assertEquals(2, impacts.size(), "There should be one entry per term.");
+        assertEquals(3, impacts.getPairCount(), "Both pairs of the first term should be kept.");
+        assertEquals(0, impacts.getStart(0), "The first term should start at 0.");
+        assertEquals(2, impacts.getEnd(0), "The first term should have 2 pairs.");
+        assertEquals(4, impacts.getFrequency(1), "The longer page should have the higher frequency.");
+        assertEquals(5, impacts.getLength(1), "The pair should hold the length of the longer page.");
+        assertEquals(1, impacts.getLength(impacts.getStart(1)), "The second term should hold its page's length.");
+        assertEquals(0, TermImpacts.of(new long[0][]).size(), "No terms should give empty impacts.");
+    }
+}
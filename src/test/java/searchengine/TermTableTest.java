@@ -0,0 +1,49 @@
+package searchengine;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the {@link TermTable} class.
+ * <p>
+ * This test class verifies that terms receive dense IDs in order of first appearance
+ * and that lookups of known terms return the existing ID.
+ * </p>
+ */
+class TermTableTest {
+
+    /**
+     * Tests that IDs are dense, stable, and that strings are decoded correctly,
+     * including for multi-byte characters.
+     */
+    @Test
+    public void testAddAssignsDenseIds() {
+        ByteBuffer buffer = ByteBuffer.wrap("word1\nwørd2\nword1".getBytes(StandardCharsets.UTF_8));
+        TermTable table = new TermTable();
+
+        assertEquals(0, table.add(buffer, 0, 5), "First term should get ID 0.");
+        assertEquals(1, table.add(buffer, 6, 6), "Second term should get ID 1.");
+        assertEquals(0, table.add(buffer, 13, 5), "Repeated term should keep its ID.");
+        assertEquals(2, table.size(), "Table should hold two distinct terms.");
+        assertEquals("wørd2", table.get(1), "Multi-byte term should be decoded as UTF-8.");
+    }
+
+    /**
+     * Tests that the table keeps working while it grows past its initial capacity.
+     */
+    @Test
+    public void testAddManyTerms() {
+        TermTable table = new TermTable();
+        for (int i = 0; i < 10000; i++) {
+            ByteBuffer buffer = ByteBuffer.wrap(("term" + i).getBytes(StandardCharsets.UTF_8));
+            assertEquals(i, table.add(buffer, 0, buffer.limit()), "New term should get the next ID.");
+        }
+        ByteBuffer buffer = ByteBuffer.wrap("term1234".getBytes(StandardCharsets.UTF_8));
+        assertEquals(1234, table.add(buffer, 0, buffer.limit()), "Known term should be found after growth.");
+        assertEquals("term9999", table.get(9999), "Last term should be retrievable.");
+    }
+}
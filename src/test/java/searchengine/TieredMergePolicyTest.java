@@ -0,0 +1,117 @@
+package searchengine;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the {@link TieredMergePolicy} class.
+ * <p>
+ * This test class verifies how segments are assigned to size tiers and which adjacent
+ * segments are chosen for merging.
+ * </p>
+ */
+class TieredMergePolicyTest {
+    private static final Path TEST_FILE_PATH = Paths.get("src/test/java/searchengine/resources/test-file.txt");
+    private Segment small;
+    private Segment large;
+
+    /**
+     * Builds a small segment from the test file and a larger one by merging copies of it.
+     *
+     * @throws IOException if the test file cannot be read.
+     */
+    @BeforeEach
+    public void setup() throws IOException {
+        small = new SegmentBuilder(new IndexConfig()).build(TEST_FILE_PATH);
+        large = new SegmentBuilder(new IndexConfig()).merge(List.of(small, small, small));
+    }
+
+    /**
+     * Tests that segments are put into tiers growing by the merge factor.
+     */
+    @Test
+    public void testTiers() {
+        TieredMergePolicy policy = new TieredMergePolicy(2, 4);
+        assertEquals(0, policy.tier(3), "Segments below the minimum size should be in tier 0.");
+        assertEquals(1, policy.tier(4), "Segments of the minimum size should be in tier 1.");
+        assertEquals(1, policy.tier(7), "Segments below twice the minimum size should be in tier 1.");
+        assertEquals(2, policy.tier(8), "Segments of twice the minimum size should be in tier 2.");
+    }
+
+    /**
+     * Tests that no merge is chosen while no tier has enough adjacent segments.
+     */
+    @Test
+    public void testNoMergeBelowMergeFactor() {
+        TieredMergePolicy policy = new TieredMergePolicy(3, 10);
+        assertNull(policy.findMerge(List.of(small, small)), "Two segments should not be merged with factor 3.");
+        assertNull(policy.findMerge(List.of(small, large, small)), "Segments of a tier should have to be adjacent.");
+    }
+
+    /**
+     * Tests that the first run of the lowest tier is merged, and only as many segments as
+     * the merge factor.
+     */
+    @Test
+    public void testMergesLowestTierFirst() {
+        TieredMergePolicy policy = new TieredMergePolicy(2, 5);
+        List<Segment> segments = new ArrayList<>(List.of(large, large, small, small, small));
+        assertArrayEquals(new int[] { 2, 4 }, policy.findMerge(segments), "The small segments should merge first.");
+    }
+
+    /**
+     * Tests that a segment is rewritten on its own once enough of its pages are deleted,
+     * but only when no tier needs a merge.
+     *
+     * @throws IOException if the test file cannot be read.
+     */
+    @Test
+    public void testRewritesSegmentWithDeletions() throws IOException {
+        TieredMergePolicy policy = new TieredMergePolicy(2, 5);
+        Segment deleted = new SegmentBuilder(new IndexConfig()).merge(List.of(small, small));
+        assertNull(policy.findMerge(List.of(large, deleted)), "A segment without deletions should be kept.");
+        deleted.delete(0);
+        assertNull(policy.findMerge(List.of(large, deleted)), "One deleted page in eight should not be enough.");
+        deleted.delete(1);
+        assertArrayEquals(new int[] { 1, 2 }, policy.findMerge(List.of(large, deleted)),
+                "A segment with a quarter of its pages deleted should be rewritten.");
+        assertArrayEquals(new int[] { 1, 3 }, policy.findMerge(List.of(large, small, small, deleted)),
+                "Merging a tier should come first.");
+    }
+
+    /**
+     * Tests that segments are put into tiers by their live pages, so a segment that lost
+     * half of its pages to deletions merges with segments of its new size.
+     */
+    @Test
+    public void testTiersCountLivePages() {
+        TieredMergePolicy policy = new TieredMergePolicy(2, 5);
+        Segment shrunk = new SegmentBuilder(new IndexConfig()).merge(List.of(small, small));
+        for (int pageId = 0; pageId < small.getTotalPages(); pageId++) {
+            shrunk.delete(pageId);
+        }
+        Segment purged = new SegmentBuilder(new IndexConfig()).merge(List.of(shrunk));
+        assertEquals(8, purged.getTotalPages(), "Purged pages should keep their page IDs.");
+        assertArrayEquals(new int[] { 0, 2 }, policy.findMerge(List.of(purged, small)),
+                "A segment with 4 live pages should be in the tier of the small segment.");
+    }
+
+    /**
+     * Tests that invalid parameters are rejected.
+     */
+    @Test
+    public void testInvalidParameters() {
+        assertThrows(IllegalArgumentException.class, () -> new TieredMergePolicy(1, 10),
+                "A merge factor below 2 should be rejected.");
+        assertThrows(IllegalArgumentException.class, () -> new TieredMergePolicy(2, 0),
+                "A minimum size below 1 should be rejected.");
+    }
+}
@@ -0,0 +1,83 @@
+package searchengine;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the {@link TitleIndex} class.
+ * <p>
+ * This test class verifies how titles are split into words, and that the posting lists,
+ * frequencies and lengths of the title index match the titles it was built from.
+ * </p>
+ */
+class TitleIndexTest {
+    private TitleIndex index;
+
+    /**
+     * Builds a title index over four pages before each test, including a page without a
+     * title line.
+     */
+    @BeforeEach
+    public void setup() {
+        String[] lines = {
+                "*PAGE:http://page1.com", "World War II",
+                "*PAGE:http://page2.com", null,
+                "*PAGE:http://page3.com", "War and Peace (novel)",
+                "*PAGE:http://page4.com", "war, war" };
+        ByteList data = new ByteList();
+        int[] offsets = new int[lines.length / 2 + 1];
+        for (int i = 0; i < lines.length; i += 2) {
+            offsets[i / 2] = data.size();
+            DocumentStore.addDocument(lines[i], lines[i + 1], data);
+        }
+        offsets[lines.length / 2] = data.size();
+        index = TitleIndex.build(new DocumentStore(ByteBuffer.wrap(data.toArray()), offsets));
+    }
+
+    /**
+     * Tests that titles are split into lower-case words at every character that is not a
+     * letter or digit.
+     */
+    @Test
+    public void testTokenize() {
+        assertEquals(List.of("war", "and", "peace", "novel"), TitleIndex.tokenize("War and Peace (novel)"),
+                "Punctuation should separate words and words should be lower case.");
+        assertEquals(List.of("zürich", "1999"), TitleIndex.tokenize("Zürich 1999"),
+                "Non-ASCII letters and digits should be kept.");
+        assertTrue(TitleIndex.tokenize(null).isEmpty(), "A missing title should have no words.");
+        assertTrue(TitleIndex.tokenize(" - ").isEmpty(), "A title without letters should have no words.");
+    }
+
+    /**
+     * Tests the posting list and frequencies of a word that occurs in several titles.
+     */
+    @Test
+    public void testPostingsAndFrequencies() {
+        int termId = index.getTermId("war");
+        assertTrue(termId >= 0, "'war' should be in the title index.");
+        assertEquals(3, index.getDocumentFrequency(termId), "Three titles contain 'war'.");
+        assertArrayEquals(new int[] { 0, 2, 3 }, index.getPostings(termId), "The pages should be in order.");
+        assertArrayEquals(new int[] { 1, 1, 2 }, index.getFrequencies(termId), "The last title has 'war' twice.");
+        assertEquals(2, index.getTermFrequency(termId, 3), "The frequency should be looked up by page.");
+        assertEquals(0, index.getTermFrequency(termId, 1), "A page without the word should have frequency 0.");
+        assertEquals(-1, index.getTermId("War"), "Title words are stored in lower case.");
+        assertEquals(-1, index.getTermId("world war"), "Titles are split into words.");
+    }
+
+    /**
+     * Tests the title lengths and their total.
+     */
+    @Test
+    public void testLengths() {
+        assertEquals(3, index.getLength(0), "'World War II' has three words.");
+        assertEquals(0, index.getLength(1), "A page without title has no title words.");
+        assertEquals(4, index.getLength(2), "'War and Peace (novel)' has four words.");
+        assertEquals(9, index.getTotalLength(), "All titles together have nine words.");
+        assertEquals(6, index.size(), "There are six distinct title words.");
+    }
+}
@@ -0,0 +1,83 @@
+package searchengine;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the {@link TopScoreCollector} class.
+ * <p>
+ * This test class verifies that the collector keeps the best pages in order, breaks ties
+ * by page ID whatever order the pages come in, and rejects a negative count.
+ * </p>
+ */
+class TopScoreCollectorTest {
+    private TopScoreCollector collector;
+
+    /**
+     * Creates a collector keeping three pages.
+     */
+    @BeforeEach
+    public void setup() {
+        collector = new TopScoreCollector(3);
+    }
+
+    /**
+     * Tests that the best three pages are kept, from the highest to the lowest score, with
+     * equal scores ordered by page ID even when the higher ID comes first.
+     */
+    @Test
+    public void testKeepsBestPages() {
+        collector.collect(9, 1.0);
+        collector.collect(4, 2.0);
+        collector.collect(7, 0.5);
+        collector.collect(2, 1.0);
+        collector.collect(5, 0.1);
+        assertEquals(3, collector.size(), "At most three pages should be kept.");
+        assertArrayEquals(new int[] { 4, 2, 9 }, collector.getPageIds(),
+                "Page 2 should rank above page 9 with the same score.");
+        assertEquals(0, collector.size(), "Listing the pages should empty the collector.");
+    }
+
+    /**
+     * Tests that random scores are selected as by sorting all of them.
+     */
+    @Test
+    public void testMatchesSort() {
+        Random random = new Random(3);
+        Integer[] pageIds = new Integer[1000];
+        double[] scores = new double[pageIds.length];
+        TopScoreCollector top = new TopScoreCollector(50);
+        for (int i = 0; i < pageIds.length; i++) {
+            pageIds[i] = i;
+            scores[i] = random.nextInt(100) / 10.0;
+        }
+        for (int i = pageIds.length - 1; i >= 0; i--) {
+            top.collect(i, scores[i]);
+        }
+        Arrays.sort(pageIds, Comparator.comparingDouble((Integer i) -> -scores[i]).thenComparing(i -> i));
+        int[] expected = new int[50];
+        for (int i = 0; i < expected.length; i++) {
+            expected[i] = pageIds[i];
+        }
+        assertArrayEquals(expected, top.getPageIds(), "The collector should keep the first 50 of the sort.");
+    }
+
+    /**
+     * Tests that a collector of no pages keeps nothing, and that a negative count is
+     * rejected.
+     */
+    @Test
+    public void testEmptyAndInvalidCount() {
+        TopScoreCollector empty = new TopScoreCollector(0);
+        empty.collect(1, 1.0);
+        assertEquals(0, empty.getPageIds().length, "A collector of no pages should keep nothing.");
+        assertThrows(IllegalArgumentException.class, () -> new TopScoreCollector(-1),
+                "A negative count should be rejected.");
+    }
+}
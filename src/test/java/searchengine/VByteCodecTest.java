@@ -0,0 +1,45 @@
+package searchengine;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.ByteBuffer;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the {@link VByteCodec} class.
+ * <p>
+ * This test class verifies that blocks survive an encode/decode round trip and that
+ * small values take a single byte.
+ * </p>
+ */
+class VByteCodecTest {
+
+    /**
+     * Tests that values of every size, including zero and the largest int, decode to the
+     * values that were encoded, and that the returned offset is the end of the block.
+     */
+    @Test
+    public void testRoundTrip() {
+        int[] values = { 0, 1, 127, 128, 16383, 16384, 1 << 28, Integer.MAX_VALUE };
+        ByteList out = new ByteList();
+        VByteCodec codec = new VByteCodec();
+        codec.encode(values, values.length, out);
+
+        int[] decoded = new int[values.length];
+        int end = codec.decode(ByteBuffer.wrap(out.toArray()), 0, decoded, values.length);
+        assertArrayEquals(values, decoded, "Decoded values should match the encoded values.");
+        assertEquals(out.size(), end, "Decoding should end at the end of the block.");
+    }
+
+    /**
+     * Tests that values below 128 are stored in one byte each.
+     */
+    @Test
+    public void testSmallValuesTakeOneByte() {
+        int[] values = { 1, 2, 3, 127 };
+        ByteList out = new ByteList();
+        new VByteCodec().encode(values, values.length, out);
+        assertEquals(4, out.size(), "Each small value should take one byte.");
+    }
+}
@@ -202,6 +202,47 @@ public class WebServerTest {
         server.stop(0);
     }
 
+    /**
+     * Tests that the {@code k} parameter limits the results, both for TF-IDF and for
+     * other algorithms, and that the best page comes first.
+     *
+     * @throws IOException        if an I/O error occurs while interacting with the
+     *                            server.
+     * @throws URISyntaxException if the URI for the HTTP request is invalid.
+     */
+    @Test
+    public void testFetchSearchResultsWithResultCount() throws IOException, URISyntaxException {
+        HttpServer server = HttpServer.create(new InetSocketAddress(0), 0);
+        server.createContext("/search", webServer::respondToClient);
+        server.start();
+
+        int port = server.getAddress().getPort();
+        for (String algorithm : List.of("TFIDF", "BM25")) {
+            URI uri = new URI("http", null, "localhost", port, "/search", "q=word1&algorithm=" + algorithm + "&k=1",
+                    null);
+            HttpURLConnection connection = (HttpURLConnection) uri.toURL().openConnection();
+            String response = new String(connection.getInputStream().readAllBytes(), CHARSET);
+            assertEquals("[{\"url\": \"http://page1.com\", \"title\": \"title1\"}]", response,
+                    algorithm + ": only the best page for 'word1' should be returned.");
+        }
+        URI uri = new URI("http", null, "localhost", port, "/search", "q=word1&algorithm=BM25&k=2147483647", null);
+        HttpURLConnection connection = (HttpURLConnection) uri.toURL().openConnection();
+        assertEquals(200, connection.getResponseCode(), "A huge count should be capped, not fail.");
+        String response = new String(connection.getInputStream().readAllBytes(), CHARSET);
+        assertTrue(response.contains("http://page4.com"), "A huge count should return every matching page.");
+        for (String count : List.of("0", "-3", "ten")) {
+            uri = new URI("http", null, "localhost", port, "/search", "q=word1&algorithm=TFIDF&k=" + count, null);
+            connection = (HttpURLConnection) uri.toURL().openConnection();
+            assertEquals(400, connection.getResponseCode(), "A count of " + count + " should be a bad request.");
+            assertTrue(connection.getContentType().startsWith("text/plain"),
+                    "The reason for a bad request should be plain text.");
+            String reason = new String(connection.getErrorStream().readAllBytes(), CHARSET);
+            assertTrue(reason.contains(count), "The reason should name the invalid count " + count + ".");
+        }
+
+        server.stop(0);
+    }
+
     /**
      * Tests the {@code fetchSearchResults} method with an invalid query.
      *
@@ -233,4 +274,74 @@ public class WebServerTest {
 
         server.stop(0);
     }
-}
\ No newline at end of file
+
+    /**
+     * Tests the {@code /suggest} endpoint with a prefix, a percent-encoded prefix and
+     * without a prefix.
+     *
+     * @throws IOException        if an I/O error occurs while interacting with the
+     *                            server.
+     * @throws URISyntaxException if the URI for the HTTP request is invalid.
+     */
+    @Test
+    public void testFetchSuggestions() throws IOException, URISyntaxException {
+        HttpServer server = HttpServer.create(new InetSocketAddress(0), 0);
+        server.createContext("/suggest", webServer::respondToSuggest);
+        server.start();
+
+        int port = server.getAddress().getPort();
+        String[][] cases = {
+                { "prefix=wor", "[\"word1\", \"word3\", \"word2\"]" },
+                { "prefix=%77ord2", "[\"word2\"]" },
+                { "prefix=xyz", "[]" },
+                { "q=word1", "[]" } };
+        for (String[] testCase : cases) {
+            URL url = new URI("http://localhost:" + port + "/suggest?" + testCase[0]).toURL();
+            HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+            assertEquals(200, connection.getResponseCode(), "Expected HTTP 200 status code for " + testCase[0]);
+            String response = new String(connection.getInputStream().readAllBytes(), CHARSET);
+            assertEquals(testCase[1], response, "Unexpected suggestions for " + testCase[0]);
+        }
+
+        server.stop(0);
+    }
+
+    /**
+     * Tests that quotes and backslashes in suggestions are escaped.
+     */
+    @Test
+    public void testFormatSuggestionsEscapes() {
+        byte[] response = webServer.formatSuggestions(List.of("a\"b", "c\\d"));
+        assertEquals("[\"a\\\"b\", \"c\\\\d\"]", new String(response, CHARSET),
+                "Quotes and backslashes should be escaped.");
+    }
+
+    /**
+     * Tests that the metrics endpoint reports the fuzzy and wildcard expansions made by
+     * searches.
+     *
+     * @throws IOException        if an I/O error occurs while interacting with the
+     *                            server.
+     * @throws URISyntaxException if the URI for the HTTP request is invalid.
+     */
+    @Test
+    public void testRespondToMetrics() throws IOException, URISyntaxException {
+        searchEngine.search(new QueryParser().parseGroups("word*"), false);
+        searchEngine.search(new QueryParser().parseGroups("*rd1%20wrd1~1"), false);
+
+        HttpServer server = HttpServer.create(new InetSocketAddress(0), 0);
+        server.createContext("/metrics", webServer::respondToMetrics);
+        server.start();
+
+        URL url = new URI("http://localhost:" + server.getAddress().getPort() + "/metrics").toURL();
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        assertEquals(200, connection.getResponseCode(), "Expected HTTP 200 status code.");
+        String response = new String(connection.getInputStream().readAllBytes(), CHARSET);
+        assertTrue(response.startsWith("{\"fuzzy\": {\"expansions\": 1, "), "One fuzzy expansion should be reported.");
+        assertTrue(response.contains("\"wildcard\": {\"expansions\": 2, \"capped\": 0, "),
+                "Two wildcard expansions should be reported.");
+        assertTrue(response.contains("\"termsKept\": 4, "), "'word*' and '*rd1' should keep four words in total.");
+
+        server.stop(0);
+    }
+}
@@ -0,0 +1,60 @@
+package searchengine;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the {@link WildcardPattern} class.
+ * <p>
+ * This test class verifies matching with wildcards at the start, in the middle and at
+ * the end of a pattern, and the prefix and k-grams used to find the candidates of a
+ * pattern.
+ * </p>
+ */
+class WildcardPatternTest {
+
+    /**
+     * Tests matching terms against patterns with wildcards in every position.
+     */
+    @Test
+    public void testMatches() {
+        assertTrue(new WildcardPattern("astro*").matches("astronomy"), "A prefix pattern should match.");
+        assertTrue(new WildcardPattern("astro*").matches("astro"), "A wildcard should match no characters.");
+        assertFalse(new WildcardPattern("astro*").matches("gastro"), "The prefix should start the term.");
+        assertTrue(new WildcardPattern("*logy").matches("biology"), "A suffix pattern should match.");
+        assertFalse(new WildcardPattern("*logy").matches("logyx"), "The suffix should end the term.");
+        assertTrue(new WildcardPattern("a*ism").matches("anachronism"), "An infix wildcard should match.");
+        assertFalse(new WildcardPattern("a*ism").matches("aism2"), "The term should end with 'ism'.");
+        assertTrue(new WildcardPattern("*str*").matches("astronomy"), "A middle part should match anywhere.");
+        assertTrue(new WildcardPattern("a*b*a").matches("abba"), "Later parts should be retried further on.");
+        assertFalse(new WildcardPattern("a*b*a").matches("abab"), "The last part should end the term.");
+        assertTrue(new WildcardPattern("a**b").matches("ab"), "Consecutive wildcards should act as one.");
+    }
+
+    /**
+     * Tests the literal prefix of patterns.
+     */
+    @Test
+    public void testGetPrefix() {
+        assertEquals("astro", new WildcardPattern("astro*").getPrefix(), "The prefix should end at the wildcard.");
+        assertEquals("a", new WildcardPattern("a*ism").getPrefix(), "Only the first part should be the prefix.");
+        assertEquals("", new WildcardPattern("*logy").getPrefix(), "A leading wildcard should leave no prefix.");
+    }
+
+    /**
+     * Tests the k-grams of patterns, with the start and end of the term marked.
+     */
+    @Test
+    public void testGetGrams() {
+        assertEquals(List.of("log", "ogy", "gy$"), new WildcardPattern("*logy").getGrams(3),
+                "The last part should be marked as the end of the term.");
+        assertEquals(List.of("$ab", "ism", "sm$"), new WildcardPattern("ab*ism").getGrams(3),
+                "The first part should be marked as the start of the term.");
+        assertEquals(List.of("str"), new WildcardPattern("*str*").getGrams(3),
+                "A middle part should not be marked.");
+        assertTrue(new WildcardPattern("*a*").getGrams(3).isEmpty(), "Parts shorter than k should give no k-grams.");
+    }
+}
@@ -41,6 +41,37 @@ function getSelectedAlgorithm() {
     return null; // Return null if no button is selected
 }
 
+/* Function to suggest completions of the last word typed in the search box */
+let suggestTimer = null;
+function triggerSuggest() {
+    clearTimeout(suggestTimer);
+    suggestTimer = setTimeout(() => {
+        const query = document.getElementById('searchbox').value;
+        const start = query.lastIndexOf(' ') + 1;
+        const prefix = query.substring(start);
+        const list = document.getElementById('suggestions');
+
+        if (prefix === "") {
+            list.innerHTML = "";
+            return;
+        }
+        fetch(`/suggest?prefix=${encodeURIComponent(prefix)}`)
+            .then(response => response.json())
+            .then(words => {
+                // Ignore answers that arrive after the search box has changed again
+                if (document.getElementById('searchbox').value !== query) {
+                    return;
+                }
+                list.innerHTML = "";
+                for (const word of words) {
+                    const option = document.createElement('option');
+                    option.value = query.substring(0, start) + word;
+                    list.appendChild(option);
+                }
+            });
+    }, 50);
+}
+
 // Event listener for 'searchbutton' interaction
 document.getElementById('searchbutton').onclick = triggerSearch;
 document.getElementById('searchbox').addEventListener('keydown', (event) => {
@@ -48,6 +79,7 @@ document.getElementById('searchbox').addEventListener('keydown', (event) => {
         triggerSearch(); // Trigger the search action
     }
 });
+document.getElementById('searchbox').addEventListener('input', triggerSuggest);
 
 // JavaScript to generate the falling snowflakes
 const matrixContainer = document.querySelector('.matrix');